@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.api.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, time-limited cache of the permission decisions of a session, so that an expensive {@link
+ * User#hasPermission(String, String)} call is not repeated for every secured block of every page.
+ * <p>
+ * Cached decisions are discarded when the {@link User#getPermissionsVersion() permissions version} of the user
+ * changes. Hits and misses are recorded in the {@link PermissionCacheStatistics} of the app which the session
+ * belongs to.
+ *
+ * @since 1.0.0
+ */
+public class PermissionCache {
+
+    private static final long MAX_SIZE = Long.getLong("uuf.permissionCache.maxSize", 256);
+    private static final long TIME_TO_LIVE = Long.getLong("uuf.permissionCache.timeToLive", 300); // seconds
+
+    private final Cache<String, Boolean> decisions;
+    private volatile long permissionsVersion;
+
+    PermissionCache(long permissionsVersion) {
+        this.decisions = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumSize(MAX_SIZE)
+                .expireAfterWrite(TIME_TO_LIVE, TimeUnit.SECONDS)
+                .build();
+        this.permissionsVersion = permissionsVersion;
+    }
+
+    boolean hasPermission(User user, String resourceUri, String action, PermissionCacheStatistics statistics) {
+        long currentPermissionsVersion = user.getPermissionsVersion();
+        if (currentPermissionsVersion != permissionsVersion) {
+            decisions.invalidateAll();
+            permissionsVersion = currentPermissionsVersion;
+        }
+
+        String key = resourceUri + '\n' + action;
+        Boolean decision = decisions.getIfPresent(key);
+        if (decision != null) {
+            if (statistics != null) {
+                statistics.recordSessionHit();
+            }
+            return decision;
+        }
+        if (statistics != null) {
+            statistics.recordMiss();
+        }
+        boolean hasPermission = user.hasPermission(resourceUri, action);
+        decisions.put(key, hasPermission);
+        return hasPermission;
+    }
+
+    void invalidateAll() {
+        decisions.invalidateAll();
+    }
+}
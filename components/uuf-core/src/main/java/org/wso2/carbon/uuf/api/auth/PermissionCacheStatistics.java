@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.api.auth;
+
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counts of the permission decisions of an app, i.e. of the per-request decisions and the {@link
+ * PermissionCache}s of the sessions of that app.
+ *
+ * @since 1.0.0
+ */
+public class PermissionCacheStatistics {
+
+    private final LongAdder requestHits = new LongAdder();
+    private final LongAdder sessionHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Records a permission decision which was reused within the same request without consulting a session cache.
+     */
+    public void recordRequestHit() {
+        requestHits.increment();
+    }
+
+    void recordSessionHit() {
+        sessionHits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * @return number of permission decisions reused within the same request
+     */
+    public long getRequestHitCount() {
+        return requestHits.sum();
+    }
+
+    /**
+     * @return number of permission decisions served from session caches
+     */
+    public long getSessionHitCount() {
+        return sessionHits.sum();
+    }
+
+    /**
+     * @return number of permission decisions made by calling {@link User#hasPermission(String, String)}
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return ratio of permission decisions which did not call {@link User#hasPermission(String, String)}, or {@code
+     * 1.0} if no decision is made yet
+     */
+    public double getHitRate() {
+        long hits = getRequestHitCount() + getSessionHitCount();
+        long total = hits + getMissCount();
+        return (total == 0) ? 1.0 : ((double) hits / total);
+    }
+
+    @Override
+    public String toString() {
+        return "{\"requestHits\": " + getRequestHitCount() + ", \"sessionHits\": " + getSessionHitCount() +
+                ", \"misses\": " + getMissCount() + "}";
+    }
+}
@@ -22,10 +22,15 @@ import org.wso2.carbon.uuf.core.Theme;
 import org.wso2.carbon.uuf.spi.auth.User;
 
 import java.io.Serializable;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides a way to identify a user across more than one page request or visit to a Web site and to store information
@@ -38,20 +43,46 @@ import java.util.concurrent.ThreadLocalRandom;
 public class Session implements Serializable {
 
     /**
-     * Number of bytes in a session ID.
+     * Number of bytes in a hex encoded session ID, i.e. half of the number of characters in a session ID.
+     *
+     * @see #SESSION_ID_RANDOM_BYTES
      */
     public static final int SESSION_ID_LENGTH = 16;
-    private static final SessionIdGenerator sessionIdGenerator = new SessionIdGenerator(SESSION_ID_LENGTH);
+    /**
+     * Number of random bytes in a session ID. A session ID is the URL-safe Base64 encoding of these bytes, hence it
+     * has {@code SESSION_ID_RANDOM_BYTES * 4 / 3} characters, the same as a hex encoded ID of
+     * {@link #SESSION_ID_LENGTH} bytes.
+     */
+    public static final int SESSION_ID_RANDOM_BYTES = 24;
+    private static final int SESSION_ID_CHARACTERS = SESSION_ID_RANDOM_BYTES * 4 / 3;
+    private static final SessionIdGenerator sessionIdGenerator = new SessionIdGenerator(SESSION_ID_RANDOM_BYTES);
 
     private final String sessionId;
     private final User user;
     private String themeName;
+    private transient volatile PermissionCache permissionCache;
+    private transient volatile boolean isModified;
 
     public Session(User user) {
         this.sessionId = sessionIdGenerator.generateId();
         this.user = user;
     }
 
+    /**
+     * Restores a session with the specified ID, e.g. a session which is decoded from a session cookie.
+     *
+     * @param sessionId ID of the session
+     * @param user      user of the session
+     * @exception IllegalArgumentException if the session ID is invalid
+     */
+    public Session(String sessionId, User user) {
+        if (!isValidSessionId(sessionId)) {
+            throw new IllegalArgumentException("Session ID '" + sessionId + "' is invalid.");
+        }
+        this.sessionId = sessionId;
+        this.user = user;
+    }
+
     public String getSessionId() {
         return sessionId;
     }
@@ -60,6 +91,39 @@ public class Session implements Serializable {
         return user;
     }
 
+    /**
+     * Returns whether the user of this session has the specified permission. Decisions are cached in this session.
+     *
+     * @param resourceUri URI of the resource
+     * @param action      action on the resource
+     * @return {@code true} if the user has the permission, otherwise {@code false}
+     * @see PermissionCache
+     */
+    public boolean hasPermission(String resourceUri, String action) {
+        return hasPermission(resourceUri, action, null);
+    }
+
+    /**
+     * Returns whether the user of this session has the specified permission, and records whether the decision was
+     * served from the cache of this session.
+     *
+     * @param resourceUri URI of the resource
+     * @param action      action on the resource
+     * @param statistics  statistics of the app which this session belongs to, or {@code null}
+     * @return {@code true} if the user has the permission, otherwise {@code false}
+     * @see PermissionCache
+     */
+    public boolean hasPermission(String resourceUri, String action, PermissionCacheStatistics statistics) {
+        return getPermissionCache().hasPermission(user, resourceUri, action, statistics);
+    }
+
+    /**
+     * Discards the cached permission decisions of this session, e.g. after the roles of the user are changed.
+     */
+    public void invalidatePermissions() {
+        getPermissionCache().invalidateAll();
+    }
+
     public String getThemeName() {
         return themeName;
     }
@@ -68,7 +132,46 @@ public class Session implements Serializable {
         if (!Theme.isValidThemeName(themeName)) {
             throw new IllegalArgumentException("Theme name '" + themeName + "' is invalid.");
         }
-        this.themeName = themeName;
+        if (!themeName.equals(this.themeName)) {
+            this.themeName = themeName;
+            isModified = true;
+        }
+    }
+
+    /**
+     * Returns whether this session was modified since it was created or {@link #clearModified() last cleared}, i.e.
+     * whether the copies of this session kept in a session store or a session cookie are outdated.
+     *
+     * @return {@code true} if this session was modified, otherwise {@code false}
+     */
+    public boolean isModified() {
+        return isModified;
+    }
+
+    /**
+     * Clears the modified flag of this session, e.g. after the session is stored again.
+     *
+     * @return {@code true} if this session was modified before clearing, otherwise {@code false}
+     */
+    public synchronized boolean clearModified() {
+        boolean wasModified = isModified;
+        isModified = false;
+        return wasModified;
+    }
+
+    private PermissionCache getPermissionCache() {
+        // Permission cache is not serialized, hence created lazily.
+        PermissionCache cache = permissionCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = permissionCache;
+                if (cache == null) {
+                    cache = new PermissionCache(user.getPermissionsVersion());
+                    permissionCache = cache;
+                }
+            }
+        }
+        return cache;
     }
 
     @Override
@@ -87,67 +190,91 @@ public class Session implements Serializable {
     }
 
     public static boolean isValidSessionId(String sessionId) {
-        return (sessionId != null) && !sessionId.isEmpty() && (sessionId.length() == Session.SESSION_ID_LENGTH * 2);
+        return (sessionId != null) && !sessionId.isEmpty() && (sessionId.length() == SESSION_ID_CHARACTERS);
     }
 
     /**
-     * Adopted from <a href="https://git.io/vrYMl">org.apache.catalina.util.SessionIdGenerator</a> in Apache Tomcat
-     * 8.0.0 release.
+     * Generates session IDs without serializing the threads which create sessions.
+     * <p>
+     * Random bytes are drawn from a set of {@link SecureRandom} instances striped by thread, and IDs are pre-generated
+     * into a buffer which is refilled in the background when it runs low. Refills run in the common fork-join pool,
+     * hence the generator owns no thread which would outlive the bundle. An ID is the URL-safe Base64 encoding of the
+     * random bytes, which carries more entropy than a hex encoded ID of the same length.
      */
     private static class SessionIdGenerator {
 
-        private final SecureRandom secureRandom;
-        private final int sessionIdLength;
+        private static final int BUFFER_SIZE = Integer.getInteger("uuf.session.idBufferSize", 1024);
+        private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+        private final int randomBytesLength;
+        private final SecureRandom[] secureRandoms;
+        private final int stripeMask;
+        private final Queue<String> buffer;
+        private final AtomicInteger bufferedCount;
+        private final AtomicBoolean refilling;
 
         /**
          * Creates a new session ID generator.
          *
-         * @param sessionIdLength number of bytes in a session ID
+         * @param randomBytesLength number of random bytes in a session ID
          */
-        public SessionIdGenerator(int sessionIdLength) {
-            byte[] randomBytes = new byte[32];
-            ThreadLocalRandom.current().nextBytes(randomBytes);
-            char[] entropy = Base64.getEncoder().encodeToString(randomBytes).toCharArray();
-
-            long seed = System.currentTimeMillis();
-            for (int i = 0; i < entropy.length; i++) {
-                long update = ((byte) entropy[i]) << ((i % 8) * 8);
-                seed ^= update;
+        public SessionIdGenerator(int randomBytesLength) {
+            this.randomBytesLength = randomBytesLength;
+            int processors = Runtime.getRuntime().availableProcessors();
+            int stripes = Integer.highestOneBit(Math.max(1, (processors * 2) - 1)); // next power of two
+            this.secureRandoms = new SecureRandom[stripes];
+            this.stripeMask = stripes - 1;
+            SecureRandom seedSource = new SecureRandom();
+            for (int i = 0; i < stripes; i++) {
+                secureRandoms[i] = newSecureRandom(seedSource);
             }
+            this.buffer = new ConcurrentLinkedQueue<>();
+            this.bufferedCount = new AtomicInteger(0);
+            this.refilling = new AtomicBoolean(false);
+        }
 
-            // We call the default constructor so that system will figure-out the best, available algorithm.
-            // See: http://stackoverflow.com/a/27638413/1577286
-            this.secureRandom = new SecureRandom();
-            this.secureRandom.setSeed(seed);
-            this.sessionIdLength = sessionIdLength;
+        public String generateId() {
+            String sessionId = buffer.poll();
+            if (sessionId != null) {
+                bufferedCount.decrementAndGet();
+            }
+            if ((bufferedCount.get() < (BUFFER_SIZE / 2)) && refilling.compareAndSet(false, true)) {
+                ForkJoinPool.commonPool().execute(this::refill);
+            }
+            return (sessionId == null) ? newId() : sessionId;
         }
 
-        public synchronized String generateId() {
-            byte randomBytes[] = new byte[16];
-            // Render the result as a String of hexadecimal digits
-            StringBuilder buffer = new StringBuilder();
-
-            int resultLenBytes = 0;
-
-            while (resultLenBytes < sessionIdLength) {
-                secureRandom.nextBytes(randomBytes);
-                for (int j = 0; j < randomBytes.length && resultLenBytes < sessionIdLength; j++) {
-                    byte b1 = (byte) ((randomBytes[j] & 0xf0) >> 4);
-                    byte b2 = (byte) (randomBytes[j] & 0x0f);
-                    if (b1 < 10) {
-                        buffer.append((char) ('0' + b1));
-                    } else {
-                        buffer.append((char) ('A' + (b1 - 10)));
-                    }
-                    if (b2 < 10) {
-                        buffer.append((char) ('0' + b2));
-                    } else {
-                        buffer.append((char) ('A' + (b2 - 10)));
-                    }
-                    resultLenBytes++;
+        private void refill() {
+            try {
+                while (bufferedCount.get() < BUFFER_SIZE) {
+                    buffer.add(newId());
+                    bufferedCount.incrementAndGet();
                 }
+            } finally {
+                refilling.set(false);
+            }
+        }
+
+        private String newId() {
+            byte[] randomBytes = new byte[randomBytesLength];
+            // Each SecureRandom instance synchronizes on itself, hence threads contend only within a stripe.
+            secureRandoms[(int) Thread.currentThread().getId() & stripeMask].nextBytes(randomBytes);
+            return ENCODER.encodeToString(randomBytes);
+        }
+
+        private static SecureRandom newSecureRandom(SecureRandom seedSource) {
+            byte[] seed = new byte[32];
+            seedSource.nextBytes(seed);
+            SecureRandom secureRandom;
+            try {
+                /* The default (native) implementation serializes all instances on a global lock. SHA1PRNG locks only
+                the instance, and since it is seeded before use, it is seeded solely from the seed source. */
+                secureRandom = SecureRandom.getInstance("SHA1PRNG");
+            } catch (NoSuchAlgorithmException e) {
+                secureRandom = new SecureRandom();
             }
-            return buffer.toString();
+            secureRandom.setSeed(seed);
+            return secureRandom;
         }
     }
 }
@@ -20,7 +20,10 @@ package org.wso2.carbon.uuf.api.config;
 
 import org.wso2.carbon.uuf.exception.InvalidTypeException;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -57,6 +60,50 @@ public class Configuration {
      * @see #getErrorPageUris()
      */
     public static final String KEY_ERROR_PAGES = "errorPages";
+    /**
+     * Configuration key to configure the page output cache.
+     * @see #getCachedPages()
+     * @see #getPageCacheMaxSize()
+     * @see #getPageCacheTimeToLive()
+     */
+    public static final String KEY_PAGE_CACHE = "pageCache";
+    private static final String KEY_PAGE_CACHE_PAGES = "pages";
+    private static final String KEY_CACHE_MAX_SIZE = "maxSize";
+    private static final String KEY_CACHE_TIME_TO_LIVE = "timeToLive";
+    private static final long DEFAULT_PAGE_CACHE_MAX_SIZE = 1000;
+    private static final long DEFAULT_PAGE_CACHE_TIME_TO_LIVE = 300;
+    /**
+     * Configuration key to configure the fragment output cache.
+     * @see #getFragmentCacheMaxSize()
+     * @see #getFragmentCacheTimeToLive()
+     */
+    public static final String KEY_FRAGMENT_CACHE = "fragmentCache";
+    private static final long DEFAULT_FRAGMENT_CACHE_MAX_SIZE = 10000;
+    private static final long DEFAULT_FRAGMENT_CACHE_TIME_TO_LIVE = 300;
+    /**
+     * Configuration key to enable bundling of the CSS and JS files of a page.
+     * @see #isResourceBundlingEnabled()
+     */
+    public static final String KEY_BUNDLE_RESOURCES = "bundleResources";
+    /**
+     * Configuration key to configure session management.
+     * @see #getSessionTimeout()
+     * @see #getSessionMaxLifetime()
+     * @see #getSessionStoreType()
+     * @see #getSessionCookieKeys()
+     * @see #isSessionRevocationEnabled()
+     * @see #getSessionReplicationKey()
+     */
+    public static final String KEY_SESSION = "session";
+    private static final String KEY_SESSION_TIMEOUT = "timeout";
+    private static final String KEY_SESSION_MAX_LIFETIME = "maxLifetime";
+    private static final String KEY_SESSION_STORE = "store";
+    private static final String KEY_SESSION_KEYS = "keys";
+    private static final String KEY_SESSION_REVOCATION = "revocation";
+    private static final String KEY_SESSION_REPLICATION_KEY = "replicationKey";
+    private static final long DEFAULT_SESSION_TIMEOUT = 1200;
+    private static final long DEFAULT_SESSION_MAX_LIFETIME = 28800;
+    private static final String DEFAULT_SESSION_STORE = "memory";
 
     private final Map<String, Object> map;
     private final Map<String, Object> unmodifiableMap;
@@ -67,6 +114,7 @@ public class Configuration {
     private Map<String, Map<String, Map>> cachedMenus = new ConcurrentHashMap<>();
     private Map<Integer, String> cachedErrorPageUris = new ConcurrentHashMap<>();
     private String cachedDefaultErrorPageUri;
+    private Map<String, List<String>> cachedCachedPages;
 
     /**
      * Creates a new {@link Configuration} instance wrapping the specified map.
@@ -351,6 +399,314 @@ public class Configuration {
         return Optional.of(defaultErrorPageUri);
     }
 
+    /**
+     * Returns the pages configured to be cached in this configuration. Cached pages should be configured under the key
+     * "{@code pages}" of {@link #KEY_PAGE_CACHE}, where keys are page URIs (as served in the app) and values are the
+     * query parameters that vary the output of the page.
+     * <pre>
+     * pageCache:
+     *   pages:
+     *     /: []
+     *     /products: [category, page]
+     * </pre>
+     *
+     * @return map of cached page URIs and query parameter names of them
+     * @exception InvalidTypeException if configured value is not a {@code Map<String, List<String>>}
+     */
+    public Map<String, List<String>> getCachedPages() {
+        if (cachedCachedPages != null) {
+            return cachedCachedPages; // Return cached value.
+        }
+
+        Object pagesObj = getCacheConfiguration(KEY_PAGE_CACHE).get(KEY_PAGE_CACHE_PAGES);
+        if (pagesObj == null) {
+            return Collections.<String, List<String>>emptyMap();
+        } else if (!(pagesObj instanceof Map)) {
+            throw new InvalidTypeException(
+                    "Value of 'pages' in 'pageCache' of the app configuration must be a Map<String, List<String>>. " +
+                            "Instead found '" + pagesObj.getClass().getName() + "'.");
+        }
+        Map<String, List<String>> pages = new HashMap<>();
+        // Validate 'pagesObj'
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) pagesObj).entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                throw new InvalidTypeException(
+                        "Value of 'pages' in 'pageCache' of the app configuration must be a Map<String, " +
+                                "List<String>>. Instead found a '" + entry.getKey().getClass().getName() + "' key.");
+            }
+            String pageUri = (String) entry.getKey();
+            if (pageUri.isEmpty() || (pageUri.charAt(0) != '/')) {
+                throw new IllegalArgumentException(
+                        "Cached page URI '" + pageUri + "' in the app configuration must start with '/'.");
+            }
+            List<String> queryParams = new ArrayList<>();
+            if (entry.getValue() instanceof List) {
+                for (Object queryParam : (List<?>) entry.getValue()) {
+                    if (!(queryParam instanceof String)) {
+                        throw new InvalidTypeException(
+                                "Query parameters of cached page '" + pageUri + "' in the app configuration must " +
+                                        "be strings. Instead found '" + queryParam + "'.");
+                    }
+                    queryParams.add((String) queryParam);
+                }
+            } else if (entry.getValue() != null) {
+                throw new InvalidTypeException(
+                        "Query parameters of cached page '" + pageUri + "' in the app configuration must be a " +
+                                "List<String>. Instead found '" + entry.getValue().getClass().getName() + "'.");
+            }
+            pages.put(pageUri, Collections.unmodifiableList(queryParams));
+        }
+        cachedCachedPages = Collections.unmodifiableMap(pages); // Cache computed value.
+        return cachedCachedPages;
+    }
+
+    /**
+     * Returns the configured maximum number of page outputs cached for the app. Maximum size should be configured under
+     * the key "{@code maxSize}" of {@link #KEY_PAGE_CACHE}.
+     *
+     * @return configured maximum size or 1000 if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is negative
+     */
+    public long getPageCacheMaxSize() {
+        return getCacheLong(KEY_PAGE_CACHE, KEY_CACHE_MAX_SIZE, DEFAULT_PAGE_CACHE_MAX_SIZE);
+    }
+
+    /**
+     * Returns the configured time-to-live of cached page outputs in seconds. Time-to-live should be configured under
+     * the key "{@code timeToLive}" of {@link #KEY_PAGE_CACHE}.
+     *
+     * @return configured time-to-live or 300 seconds if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is negative
+     */
+    public long getPageCacheTimeToLive() {
+        return getCacheLong(KEY_PAGE_CACHE, KEY_CACHE_TIME_TO_LIVE, DEFAULT_PAGE_CACHE_TIME_TO_LIVE);
+    }
+
+    /**
+     * Returns the configured maximum number of fragment outputs cached for the app. Maximum size should be configured
+     * under the key "{@code maxSize}" of {@link #KEY_FRAGMENT_CACHE}.
+     *
+     * @return configured maximum size or 10000 if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is negative
+     */
+    public long getFragmentCacheMaxSize() {
+        return getCacheLong(KEY_FRAGMENT_CACHE, KEY_CACHE_MAX_SIZE, DEFAULT_FRAGMENT_CACHE_MAX_SIZE);
+    }
+
+    /**
+     * Returns the configured time-to-live of cached fragment outputs in seconds. Time-to-live should be configured
+     * under the key "{@code timeToLive}" of {@link #KEY_FRAGMENT_CACHE}.
+     *
+     * @return configured time-to-live or 300 seconds if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is negative
+     */
+    public long getFragmentCacheTimeToLive() {
+        return getCacheLong(KEY_FRAGMENT_CACHE, KEY_CACHE_TIME_TO_LIVE, DEFAULT_FRAGMENT_CACHE_TIME_TO_LIVE);
+    }
+
+    /**
+     * Returns whether the CSS and JS files added to the placeholders of a page should be served as bundles, i.e. one
+     * file per placeholder. Bundling should be configured under the key {@link #KEY_BUNDLE_RESOURCES}.
+     *
+     * @return configured value or {@code false} if not configured
+     * @exception InvalidTypeException if configured value is not a boolean
+     */
+    public boolean isResourceBundlingEnabled() {
+        Object bundleResourcesObj = map.get(KEY_BUNDLE_RESOURCES);
+        if (bundleResourcesObj == null) {
+            return false;
+        } else if (!(bundleResourcesObj instanceof Boolean)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_BUNDLE_RESOURCES + "' in the app configuration must be a boolean. Instead " +
+                            "found '" + bundleResourcesObj.getClass().getName() + "'.");
+        }
+        return (Boolean) bundleResourcesObj;
+    }
+
+    /**
+     * Returns the configured session timeout in seconds. Timeout should be configured under the key "{@code timeout}"
+     * of {@link #KEY_SESSION}.
+     *
+     * @return configured timeout or 1200 seconds if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is not positive
+     */
+    public long getSessionTimeout() {
+        Object timeoutObj = getSessionConfiguration().get(KEY_SESSION_TIMEOUT);
+        if (timeoutObj == null) {
+            return DEFAULT_SESSION_TIMEOUT;
+        } else if (!(timeoutObj instanceof Integer) && !(timeoutObj instanceof Long)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_TIMEOUT + "' in '" + KEY_SESSION + "' of the app configuration must " +
+                            "be an integer. Instead found '" + timeoutObj.getClass().getName() + "'.");
+        }
+        long timeout = ((Number) timeoutObj).longValue();
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Value of '" + KEY_SESSION_TIMEOUT + "' in '" + KEY_SESSION +
+                                                       "' of the app configuration must be positive.");
+        }
+        return timeout;
+    }
+
+    /**
+     * Returns the configured maximum lifetime of a session in seconds, after which the session expires even if it is
+     * in use, when sessions are stored in cookies. Maximum lifetime should be configured under the key "{@code
+     * maxLifetime}" of {@link #KEY_SESSION}.
+     *
+     * @return configured maximum lifetime or 28800 seconds if not configured
+     * @exception InvalidTypeException     if configured value is not an integer
+     * @exception IllegalArgumentException if configured value is not positive
+     */
+    public long getSessionMaxLifetime() {
+        Object maxLifetimeObj = getSessionConfiguration().get(KEY_SESSION_MAX_LIFETIME);
+        if (maxLifetimeObj == null) {
+            return DEFAULT_SESSION_MAX_LIFETIME;
+        } else if (!(maxLifetimeObj instanceof Integer) && !(maxLifetimeObj instanceof Long)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_MAX_LIFETIME + "' in '" + KEY_SESSION + "' of the app configuration " +
+                            "must be an integer. Instead found '" + maxLifetimeObj.getClass().getName() + "'.");
+        }
+        long maxLifetime = ((Number) maxLifetimeObj).longValue();
+        if (maxLifetime <= 0) {
+            throw new IllegalArgumentException("Value of '" + KEY_SESSION_MAX_LIFETIME + "' in '" + KEY_SESSION +
+                                                       "' of the app configuration must be positive.");
+        }
+        return maxLifetime;
+    }
+
+    /**
+     * Returns the configured type of the session store, e.g. {@code memory}, {@code file}, {@code replicated} or
+     * {@code cookie}. Type
+     * should be configured under the key "{@code store}" of {@link #KEY_SESSION}.
+     *
+     * @return configured type or {@code memory} if not configured
+     * @exception InvalidTypeException if configured value is not a string
+     */
+    public String getSessionStoreType() {
+        Object storeObj = getSessionConfiguration().get(KEY_SESSION_STORE);
+        if (storeObj == null) {
+            return DEFAULT_SESSION_STORE;
+        } else if (!(storeObj instanceof String)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_STORE + "' in '" + KEY_SESSION + "' of the app configuration must be " +
+                            "a string. Instead found '" + storeObj.getClass().getName() + "'.");
+        }
+        return (String) storeObj;
+    }
+
+    /**
+     * Returns the configured Base64 encoded keys to encrypt session cookies, where the first key is the current key
+     * and the rest are previous keys which are still accepted. Keys should be configured under the key "{@code keys}"
+     * of {@link #KEY_SESSION}.
+     *
+     * @return configured keys or an empty list if not configured
+     * @exception InvalidTypeException if configured value is not a list of strings
+     */
+    public List<String> getSessionCookieKeys() {
+        Object keysObj = getSessionConfiguration().get(KEY_SESSION_KEYS);
+        if (keysObj == null) {
+            return Collections.emptyList();
+        } else if (!(keysObj instanceof List)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_KEYS + "' in '" + KEY_SESSION + "' of the app configuration must be " +
+                            "a List<String>. Instead found '" + keysObj.getClass().getName() + "'.");
+        }
+        List<String> keys = new ArrayList<>();
+        for (Object keyObj : (List<?>) keysObj) {
+            if (!(keyObj instanceof String)) {
+                throw new InvalidTypeException(
+                        "Value of '" + KEY_SESSION_KEYS + "' in '" + KEY_SESSION + "' of the app configuration must " +
+                                "be a List<String>. Instead found a '" + keyObj.getClass().getName() + "' value.");
+            }
+            keys.add((String) keyObj);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns whether destroyed sessions should be recorded until they expire, when sessions are stored in cookies.
+     * Revocation should be configured under the key "{@code revocation}" of {@link #KEY_SESSION}.
+     *
+     * @return configured value or {@code true} if not configured
+     * @exception InvalidTypeException if configured value is not a boolean
+     */
+    public boolean isSessionRevocationEnabled() {
+        Object revocationObj = getSessionConfiguration().get(KEY_SESSION_REVOCATION);
+        if (revocationObj == null) {
+            return true;
+        } else if (!(revocationObj instanceof Boolean)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_REVOCATION + "' in '" + KEY_SESSION + "' of the app configuration " +
+                            "must be a boolean. Instead found '" + revocationObj.getClass().getName() + "'.");
+        }
+        return (Boolean) revocationObj;
+    }
+
+    /**
+     * Returns the configured Base64 encoded key shared by all the nodes to authenticate session replication messages,
+     * when sessions are stored in the {@code replicated} store. Key should be configured under the key "{@code
+     * replicationKey}" of {@link #KEY_SESSION}.
+     *
+     * @return configured key or empty if not configured
+     * @exception InvalidTypeException if configured value is not a string
+     */
+    public Optional<String> getSessionReplicationKey() {
+        Object keyObj = getSessionConfiguration().get(KEY_SESSION_REPLICATION_KEY);
+        if (keyObj == null) {
+            return Optional.empty();
+        } else if (!(keyObj instanceof String)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION_REPLICATION_KEY + "' in '" + KEY_SESSION + "' of the app " +
+                            "configuration must be a string. Instead found '" + keyObj.getClass().getName() + "'.");
+        }
+        return Optional.of((String) keyObj);
+    }
+
+    private Map<?, ?> getSessionConfiguration() {
+        Object sessionObj = map.get(KEY_SESSION);
+        if (sessionObj == null) {
+            return Collections.emptyMap();
+        } else if (!(sessionObj instanceof Map)) {
+            throw new InvalidTypeException(
+                    "Value of '" + KEY_SESSION + "' in the app configuration must be a Map<String, Object>. Instead " +
+                            "found '" + sessionObj.getClass().getName() + "'.");
+        }
+        return (Map<?, ?>) sessionObj;
+    }
+
+    private long getCacheLong(String cacheKey, String key, long defaultValue) {
+        Object valueObj = getCacheConfiguration(cacheKey).get(key);
+        if (valueObj == null) {
+            return defaultValue;
+        } else if (!(valueObj instanceof Integer) && !(valueObj instanceof Long)) {
+            throw new InvalidTypeException(
+                    "Value of '" + key + "' in '" + cacheKey + "' of the app configuration must be an integer. " +
+                            "Instead found '" + valueObj.getClass().getName() + "'.");
+        }
+        long value = ((Number) valueObj).longValue();
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                    "Value of '" + key + "' in '" + cacheKey + "' of the app configuration cannot be negative.");
+        }
+        return value;
+    }
+
+    private Map<?, ?> getCacheConfiguration(String cacheKey) {
+        Object cacheObj = map.get(cacheKey);
+        if (cacheObj == null) {
+            return Collections.emptyMap();
+        } else if (!(cacheObj instanceof Map)) {
+            throw new InvalidTypeException(
+                    "Value of '" + cacheKey + "' in the app configuration must be a Map<String, Object>. Instead " +
+                            "found '" + cacheObj.getClass().getName() + "'.");
+        }
+        return (Map<?, ?>) cacheObj;
+    }
+
     /**
      * Returns this Configuration object as a Map.
      *
@@ -20,11 +20,13 @@ package org.wso2.carbon.uuf.core;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.MethodUtils;
+import org.wso2.carbon.uuf.api.auth.PermissionCacheStatistics;
 import org.wso2.carbon.uuf.api.auth.Session;
 import org.wso2.carbon.uuf.exception.HttpErrorException;
 import org.wso2.carbon.uuf.exception.PageRedirectException;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpResponse;
 import org.wso2.carbon.uuf.spi.auth.User;
 
 import java.util.HashMap;
@@ -43,11 +45,41 @@ public class API {
     private final SessionRegistry sessionRegistry;
     private final RequestLookup requestLookup;
     private Optional<Session> currentSession;
+    private String sessionCookieValue;
+    private int sessionAccessCount;
+    private Map<String, Boolean> permissionDecisions;
 
     API(SessionRegistry sessionRegistry, RequestLookup requestLookup) {
         this.sessionRegistry = sessionRegistry;
         this.requestLookup = requestLookup;
         this.currentSession = Optional.<Session>empty();
+        this.sessionAccessCount = 0;
+    }
+
+    private API(API parent, RequestLookup forkedLookup) {
+        this(parent.sessionRegistry, forkedLookup);
+        this.currentSession = parent.findSession();
+    }
+
+    /**
+     * Creates an API which can be used to render a fragment of this request in another thread with the specified
+     * forked request lookup. The current session is resolved before forking, so that the forked API does not renew the
+     * session cookie again.
+     *
+     * @param forkedLookup request lookup forked from the request lookup of this API
+     * @return forked API
+     */
+    API fork(RequestLookup forkedLookup) {
+        return new API(this, forkedLookup);
+    }
+
+    /**
+     * Merges the session accesses made through the specified forked API into this API.
+     *
+     * @param forkedApi API created through {@link #fork(RequestLookup)} of this API
+     */
+    void join(API forkedApi) {
+        sessionAccessCount += forkedApi.sessionAccessCount;
     }
 
     /**
@@ -154,23 +186,96 @@ public class API {
         destroySession();
         Session session = new Session(user);
         sessionRegistry.addSession(session);
-        String header = SessionRegistry.SESSION_COOKIE_NAME + "=" + session.getSessionId() + "; Path=" +
-                requestLookup.getContextPath() + "; Secure; HTTPOnly";
-        requestLookup.getResponse().setHeader("Set-Cookie", header);
+        setSessionCookie(sessionRegistry.getSessionCookieValue(session));
+        currentSession = Optional.of(session);
         return session;
     }
 
     public Optional<Session> getSession() {
+        sessionAccessCount++;
+        return findSession();
+    }
+
+    /**
+     * Returns whether the user of the current session has the specified permission. Each permission is evaluated at
+     * most once per request.
+     *
+     * @param resourceUri URI of the resource
+     * @param action      action on the resource
+     * @return {@code true} if there is a session and its user has the permission, otherwise {@code false}
+     */
+    public boolean hasPermission(String resourceUri, String action) {
+        Optional<Session> session = getSession();
+        if (!session.isPresent()) {
+            return false;
+        }
+        if (permissionDecisions == null) {
+            permissionDecisions = new HashMap<>();
+        }
+        PermissionCacheStatistics statistics = sessionRegistry.getPermissionCacheStatistics();
+        String key = resourceUri + '\n' + action;
+        Boolean decision = permissionDecisions.get(key);
+        if (decision != null) {
+            statistics.recordRequestHit();
+            return decision;
+        }
+        boolean hasPermission = session.get().hasPermission(resourceUri, action, statistics);
+        permissionDecisions.put(key, hasPermission);
+        return hasPermission;
+    }
+
+    /**
+     * Returns the current session without marking it as accessed.
+     *
+     * @return current session
+     * @see #isSessionAccessed()
+     */
+    Optional<Session> findSession() {
         if (!currentSession.isPresent()) {
             // Since an API object lives in the request scope, it is safe to cache the current Session object.
-            String sessionId = requestLookup.getRequest().getCookieValue(SessionRegistry.SESSION_COOKIE_NAME);
-            if (!StringUtils.isEmpty(sessionId)) {
-                currentSession = sessionRegistry.getSession(sessionId);
+            String cookieValue = requestLookup.getRequest().getCookieValue(SessionRegistry.SESSION_COOKIE_NAME);
+            if (!StringUtils.isEmpty(cookieValue)) {
+                currentSession = sessionRegistry.getSession(cookieValue);
+                if (currentSession.isPresent()) {
+                    sessionCookieValue = cookieValue;
+                    sessionRegistry.renewSessionCookieValue(cookieValue).ifPresent(this::setSessionCookie);
+                }
             }
         }
         return currentSession;
     }
 
+    /**
+     * Stores the current session again if it was modified in this request, e.g. its theme was changed after it was
+     * created, and issues the session cookie again if its value changes. This should be called once the request is
+     * rendered, before the response is sent.
+     */
+    void updateSession() {
+        if (currentSession.isPresent()) {
+            sessionRegistry.updateSession(currentSession.get(), sessionCookieValue).ifPresent(this::setSessionCookie);
+        }
+    }
+
+    /**
+     * Returns whether the current session was accessed through {@link #getSession()}, i.e. whether the output of the
+     * current request may depend on the session.
+     *
+     * @return {@code true} if the current session was accessed
+     */
+    boolean isSessionAccessed() {
+        return sessionAccessCount > 0;
+    }
+
+    /**
+     * Returns how many times the current session was accessed through {@link #getSession()}. Comparing two values of
+     * this tells whether the session was accessed in between.
+     *
+     * @return number of session accesses in the current request
+     */
+    int getSessionAccessCount() {
+        return sessionAccessCount;
+    }
+
     public boolean destroySession() {
         Optional<Session> session = getSession();
         if (!session.isPresent()) {
@@ -179,15 +284,24 @@ public class API {
         }
 
         // Remove session from the SessionRegistry.
-        sessionRegistry.removeSession(session.get().getSessionId());
+        sessionRegistry.removeSession(session.get());
+        currentSession = Optional.empty();
+        permissionDecisions = null;
         // Clear the session cookie by setting its value to an empty string, Max-Age to zero, & Expires to a past date.
         String header = SessionRegistry.SESSION_COOKIE_NAME +
                 "=; Max-Age=0; Expires=Thu, 01 Jan 1970 00:00:01 GMT; Path=" + requestLookup.getContextPath() +
                 "; Secure; HTTPOnly";
-        requestLookup.getResponse().setHeader("Set-Cookie", header);
+        requestLookup.getResponse().setHeader(HttpResponse.HEADER_SET_COOKIE, header);
         return true;
     }
 
+    private void setSessionCookie(String cookieValue) {
+        sessionCookieValue = cookieValue;
+        String header = SessionRegistry.SESSION_COOKIE_NAME + "=" + cookieValue + "; Path=" +
+                requestLookup.getContextPath() + "; Secure; HTTPOnly";
+        requestLookup.getResponse().setHeader(HttpResponse.HEADER_SET_COOKIE, header);
+    }
+
     private static String joinClassNames(Object[] args) {
         if (args == null) {
             return "null";
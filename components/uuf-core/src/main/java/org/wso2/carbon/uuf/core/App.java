@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.uuf.core;
 
+import org.apache.commons.lang3.tuple.Pair;
+import org.wso2.carbon.uuf.api.auth.PermissionCacheStatistics;
 import org.wso2.carbon.uuf.api.auth.Session;
 import org.wso2.carbon.uuf.api.config.Configuration;
 import org.wso2.carbon.uuf.api.model.MapModel;
@@ -28,12 +30,15 @@ import org.wso2.carbon.uuf.exception.PageRedirectException;
 import org.wso2.carbon.uuf.exception.SessionNotFoundException;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.internal.io.StaticResourceTable;
 import org.wso2.carbon.uuf.internal.util.NameUtils;
 import org.wso2.carbon.uuf.internal.util.UriUtils;
 import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 import org.wso2.carbon.uuf.spi.model.Model;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -48,21 +53,48 @@ public class App {
     private final Lookup lookup;
     private final Map<String, Component> components;
     private final Component rootComponent;
+    private final UriRouter<Pair<Component, Page>> pageRouter;
     private final Map<String, Theme> themes;
     private final Theme defaultTheme;
     private final Configuration configuration;
     private final SessionRegistry sessionRegistry;
+    private final OutputCache<PageOutput> pageCache;
+    private final DeferredFragmentFallbacks deferredFragmentFallbacks;
+    private final boolean hasCacheablePages;
+    private final AssetManifest assetManifest;
+    private final ResourceBundles resourceBundles;
+    private final StaticResourceTable staticResourceTable;
 
     public App(String name, String contextPath, Lookup lookup, Set<Theme> themes, SessionRegistry sessionRegistry) {
+        this(name, contextPath, lookup, themes, sessionRegistry, AssetManifest.EMPTY);
+    }
+
+    public App(String name, String contextPath, Lookup lookup, Set<Theme> themes, SessionRegistry sessionRegistry,
+               AssetManifest assetManifest) {
+        this(name, contextPath, lookup, themes, sessionRegistry, assetManifest, null);
+    }
+
+    public App(String name, String contextPath, Lookup lookup, Set<Theme> themes, SessionRegistry sessionRegistry,
+               AssetManifest assetManifest, StaticResourceTable staticResourceTable) {
         this.name = name;
         this.contextPath = contextPath;
         this.lookup = lookup;
         this.configuration = this.lookup.getConfiguration();
         this.sessionRegistry = sessionRegistry;
+        this.assetManifest = assetManifest;
+        this.staticResourceTable = staticResourceTable;
+        this.resourceBundles = configuration.isResourceBundlingEnabled() ? new ResourceBundles() : null;
+        this.pageCache = this.lookup.getPageCache();
+        this.deferredFragmentFallbacks = new DeferredFragmentFallbacks();
+        this.lookup.getI18nResources(); // Compile i18n messages at deploy time rather than in the first request.
 
         this.components = this.lookup.getAllComponents().values().stream()
                 .collect(Collectors.toMap(Component::getContextPath, cmp -> cmp));
         this.rootComponent = this.components.get(Component.ROOT_COMPONENT_CONTEXT_PATH);
+        this.pageRouter = createPageRouter(this.rootComponent, this.components.values());
+        this.hasCacheablePages = this.components.values().stream()
+                .flatMap(component -> component.getPages().stream())
+                .anyMatch(Page::isCacheable);
 
         this.themes = themes.stream().collect(Collectors.toMap(Theme::getName, theme -> theme));
         this.defaultTheme = this.configuration.getThemeName()
@@ -105,17 +137,85 @@ public class App {
         return configuration;
     }
 
+    public AssetManifest getAssetManifest() {
+        return assetManifest;
+    }
+
+    /**
+     * Returns the CSS and JS bundles of this app.
+     *
+     * @return resource bundles, or empty if resource bundling is not enabled for this app
+     */
+    public Optional<ResourceBundles> getResourceBundles() {
+        return Optional.ofNullable(resourceBundles);
+    }
+
+    /**
+     * Returns the table of the static resources of this app, which is populated once when this app is deployed.
+     *
+     * @return static resource table, or empty if static resources are resolved on every request, e.g. in dev mode
+     */
+    public Optional<StaticResourceTable> getStaticResourceTable() {
+        return Optional.ofNullable(staticResourceTable);
+    }
+
+    /**
+     * @return hit and miss counts of the permission decisions made while serving the requests of this app
+     */
+    public PermissionCacheStatistics getPermissionCacheStatistics() {
+        return sessionRegistry.getPermissionCacheStatistics();
+    }
+
     /**
      * @param request  HTTP request
      * @param response HTTP response
      * @return rendered HTML output
      */
     public String renderPage(HttpRequest request, HttpResponse response) {
+        return renderPageStreaming(request, response).asString();
+    }
+
+    /**
+     * Renders the requested page into a content which is written when the response is sent, so that the rendered
+     * HTML does not have to be built into a string.
+     * <p>
+     * The whole page is rendered before this method returns and nothing is flushed while rendering. Placeholders in
+     * the head of a layout (e.g. {@code css}) are filled by the fragments of the body, and errors or redirects raised
+     * while rendering the body must still be able to replace the response.
+     *
+     * @param request  HTTP request
+     * @param response HTTP response
+     * @return rendered HTML content
+     */
+    public StreamingContent renderPageStreaming(HttpRequest request, HttpResponse response) {
         RequestLookup requestLookup = createRequestLookup(request, response);
+        requestLookup.enableDeferredFragments(deferredFragmentFallbacks);
         API api = new API(sessionRegistry, requestLookup);
         Theme theme = getRenderingTheme(api);
+        String uriWithoutContextPath = request.getUriWithoutContextPath();
+        Optional<UriRouter.Match<Pair<Component, Page>>> match = pageRouter.match(uriWithoutContextPath);
+        Optional<String> pageCacheKey = match.flatMap(m -> getPageCacheKey(request, m.getValue().getRight(), theme));
+        if (pageCacheKey.isPresent()) {
+            Optional<PageOutput> cachedOutput = pageCache.get(pageCacheKey.get());
+            if (cachedOutput.isPresent()) {
+                return cachedOutput.get().replay(response);
+            }
+        }
+        long pageCacheGeneration = pageCache.getGeneration();
+        Map<String, String> headersBeforeRendering = pageCacheKey.isPresent() ?
+                new HashMap<>(response.getHeaders()) : null;
         try {
-            return renderPageUri(request.getUriWithoutContextPath(), null, requestLookup, api, theme);
+            UriRouter.Match<Pair<Component, Page>> pageMatch = match.orElseThrow(() -> new PageNotFoundException(
+                    "Requested page '" + uriWithoutContextPath + "' does not exists."));
+            StreamingContent output = renderPage(pageMatch, null, requestLookup, api, theme);
+            // Outputs which depend on the session or which create/destroy a session cannot be shared.
+            if (pageCacheKey.isPresent() && !api.isSessionAccessed() && !requestLookup.hasDeferredFragments() &&
+                    !response.getHeaders().containsKey(HttpResponse.HEADER_SET_COOKIE)) {
+                PageOutput pageOutput = new PageOutput(output.asString(), response, headersBeforeRendering);
+                pageCache.put(pageCacheKey.get(), pageOutput, pageCacheGeneration);
+                return StreamingContent.of(pageOutput.content);
+            }
+            return output;
         } catch (SessionNotFoundException e) {
             String loginPageUri = configuration.getLoginPageUri().orElseThrow(() -> e);
             // Redirect to the login page.
@@ -125,7 +225,6 @@ public class App {
         } catch (PageNotFoundException e) {
             // See https://googlewebmastercentral.blogspot.com/2010/04/to-slash-or-not-to-slash.html
             // If the tailing '/' is extra or a it is missing, then send 301 with corrected URL.
-            String uriWithoutContextPath = request.getUriWithoutContextPath();
             String correctedUriWithoutContextPath = uriWithoutContextPath.endsWith("/") ?
                     uriWithoutContextPath.substring(0, uriWithoutContextPath.length() - 1) :
                     (uriWithoutContextPath + "/");
@@ -147,7 +246,8 @@ public class App {
         }
     }
 
-    private String renderErrorPage(HttpErrorException e, RequestLookup requestLookup, API api, Theme theme) {
+    private StreamingContent renderErrorPage(HttpErrorException e, RequestLookup requestLookup, API api,
+                                             Theme theme) {
         String errorPageUri = configuration.getErrorPageUri(e.getHttpStatusCode())
                 .orElse(configuration.getDefaultErrorPageUri().orElseThrow(() -> e));
 
@@ -159,36 +259,32 @@ public class App {
         return renderPageUri(errorPageUri, new MapModel(modelMap), requestLookup, api, theme);
     }
 
-    private String renderPageUri(String pageUri, Model model, RequestLookup requestLookup, API api, Theme theme) {
+    private StreamingContent renderPageUri(String pageUri, Model model, RequestLookup requestLookup, API api,
+                                           Theme theme) {
+        UriRouter.Match<Pair<Component, Page>> match = pageRouter.match(pageUri).orElseThrow(
+                () -> new PageNotFoundException("Requested page '" + pageUri + "' does not exists."));
+        return renderPage(match, model, requestLookup, api, theme);
+    }
+
+    private StreamingContent renderPage(UriRouter.Match<Pair<Component, Page>> match, Model model,
+                                        RequestLookup requestLookup, API api, Theme theme) {
         // If theme exists, add theme values to the requestLookup
         if (theme != null) {
             theme.addPlaceHolderValues(requestLookup);
         }
-        // First try to addPlaceHolderValues the page with 'root' component.
-        Optional<String> output = rootComponent.renderPage(pageUri, model, lookup, requestLookup, api);
-        if (output.isPresent()) {
-            return output.get();
-        }
-
-        // Since 'root' component doesn't have the page, try with other components.
-        int secondSlashIndex = pageUri.indexOf('/', 1);
-        if (secondSlashIndex == -1) {
-            // No component context found in the 'pageUri' URI.
-            throw new PageNotFoundException("Requested page '" + pageUri + "' does not exists.");
-        }
-        String componentContext = pageUri.substring(0, secondSlashIndex);
-        Component component = components.get(componentContext);
-        if (component == null) {
-            // No component found for the 'componentContext' key.
-            throw new PageNotFoundException("Requested page '" + pageUri + "' does not exists.");
-        }
-        String uriWithoutComponentContext = pageUri.substring(secondSlashIndex);
-        output = component.renderPage(uriWithoutComponentContext, model, lookup, requestLookup, api);
-        if (output.isPresent()) {
-            return output.get();
+        Component component = match.getValue().getLeft();
+        Page page = match.getValue().getRight();
+        StreamingContent output;
+        try {
+            output = component.renderPage(page, match.getPathParams(), model, lookup, requestLookup, api);
+        } catch (RuntimeException e) {
+            requestLookup.cancelDeferredFragments(); // Page is not written, hence neither are deferred fragments.
+            throw e;
+        } finally {
+            // Session may be modified even if the page ends with a redirect, e.g. a login page.
+            api.updateSession();
         }
-        // No page found for 'uriWithoutComponentContext' in the 'component'.
-        throw new PageNotFoundException("Requested page '" + pageUri + "' does not exists.");
+        return requestLookup.getDeferredFragments().map(deferred -> deferred.appendTo(output)).orElse(output);
     }
 
     /**
@@ -206,36 +302,87 @@ public class App {
             throw new FragmentNotFoundException("Requested fragment '" + fragmentName + "' does not exists.");
         }
 
-        Model model = new MapModel(request.getQueryParams());
+        Object fallbackId = request.getQueryParams().get(DeferredFragments.FALLBACK_ID_PARAM);
+        Model model;
+        if (fallbackId == null) {
+            model = new MapModel(request.getQueryParams());
+        } else {
+            // Deferred fragment of a page which is loaded separately, hence render it with its model in the page.
+            DeferredFragmentFallbacks.Fallback fallback = deferredFragmentFallbacks
+                    .take(fallbackId.toString(), fragment)
+                    .orElseThrow(() -> new FragmentNotFoundException("Requested deferred fragment '" + fragmentName +
+                                                                             "' is expired or already loaded."));
+            Optional<String> output = fallback.awaitOutput();
+            if (output.isPresent()) {
+                return output.get(); // Fragment was still rendering when its page was written.
+            }
+            model = fallback.getModel();
+        }
         RequestLookup requestLookup = createRequestLookup(request, response);
         API api = new API(sessionRegistry, requestLookup);
-        return fragment.render(model, lookup, requestLookup, api);
+        try {
+            return fragment.render(model, lookup, requestLookup, api);
+        } finally {
+            api.updateSession();
+        }
     }
 
-    private boolean hasPage(String uriWithoutContextPath) {
-        // First check 'root' component has the page.
-        if (rootComponent.hasPage(uriWithoutContextPath)) {
-            return true;
+    /**
+     * Returns the page cache key for the specified request if the requested page is cacheable. Key consists of the
+     * URI, rendering theme, accepted languages and the cache key query parameters of the page.
+     *
+     * @param request HTTP request
+     * @param page    requested page
+     * @param theme   rendering theme
+     * @return page cache key, or empty if the requested page is not cacheable
+     */
+    private Optional<String> getPageCacheKey(HttpRequest request, Page page, Theme theme) {
+        if (!hasCacheablePages || !page.isCacheable()) {
+            return Optional.<String>empty();
         }
+        String uri = request.getUriWithoutContextPath();
 
-        // Since 'root' components doesn't have the page, search in other components.
-        int secondSlashIndex = uriWithoutContextPath.indexOf('/', 1);
-        if (secondSlashIndex == -1) {
-            // No component context found in the 'uriWithoutContextPath' URI.
-            return false;
+        // Requests with different Accept-Language headers which resolve to the same locale share the output.
+        String locale = lookup.getI18nResources()
+                .negotiateLocale(request.getHeaders().get(HttpRequest.HEADER_ACCEPT_LANGUAGE));
+        StringBuilder key = new StringBuilder(uri)
+                .append('\n').append((theme == null) ? "" : theme.getName())
+                .append('\n').append(locale);
+        Map<String, Object> queryParams = request.getQueryParams();
+        for (String queryParam : page.getCacheKeyQueryParams()) {
+            key.append('\n').append(queryParam).append('=').append(queryParams.get(queryParam));
         }
-        String componentContext = uriWithoutContextPath.substring(0, secondSlashIndex);
-        Component component = components.get(componentContext);
-        if (component == null) {
-            // No component found for the 'componentContext' key.
-            return false;
+        return Optional.of(key.toString());
+    }
+
+    private boolean hasPage(String uriWithoutContextPath) {
+        return pageRouter.matches(uriWithoutContextPath);
+    }
+
+    /**
+     * Creates a router for all pages in the app. Pages of the 'root' component are served without a component context
+     * and take precedence over pages of other components, which are served under their component context paths.
+     *
+     * @param rootComponent root component
+     * @param components    all components including the root component
+     * @return page router
+     */
+    private static UriRouter<Pair<Component, Page>> createPageRouter(Component rootComponent,
+                                                                     Collection<Component> components) {
+        UriRouter<Pair<Component, Page>> router = new UriRouter<>();
+        for (Page page : rootComponent.getPages()) {
+            router.add(page.getUriPatten(), Pair.of(rootComponent, page));
+        }
+        for (Component component : components) {
+            for (Page page : component.getPages()) {
+                router.add(component.getContextPath(), page.getUriPatten(), Pair.of(component, page));
+            }
         }
-        String pageUri = uriWithoutContextPath.substring(secondSlashIndex);
-        return component.hasPage(pageUri);
+        return router;
     }
 
     private Theme getRenderingTheme(API api) {
-        Optional<String> sessionThemeName = api.getSession().map(Session::getThemeName);
+        Optional<String> sessionThemeName = api.findSession().map(Session::getThemeName);
         if (!sessionThemeName.isPresent()) {
             return defaultTheme;
         }
@@ -247,7 +394,36 @@ public class App {
     }
 
     private RequestLookup createRequestLookup(HttpRequest request, HttpResponse response) {
-        return new RequestLookup((configuration.getContextPath().orElse(contextPath)), request, response);
+        return new RequestLookup((configuration.getContextPath().orElse(contextPath)), request, response,
+                                 assetManifest, resourceBundles);
+    }
+
+    /**
+     * A cached page output together with the response status and the headers set while rendering it, e.g. in
+     * {@code onRequest} functions, so that a cache hit responds the same as a render.
+     */
+    static class PageOutput {
+
+        private final String content;
+        private final int status;
+        private final Map<String, String> headers;
+
+        private PageOutput(String content, HttpResponse response, Map<String, String> headersBeforeRendering) {
+            this.content = content;
+            this.status = response.getStatus();
+            this.headers = new HashMap<>();
+            response.getHeaders().forEach((name, value) -> {
+                if (!Objects.equals(headersBeforeRendering.get(name), value)) {
+                    headers.put(name, value);
+                }
+            });
+        }
+
+        private StreamingContent replay(HttpResponse response) {
+            response.setStatus(status);
+            headers.forEach(response::setHeader);
+            return StreamingContent.of(content);
+        }
     }
 
     @Override
@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maps URIs of the static resources of an app to their content-fingerprinted URIs, e.g. {@code
+ * /public/components/root/base/css/main.css} to {@code /public/components/root/base/css/main.3f2a9c1b7d4e6f80.css}.
+ * <p>
+ * Since the URI of a fingerprinted resource changes whenever its content changes, a fingerprinted resource can be
+ * cached by clients forever. All URIs in the manifest are without the context path of the app.
+ *
+ * @since 1.0.0
+ */
+public class AssetManifest {
+
+    /**
+     * Manifest without any fingerprinted URIs, e.g. in dev mode.
+     */
+    public static final AssetManifest EMPTY = new AssetManifest(ImmutableMap.of());
+
+    private final Map<String, String> fingerprintedUris;
+    private final Map<String, String> originalUris;
+
+    /**
+     * Creates a new asset manifest.
+     *
+     * @param fingerprintedUris fingerprinted URIs keyed by the original URIs
+     */
+    public AssetManifest(Map<String, String> fingerprintedUris) {
+        this.fingerprintedUris = ImmutableMap.copyOf(fingerprintedUris);
+        ImmutableMap.Builder<String, String> originalUris = ImmutableMap.builder();
+        fingerprintedUris.forEach((uri, fingerprintedUri) -> originalUris.put(fingerprintedUri, uri));
+        this.originalUris = originalUris.build();
+    }
+
+    /**
+     * Returns the fingerprinted URI of the specified static resource URI.
+     *
+     * @param uri URI of a static resource without the context path
+     * @return fingerprinted URI, or the specified URI if the resource is not fingerprinted
+     */
+    public String getFingerprintedUri(String uri) {
+        return fingerprintedUris.getOrDefault(uri, uri);
+    }
+
+    /**
+     * Returns the original URI of the specified fingerprinted URI.
+     *
+     * @param fingerprintedUri fingerprinted URI without the context path
+     * @return original URI, or empty if the specified URI is not a fingerprinted URI of this manifest
+     */
+    public Optional<String> getOriginalUri(String fingerprintedUri) {
+        return Optional.ofNullable(originalUris.get(fingerprintedUri));
+    }
+
+    public int size() {
+        return fingerprintedUris.size();
+    }
+}
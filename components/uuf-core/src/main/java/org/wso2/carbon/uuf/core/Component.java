@@ -20,6 +20,7 @@ package org.wso2.carbon.uuf.core;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.util.Map;
@@ -38,6 +39,7 @@ public class Component {
     private final String version;
     private final String contextPath;
     private final SortedSet<Page> pages;
+    private final UriRouter<Page> pageRouter;
     private final String path;
 
     public Component(String name, String version, String contextPath, SortedSet<Page> pages, String path) {
@@ -45,6 +47,9 @@ public class Component {
         this.version = version;
         this.contextPath = contextPath;
         this.pages = pages;
+        this.pageRouter = new UriRouter<>();
+        // Pages are sorted according to their URI patterns, hence the routing precedence is preserved.
+        pages.forEach(page -> this.pageRouter.add(page.getUriPatten(), page));
         this.path = path;
     }
 
@@ -66,31 +71,29 @@ public class Component {
 
     public Optional<String> renderPage(String pageUri, Model model, Lookup lookup, RequestLookup requestLookup,
                                        API api) {
-        Page servingPage = null;
-        for (Page page : pages) {
-            Optional<Map<String, String>> pathParams = page.getUriPatten().match(pageUri);
-            if (pathParams.isPresent()) {
-                requestLookup.setPathParams(pathParams.get());
-                servingPage = page;
-                break;
-            }
-        }
-        if (servingPage == null) {
+        Optional<UriRouter.Match<Page>> match = pageRouter.match(pageUri);
+        if (!match.isPresent()) {
             return Optional.<String>empty();
         }
-
+        Page servingPage = match.get().getValue();
         LOGGER.debug("Component '{}' is serving Page '{}' for URI '{}'.", name, servingPage, pageUri);
+        return Optional.of(renderPage(servingPage, match.get().getPathParams(), model, lookup, requestLookup,
+                                      api).asString());
+    }
 
+    StreamingContent renderPage(Page page, Map<String, String> pathParams, Model model, Lookup lookup,
+                                RequestLookup requestLookup, API api) {
+        requestLookup.setPathParams(pathParams);
         // Rendering flow tracking start.
         requestLookup.tracker().start(this);
-        String html = servingPage.render(model, lookup, requestLookup, api);
+        StreamingContent html = page.renderStreaming(model, lookup, requestLookup, api);
         // Rendering flow tracking  finish.
         requestLookup.tracker().finish();
-        return Optional.of(html);
+        return html;
     }
 
     public boolean hasPage(String pageUri) {
-        return pages.stream().filter(page -> page.getUriPatten().matches(pageUri)).findFirst().isPresent();
+        return pageRouter.matches(pageUri);
     }
 
     @Override
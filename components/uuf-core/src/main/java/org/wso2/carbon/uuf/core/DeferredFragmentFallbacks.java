@@ -0,0 +1,177 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Models of deferred fragments of an app, kept so that a deferred fragment which is loaded from the {@code
+ * /fragments/} endpoint is rendered with the same model as in its page.
+ * <p>
+ * A model is stored against a random ID which is the only thing written to the page, hence the parameters of a
+ * deferred fragment never appear in a URL. A stored model can be taken only once and only for the fragment it was
+ * stored for, and it expires after {@code uuf.fragment.fallbackTimeout} seconds. A fragment which was still rendering
+ * when its page was written is handed over with its model, so that the {@code /fragments/} request takes its output
+ * instead of rendering it again.
+ * <p>
+ * Models of all deferred fragments are kept, as clients without JavaScript load every deferred fragment from the
+ * {@code /fragments/} endpoint. Hence the number of stored models is capped at the number of deferred fragments
+ * created in one time to live at {@code uuf.fragment.fallbackRate} fragments per second, unless {@code
+ * uuf.fragment.fallbackCacheSize} is set.
+ *
+ * @since 1.0.0
+ */
+class DeferredFragmentFallbacks {
+
+    private static final long TIME_TO_LIVE = Long.getLong("uuf.fragment.fallbackTimeout", 30); // seconds
+    private static final long RATE = Long.getLong("uuf.fragment.fallbackRate", 100); // deferred fragments per second
+    private static final long MAX_SIZE = Long.getLong("uuf.fragment.fallbackCacheSize", TIME_TO_LIVE * RATE);
+    private static final int ID_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeferredFragmentFallbacks.class);
+
+    private final Cache<String, Fallback> fallbacks;
+    private final SecureRandom secureRandom;
+
+    DeferredFragmentFallbacks() {
+        this.fallbacks = CacheBuilder.newBuilder()
+                .maximumSize(MAX_SIZE)
+                .expireAfterWrite(TIME_TO_LIVE, TimeUnit.SECONDS)
+                .removalListener((RemovalListener<String, Fallback>) notification -> {
+                    Fallback fallback = notification.getValue();
+                    if (notification.wasEvicted() && (fallback != null) && (fallback.render != null)) {
+                        fallback.render.cancel(); // Output of a handed over render is no longer needed.
+                    }
+                })
+                .build();
+        this.secureRandom = new SecureRandom();
+    }
+
+    /**
+     * Stores the model of the specified deferred fragment.
+     *
+     * @param fragment deferred fragment
+     * @param model    model of the fragment in its page
+     * @return ID of the stored model
+     */
+    String add(Fragment fragment, Model model) {
+        byte[] randomBytes = new byte[ID_BYTES];
+        secureRandom.nextBytes(randomBytes);
+        String id = ENCODER.encodeToString(randomBytes);
+        fallbacks.put(id, new Fallback(fragment.getName(), model, null));
+        return id;
+    }
+
+    /**
+     * Hands over the specified render, which is still in progress, to the model stored against the specified ID. The
+     * render is cancelled if the model is already taken or expired.
+     *
+     * @param id     ID of the stored model
+     * @param render render of the deferred fragment
+     */
+    void handOver(String id, ForkedFragmentRender render) {
+        Fallback fallback = fallbacks.asMap().computeIfPresent(
+                id, (key, stored) -> new Fallback(stored.fragmentName, stored.model, render));
+        if (fallback == null) {
+            render.cancel();
+        }
+    }
+
+    /**
+     * Removes the model stored against the specified ID, e.g. when its page is not written.
+     *
+     * @param id ID of the stored model
+     */
+    void remove(String id) {
+        fallbacks.invalidate(id);
+    }
+
+    /**
+     * Takes the model, and the render if handed over, stored for the specified fragment against the specified ID.
+     *
+     * @param id       ID of the stored model
+     * @param fragment requested fragment
+     * @return stored fallback, or empty if there is no such model, it is expired or it is already taken
+     */
+    Optional<Fallback> take(String id, Fragment fragment) {
+        Fallback fallback = fallbacks.asMap().remove(id);
+        if ((fallback == null) || !fallback.fragmentName.equals(fragment.getName())) {
+            return Optional.empty();
+        }
+        return Optional.of(fallback);
+    }
+
+    /**
+     * A deferred fragment which is loaded from the {@code /fragments/} endpoint.
+     */
+    static class Fallback {
+
+        private final String fragmentName;
+        private final Model model;
+        private final ForkedFragmentRender render;
+
+        private Fallback(String fragmentName, Model model, ForkedFragmentRender render) {
+            this.fragmentName = fragmentName;
+            this.model = model;
+            this.render = render;
+        }
+
+        Model getModel() {
+            return model;
+        }
+
+        /**
+         * Waits for the render handed over with this fallback, if any, until its deadline.
+         *
+         * @return output of the handed over render, or empty if there is no such render or the fragment should be
+         * rendered again, i.e. the render failed, did not finish in time or tried to modify its response
+         */
+        Optional<String> awaitOutput() {
+            if (render == null) {
+                return Optional.empty();
+            }
+            try {
+                Optional<String> output = render.await();
+                if (output.isPresent() && render.getRejectedResponseModification().isPresent()) {
+                    LOGGER.debug("Deferred fragment '{}' tried to set the {} of the response, hence it is rendered " +
+                                         "again.", fragmentName, render.getRejectedResponseModification().get());
+                    return Optional.empty();
+                }
+                return output;
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                LOGGER.debug("An error occurred when rendering deferred fragment '{}', hence it is rendered again.",
+                             fragmentName, e);
+                return Optional.empty();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.api.Placeholder;
+import org.wso2.carbon.uuf.internal.util.UriUtils;
+import org.wso2.carbon.uuf.spi.StreamingContent;
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fragments of a page which are rendered after the page shell, in the manner of BigPipe.
+ * <p>
+ * A deferred fragment is replaced with a placeholder in the page and rendered in the fragment rendering thread pool
+ * while the rest of the page is rendered. When the page is written, it is flushed up to its closing {@code body} tag
+ * and then the output of each deferred fragment which has completed by then is written before that tag, together
+ * with a script which moves it into its placeholder. The thread writing the response never waits for a deferred
+ * fragment: a fragment which is still rendering, as well as one which failed or could not be submitted to the thread
+ * pool, is loaded from the {@code /fragments/} endpoint of the app instead, and clients without JavaScript load it
+ * through an {@code iframe} in the placeholder. Such a request refers to the model of the fragment kept in the
+ * server, so that the fragment is rendered with the same model as in the page without writing its parameters into
+ * the page, and it takes the output of a fragment which was still rendering instead of rendering it again.
+ * <p>
+ * The response is already sent when a deferred fragment is written, hence a deferred fragment cannot set a header or a
+ * cookie. A fragment which tries to do so is loaded from the {@code /fragments/} endpoint, where it can.
+ *
+ * @since 1.0.0
+ */
+public class DeferredFragments {
+
+    /**
+     * Query parameter of a {@code /fragments/} request which carries the ID of the model of a deferred fragment.
+     */
+    static final String FALLBACK_ID_PARAM = "uuf-deferred";
+    private static final String ID_PREFIX = "uuf-deferred-";
+    private static final String BODY_END_TAG = "</body";
+    private static final String SCRIPT = "<script type=\"text/javascript\">" +
+            "function uufDeferred(n){var p=document.getElementById(\"" + ID_PREFIX + "\"+n)," +
+            "c=document.getElementById(\"" + ID_PREFIX + "\"+n+\"-content\");if(p&&c){p.innerHTML=\"\";" +
+            "while(c.firstChild){p.appendChild(c.firstChild);}c.parentNode.removeChild(c);}}" +
+            "function uufDeferredFallback(n,u){var x=new XMLHttpRequest();x.onload=function(){if(x.status===200){" +
+            "document.getElementById(\"" + ID_PREFIX + "\"+n).innerHTML=x.responseText;}};x.open(\"GET\",u);" +
+            "x.send();}</script>\n";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeferredFragments.class);
+
+    private final RequestLookup requestLookup;
+    private final DeferredFragmentFallbacks fallbacks;
+    private final List<DeferredFragment> deferredFragments;
+    private int lastId;
+
+    DeferredFragments(RequestLookup requestLookup, DeferredFragmentFallbacks fallbacks) {
+        this.requestLookup = requestLookup;
+        this.fallbacks = fallbacks;
+        this.deferredFragments = new ArrayList<>();
+    }
+
+    /**
+     * Starts rendering the specified fragment and returns the placeholder which should be written instead of it.
+     *
+     * @param fragment fragment to defer
+     * @param model    model of the fragment, which is also used when the fragment is loaded from the {@code
+     *                 /fragments/} endpoint
+     * @param lookup   lookup of the app
+     * @param api      API of the request
+     * @return HTML placeholder of the fragment
+     */
+    public String defer(Fragment fragment, Model model, Lookup lookup, API api) {
+        DeferredFragment deferredFragment = new DeferredFragment(++lastId, fallbacks.add(fragment, model));
+        deferredFragment.fallbackUri = getFallbackUri(fragment, deferredFragment.fallbackId);
+        deferredFragment.render = ForkedFragmentRender.of(fragment, model, lookup, requestLookup, api);
+        deferredFragment.isSubmitted = deferredFragment.render.submit();
+        deferredFragments.add(deferredFragment);
+        return "<div id=\"" + ID_PREFIX + deferredFragment.id + "\"><noscript><iframe src=\"" +
+                deferredFragment.fallbackUri + "\"></iframe></noscript></div>";
+    }
+
+    boolean isEmpty() {
+        return deferredFragments.isEmpty();
+    }
+
+    /**
+     * Cancels the renders of the fragments deferred so far and forgets them, together with their stored models.
+     */
+    void cancel() {
+        for (DeferredFragment deferredFragment : deferredFragments) {
+            deferredFragment.render.cancel();
+            fallbacks.remove(deferredFragment.fallbackId);
+        }
+        deferredFragments.clear();
+    }
+
+    /**
+     * Returns a content which writes the specified page with the deferred fragments before its closing {@code body}
+     * tag, or at its end if there is no such tag.
+     *
+     * @param page rendered page shell
+     * @return content of the page with the deferred fragments
+     */
+    StreamingContent appendTo(StreamingContent page) {
+        return writer -> {
+            String html = page.asString();
+            int bodyEndIndex = indexOfBodyEnd(html);
+            writer.write(html, 0, bodyEndIndex);
+            writer.flush();
+            writeFragments(writer);
+            writer.write(html, bodyEndIndex, html.length() - bodyEndIndex);
+        };
+    }
+
+    private void writeFragments(Writer writer) throws IOException {
+        if (deferredFragments.isEmpty()) {
+            return;
+        }
+        writer.write(SCRIPT);
+        for (DeferredFragment deferredFragment : deferredFragments) {
+            if (!deferredFragment.isSubmitted) {
+                // Thread pool was saturated, hence let the client request the fragment separately.
+                writeFallback(deferredFragment, writer);
+            } else if (deferredFragment.render.isDone()) {
+                writeFragment(deferredFragment, writer);
+            } else {
+                // Instead of waiting for the render here, let the client request its output separately.
+                fallbacks.handOver(deferredFragment.fallbackId, deferredFragment.render);
+                writeFallback(deferredFragment, writer);
+            }
+        }
+    }
+
+    private void writeFragment(DeferredFragment deferredFragment, Writer writer) throws IOException {
+        Optional<String> output;
+        RuntimeException error = null;
+        try {
+            output = deferredFragment.render.await();
+        } catch (RuntimeException e) {
+            error = e;
+            output = Optional.empty();
+        }
+        Optional<String> rejectedModification = deferredFragment.render.getRejectedResponseModification();
+        if (rejectedModification.isPresent()) {
+            // Output of the fragment is incomplete without the header, hence let the client request it separately.
+            LOGGER.warn("Deferred fragment '{}' tried to set the {} of the response after the response was sent, " +
+                                "hence it is loaded from the fragments endpoint instead.",
+                        deferredFragment.render.getFragment().getName(), rejectedModification.get());
+            output = Optional.empty();
+        } else if (error != null) {
+            LOGGER.error("An error occurred when rendering deferred fragment '{}'.",
+                         deferredFragment.render.getFragment().getName(), error);
+        }
+        if (!output.isPresent()) {
+            writeFallback(deferredFragment, writer);
+            return;
+        }
+
+        RequestLookup forkedLookup = deferredFragment.render.getForkedLookup();
+        writer.write(requestLookup.joinPlaceholder(forkedLookup, Placeholder.css));
+        writer.write("<div hidden id=\"" + ID_PREFIX + deferredFragment.id + "-content\">");
+        writer.write(output.get());
+        writer.write("</div>\n<script type=\"text/javascript\">uufDeferred(" + deferredFragment.id + ");</script>\n");
+        writer.write(requestLookup.joinPlaceholder(forkedLookup, Placeholder.headJs));
+        writer.write(requestLookup.joinPlaceholder(forkedLookup, Placeholder.js));
+    }
+
+    private void writeFallback(DeferredFragment deferredFragment, Writer writer) throws IOException {
+        writer.write("<script type=\"text/javascript\">uufDeferredFallback(" + deferredFragment.id + ",\"" +
+                             deferredFragment.fallbackUri + "\");</script>\n");
+    }
+
+    private String getFallbackUri(Fragment fragment, String fallbackId) {
+        return requestLookup.getContextPath() + UriUtils.FRAGMENTS_URI_PREFIX + fragment.getName() + "?" +
+                FALLBACK_ID_PARAM + "=" + fallbackId;
+    }
+
+    /**
+     * Returns the index of the last closing {@code body} tag in the specified HTML.
+     *
+     * @param html HTML of a page
+     * @return index of the closing {@code body} tag, or the length of the HTML if there is no such tag
+     */
+    private static int indexOfBodyEnd(String html) {
+        for (int i = html.lastIndexOf('<'); i >= 0; i = html.lastIndexOf('<', i - 1)) {
+            if (html.regionMatches(true, i, BODY_END_TAG, 0, BODY_END_TAG.length())) {
+                return i;
+            }
+        }
+        return html.length();
+    }
+
+    /**
+     * A fragment deferred in the page.
+     */
+    private static class DeferredFragment {
+
+        private final int id;
+        private final String fallbackId;
+        private String fallbackUri;
+        private ForkedFragmentRender render;
+        private boolean isSubmitted;
+
+        private DeferredFragment(int id, String fallbackId) {
+            this.id = id;
+            this.fallbackId = fallbackId;
+        }
+    }
+}
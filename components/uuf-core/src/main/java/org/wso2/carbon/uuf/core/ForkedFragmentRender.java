@@ -0,0 +1,252 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A render of a fragment in the fragment rendering thread pool. The fragment is rendered with a request lookup and an
+ * API forked from the ones of the request, so that it does not interfere with the request thread.
+ *
+ * @since 1.0.0
+ */
+class ForkedFragmentRender {
+
+    private static final int THREADS = Integer.getInteger("uuf.fragment.renderThreads",
+                                                          Runtime.getRuntime().availableProcessors() * 2);
+    private static final int QUEUE_SIZE = Integer.getInteger("uuf.fragment.renderQueueSize", 256);
+    private static final long DEFAULT_RENDER_TIMEOUT = Long.getLong("uuf.fragment.renderTimeout", 5000); // ms
+    private static final Logger LOGGER = LoggerFactory.getLogger(ForkedFragmentRender.class);
+
+    private final Fragment fragment;
+    private final RequestLookup forkedLookup;
+    private final API forkedApi;
+    private final FutureTask<String> task;
+    private final long deadline;
+
+    private ForkedFragmentRender(Fragment fragment, Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        this.fragment = fragment;
+        this.forkedLookup = requestLookup.fork();
+        this.forkedApi = api.fork(forkedLookup);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        this.task = new FutureTask<String>(() -> {
+            Thread thread = Thread.currentThread();
+            ClassLoader threadClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                return fragment.render(model, lookup, forkedLookup, forkedApi);
+            } finally {
+                thread.setContextClassLoader(threadClassLoader);
+            }
+        });
+        long timeout = (fragment.getRenderTimeout() > 0) ? fragment.getRenderTimeout() : DEFAULT_RENDER_TIMEOUT;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Creates a render of the specified fragment with a request lookup and an API forked at the current rendering
+     * position of the specified ones. The render is started through {@link #submit()} or {@link #run()}.
+     *
+     * @param fragment      fragment to render
+     * @param model         model of the fragment
+     * @param lookup        lookup of the app
+     * @param requestLookup lookup of the request
+     * @param api           API of the request
+     * @return created render
+     */
+    static ForkedFragmentRender of(Fragment fragment, Model model, Lookup lookup, RequestLookup requestLookup,
+                                   API api) {
+        return new ForkedFragmentRender(fragment, model, lookup, requestLookup, api);
+    }
+
+    /**
+     * Starts rendering the specified fragment in the fragment rendering thread pool.
+     *
+     * @param fragment      fragment to render
+     * @param model         model of the fragment
+     * @param lookup        lookup of the app
+     * @param requestLookup lookup of the request
+     * @param api           API of the request
+     * @return started render, or empty if the thread pool is saturated
+     */
+    static Optional<ForkedFragmentRender> start(Fragment fragment, Model model, Lookup lookup,
+                                                RequestLookup requestLookup, API api) {
+        ForkedFragmentRender render = of(fragment, model, lookup, requestLookup, api);
+        return render.submit() ? Optional.of(render) : Optional.empty();
+    }
+
+    /**
+     * Returns whether the current thread is a thread of the fragment rendering thread pool. A render in the pool
+     * should not wait for another render in the pool, otherwise nested renders can exhaust the pool.
+     *
+     * @return {@code true} if the current thread belongs to the fragment rendering thread pool
+     */
+    static boolean isRenderingThread() {
+        return Thread.currentThread() instanceof RenderingThread;
+    }
+
+    /**
+     * Submits this render to the fragment rendering thread pool.
+     *
+     * @return {@code true} if submitted, or {@code false} if the thread pool is saturated
+     */
+    boolean submit() {
+        try {
+            ExecutorHolder.EXECUTOR.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Fragment rendering thread pool is saturated, hence fragment '{}' is not rendered " +
+                                 "concurrently.", fragment.getName());
+            return false;
+        }
+    }
+
+    /**
+     * Runs this render in the current thread, if it is not already started.
+     */
+    void run() {
+        task.run();
+    }
+
+    Fragment getFragment() {
+        return fragment;
+    }
+
+    RequestLookup getForkedLookup() {
+        return forkedLookup;
+    }
+
+    /**
+     * @return modification of the response which this render attempted and which was rejected, or empty if none
+     * @see ForkedHttpResponse#getRejectedModification()
+     */
+    Optional<String> getRejectedResponseModification() {
+        HttpResponse response = forkedLookup.getResponse();
+        return (response instanceof ForkedHttpResponse) ?
+                ((ForkedHttpResponse) response).getRejectedModification() : Optional.<String>empty();
+    }
+
+    /**
+     * @return {@code true} if this render completed, failed or is cancelled
+     */
+    boolean isDone() {
+        return task.isDone();
+    }
+
+    /**
+     * @return time in nanoseconds, as in {@link System#nanoTime()}, after which this render is considered timed out
+     */
+    long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Waits for this render until its deadline.
+     *
+     * @return output of the fragment, or empty if the render did not finish in time and hence is cancelled
+     * @exception UUFException if the waiting thread is interrupted or the render failed with a checked exception
+     */
+    Optional<String> await() {
+        try {
+            return Optional.of(task.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException | CancellationException e) {
+            task.cancel(true);
+            LOGGER.warn("Rendering fragment '{}' did not finish in time.", fragment.getName());
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UUFException("Interrupted while waiting for fragment '" + fragment.getName() + "'.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new UUFException("An error occurred when rendering fragment '" + fragment.getName() + "'.", cause);
+        }
+    }
+
+    /**
+     * Waits for this render and merges its placeholder contents, zone contents and session accesses into the
+     * specified request lookup and API.
+     *
+     * @param requestLookup request lookup from which this render was forked
+     * @param api           API from which this render was forked
+     * @return output of the fragment, or an empty string if the render did not finish in time
+     */
+    String join(RequestLookup requestLookup, API api) {
+        Optional<String> output = await();
+        if (!output.isPresent()) {
+            return "";
+        }
+        requestLookup.join(forkedLookup);
+        api.join(forkedApi);
+        return output.get();
+    }
+
+    void cancel() {
+        task.cancel(true);
+    }
+
+    /**
+     * Holds the rendering thread pool, so that it is created only when a fragment is rendered concurrently.
+     */
+    private static class ExecutorHolder {
+
+        private static final ThreadPoolExecutor EXECUTOR;
+
+        static {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new RenderingThread(runnable, "uuf-fragment-renderer-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            int threads = Math.max(1, THREADS);
+            EXECUTOR = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                              new ArrayBlockingQueue<>(Math.max(1, QUEUE_SIZE)), threadFactory);
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * A thread of the fragment rendering thread pool.
+     */
+    private static class RenderingThread extends Thread {
+
+        private RenderingThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
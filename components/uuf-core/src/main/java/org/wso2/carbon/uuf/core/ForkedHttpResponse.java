@@ -0,0 +1,129 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The response seen by a fragment rendered with a forked request lookup. It is a read-only snapshot of the response
+ * taken when the lookup was forked, since the response is not safe to be accessed from another thread, and a
+ * forked render may finish after the response is sent.
+ *
+ * @see RequestLookup#fork()
+ */
+class ForkedHttpResponse implements HttpResponse {
+
+    private final int status;
+    private final String contentType;
+    private final Map<String, String> headers;
+    private volatile String rejectedModification;
+
+    ForkedHttpResponse(HttpResponse response) {
+        this.status = response.getStatus();
+        this.contentType = response.getContentType();
+        this.headers = Collections.unmodifiableMap(new HashMap<>(response.getHeaders()));
+    }
+
+    @Override
+    public void setStatus(int statusCode) {
+        throw newModificationException("status");
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setContent(String content, String contentType) {
+        throw newModificationException("content");
+    }
+
+    @Override
+    public void setContent(File content) {
+        throw newModificationException("content");
+    }
+
+    @Override
+    public void setContent(File content, String contentType) {
+        throw newModificationException("content");
+    }
+
+    @Override
+    public void setContent(Object content, String contentType) {
+        throw newModificationException("content");
+    }
+
+    @Override
+    public void setContent(InputStream content, String contentType) {
+        throw newModificationException("content");
+    }
+
+    @Override
+    public Object getContent() {
+        return null;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        throw newModificationException("content type");
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        throw newModificationException("header '" + name + "'");
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the first modification of the response which was attempted through this snapshot and hence rejected.
+     * A render may catch the thrown exception, so this is how the owner of a forked render finds out that the output
+     * of the render is missing a header or a cookie.
+     *
+     * @return rejected modification, e.g. {@code header 'Set-Cookie'}, or empty if none was attempted
+     */
+    Optional<String> getRejectedModification() {
+        return Optional.ofNullable(rejectedModification);
+    }
+
+    private UUFException newModificationException(String what) {
+        if (rejectedModification == null) {
+            rejectedModification = what;
+        }
+        return new UUFException("A fragment rendered in another thread cannot set the " + what + " of the response, " +
+                                        "since the response belongs to the request thread.");
+    }
+}
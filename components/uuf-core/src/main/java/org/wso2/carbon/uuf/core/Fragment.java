@@ -18,13 +18,20 @@
 
 package org.wso2.carbon.uuf.core;
 
+import org.wso2.carbon.uuf.api.auth.Session;
 import org.wso2.carbon.uuf.exception.SessionNotFoundException;
 import org.wso2.carbon.uuf.internal.util.NameUtils;
 import org.wso2.carbon.uuf.internal.util.UriUtils;
+import org.wso2.carbon.uuf.spi.HttpResponse;
 import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.auth.User;
 import org.wso2.carbon.uuf.spi.model.Model;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 public class Fragment {
 
@@ -32,16 +39,46 @@ public class Fragment {
     private final String simpleName;
     private final Renderable renderer;
     private final boolean isSecured;
+    private final Set<String> cacheKeyParams;
+    private final boolean isIndependent;
+    private final long renderTimeout;
 
     /**
      * @param name     fully qualified name
      * @param renderer renderer
      */
     public Fragment(String name, Renderable renderer, boolean isSecured) {
+        this(name, renderer, isSecured, null);
+    }
+
+    /**
+     * @param name           fully qualified name
+     * @param renderer       renderer
+     * @param cacheKeyParams names of the parameters which vary the output of this fragment if the output of this
+     *                       fragment can be cached, otherwise {@code null}
+     */
+    public Fragment(String name, Renderable renderer, boolean isSecured, Set<String> cacheKeyParams) {
+        this(name, renderer, isSecured, cacheKeyParams, false, 0);
+    }
+
+    /**
+     * @param name           fully qualified name
+     * @param renderer       renderer
+     * @param cacheKeyParams names of the parameters which vary the output of this fragment if the output of this
+     *                       fragment can be cached, otherwise {@code null}
+     * @param isIndependent  whether this fragment can be rendered concurrently with other fragments of a zone
+     * @param renderTimeout  maximum time in milliseconds to wait for a concurrent render of this fragment, or zero to
+     *                       use the default timeout
+     */
+    public Fragment(String name, Renderable renderer, boolean isSecured, Set<String> cacheKeyParams,
+                    boolean isIndependent, long renderTimeout) {
         this.name = name;
         this.simpleName = NameUtils.getSimpleName(name);
         this.renderer = renderer;
         this.isSecured = isSecured;
+        this.cacheKeyParams = cacheKeyParams;
+        this.isIndependent = isIndependent;
+        this.renderTimeout = renderTimeout;
     }
 
     public String getName() {
@@ -56,6 +93,38 @@ public class Fragment {
         return renderer;
     }
 
+    public boolean isSecured() {
+        return isSecured;
+    }
+
+    public boolean isCacheable() {
+        return cacheKeyParams != null;
+    }
+
+    /**
+     * @return names of the parameters which vary the output of this fragment
+     */
+    public Set<String> getCacheKeyParams() {
+        return (cacheKeyParams == null) ? Collections.emptySet() : cacheKeyParams;
+    }
+
+    /**
+     * @return {@code true} if this fragment does not depend on the other fragments of a zone, hence can be rendered
+     * concurrently with them
+     * @see ZoneRenderer
+     */
+    public boolean isIndependent() {
+        return isIndependent;
+    }
+
+    /**
+     * @return maximum time in milliseconds to wait for a concurrent render of this fragment, or zero if the default
+     * timeout applies
+     */
+    public long getRenderTimeout() {
+        return renderTimeout;
+    }
+
     public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         if (isSecured && !api.getSession().isPresent()) {
             if (requestLookup.tracker().isInPage() || requestLookup.tracker().isInLayout() ||
@@ -69,6 +138,44 @@ public class Fragment {
             }
         }
 
+        if (!isCacheable()) {
+            return renderFragment(model, lookup, requestLookup, api);
+        }
+
+        OutputCache<FragmentOutput> fragmentCache = lookup.getFragmentCache();
+        String cacheKey = getCacheKey(model, lookup, requestLookup, api);
+        Optional<FragmentOutput> cachedOutput = fragmentCache.get(cacheKey);
+        if (cachedOutput.isPresent()) {
+            FragmentOutput fragmentOutput = cachedOutput.get();
+            requestLookup.replay(fragmentOutput.recording);
+            if (fragmentOutput.isSessionAccessed) {
+                // Let enclosing outputs (e.g. a cached page) know that this output depends on the session.
+                api.getSession();
+            }
+            return fragmentOutput.content;
+        }
+
+        long generation = fragmentCache.getGeneration();
+        int sessionAccessCount = api.getSessionAccessCount();
+        String setCookieHeader = requestLookup.getResponse().getHeaders().get(HttpResponse.HEADER_SET_COOKIE);
+        String output;
+        RequestLookup.Recording recording;
+        requestLookup.startRecording();
+        try {
+            output = renderFragment(model, lookup, requestLookup, api);
+        } finally {
+            recording = requestLookup.stopRecording();
+        }
+        // Outputs which create/destroy a session cannot be shared.
+        if (Objects.equals(setCookieHeader,
+                           requestLookup.getResponse().getHeaders().get(HttpResponse.HEADER_SET_COOKIE))) {
+            boolean isSessionAccessed = (api.getSessionAccessCount() != sessionAccessCount);
+            fragmentCache.put(cacheKey, new FragmentOutput(output, recording, isSessionAccessed), generation);
+        }
+        return output;
+    }
+
+    private String renderFragment(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         // Rendering flow tracking in.
         requestLookup.tracker().in(this);
         lookup.getComponent(requestLookup.tracker().getCurrentComponentName())
@@ -81,6 +188,30 @@ public class Fragment {
         return output;
     }
 
+    /**
+     * Creates the cache key for an output of this fragment. Since a cached output is shared among requests, the key
+     * consists of the declared parameters, the negotiated locale and the current user.
+     *
+     * @param model         model of the fragment
+     * @param lookup        lookup
+     * @param requestLookup request lookup
+     * @param api           API
+     * @return fragment cache key
+     */
+    private String getCacheKey(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        // Requests with different Accept-Language headers which resolve to the same locale share the output.
+        String locale = requestLookup.getLocale(lookup.getI18nResources());
+        String username = api.findSession().map(Session::getUser).map(User::getUsername).orElse("");
+        StringBuilder key = new StringBuilder(name)
+                .append('\n').append(locale)
+                .append('\n').append(username);
+        Map<String, Object> params = (model == null) ? Collections.emptyMap() : model.toMap();
+        for (String param : cacheKeyParams) {
+            key.append('\n').append(param).append('=').append(params.get(param));
+        }
+        return key.toString();
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(name, renderer);
@@ -93,6 +224,23 @@ public class Fragment {
 
     @Override
     public String toString() {
-        return "{\"name\": \"" + name + "\", \"renderer\": " + renderer + ", \"secured\": " + isSecured + "}";
+        return "{\"name\": \"" + name + "\", \"renderer\": " + renderer + ", \"secured\": " + isSecured +
+                ", \"cacheable\": " + isCacheable() + ", \"independent\": " + isIndependent + "}";
+    }
+
+    /**
+     * A rendered output of a fragment together with the placeholder and zone contents added while rendering it.
+     */
+    static class FragmentOutput {
+
+        private final String content;
+        private final RequestLookup.Recording recording;
+        private final boolean isSessionAccessed;
+
+        private FragmentOutput(String content, RequestLookup.Recording recording, boolean isSessionAccessed) {
+            this.content = content;
+            this.recording = recording;
+            this.isSessionAccessed = isSessionAccessed;
+        }
     }
 }
@@ -0,0 +1,335 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Compiled i18n messages of an app.
+ * <p>
+ * Messages are compiled once into an immutable table per locale, where a table also contains the messages of its
+ * fallback locales, e.g. the table of {@code fr_CA} contains the messages of {@code fr_CA}, {@code fr} and the default
+ * locale in that order of precedence. Hence translating a message is a single hash lookup. Locales negotiated from
+ * {@code Accept-Language} header values are cached per distinct header value.
+ *
+ * @since 1.0.0
+ */
+public class I18nResources {
+
+    /**
+     * Locale used when none of the requested locales is available.
+     */
+    public static final String DEFAULT_LOCALE = "en_US";
+    private static final long MAX_NEGOTIATED_LOCALES = 1000;
+
+    private final Map<String, Map<String, Message>> messageTables;
+    private final Map<String, Message> defaultMessageTable;
+    private final List<String> locales;
+    private final Cache<String, String> negotiatedLocales;
+
+    /**
+     * Compiles the specified i18n resources.
+     *
+     * @param i18nResources messages of each locale, where keys are locale names such as {@code en_US} or {@code en}
+     */
+    public I18nResources(Map<String, Properties> i18nResources) {
+        Map<String, Map<String, Message>> messages = new HashMap<>();
+        i18nResources.forEach((locale, properties) -> {
+            Map<String, Message> localeMessages = new HashMap<>();
+            properties.stringPropertyNames()
+                    .forEach(key -> localeMessages.put(key, Message.compile(properties.getProperty(key))));
+            messages.put(locale, localeMessages);
+        });
+
+        Map<String, Map<String, Message>> tables = new HashMap<>();
+        for (String locale : messages.keySet()) {
+            tables.put(locale, createMessageTable(locale, messages));
+        }
+        this.defaultMessageTable = tables.computeIfAbsent(DEFAULT_LOCALE,
+                                                          locale -> createMessageTable(locale, messages));
+        this.messageTables = Collections.unmodifiableMap(tables);
+        this.locales = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(messages.keySet())));
+        this.negotiatedLocales = CacheBuilder.newBuilder().maximumSize(MAX_NEGOTIATED_LOCALES).build();
+    }
+
+    /**
+     * Returns the best available locale for the specified {@code Accept-Language} header value. Language ranges are
+     * tried in the descending order of their quality values. For each range the exact locale, its language and then any
+     * locale of that language are tried.
+     *
+     * @param acceptLanguage value of the {@code Accept-Language} header, e.g. {@code fr-CA,fr;q=0.8,en;q=0.5}, may be
+     *                       {@code null}
+     * @return negotiated locale, or {@link #DEFAULT_LOCALE} if none of the requested locales is available
+     */
+    public String negotiateLocale(String acceptLanguage) {
+        if ((acceptLanguage == null) || acceptLanguage.isEmpty()) {
+            return DEFAULT_LOCALE;
+        }
+        try {
+            return negotiatedLocales.get(acceptLanguage, () -> negotiate(acceptLanguage));
+        } catch (ExecutionException e) {
+            // Cannot happen as 'negotiate' does not throw checked exceptions.
+            return negotiate(acceptLanguage);
+        }
+    }
+
+    /**
+     * Returns the message of the specified key in the specified locale or its fallback locales.
+     *
+     * @param locale locale name, e.g. {@code en_US}
+     * @param key    message key
+     * @return message, or {@code null} if there is no such message
+     */
+    public Message getMessage(String locale, String key) {
+        return messageTables.getOrDefault(locale, defaultMessageTable).get(key);
+    }
+
+    /**
+     * @return names of the available locales in ascending order
+     */
+    public List<String> getLocales() {
+        return locales;
+    }
+
+    private String negotiate(String acceptLanguage) {
+        List<LanguageRange> ranges = new ArrayList<>();
+        String[] values = acceptLanguage.split(",");
+        for (int i = 0; i < values.length; i++) {
+            LanguageRange range = LanguageRange.parse(values[i].trim(), i);
+            if ((range != null) && (range.quality > 0)) {
+                ranges.add(range);
+            }
+        }
+        Collections.sort(ranges);
+
+        for (LanguageRange range : ranges) {
+            if (range.tag.equals("*")) {
+                return DEFAULT_LOCALE;
+            }
+            if (messageTables.containsKey(range.tag)) {
+                return range.tag;
+            }
+            int separatorIndex = range.tag.indexOf('_');
+            String language = (separatorIndex < 0) ? range.tag : range.tag.substring(0, separatorIndex);
+            if (messageTables.containsKey(language)) {
+                return language;
+            }
+            for (String locale : locales) {
+                if (locale.startsWith(language + "_")) {
+                    return locale;
+                }
+            }
+        }
+        return DEFAULT_LOCALE;
+    }
+
+    private static Map<String, Message> createMessageTable(String locale, Map<String, Map<String, Message>> messages) {
+        // Fallback chain in ascending order of precedence, e.g. en_US (default), en, fr, fr_CA
+        List<String> chain = new ArrayList<>();
+        addWithLanguage(DEFAULT_LOCALE, chain);
+        addWithLanguage(locale, chain);
+
+        Map<String, Message> table = new HashMap<>();
+        for (String chainLocale : chain) {
+            table.putAll(messages.getOrDefault(chainLocale, Collections.emptyMap()));
+        }
+        return ImmutableMap.copyOf(table);
+    }
+
+    private static void addWithLanguage(String locale, List<String> chain) {
+        int separatorIndex = locale.indexOf('_');
+        if (separatorIndex > 0) {
+            chain.remove(locale.substring(0, separatorIndex));
+            chain.add(locale.substring(0, separatorIndex));
+        }
+        chain.remove(locale);
+        chain.add(locale);
+    }
+
+    /**
+     * A compiled message. Placeholders of the form <code>{0}</code>, <code>{1}</code>, etc. are replaced with the
+     * corresponding arguments when formatting.
+     * <p>
+     * Messages with placeholders follow the quoting rules of {@link java.text.MessageFormat}: two single quotes
+     * (<code>''</code>) represent a single quote and text enclosed in single quotes is written literally, e.g.
+     * <code>'{0}'</code> is not a placeholder. Other format elements such as <code>{0,number}</code> are not
+     * supported and are written as they are. Messages without placeholders are never formatted, hence they are
+     * written exactly as defined, including their single quotes.
+     */
+    public static class Message {
+
+        private final String[] literals;
+        private final int[] argumentIndexes;
+
+        private Message(String[] literals, int[] argumentIndexes) {
+            this.literals = literals;
+            this.argumentIndexes = argumentIndexes;
+        }
+
+        static Message compile(String pattern) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> argumentIndexes = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            boolean isQuoted = false;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    if (((i + 1) < pattern.length()) && (pattern.charAt(i + 1) == '\'')) {
+                        literal.append('\''); // '' is a single quote, both inside and outside quoted text
+                        i += 2;
+                    } else {
+                        isQuoted = !isQuoted;
+                        i++;
+                    }
+                    continue;
+                }
+                int closeIndex = (!isQuoted && (c == '{')) ? pattern.indexOf('}', i + 1) : -1;
+                if ((closeIndex > (i + 1)) && isDigits(pattern, i + 1, closeIndex)) {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    argumentIndexes.add(Integer.parseInt(pattern.substring(i + 1, closeIndex)));
+                    i = closeIndex + 1;
+                } else {
+                    literal.append(c);
+                    i++;
+                }
+            }
+            if (argumentIndexes.isEmpty()) {
+                // A message without placeholders is not formatted, hence its single quotes are kept as they are.
+                return new Message(new String[]{pattern}, new int[0]);
+            }
+            literals.add(literal.toString());
+            return new Message(literals.toArray(new String[literals.size()]),
+                               argumentIndexes.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        /**
+         * @return {@code true} if this message has placeholders
+         */
+        public boolean isParameterized() {
+            return argumentIndexes.length > 0;
+        }
+
+        /**
+         * Formats this message with the specified arguments. Placeholders without a corresponding argument are kept
+         * as they are.
+         *
+         * @param args arguments
+         * @return formatted message
+         */
+        public String format(Object... args) {
+            if (argumentIndexes.length == 0) {
+                return literals[0];
+            }
+            StringBuilder buffer = new StringBuilder();
+            for (int i = 0; i < argumentIndexes.length; i++) {
+                buffer.append(literals[i]);
+                int argumentIndex = argumentIndexes[i];
+                if (argumentIndex < args.length) {
+                    buffer.append(args[argumentIndex]);
+                } else {
+                    buffer.append('{').append(argumentIndex).append('}');
+                }
+            }
+            return buffer.append(literals[argumentIndexes.length]).toString();
+        }
+
+        @Override
+        public String toString() {
+            return format();
+        }
+
+        private static boolean isDigits(String str, int beginIndex, int endIndex) {
+            if ((endIndex - beginIndex) > 3) {
+                return false;
+            }
+            for (int i = beginIndex; i < endIndex; i++) {
+                if (!Character.isDigit(str.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class LanguageRange implements Comparable<LanguageRange> {
+
+        private final String tag;
+        private final double quality;
+        private final int position;
+
+        private LanguageRange(String tag, double quality, int position) {
+            this.tag = tag;
+            this.quality = quality;
+            this.position = position;
+        }
+
+        /**
+         * @param value    a language range with an optional quality value, e.g. {@code en-US;q=0.8}
+         * @param position position of the range in the header
+         * @return parsed range, or {@code null} if the value is invalid
+         */
+        static LanguageRange parse(String value, int position) {
+            String[] parts = value.split(";");
+            String tag = parts[0].trim();
+            if (tag.isEmpty()) {
+                return null;
+            }
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+            }
+            // e.g. en-us to en_US
+            int separatorIndex = tag.indexOf('-');
+            if (separatorIndex > 0) {
+                tag = tag.substring(0, separatorIndex).toLowerCase(Locale.ROOT) + "_" +
+                        tag.substring(separatorIndex + 1).toUpperCase(Locale.ROOT);
+            } else if (!tag.equals("*")) {
+                tag = tag.toLowerCase(Locale.ROOT);
+            }
+            return new LanguageRange(tag, quality, position);
+        }
+
+        @Override
+        public int compareTo(LanguageRange other) {
+            int comparison = Double.compare(other.quality, this.quality);
+            return (comparison != 0) ? comparison : Integer.compare(this.position, other.position);
+        }
+    }
+}
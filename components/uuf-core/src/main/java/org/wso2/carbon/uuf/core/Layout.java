@@ -21,6 +21,7 @@ package org.wso2.carbon.uuf.core;
 import org.wso2.carbon.uuf.internal.util.NameUtils;
 import org.wso2.carbon.uuf.internal.util.UriUtils;
 import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 
 import java.util.Objects;
 
@@ -48,12 +49,28 @@ public class Layout {
         return simpleName;
     }
 
+    public Renderable getRenderable() {
+        return renderer;
+    }
+
     public String render(Lookup lookup, RequestLookup requestLookup, API api) {
+        return renderStreaming(lookup, requestLookup, api).asString();
+    }
+
+    /**
+     * Renders this layout into a content which is written when it is served.
+     *
+     * @param lookup        lookup
+     * @param requestLookup request lookup
+     * @param api           API
+     * @return rendered content
+     */
+    public StreamingContent renderStreaming(Lookup lookup, RequestLookup requestLookup, API api) {
         // Rendering flow tracking in.
         requestLookup.tracker().in(this);
         Component currentComponent = lookup.getComponent(requestLookup.tracker().getCurrentComponentName()).get();
         requestLookup.pushToPublicUriStack(UriUtils.getPublicUri(currentComponent, this));
-        String output = renderer.render(null, lookup, requestLookup, api);
+        StreamingContent output = renderer.renderStreaming(null, lookup, requestLookup, api);
         // Rendering flow tracking out.
         requestLookup.popPublicUriStack();
         requestLookup.tracker().out(this);
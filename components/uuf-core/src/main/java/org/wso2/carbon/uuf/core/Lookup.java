@@ -52,6 +52,15 @@ public class Lookup {
     private final Map<String, Layout> layouts;
     private final Configuration configuration;
     private final Map<String, Properties> i18nResources;
+    private volatile I18nResources compiledI18nResources;
+    /**
+     * Outputs of cacheable pages in this lookup. key = page cache key, value = rendered page output
+     */
+    private final OutputCache<App.PageOutput> pageCache;
+    /**
+     * Outputs of cacheable fragments in this lookup. key = fragment cache key, value = rendered fragment output
+     */
+    private final OutputCache<Fragment.FragmentOutput> fragmentCache;
 
     public Lookup(SetMultimap<String, String> flattenedDependencies, Configuration configuration) {
         this.flattenedDependencies = flattenedDependencies;
@@ -61,14 +70,19 @@ public class Lookup {
         this.fragments = new HashMap<>();
         this.bindings = ArrayListMultimap.create();
         this.i18nResources = new HashMap<>();
+        this.pageCache = new OutputCache<>(configuration.getPageCacheMaxSize(), configuration.getPageCacheTimeToLive());
+        this.fragmentCache = new OutputCache<>(configuration.getFragmentCacheMaxSize(),
+                                               configuration.getFragmentCacheTimeToLive());
     }
 
     public void add(Component component) {
         components.put(component.getName(), component);
+        component.getPages().forEach(page -> page.getRenderable().addUpdateListener(this::invalidateOutputCaches));
     }
 
     public void add(Fragment fragment) {
         fragments.put(fragment.getName(), fragment);
+        fragment.getRenderable().addUpdateListener(this::invalidateOutputCaches);
     }
 
     public void add(Map<String, Properties> i18nConfiguration) {
@@ -83,6 +97,7 @@ public class Lookup {
                 }
             }
         }
+        compiledI18nResources = null;
     }
 
     public void addBinding(String zoneName, List<Fragment> fragments, String mode) {
@@ -101,6 +116,7 @@ public class Lookup {
 
     public void add(Layout layout) {
         layouts.put(layout.getName(), layout);
+        layout.getRenderable().addUpdateListener(this::invalidateOutputCaches);
     }
 
     public Optional<Component> getComponent(String componentName) {
@@ -166,7 +182,38 @@ public class Lookup {
         return configuration;
     }
 
+    OutputCache<App.PageOutput> getPageCache() {
+        return pageCache;
+    }
+
+    OutputCache<Fragment.FragmentOutput> getFragmentCache() {
+        return fragmentCache;
+    }
+
+    /**
+     * Invalidates all cached page and fragment outputs of this lookup, e.g. when a renderable of this lookup is
+     * reloaded. Output caches of other lookups are not affected.
+     */
+    void invalidateOutputCaches() {
+        pageCache.invalidateAll();
+        fragmentCache.invalidateAll();
+    }
+
     public Map<String, Properties> getAllI18nResources() {
         return i18nResources;
     }
+
+    /**
+     * Returns the i18n resources of this lookup, compiled into per-locale message tables.
+     *
+     * @return compiled i18n resources
+     */
+    public I18nResources getI18nResources() {
+        I18nResources resources = compiledI18nResources;
+        if (resources == null) {
+            resources = new I18nResources(i18nResources);
+            compiledI18nResources = resources;
+        }
+        return resources;
+    }
 }
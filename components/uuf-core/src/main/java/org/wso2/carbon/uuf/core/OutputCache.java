@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of rendered outputs, e.g. page outputs of an app.
+ * <p>
+ * Entries are evicted when the cache exceeds its maximum size or when they exceed their time-to-live. All entries of
+ * this cache can be invalidated at once through {@link #invalidateAll()}, e.g. when a template of the app is reloaded
+ * in dev mode. Each app holds its own output caches, hence invalidating them does not affect other apps.
+ *
+ * @param <V> type of the cached outputs
+ * @since 1.0.0
+ */
+public class OutputCache<V> {
+
+    private final Cache<String, CachedOutput<V>> cache;
+    private final AtomicLong generation;
+
+    /**
+     * Creates a new output cache.
+     *
+     * @param maxSize    maximum number of cached outputs
+     * @param timeToLive time-to-live of a cached output in seconds
+     */
+    public OutputCache(long maxSize, long timeToLive) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive, TimeUnit.SECONDS)
+                .build();
+        this.generation = new AtomicLong();
+    }
+
+    /**
+     * Returns the current generation of cached entries. Outputs should be put with the generation read before
+     * rendering them, so that an output rendered with an outdated template is never served.
+     *
+     * @return current generation
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public Optional<V> get(String key) {
+        CachedOutput<V> cachedOutput = cache.getIfPresent(key);
+        if (cachedOutput == null) {
+            return Optional.empty();
+        }
+        if (cachedOutput.generation != this.generation.get()) {
+            cache.invalidate(key);
+            return Optional.empty();
+        }
+        return Optional.of(cachedOutput.output);
+    }
+
+    public void put(String key, V output, long generation) {
+        if (generation == this.generation.get()) {
+            cache.put(key, new CachedOutput<>(output, generation));
+        }
+    }
+
+    /**
+     * Invalidates all entries of this output cache. Outputs rendered before calling this method are not put anymore.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static class CachedOutput<V> {
+
+        private final V output;
+        private final long generation;
+
+        private CachedOutput(V output, long generation) {
+            this.output = output;
+            this.generation = generation;
+        }
+    }
+}
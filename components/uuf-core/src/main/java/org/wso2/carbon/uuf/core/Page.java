@@ -21,9 +21,12 @@ package org.wso2.carbon.uuf.core;
 import org.wso2.carbon.uuf.exception.SessionNotFoundException;
 import org.wso2.carbon.uuf.internal.util.UriUtils;
 import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 import org.wso2.carbon.uuf.spi.model.Model;
 
+import java.util.Collections;
 import java.util.Objects;
+import java.util.Set;
 
 public class Page implements Comparable<Page> {
 
@@ -31,23 +34,63 @@ public class Page implements Comparable<Page> {
     private final Renderable renderer;
     private final boolean isSecured;
     private final Layout layout;
+    private final Set<String> cacheKeyQueryParams;
 
     public Page(UriPatten uriPatten, Renderable renderer, boolean isSecured) {
         this(uriPatten, renderer, isSecured, null);
     }
 
     public Page(UriPatten uriPatten, Renderable renderer, boolean isSecured, Layout layout) {
+        this(uriPatten, renderer, isSecured, layout, null);
+    }
+
+    /**
+     * @param cacheKeyQueryParams names of the query parameters which vary the output of this page if the output of
+     *                            this page can be cached, otherwise {@code null}
+     */
+    public Page(UriPatten uriPatten, Renderable renderer, boolean isSecured, Layout layout,
+                Set<String> cacheKeyQueryParams) {
         this.uriPatten = uriPatten;
         this.renderer = renderer;
         this.isSecured = isSecured;
         this.layout = layout;
+        this.cacheKeyQueryParams = cacheKeyQueryParams;
     }
 
     public UriPatten getUriPatten() {
         return uriPatten;
     }
 
+    public Renderable getRenderable() {
+        return renderer;
+    }
+
+    public boolean isCacheable() {
+        return cacheKeyQueryParams != null;
+    }
+
+    /**
+     * @return names of the query parameters which vary the output of this page
+     */
+    public Set<String> getCacheKeyQueryParams() {
+        return (cacheKeyQueryParams == null) ? Collections.emptySet() : cacheKeyQueryParams;
+    }
+
     public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        return renderStreaming(model, lookup, requestLookup, api).asString();
+    }
+
+    /**
+     * Renders this page into a content which is written when it is served. The whole page (including its layout) is
+     * rendered when this method returns, so that errors and redirects can still be sent before the content is written.
+     *
+     * @param model         model
+     * @param lookup        lookup
+     * @param requestLookup request lookup
+     * @param api           API
+     * @return rendered content
+     */
+    public StreamingContent renderStreaming(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         if (isSecured && !api.getSession().isPresent()) {
             throw new SessionNotFoundException(
                     "Page '" + this + "' is secured and required an user session to render.");
@@ -58,9 +101,13 @@ public class Page implements Comparable<Page> {
         lookup.getComponent(requestLookup.tracker().getCurrentComponentName())
                 .map(component -> UriUtils.getPublicUri(component, this)) // Compute public URI for this page.
                 .ifPresent(requestLookup::pushToPublicUriStack); // Push it to the public URi stack.
-        String output = renderer.render(model, lookup, requestLookup, api);
-        if (layout != null) {
-            output = layout.render(lookup, requestLookup, api);
+        StreamingContent output;
+        if (layout == null) {
+            output = renderer.renderStreaming(model, lookup, requestLookup, api);
+        } else {
+            // Output of the page is passed to the layout through zones.
+            renderer.render(model, lookup, requestLookup, api);
+            output = layout.renderStreaming(lookup, requestLookup, api);
         }
         // Rendering flow tracking out.
         requestLookup.popPublicUriStack();
@@ -86,6 +133,7 @@ public class Page implements Comparable<Page> {
     @Override
     public String toString() {
         return "{\"uriPattern\": " + uriPatten + ", \"renderer\": " + renderer + ", \"secured\": " + isSecured +
+                ", \"cacheable\": " + isCacheable() +
                 (layout == null ? "}" : ", \"layout\": " + layout + "}");
     }
 }
@@ -24,22 +24,39 @@ import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.HttpResponse;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 public class RequestLookup {
 
+    private static final List<String> UNBUNDLEABLE = Collections.emptyList();
+
     private final String contextPath;
     private final HttpRequest request;
     private final HttpResponse response;
+    private final AssetManifest assetManifest;
+    private final ResourceBundles resourceBundles;
     private Map<String, String> pathParams;
+    private String locale;
+    private Map<String, Object> attributes;
     private final RenderingFlowTracker renderingFlowTracker;
     private final Deque<String> publicUriStack;
     private final EnumMap<Placeholder, StringBuilder> placeholderBuffers;
     private final Map<String, String> zoneContents;
+    private final Set<String> resolvedResources;
+    private final Deque<Recording> recordings;
+    private final EnumMap<Placeholder, List<String>> placeholderResourceUris;
+    private DeferredFragments deferredFragments;
 
     /**
      * Constructs a new {@code RequestLookup} with given parameters.
@@ -49,13 +66,110 @@ public class RequestLookup {
      * @param response    HTTP response
      */
     public RequestLookup(String contextPath, HttpRequest request, HttpResponse response) {
+        this(contextPath, request, response, AssetManifest.EMPTY);
+    }
+
+    /**
+     * Constructs a new {@code RequestLookup} with given parameters.
+     *
+     * @param contextPath   context path for URLs
+     * @param request       HTTP request
+     * @param response      HTTP response
+     * @param assetManifest fingerprinted URIs of the static resources of the app
+     */
+    public RequestLookup(String contextPath, HttpRequest request, HttpResponse response, AssetManifest assetManifest) {
+        this(contextPath, request, response, assetManifest, null);
+    }
+
+    /**
+     * Constructs a new {@code RequestLookup} with given parameters.
+     *
+     * @param contextPath     context path for URLs
+     * @param request         HTTP request
+     * @param response        HTTP response
+     * @param assetManifest   fingerprinted URIs of the static resources of the app
+     * @param resourceBundles CSS and JS bundles of the app, or {@code null} if resources should not be bundled
+     */
+    public RequestLookup(String contextPath, HttpRequest request, HttpResponse response, AssetManifest assetManifest,
+                         ResourceBundles resourceBundles) {
         this.contextPath = (contextPath == null) ? request.getContextPath() : contextPath;
         this.request = request;
         this.response = response;
+        this.assetManifest = assetManifest;
+        this.resourceBundles = resourceBundles;
         this.renderingFlowTracker = new RenderingFlowTracker();
         this.publicUriStack = new ArrayDeque<>();
         this.placeholderBuffers = new EnumMap<>(Placeholder.class);
         this.zoneContents = new HashMap<>();
+        this.resolvedResources = new HashSet<>();
+        this.recordings = new ArrayDeque<>();
+        this.placeholderResourceUris = new EnumMap<>(Placeholder.class);
+    }
+
+    private RequestLookup(RequestLookup parent) {
+        this(parent.contextPath, parent.request,
+             (parent.response == null) ? null : new ForkedHttpResponse(parent.response), parent.assetManifest,
+             parent.resourceBundles);
+        this.pathParams = parent.pathParams;
+        this.locale = parent.locale;
+        this.renderingFlowTracker.copy(parent.renderingFlowTracker);
+        this.publicUriStack.addAll(parent.publicUriStack);
+        this.recordings.addLast(new Recording());
+    }
+
+    /**
+     * Creates a request lookup which can be used to render a fragment of this request in another thread. The forked
+     * lookup starts at the current rendering position of this lookup but has its own placeholders, zones and
+     * rendering flow tracker. Its contributions are merged back through {@link #join(RequestLookup)}. Its response is
+     * a read-only snapshot of the response of this lookup, hence a forked render cannot set headers or cookies.
+     *
+     * @return forked request lookup
+     */
+    RequestLookup fork() {
+        return new RequestLookup(this);
+    }
+
+    /**
+     * Merges the placeholder and zone contents added to the specified forked lookup into this lookup.
+     *
+     * @param forkedLookup lookup created through {@link #fork()} of this lookup
+     */
+    void join(RequestLookup forkedLookup) {
+        replayPlaceholders(forkedLookup.recordings.getFirst().placeholderContents);
+        forkedLookup.zoneContents.forEach(this::putToZone);
+    }
+
+    /**
+     * Enables deferring fragments of the page rendered in this request, so that they are written after the page.
+     *
+     * @param fallbacks models of the deferred fragments of the app, for fragments loaded from the {@code /fragments/}
+     *                  endpoint
+     */
+    void enableDeferredFragments(DeferredFragmentFallbacks fallbacks) {
+        if (deferredFragments == null) {
+            deferredFragments = new DeferredFragments(this, fallbacks);
+        }
+    }
+
+    /**
+     * Returns the deferred fragments of this request. Fragments cannot be deferred unless enabled for this request, or
+     * while rendering a fragment whose output is cached, as a cached output cannot refer to a deferred render.
+     *
+     * @return deferred fragments of this request, or empty if fragments cannot be deferred now
+     */
+    public Optional<DeferredFragments> getDeferredFragments() {
+        return ((deferredFragments == null) || !recordings.isEmpty()) ?
+                Optional.<DeferredFragments>empty() : Optional.of(deferredFragments);
+    }
+
+    boolean hasDeferredFragments() {
+        return (deferredFragments != null) && !deferredFragments.isEmpty();
+    }
+
+    void cancelDeferredFragments() {
+        if (deferredFragments != null) {
+            deferredFragments.cancel();
+        }
     }
 
     public String getContextPath() {
@@ -78,7 +192,78 @@ public class RequestLookup {
         this.pathParams = pathParams;
     }
 
+    /**
+     * Returns the locale of this request. The locale is negotiated from the {@code Accept-Language} header of the
+     * request only once, in the first call.
+     *
+     * @param i18nResources i18n resources of the app
+     * @return locale of this request, e.g. {@code en_US}
+     */
+    public String getLocale(I18nResources i18nResources) {
+        if (locale == null) {
+            locale = i18nResources.negotiateLocale(request.getHeaders().get(HttpRequest.HEADER_ACCEPT_LANGUAGE));
+        }
+        return locale;
+    }
+
+    /**
+     * Returns the request scoped attribute of the specified name. If there is no such attribute, it is created with
+     * the specified function and kept for the rest of the request.
+     *
+     * @param name            name of the attribute
+     * @param mappingFunction function to create the attribute
+     * @param <T>             type of the attribute
+     * @return attribute of the specified name
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name, Function<String, T> mappingFunction) {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        }
+        return (T) attributes.computeIfAbsent(name, mappingFunction);
+    }
+
     public void addToPlaceholder(Placeholder placeholder, String content) {
+        addToPlaceholder(placeholder, content, null);
+    }
+
+    /**
+     * Adds the content of a resource (e.g. a CSS or JS file) to the specified placeholder. If a resource with the same
+     * identifier is already added in this request, the content is ignored.
+     *
+     * @param placeholder        placeholder
+     * @param content            content to be added
+     * @param resourceIdentifier identifier of the resource, or {@code null} if the content should always be added
+     */
+    public void addToPlaceholder(Placeholder placeholder, String content, String resourceIdentifier) {
+        addToPlaceholder(placeholder, content, resourceIdentifier, null);
+    }
+
+    /**
+     * Adds the content of a static resource (e.g. a CSS or JS file) to the specified placeholder. If a resource with
+     * the same identifier is already added in this request, the content is ignored. When bundling is enabled, the
+     * {@code css}, {@code headJs} and {@code js} placeholders are replaced with a single bundle if all of their
+     * contents are added with resource URIs.
+     *
+     * @param placeholder        placeholder
+     * @param content            content to be added
+     * @param resourceIdentifier identifier of the resource, or {@code null} if the content should always be added
+     * @param resourceUri        URI of the resource with the context path, or {@code null} if the content cannot be
+     *                           bundled
+     */
+    public void addToPlaceholder(Placeholder placeholder, String content, String resourceIdentifier,
+                                 String resourceUri) {
+        if (!recordings.isEmpty()) {
+            PlaceholderContent placeholderContent = new PlaceholderContent(placeholder, content, resourceIdentifier,
+                                                                           resourceUri);
+            for (Recording recording : recordings) {
+                recording.placeholderContents.add(placeholderContent);
+            }
+        }
+        if ((resourceIdentifier != null) && !resolvedResources.add(resourceIdentifier)) {
+            return; // This resource is already added.
+        }
+
         StringBuilder buffer = placeholderBuffers.get(placeholder);
         if (buffer == null) {
             buffer = new StringBuilder(content);
@@ -86,17 +271,100 @@ public class RequestLookup {
         } else {
             buffer.append(content);
         }
+        if ((resourceBundles != null) && isBundleablePlaceholder(placeholder)) {
+            List<String> resourceUris = placeholderResourceUris.computeIfAbsent(placeholder, p -> new ArrayList<>());
+            if ((resourceUris != UNBUNDLEABLE) && (resourceUri != null) && resourceUri.startsWith(contextPath)) {
+                resourceUris.add(resourceUri.substring(contextPath.length()));
+            } else {
+                // A content which is not a static resource cannot be bundled, hence this placeholder is not bundled.
+                placeholderResourceUris.put(placeholder, UNBUNDLEABLE);
+            }
+        }
     }
 
     public Optional<String> getPlaceholderContent(Placeholder placeholder) {
         StringBuilder buffer = placeholderBuffers.get(placeholder);
-        return (buffer == null) ? Optional.<String>empty() : Optional.of(buffer.toString());
+        return (buffer == null) ? Optional.<String>empty() : Optional.of(getContent(placeholder, buffer));
+    }
+
+    private String getContent(Placeholder placeholder, StringBuilder buffer) {
+        List<String> resourceUris = placeholderResourceUris.get(placeholder);
+        if ((resourceUris == null) || (resourceUris == UNBUNDLEABLE) || (resourceUris.size() < 2)) {
+            return buffer.toString();
+        }
+        if (placeholder == Placeholder.css) {
+            return resourceBundles.getBundleUri(resourceUris, "css")
+                    .map(uri -> "<link href=\"" + contextPath + uri + "\" rel=\"stylesheet\" type=\"text/css\" />\n")
+                    .orElseGet(buffer::toString);
+        } else {
+            return resourceBundles.getBundleUri(resourceUris, "js")
+                    .map(uri -> "<script src=\"" + contextPath + uri + "\" type=\"text/javascript\"></script>\n")
+                    .orElseGet(buffer::toString);
+        }
+    }
+
+    private static boolean isBundleablePlaceholder(Placeholder placeholder) {
+        return (placeholder == Placeholder.css) || (placeholder == Placeholder.headJs) ||
+                (placeholder == Placeholder.js);
+    }
+
+    /**
+     * Starts recording contents added to placeholders and zones, so that they can be replayed later through {@link
+     * #replay(Recording)}. Recordings can be nested.
+     */
+    void startRecording() {
+        recordings.addLast(new Recording());
+    }
+
+    /**
+     * Stops the latest recording started through {@link #startRecording()}.
+     *
+     * @return contents added to placeholders and zones during the recording
+     */
+    Recording stopRecording() {
+        return recordings.removeLast();
+    }
+
+    /**
+     * Adds previously recorded placeholder and zone contents to the placeholders and zones of this request.
+     *
+     * @param recording recorded contents
+     */
+    void replay(Recording recording) {
+        replayPlaceholders(recording.placeholderContents);
+        recording.zoneContents.forEach(this::putToZone);
+    }
+
+    private void replayPlaceholders(List<PlaceholderContent> placeholderContents) {
+        for (PlaceholderContent placeholderContent : placeholderContents) {
+            addToPlaceholder(placeholderContent.placeholder, placeholderContent.content,
+                             placeholderContent.resourceIdentifier, placeholderContent.resourceUri);
+        }
+    }
+
+    /**
+     * Returns the contents added to the specified placeholder of the specified forked lookup, except the resources
+     * which are already added to this lookup. Returned resources are marked as added to this lookup.
+     *
+     * @param forkedLookup lookup created through {@link #fork()} of this lookup
+     * @param placeholder  placeholder
+     * @return contents of the placeholder which are new to this lookup
+     */
+    String joinPlaceholder(RequestLookup forkedLookup, Placeholder placeholder) {
+        StringBuilder buffer = new StringBuilder();
+        for (PlaceholderContent placeholderContent : forkedLookup.recordings.getFirst().placeholderContents) {
+            if ((placeholderContent.placeholder == placeholder) && ((placeholderContent.resourceIdentifier == null) ||
+                    resolvedResources.add(placeholderContent.resourceIdentifier))) {
+                buffer.append(placeholderContent.content);
+            }
+        }
+        return buffer.toString();
     }
 
     public Map<String, String> getPlaceholderContents() {
         Map<String, String> placeholderContents = new HashMap<>(placeholderBuffers.size());
         for (Map.Entry<Placeholder, StringBuilder> entry : placeholderBuffers.entrySet()) {
-            placeholderContents.put(entry.getKey().toString(), entry.getValue().toString());
+            placeholderContents.put(entry.getKey().toString(), getContent(entry.getKey(), entry.getValue()));
         }
         return placeholderContents;
     }
@@ -105,6 +373,9 @@ public class RequestLookup {
         String currentContent = zoneContents.get(zoneName);
         if (currentContent == null) {
             zoneContents.put(zoneName, content);
+            for (Recording recording : recordings) {
+                recording.zoneContents.put(zoneName, content);
+            }
         } else {
             throw new IllegalStateException("Zone '" + zoneName + "' is already filled with content.");
         }
@@ -122,6 +393,29 @@ public class RequestLookup {
         return publicUriStack.peekLast();
     }
 
+    /**
+     * Returns the URI of the specified static resource of the component or the fragment which is being rendered. The
+     * returned URI is fingerprinted if the resource is in the asset manifest of the app.
+     *
+     * @param relativePath path of the static resource relative to the {@code public} directory
+     * @return URI of the static resource with the context path
+     */
+    public String getPublicUri(String relativePath) {
+        String uri = getPublicUri() + "/" + relativePath;
+        return uri.startsWith(contextPath) ? getAssetUri(uri.substring(contextPath.length())) : uri;
+    }
+
+    /**
+     * Returns the URI of the specified static resource, which is fingerprinted if the resource is in the asset manifest
+     * of the app.
+     *
+     * @param uri URI of a static resource without the context path
+     * @return URI of the static resource with the context path
+     */
+    public String getAssetUri(String uri) {
+        return contextPath + assetManifest.getFingerprintedUri(uri);
+    }
+
     String popPublicUriStack() {
         return publicUriStack.removeLast();
     }
@@ -130,6 +424,39 @@ public class RequestLookup {
         return renderingFlowTracker;
     }
 
+    /**
+     * A content added to a placeholder.
+     */
+    static class PlaceholderContent {
+
+        private final Placeholder placeholder;
+        private final String content;
+        private final String resourceIdentifier;
+        private final String resourceUri;
+
+        private PlaceholderContent(Placeholder placeholder, String content, String resourceIdentifier,
+                                   String resourceUri) {
+            this.placeholder = placeholder;
+            this.content = content;
+            this.resourceIdentifier = resourceIdentifier;
+            this.resourceUri = resourceUri;
+        }
+    }
+
+    /**
+     * Contents added to placeholders and zones during a recording.
+     */
+    static class Recording {
+
+        private final List<PlaceholderContent> placeholderContents;
+        private final Map<String, String> zoneContents;
+
+        private Recording() {
+            this.placeholderContents = new ArrayList<>();
+            this.zoneContents = new LinkedHashMap<>();
+        }
+    }
+
     public static class RenderingFlowTracker {
 
         private static final Integer TYPE_PAGE = 2;
@@ -150,6 +477,14 @@ public class RequestLookup {
             this.rendererStack = new ArrayDeque<>();
         }
 
+        private void copy(RenderingFlowTracker tracker) {
+            componentNamesStack.addAll(tracker.componentNamesStack);
+            pageStack.addAll(tracker.pageStack);
+            fragmentStack.addAll(tracker.fragmentStack);
+            layoutStack.addAll(tracker.layoutStack);
+            rendererStack.addAll(tracker.rendererStack);
+        }
+
         void start(Component component) {
             componentNamesStack.addLast(component.getName());
         }
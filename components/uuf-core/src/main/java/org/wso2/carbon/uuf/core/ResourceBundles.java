@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import org.wso2.carbon.uuf.internal.util.UriUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codec of the URIs of the CSS and JS bundles of an app.
+ * <p>
+ * A bundle is the ordered list of static resource URIs which were added to a placeholder while rendering a page. The
+ * name of a bundle is the URL-safe Base64 encoding of its deflated URIs, hence the resources of a bundle are derived
+ * from its URI alone. A bundle URI can be served by any node and stays valid across restarts and in cached pages.
+ * When resources are fingerprinted, the bundle URI changes whenever the content of a resource changes.
+ * <p>
+ * As any client can encode a bundle name, only lists a page could have produced are accepted: at most
+ * {@link #MAX_BUNDLED_RESOURCES} distinct static resources of components and themes.
+ *
+ * @since 1.0.0
+ */
+public class ResourceBundles {
+
+    /**
+     * Bundles with longer names are not created, as some clients and proxies limit the length of URLs.
+     */
+    public static final int MAX_BUNDLE_NAME_LENGTH = 1024;
+    /**
+     * Placeholders with more resources are not bundled, so that a bundle request reads a bounded number of files.
+     */
+    public static final int MAX_BUNDLED_RESOURCES = 32;
+    private static final int MAX_DECODED_LENGTH = 8 * 1024;
+    private static final char URI_SEPARATOR = '\n';
+    private static final byte[] DICTIONARY = ("/public/themes/" + URI_SEPARATOR + "/public/components/" +
+            "/base/css/js/images/.min.css.min.js").getBytes(StandardCharsets.UTF_8);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /**
+     * Returns the URI of the bundle of the specified resources.
+     *
+     * @param resourceUris URIs of the bundled resources without the context path, in the order they should be bundled
+     * @param extension    file extension of the bundle, i.e. {@code css} or {@code js}
+     * @return URI of the bundle without the context path, or empty if the resources cannot be bundled into a URI of
+     * acceptable length or are too many or repeated
+     */
+    public Optional<String> getBundleUri(List<String> resourceUris, String extension) {
+        if (!isBundleable(resourceUris)) {
+            return Optional.empty();
+        }
+        byte[] uris = String.join(String.valueOf(URI_SEPARATOR), resourceUris).getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(uris);
+            deflater.finish();
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        String bundleName = ENCODER.encodeToString(outputStream.toByteArray()) + "." + extension;
+        return (bundleName.length() > MAX_BUNDLE_NAME_LENGTH) ? Optional.<String>empty() :
+                Optional.of(UriUtils.BUNDLES_URI_PREFIX + bundleName);
+    }
+
+    /**
+     * Returns the resources of the specified bundle.
+     *
+     * @param bundleName name of the bundle, i.e. the last segment of the bundle URI
+     * @return URIs of the bundled resources without the context path, or empty if the name is not a valid bundle name
+     */
+    public Optional<List<String>> getResourceUris(String bundleName) {
+        int extensionIndex = bundleName.lastIndexOf('.');
+        if ((bundleName.length() > MAX_BUNDLE_NAME_LENGTH) || (extensionIndex < 0)) {
+            return Optional.empty();
+        }
+        String extension = bundleName.substring(extensionIndex + 1);
+        if (!extension.equals("css") && !extension.equals("js")) {
+            return Optional.empty();
+        }
+
+        Inflater inflater = new Inflater(true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            // Raw deflate data does not signal the need of a dictionary, hence it is set upfront.
+            inflater.setDictionary(DICTIONARY);
+            inflater.setInput(DECODER.decode(bundleName.substring(0, extensionIndex)));
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (((length == 0) && (inflater.needsInput() || inflater.needsDictionary())) ||
+                        (outputStream.size() + length > MAX_DECODED_LENGTH)) {
+                    return Optional.empty(); // Truncated or oversized data.
+                }
+                outputStream.write(buffer, 0, length);
+            }
+        } catch (IllegalArgumentException | DataFormatException e) {
+            return Optional.empty(); // Not a Base64 encoded or deflated name.
+        } finally {
+            inflater.end();
+        }
+
+        List<String> resourceUris = Splitter.on(URI_SEPARATOR)
+                .splitToList(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+        if (!isBundleable(resourceUris)) {
+            return Optional.empty(); // Not a bundle created by getBundleUri, e.g. the same resource over and over.
+        }
+        for (String resourceUri : resourceUris) {
+            // Only static resources of components and themes can be bundled.
+            if (!resourceUri.startsWith(UriUtils.COMPONENT_STATIC_RESOURCES_URI_PREFIX + "/") &&
+                    !resourceUri.startsWith(UriUtils.THEMES_STATIC_RESOURCES_URI_PREFIX)) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(ImmutableList.copyOf(resourceUris));
+    }
+
+    private static boolean isBundleable(List<String> resourceUris) {
+        return (resourceUris.size() <= MAX_BUNDLED_RESOURCES) &&
+                (new HashSet<>(resourceUris).size() == resourceUris.size());
+    }
+}
@@ -28,9 +28,9 @@ import java.util.stream.Collectors;
 public class Theme {
 
     private final String name;
-    private final List<String> cssTagSuffixes;
-    private final List<String> headJsTagSuffixes;
-    private final List<String> bodyJsTagSuffixes;
+    private final List<String> cssUris;
+    private final List<String> headJsUris;
+    private final List<String> bodyJsUris;
     private final String path;
 
     public Theme(String name, List<String> cssRelativePaths, List<String> headJsRelativePaths,
@@ -39,15 +39,9 @@ public class Theme {
         this.path = path;
 
         String uriPrefix = UriUtils.getPublicUri(this) + "/";
-        this.cssTagSuffixes = cssRelativePaths.stream()
-                .map(relativePath -> uriPrefix + relativePath + "\" rel=\"stylesheet\" type=\"text/css\" />")
-                .collect(Collectors.toList());
-        this.headJsTagSuffixes = headJsRelativePaths.stream()
-                .map(relativePath -> uriPrefix + relativePath + "\" type=\"text/javascript\"></script>")
-                .collect(Collectors.toList());
-        this.bodyJsTagSuffixes = bodyJsRelativePaths.stream()
-                .map(relativePath -> uriPrefix + relativePath + "\" type=\"text/javascript\"></script>")
-                .collect(Collectors.toList());
+        this.cssUris = cssRelativePaths.stream().map(uriPrefix::concat).collect(Collectors.toList());
+        this.headJsUris = headJsRelativePaths.stream().map(uriPrefix::concat).collect(Collectors.toList());
+        this.bodyJsUris = bodyJsRelativePaths.stream().map(uriPrefix::concat).collect(Collectors.toList());
     }
 
     public String getName() {
@@ -59,15 +53,20 @@ public class Theme {
     }
 
     public void addPlaceHolderValues(RequestLookup requestLookup) {
-        String contextPath = requestLookup.getContextPath();
-        for (String cssTagSuffix : cssTagSuffixes) {
-            requestLookup.addToPlaceholder(Placeholder.css, "<link href=\"" + contextPath + cssTagSuffix);
+        for (String cssUri : cssUris) {
+            String assetUri = requestLookup.getAssetUri(cssUri);
+            requestLookup.addToPlaceholder(Placeholder.css, "<link href=\"" + assetUri +
+                    "\" rel=\"stylesheet\" type=\"text/css\" />", null, assetUri);
         }
-        for (String headJsTagSuffix : headJsTagSuffixes) {
-            requestLookup.addToPlaceholder(Placeholder.headJs, "<script src=\"" + contextPath + headJsTagSuffix);
+        for (String headJsUri : headJsUris) {
+            String assetUri = requestLookup.getAssetUri(headJsUri);
+            requestLookup.addToPlaceholder(Placeholder.headJs, "<script src=\"" + assetUri +
+                    "\" type=\"text/javascript\"></script>", null, assetUri);
         }
-        for (String bodyJsTagSuffix : bodyJsTagSuffixes) {
-            requestLookup.addToPlaceholder(Placeholder.js, "<script src=\"" + contextPath + bodyJsTagSuffix);
+        for (String bodyJsUri : bodyJsUris) {
+            String assetUri = requestLookup.getAssetUri(bodyJsUri);
+            requestLookup.addToPlaceholder(Placeholder.js, "<script src=\"" + assetUri +
+                    "\" type=\"text/javascript\"></script>", null, assetUri);
         }
     }
 
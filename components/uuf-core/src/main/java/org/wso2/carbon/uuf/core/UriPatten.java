@@ -42,6 +42,8 @@ public class UriPatten implements Comparable<UriPatten> {
     private final String patternString;
     private final Pattern pattern;
     private final List<String> variableNames;
+    private final boolean hasPlusMarkedVariable;
+    private final boolean isIndexPattern;
 
     public UriPatten(String uriPattern) {
         Pair<Boolean, List<String>> analyseResult = analyse(uriPattern);
@@ -52,7 +54,8 @@ public class UriPatten implements Comparable<UriPatten> {
             indexPathRegex = "(index)?";
         }
         this.patternString = uriPattern;
-        boolean hasPlusMarkedVariable = analyseResult.getLeft();
+        this.hasPlusMarkedVariable = analyseResult.getLeft();
+        this.isIndexPattern = (indexPathRegex != null);
         this.variableNames = analyseResult.getRight();
 
         String patternRegex = URI_VARIABLE_PATTERN.splitAsStream(uriPattern)
@@ -119,6 +122,24 @@ public class UriPatten implements Comparable<UriPatten> {
         return Pair.of(hasPlusMarkedVariable, variableNames);
     }
 
+    /**
+     * @return URI pattern without the optional tailing {@code index} part
+     */
+    String getPatternString() {
+        return patternString;
+    }
+
+    boolean hasPlusMarkedVariable() {
+        return hasPlusMarkedVariable;
+    }
+
+    /**
+     * @return {@code true} if this URI pattern ends with {@code /index}, hence the {@code index} part is optional
+     */
+    boolean isIndexPattern() {
+        return isIndexPattern;
+    }
+
     public boolean matches(String uri) {
         return pattern.matcher(uri).matches();
     }
@@ -0,0 +1,413 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A segment trie compiled from {@link UriPatten}s which resolves a URI to a value and its path parameters in a single
+ * pass without using regular expressions.
+ * <p>
+ * When a URI matches more than one pattern, the value that was added first wins. Hence values should be added in the
+ * natural order of their URI patterns, so that the precedence is same as a linear scan over a sorted set of patterns.
+ * A router should be fully built before it is used to match URIs.
+ *
+ * @param <T> type of the routed values
+ */
+public class UriRouter<T> {
+
+    private final Node<T> root = new Node<>();
+    private int routesCount = 0;
+    private int maxVariablesCount = 0;
+
+    /**
+     * Adds the specified value for the specified URI pattern.
+     *
+     * @param uriPatten URI pattern of the value
+     * @param value     value to be routed
+     */
+    public void add(UriPatten uriPatten, T value) {
+        add("", uriPatten, value);
+    }
+
+    /**
+     * Adds the specified value for the specified URI pattern prefixed with the specified literal prefix.
+     *
+     * @param prefix    literal URI prefix, e.g. a component context path
+     * @param uriPatten URI pattern of the value
+     * @param value     value to be routed
+     */
+    public void add(String prefix, UriPatten uriPatten, T value) {
+        List<String> variableNames = new ArrayList<>();
+        List<Token[]> segments = tokenize(prefix + uriPatten.getPatternString(), uriPatten.hasPlusMarkedVariable(),
+                                          variableNames);
+        Route<T> route = new Route<>(routesCount++, value, variableNames.toArray(new String[variableNames.size()]));
+        maxVariablesCount = Math.max(maxVariablesCount, variableNames.size());
+
+        insert(segments, route);
+        if (uriPatten.isIndexPattern()) {
+            // Pattern '/a/index' matches both '/a/' and '/a/index'.
+            segments.set(segments.size() - 1, new Token[]{Token.literal("index")});
+            insert(segments, route);
+        }
+    }
+
+    /**
+     * Returns the value of the first added URI pattern which matches the specified URI, along with path parameters.
+     *
+     * @param uri URI to be matched
+     * @return matched value and path parameters, or empty if no pattern matches the URI
+     */
+    public Optional<Match<T>> match(String uri) {
+        Search<T> search = search(uri);
+        if (search == null) {
+            return Optional.empty();
+        }
+        Route<T> route = search.bestRoute;
+        Map<String, String> pathParams;
+        if (route.variableNames.length == 0) {
+            pathParams = Collections.emptyMap();
+        } else {
+            pathParams = new HashMap<>(route.variableNames.length);
+            for (int i = 0; i < route.variableNames.length; i++) {
+                pathParams.put(route.variableNames[i], search.bestValues[i]);
+            }
+        }
+        return Optional.of(new Match<>(route.value, pathParams));
+    }
+
+    /**
+     * @param uri URI to be matched
+     * @return {@code true} if at least one URI pattern matches the specified URI
+     */
+    public boolean matches(String uri) {
+        return search(uri) != null;
+    }
+
+    private Search<T> search(String uri) {
+        if (uri.isEmpty() || (uri.charAt(0) != '/')) {
+            return null;
+        }
+        Search<T> search = new Search<>(uri, maxVariablesCount);
+        search.visit(root, 1, 0);
+        return (search.bestRoute == null) ? null : search;
+    }
+
+    private void insert(List<Token[]> segments, Route<T> route) {
+        Node<T> node = root;
+        node.updateBestRank(route.rank);
+        for (Token[] segment : segments) {
+            if (isLiteral(segment)) {
+                String literal = (segment.length == 0) ? "" : segment[0].value;
+                node = node.literalChildren.computeIfAbsent(literal, key -> new Node<>());
+            } else if (segment[segment.length - 1].isPlusMarked) {
+                // A 'one or more' variable consumes rest of the URI, hence this has to be the last segment.
+                node.tailRoutes.add(new TailRoute<>(segment, route));
+                return;
+            } else {
+                node = node.getVariableChild(segment);
+            }
+            node.updateBestRank(route.rank);
+        }
+        if ((node.route == null) || (node.route.rank > route.rank)) {
+            node.route = route;
+        }
+    }
+
+    private static boolean isLiteral(Token[] segment) {
+        return (segment.length == 0) || ((segment.length == 1) && (segment[0].isLiteral()));
+    }
+
+    private static List<Token[]> tokenize(String pattern, boolean hasPlusMarkedVariable, List<String> variableNames) {
+        List<Token[]> segments = new ArrayList<>();
+        List<Token> currentSegment = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        // Patterns always start with a '/', see UriPatten#analyse.
+        for (int i = 1; i < pattern.length(); i++) {
+            char currentChar = pattern.charAt(i);
+            if (currentChar == '/') {
+                if (literal.length() > 0) {
+                    currentSegment.add(Token.literal(literal.toString()));
+                    literal.setLength(0);
+                }
+                segments.add(currentSegment.toArray(new Token[currentSegment.size()]));
+                currentSegment.clear();
+            } else if (currentChar == '{') {
+                int closingIndex = pattern.indexOf('}', i);
+                if (closingIndex == (i + 1)) {
+                    // '{}' is not a variable in UriPatten, hence treat it as a literal.
+                    literal.append("{}");
+                    i = closingIndex;
+                    continue;
+                }
+                if (literal.length() > 0) {
+                    currentSegment.add(Token.literal(literal.toString()));
+                    literal.setLength(0);
+                }
+                boolean isPlusMarked = hasPlusMarkedVariable && (closingIndex == pattern.length() - 1);
+                String variableName = pattern.substring(i + 1, closingIndex);
+                if (variableName.charAt(0) == '+') {
+                    variableName = variableName.substring(1);
+                }
+                currentSegment.add(Token.variable(isPlusMarked));
+                variableNames.add(variableName);
+                i = closingIndex;
+            } else {
+                literal.append(currentChar);
+            }
+        }
+        if (literal.length() > 0) {
+            currentSegment.add(Token.literal(literal.toString()));
+        }
+        segments.add(currentSegment.toArray(new Token[currentSegment.size()]));
+        return segments;
+    }
+
+    /**
+     * Matches the specified tokens against the specified URI segment. Similar to the regex {@code ([^/]+)}, a variable
+     * greedily matches one or more characters within the segment, while a plus marked variable (which is always the
+     * last token) matches all remaining characters of the URI.
+     */
+    private static boolean matchTokens(Token[] tokens, int tokenIndex, String uri, int start, int segmentEnd,
+                                       String[] values, int valueIndex) {
+        if (tokenIndex == tokens.length) {
+            return start == segmentEnd;
+        }
+        Token token = tokens[tokenIndex];
+        if (token.isLiteral()) {
+            int length = token.value.length();
+            return ((start + length) <= segmentEnd) && uri.regionMatches(start, token.value, 0, length) &&
+                    matchTokens(tokens, tokenIndex + 1, uri, start + length, segmentEnd, values, valueIndex);
+        }
+        if (token.isPlusMarked) {
+            if (start < uri.length()) {
+                values[valueIndex] = uri.substring(start);
+                return true;
+            }
+            return false;
+        }
+        for (int end = segmentEnd; end > start; end--) {
+            if (matchTokens(tokens, tokenIndex + 1, uri, end, segmentEnd, values, valueIndex + 1)) {
+                values[valueIndex] = uri.substring(start, end);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countVariables(Token[] tokens) {
+        int count = 0;
+        for (Token token : tokens) {
+            if (!token.isLiteral()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static class Match<T> {
+
+        private final T value;
+        private final Map<String, String> pathParams;
+
+        private Match(T value, Map<String, String> pathParams) {
+            this.value = value;
+            this.pathParams = pathParams;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Map<String, String> getPathParams() {
+            return pathParams;
+        }
+    }
+
+    private static class Token {
+
+        private final String value;
+        private final boolean isPlusMarked;
+
+        private Token(String value, boolean isPlusMarked) {
+            this.value = value;
+            this.isPlusMarked = isPlusMarked;
+        }
+
+        private static Token literal(String value) {
+            return new Token(value, false);
+        }
+
+        private static Token variable(boolean isPlusMarked) {
+            return new Token(null, isPlusMarked);
+        }
+
+        private boolean isLiteral() {
+            return value != null;
+        }
+
+        private boolean isSameAs(Token other) {
+            return (isPlusMarked == other.isPlusMarked) &&
+                    ((value == null) ? (other.value == null) : value.equals(other.value));
+        }
+    }
+
+    private static class Route<T> {
+
+        private final int rank;
+        private final T value;
+        private final String[] variableNames;
+
+        private Route(int rank, T value, String[] variableNames) {
+            this.rank = rank;
+            this.value = value;
+            this.variableNames = variableNames;
+        }
+    }
+
+    private static class TailRoute<T> {
+
+        private final Token[] tokens;
+        private final int variablesCount;
+        private final Route<T> route;
+
+        private TailRoute(Token[] tokens, Route<T> route) {
+            this.tokens = tokens;
+            this.variablesCount = countVariables(tokens);
+            this.route = route;
+        }
+    }
+
+    private static class VariableEdge<T> {
+
+        private final Token[] tokens;
+        private final int variablesCount;
+        private final Node<T> child = new Node<>();
+
+        private VariableEdge(Token[] tokens) {
+            this.tokens = tokens;
+            this.variablesCount = countVariables(tokens);
+        }
+
+        private boolean hasSameTokens(Token[] otherTokens) {
+            if (tokens.length != otherTokens.length) {
+                return false;
+            }
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].isSameAs(otherTokens[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Node<T> {
+
+        private final Map<String, Node<T>> literalChildren = new HashMap<>();
+        private final List<VariableEdge<T>> variableEdges = new ArrayList<>();
+        private final List<TailRoute<T>> tailRoutes = new ArrayList<>();
+        private Route<T> route;
+        /**
+         * Lowest rank of all routes reachable through this node.
+         */
+        private int bestRank = Integer.MAX_VALUE;
+
+        private void updateBestRank(int rank) {
+            bestRank = Math.min(bestRank, rank);
+        }
+
+        private Node<T> getVariableChild(Token[] segment) {
+            for (VariableEdge<T> edge : variableEdges) {
+                if (edge.hasSameTokens(segment)) {
+                    return edge.child;
+                }
+            }
+            VariableEdge<T> edge = new VariableEdge<>(segment);
+            variableEdges.add(edge);
+            return edge.child;
+        }
+    }
+
+    /**
+     * Depth first search over the trie which skips branches that cannot yield a route ranked better than the best
+     * route found so far.
+     */
+    private static class Search<T> {
+
+        private final String uri;
+        private final String[] values;
+        private final String[] bestValues;
+        private Route<T> bestRoute;
+
+        private Search(String uri, int maxVariablesCount) {
+            this.uri = uri;
+            this.values = new String[maxVariablesCount];
+            this.bestValues = new String[maxVariablesCount];
+        }
+
+        private int bestRank() {
+            return (bestRoute == null) ? Integer.MAX_VALUE : bestRoute.rank;
+        }
+
+        private void found(Route<T> route, int valuesCount) {
+            bestRoute = route;
+            System.arraycopy(values, 0, bestValues, 0, valuesCount);
+        }
+
+        private void visit(Node<T> node, int segmentStart, int valuesCount) {
+            if (node.bestRank >= bestRank()) {
+                return;
+            }
+            if (segmentStart > uri.length()) {
+                // Whole URI is consumed.
+                if ((node.route != null) && (node.route.rank < bestRank())) {
+                    found(node.route, valuesCount);
+                }
+                return;
+            }
+
+            int segmentEnd = uri.indexOf('/', segmentStart);
+            if (segmentEnd == -1) {
+                segmentEnd = uri.length();
+            }
+            for (TailRoute<T> tailRoute : node.tailRoutes) {
+                if ((tailRoute.route.rank < bestRank()) &&
+                        matchTokens(tailRoute.tokens, 0, uri, segmentStart, segmentEnd, values, valuesCount)) {
+                    found(tailRoute.route, valuesCount + tailRoute.variablesCount);
+                }
+            }
+            Node<T> literalChild = node.literalChildren.get(uri.substring(segmentStart, segmentEnd));
+            if (literalChild != null) {
+                visit(literalChild, segmentEnd + 1, valuesCount);
+            }
+            for (VariableEdge<T> edge : node.variableEdges) {
+                if ((edge.child.bestRank < bestRank()) &&
+                        matchTokens(edge.tokens, 0, uri, segmentStart, segmentEnd, values, valuesCount)) {
+                    visit(edge.child, segmentEnd + 1, valuesCount + edge.variablesCount);
+                }
+            }
+        }
+    }
+}
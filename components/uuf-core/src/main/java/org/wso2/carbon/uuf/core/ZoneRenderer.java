@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.core;
+
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Renders the fragments bound to a zone.
+ * <p>
+ * Fragments are rendered one after the other unless concurrent zone rendering is enabled through the {@code
+ * uuf.zone.concurrentRendering} system property. Then fragments declared as independent are rendered on a bounded
+ * thread pool, each with its own forked {@link RequestLookup} and {@link API}, while the rest are rendered in the
+ * request thread. Outputs, placeholder contents and zone contents are merged back in the order of the bindings. A
+ * fragment which cannot be scheduled is rendered serially, and a fragment which does not finish within its timeout is
+ * cancelled and renders nothing. Zones rendered by a fragment which is itself rendered in the thread pool are rendered
+ * serially, so that threads of the pool never wait for each other.
+ *
+ * @see ForkedFragmentRender
+ * @since 1.0.0
+ */
+public class ZoneRenderer {
+
+    private static final boolean CONCURRENT_RENDERING_ENABLED = Boolean.getBoolean("uuf.zone.concurrentRendering");
+
+    /**
+     * Renders the specified fragments and returns their concatenated output.
+     *
+     * @param fragments     fragments bound to the zone, in the order they should appear
+     * @param modelFunction function which returns the model of a fragment
+     * @param lookup        lookup of the app
+     * @param requestLookup lookup of the request
+     * @param api           API of the request
+     * @return concatenated output of the fragments
+     */
+    public static String render(List<Fragment> fragments, Function<Fragment, Model> modelFunction, Lookup lookup,
+                                RequestLookup requestLookup, API api) {
+        StringBuilder buffer = new StringBuilder();
+        if (!CONCURRENT_RENDERING_ENABLED || (fragments.size() < 2) || ForkedFragmentRender.isRenderingThread()) {
+            for (Fragment fragment : fragments) {
+                buffer.append(fragment.render(modelFunction.apply(fragment), lookup, requestLookup, api));
+            }
+            return buffer.toString();
+        }
+
+        ForkedFragmentRender[] forkedRenders = new ForkedFragmentRender[fragments.size()];
+        try {
+            for (int i = 0; i < forkedRenders.length; i++) {
+                Fragment fragment = fragments.get(i);
+                if (fragment.isIndependent()) {
+                    forkedRenders[i] = ForkedFragmentRender.start(fragment, modelFunction.apply(fragment), lookup,
+                                                                  requestLookup, api).orElse(null);
+                }
+            }
+            for (int i = 0; i < forkedRenders.length; i++) {
+                Fragment fragment = fragments.get(i);
+                ForkedFragmentRender forkedRender = forkedRenders[i];
+                if (forkedRender == null) {
+                    // Not independent or cannot be scheduled, hence render in the request thread.
+                    buffer.append(fragment.render(modelFunction.apply(fragment), lookup, requestLookup, api));
+                } else {
+                    buffer.append(forkedRender.join(requestLookup, api));
+                }
+            }
+        } finally {
+            for (ForkedFragmentRender forkedRender : forkedRenders) {
+                if (forkedRender != null) {
+                    forkedRender.cancel();
+                }
+            }
+        }
+        return buffer.toString();
+    }
+}
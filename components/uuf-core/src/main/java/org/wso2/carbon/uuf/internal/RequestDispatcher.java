@@ -28,6 +28,7 @@ import org.wso2.carbon.uuf.internal.debug.Debugger;
 import org.wso2.carbon.uuf.internal.io.StaticResolver;
 import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 
 import static org.wso2.carbon.uuf.spi.HttpResponse.CONTENT_TYPE_TEXT_HTML;
 import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_LOCATION;
@@ -79,14 +80,15 @@ public class RequestDispatcher {
 
     private void servePageOrFragment(App app, HttpRequest request, HttpResponse response) {
         try {
-            String html;
             if (request.isFragmentRequest()) {
-                html = app.renderFragment(request, response);
+                String html = app.renderFragment(request, response);
+                response.setContent(STATUS_OK, html, CONTENT_TYPE_TEXT_HTML);
             } else {
-                // Request for a page.
-                html = app.renderPage(request, response);
+                // Request for a page. Rendered HTML is written directly to the response when it is sent.
+                StreamingContent html = app.renderPageStreaming(request, response);
+                response.setStatus(STATUS_OK);
+                response.setContent(html, CONTENT_TYPE_TEXT_HTML);
             }
-            response.setContent(STATUS_OK, html, CONTENT_TYPE_TEXT_HTML);
         } catch (UUFException e) {
             throw e;
         } catch (Exception e) {
@@ -110,4 +112,11 @@ public class RequestDispatcher {
     public void serveDefaultFavicon(HttpRequest request, HttpResponse response) {
         staticResolver.serveDefaultFavicon(request, response);
     }
+
+    /**
+     * Releases the resources held for serving requests, e.g. the static resource cache.
+     */
+    public void close() {
+        staticResolver.close();
+    }
 }
@@ -33,6 +33,7 @@ import org.wso2.carbon.kernel.startupresolver.RequiredCapabilityListener;
 import org.wso2.carbon.uuf.api.Server;
 import org.wso2.carbon.uuf.core.App;
 import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.internal.auth.SessionStoreFactory;
 import org.wso2.carbon.uuf.internal.deployment.AppDeployer;
 import org.wso2.carbon.uuf.internal.deployment.DeploymentNotifier;
 import org.wso2.carbon.uuf.internal.io.ArtifactAppDeployer;
@@ -40,9 +41,16 @@ import org.wso2.carbon.uuf.spi.HttpConnector;
 import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.HttpResponse;
 import org.wso2.carbon.uuf.spi.RenderableCreator;
+import org.wso2.carbon.uuf.spi.auth.SessionReplicationTransport;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_BAD_REQUEST;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_INTERNAL_SERVER_ERROR;
@@ -58,11 +66,16 @@ import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_NOT_FOUND;
 public class UUFServer implements Server, RequiredCapabilityListener {
 
     private static final boolean DEV_MODE_ENABLED = Boolean.getBoolean("devmode");
+    private static final boolean EAGER_DEPLOYMENT_ENABLED = Boolean.getBoolean("uuf.deployment.eager");
+    private static final int DEPLOYMENT_THREADS = Integer.getInteger("uuf.deployment.threads",
+                                                                     Runtime.getRuntime().availableProcessors());
     private static final Logger LOGGER = LoggerFactory.getLogger(UUFServer.class);
 
     private final String appRepositoryPath;
     private final Set<RenderableCreator> renderableCreators;
     private final RequestDispatcher requestDispatcher;
+    private final SessionStoreFactory sessionStoreFactory;
+    private SessionReplicationTransport sessionReplicationTransport;
     private AppDeployer appDeployer;
     private DeploymentNotifier deploymentNotifier;
     private BundleContext bundleContext;
@@ -76,6 +89,7 @@ public class UUFServer implements Server, RequiredCapabilityListener {
         this.appRepositoryPath = appRepositoryPath;
         this.renderableCreators = new HashSet<>();
         this.requestDispatcher = new RequestDispatcher();
+        this.sessionStoreFactory = new SessionStoreFactory();
     }
 
     /**
@@ -114,6 +128,37 @@ public class UUFServer implements Server, RequiredCapabilityListener {
         }
     }
 
+    /**
+     * This bind method is invoked by OSGi framework whenever a SessionReplicationTransport is registered.
+     *
+     * @param sessionReplicationTransport registered session replication transport
+     */
+    @Reference(name = "sessionReplicationTransport",
+               service = SessionReplicationTransport.class,
+               cardinality = ReferenceCardinality.OPTIONAL,
+               policy = ReferencePolicy.DYNAMIC,
+               unbind = "unsetSessionReplicationTransport")
+    public void setSessionReplicationTransport(SessionReplicationTransport sessionReplicationTransport) {
+        // Only the session stores created from now on use the registered transport, hence deployed apps are intact.
+        this.sessionReplicationTransport = sessionReplicationTransport;
+        sessionStoreFactory.setReplicationTransport(sessionReplicationTransport);
+        LOGGER.info("SessionReplicationTransport '{}' registered.", sessionReplicationTransport.getClass().getName());
+    }
+
+    /**
+     * This bind method is invoked by OSGi framework whenever a SessionReplicationTransport is left.
+     *
+     * @param sessionReplicationTransport unregistered session replication transport
+     */
+    public void unsetSessionReplicationTransport(SessionReplicationTransport sessionReplicationTransport) {
+        if (this.sessionReplicationTransport == sessionReplicationTransport) {
+            this.sessionReplicationTransport = null;
+            sessionStoreFactory.setReplicationTransport(null);
+        }
+        LOGGER.info("SessionReplicationTransport '{}' unregistered.",
+                    sessionReplicationTransport.getClass().getName());
+    }
+
     @Activate
     protected void activate(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
@@ -123,6 +168,7 @@ public class UUFServer implements Server, RequiredCapabilityListener {
     @Deactivate
     protected void deactivate(BundleContext bundleContext) {
         stop();
+        requestDispatcher.close();
         this.bundleContext = null;
         deploymentNotifier = null;
         serverServiceRegistration.unregister();
@@ -141,8 +187,8 @@ public class UUFServer implements Server, RequiredCapabilityListener {
 
     private AppDeployer createAppDeployer() {
         return (appRepositoryPath == null) ?
-                new ArtifactAppDeployer(renderableCreators) :
-                new ArtifactAppDeployer(appRepositoryPath, renderableCreators);
+                new ArtifactAppDeployer(renderableCreators, sessionStoreFactory) :
+                new ArtifactAppDeployer(appRepositoryPath, renderableCreators, sessionStoreFactory);
     }
 
     @Override
@@ -179,8 +225,39 @@ public class UUFServer implements Server, RequiredCapabilityListener {
     }
 
     public void start() {
-        Set<String> deployedAppContextPaths = appDeployer.deploy();
-        deploymentNotifier.notify(deployedAppContextPaths);
+        if (EAGER_DEPLOYMENT_ENABLED) {
+            deployEagerly();
+        } else {
+            Set<String> deployedAppContextPaths = appDeployer.deploy();
+            deploymentNotifier.notify(deployedAppContextPaths);
+        }
+    }
+
+    /**
+     * Deploys all apps in parallel and registers each app in HTTP connectors once it is ready to serve requests.
+     */
+    private void deployEagerly() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, DEPLOYMENT_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "UUFAppDeployer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        DeploymentNotifier deploymentNotifier = this.deploymentNotifier;
+        Map<String, CompletableFuture<App>> deployments = appDeployer.deploy(executor);
+        deployments.forEach((contextPath, deployment) -> deployment.whenComplete((app, throwable) -> {
+            if (throwable == null) {
+                deploymentNotifier.notify(Collections.singleton(contextPath));
+            } else {
+                LOGGER.error("Cannot deploy UUF app for context path '{}'.", contextPath, throwable);
+                if (DEV_MODE_ENABLED) {
+                    // App is still pending, so the developer can correct the error and retry with a request.
+                    deploymentNotifier.notify(Collections.singleton(contextPath));
+                }
+            }
+        }));
+        CompletableFuture.allOf(deployments.values().toArray(new CompletableFuture[deployments.size()]))
+                .whenComplete((result, throwable) -> executor.shutdown());
     }
 
     public void stop() {
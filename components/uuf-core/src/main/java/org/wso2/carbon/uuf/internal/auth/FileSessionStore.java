@@ -0,0 +1,287 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.exception.UUFException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A session store which keeps sessions in the heap and persists them in a memory-mapped file, so that sessions
+ * survive server restarts.
+ * <p>
+ * The file is divided into fixed size slots, one slot per session. A slot holds the last accessed time of the session
+ * followed by the serialized session, hence touching a session writes only eight bytes to the mapped file. A session
+ * which is put again is written to a free slot before its previous slot is freed, so that a crash while writing never
+ * leaves a partially written slot marked as used. Sessions which do not fit into a slot, or which arrive when all
+ * slots are taken, are kept only in the heap.
+ * <p>
+ * Serialized sessions are sensitive, hence on POSIX file systems the file and the directories created for it are
+ * accessible to their owner only.
+ *
+ * @since 1.0.0
+ */
+public class FileSessionStore extends InMemorySessionStore {
+
+    /**
+     * Default size of a slot in bytes.
+     */
+    public static final int DEFAULT_SLOT_SIZE = 4096;
+    /**
+     * Default number of slots in a file.
+     */
+    public static final int DEFAULT_SLOT_COUNT = 4096;
+    private static final byte SLOT_FREE = 0;
+    private static final byte SLOT_USED = 1;
+    private static final int OFFSET_LAST_ACCESSED_TIME = 1;
+    private static final int OFFSET_LENGTH = 9;
+    private static final int SLOT_HEADER_SIZE = 13;
+    private static final Set<PosixFilePermission> OWNER_ONLY_DIRECTORY = PosixFilePermissions.fromString("rwx------");
+    private static final Set<PosixFilePermission> OWNER_ONLY_FILE = PosixFilePermissions.fromString("rw-------");
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSessionStore.class);
+
+    private final Path file;
+    private final int slotSize;
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer buffer;
+    private final Map<String, Integer> slots;
+    private final Deque<Integer> freeSlots;
+
+    /**
+     * Creates a new file-backed session store with the default slot size and count.
+     *
+     * @param file    file to persist sessions, which is created if it does not exist
+     * @param timeout session timeout in milliseconds
+     * @exception FileOperationException if the file cannot be opened
+     */
+    public FileSessionStore(Path file, long timeout) {
+        this(file, timeout, DEFAULT_SLOT_SIZE, DEFAULT_SLOT_COUNT);
+    }
+
+    /**
+     * Creates a new file-backed session store. Unexpired sessions in the file are loaded into this store.
+     *
+     * @param file      file to persist sessions, which is created if it does not exist
+     * @param timeout   session timeout in milliseconds
+     * @param slotSize  size of a slot in bytes
+     * @param slotCount number of slots, i.e. maximum number of persisted sessions
+     * @exception FileOperationException if the file cannot be opened
+     */
+    public FileSessionStore(Path file, long timeout, int slotSize, int slotCount) {
+        super(timeout);
+        if (slotSize <= SLOT_HEADER_SIZE) {
+            throw new IllegalArgumentException("Slot size must be larger than " + SLOT_HEADER_SIZE + " bytes.");
+        }
+        this.file = file;
+        this.slotSize = slotSize;
+        this.slots = new HashMap<>();
+        this.freeSlots = new ArrayDeque<>();
+        try {
+            createOwnerOnlyFile(file);
+            this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE);
+            this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slotSize * slotCount);
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot open session store file '" + file + "'.", e);
+        }
+        load(timeout, slotCount);
+    }
+
+    private static void createOwnerOnlyFile(Path file) throws IOException {
+        boolean isPosix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+        Path directory = file.toAbsolutePath().getParent();
+        if ((directory != null) && !Files.isDirectory(directory)) {
+            if (isPosix) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY_DIRECTORY));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        if (Files.isSymbolicLink(file)) {
+            throw new IOException("Session store file '" + file + "' is a symbolic link.");
+        }
+        if (!isPosix) {
+            return;
+        }
+        if (Files.exists(file)) {
+            // Fails if the file is owned by another user.
+            Files.setPosixFilePermissions(file, OWNER_ONLY_FILE);
+        } else {
+            Files.createFile(file, PosixFilePermissions.asFileAttribute(OWNER_ONLY_FILE));
+        }
+    }
+
+    private void load(long timeout, int slotCount) {
+        long now = System.currentTimeMillis();
+        byte[] bytes = new byte[slotSize - SLOT_HEADER_SIZE];
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = slot * slotSize;
+            if (buffer.get(offset) != SLOT_USED) {
+                freeSlots.add(slot);
+                continue;
+            }
+            long lastAccessedTime = buffer.getLong(offset + OFFSET_LAST_ACCESSED_TIME);
+            int length = buffer.getInt(offset + OFFSET_LENGTH);
+            if (((now - lastAccessedTime) > timeout) || (length <= 0) || (length > bytes.length)) {
+                freeSlot(slot); // Expired or corrupted.
+                continue;
+            }
+            ByteBuffer slotBuffer = buffer.duplicate();
+            slotBuffer.position(offset + SLOT_HEADER_SIZE);
+            slotBuffer.get(bytes, 0, length);
+            try {
+                Session session = SessionSerializer.deserialize(bytes, 0, length);
+                Integer otherSlot = slots.get(session.getSessionId());
+                if (otherSlot != null) {
+                    // Crashed after writing a newer copy of the session but before freeing its previous slot.
+                    long otherLastAccessedTime = buffer.getLong(otherSlot * slotSize + OFFSET_LAST_ACCESSED_TIME);
+                    if (otherLastAccessedTime >= lastAccessedTime) {
+                        freeSlot(slot);
+                        continue;
+                    }
+                    freeSlot(otherSlot);
+                }
+                super.put(session, lastAccessedTime);
+                slots.put(session.getSessionId(), slot);
+            } catch (UUFException e) {
+                LOGGER.warn("Cannot restore a session from session store file '{}'.", file, e);
+                freeSlot(slot);
+            }
+        }
+        LOGGER.debug("Restored {} sessions from session store file '{}'.", slots.size(), file);
+    }
+
+    @Override
+    protected synchronized void put(Session session, long lastAccessedTime) {
+        super.put(session, lastAccessedTime);
+        byte[] bytes = SessionSerializer.serialize(session);
+        Integer slot = slots.get(session.getSessionId());
+        if (bytes.length > (slotSize - SLOT_HEADER_SIZE)) {
+            LOGGER.warn("Session '{}' is {} bytes, which is larger than a slot of session store file '{}'. Hence it " +
+                                "will not be persisted.", session.getSessionId(), bytes.length, file);
+            if (slot != null) {
+                slots.remove(session.getSessionId());
+                freeSlot(slot);
+            }
+            return;
+        }
+        Integer previousSlot = slot;
+        slot = freeSlots.poll();
+        if (slot == null) {
+            if (previousSlot == null) {
+                LOGGER.warn("Session store file '{}' is full. Hence session '{}' will not be persisted.", file,
+                            session.getSessionId());
+                return;
+            }
+            // No free slot to write the new copy into, hence the previous copy is dropped before it is overwritten.
+            buffer.put(previousSlot * slotSize, SLOT_FREE);
+            slot = previousSlot;
+            previousSlot = null;
+        }
+        int offset = slot * slotSize;
+        ByteBuffer slotBuffer = buffer.duplicate();
+        slotBuffer.position(offset + SLOT_HEADER_SIZE);
+        slotBuffer.put(bytes);
+        buffer.putInt(offset + OFFSET_LENGTH, bytes.length);
+        buffer.putLong(offset + OFFSET_LAST_ACCESSED_TIME, lastAccessedTime);
+        // Mark the slot as used only after its content is written, so that a partially written slot is never loaded.
+        buffer.put(offset, SLOT_USED);
+        slots.put(session.getSessionId(), slot);
+        if (previousSlot != null) {
+            freeSlot(previousSlot);
+        }
+    }
+
+    @Override
+    protected synchronized void touch(Set<String> sessionIds, long lastAccessedTime) {
+        super.touch(sessionIds, lastAccessedTime);
+        for (String sessionId : sessionIds) {
+            Integer slot = slots.get(sessionId);
+            if (slot != null) {
+                buffer.putLong(slot * slotSize + OFFSET_LAST_ACCESSED_TIME, lastAccessedTime);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean remove(String sessionId) {
+        Integer slot = slots.remove(sessionId);
+        if (slot != null) {
+            freeSlot(slot);
+        }
+        return super.remove(sessionId);
+    }
+
+    @Override
+    public synchronized void removeAll() {
+        super.removeAll();
+        slots.values().forEach(this::freeSlot);
+        slots.clear();
+    }
+
+    @Override
+    public synchronized void removeExpired() {
+        super.removeExpired();
+        Set<String> sessionIds = getSessionIds();
+        for (Iterator<Map.Entry<String, Integer>> it = slots.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!sessionIds.contains(entry.getKey())) {
+                freeSlot(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!fileChannel.isOpen()) {
+            return;
+        }
+        buffer.force();
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot close session store file '{}'.", file, e);
+        }
+        super.close();
+    }
+
+    private void freeSlot(int slot) {
+        buffer.put(slot * slotSize, SLOT_FREE);
+        freeSlots.add(slot);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.spi.auth.SessionStore;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * A session store which keeps sessions in the heap of the current node.
+ *
+ * @since 1.0.0
+ */
+public class InMemorySessionStore implements SessionStore {
+
+    private final long timeout;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Entry> entries;
+
+    /**
+     * Creates a new in-memory session store.
+     *
+     * @param timeout session timeout in milliseconds
+     */
+    public InMemorySessionStore(long timeout) {
+        this(timeout, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a new in-memory session store which reads the current time from the specified clock.
+     *
+     * @param timeout session timeout in milliseconds
+     * @param clock   supplier of the current time in milliseconds
+     */
+    public InMemorySessionStore(long timeout, LongSupplier clock) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Session timeout must be positive.");
+        }
+        this.timeout = timeout;
+        this.clock = clock;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void put(Session session) {
+        put(session, clock.getAsLong());
+    }
+
+    /**
+     * Adds the specified session with the specified last accessed time.
+     *
+     * @param session          session to store
+     * @param lastAccessedTime last accessed time of the session in milliseconds
+     */
+    protected void put(Session session, long lastAccessedTime) {
+        entries.put(session.getSessionId(), new Entry(session, lastAccessedTime));
+    }
+
+    @Override
+    public Optional<Session> get(String sessionId) {
+        Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (isExpired(entry, clock.getAsLong())) {
+            entries.remove(sessionId, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.session);
+    }
+
+    @Override
+    public void touch(Set<String> sessionIds) {
+        touch(sessionIds, clock.getAsLong());
+    }
+
+    /**
+     * Marks the specified sessions as accessed at the specified time.
+     *
+     * @param sessionIds       IDs of the accessed sessions
+     * @param lastAccessedTime access time in milliseconds
+     */
+    protected void touch(Set<String> sessionIds, long lastAccessedTime) {
+        for (String sessionId : sessionIds) {
+            Entry entry = entries.get(sessionId);
+            if ((entry != null) && (entry.lastAccessedTime < lastAccessedTime)) {
+                entry.lastAccessedTime = lastAccessedTime;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String sessionId) {
+        return entries.remove(sessionId) != null;
+    }
+
+    @Override
+    public void removeAll() {
+        entries.clear();
+    }
+
+    @Override
+    public void removeExpired() {
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> isExpired(entry, now));
+    }
+
+    @Override
+    public void close() {
+        entries.clear();
+    }
+
+    /**
+     * @return number of sessions in this store, including expired sessions which are not removed yet
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the last accessed time of the specified session.
+     *
+     * @param sessionId session ID
+     * @return last accessed time in milliseconds, or empty if there is no such session
+     */
+    protected Optional<Long> getLastAccessedTime(String sessionId) {
+        Entry entry = entries.get(sessionId);
+        return (entry == null) ? Optional.empty() : Optional.of(entry.lastAccessedTime);
+    }
+
+    protected Set<String> getSessionIds() {
+        return entries.keySet();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return (now - entry.lastAccessedTime) > timeout;
+    }
+
+    private static class Entry {
+
+        private final Session session;
+        private volatile long lastAccessedTime;
+
+        private Entry(Session session, long lastAccessedTime) {
+            this.session = session;
+            this.lastAccessedTime = lastAccessedTime;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.auth.SessionReplicationTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * An in-memory session store which replicates its changes to the stores of the same app in other nodes through a
+ * {@link SessionReplicationTransport}, so that a session created in one node is available in every node.
+ * <p>
+ * Touches are replicated in batches, as the {@link SessionRegistry} flushes them. When started, a store asks its peers
+ * for their sessions. Peers which have sessions offer them to the new store, which accepts the first offer, hence the
+ * existing sessions are sent once by a single peer to the new store only.
+ * <p>
+ * Every message carries an HMAC-SHA256 of the channel and the message, computed with a key shared by all the nodes.
+ * Messages with an invalid MAC are dropped, so that only nodes which know the key can replicate sessions.
+ *
+ * @since 1.0.0
+ */
+public class ReplicatedSessionStore extends InMemorySessionStore {
+
+    /**
+     * Minimum length of the shared key in bytes.
+     */
+    public static final int MIN_KEY_LENGTH = 16;
+    private static final byte MESSAGE_PUT = 1;
+    private static final byte MESSAGE_TOUCH = 2;
+    private static final byte MESSAGE_REMOVE = 3;
+    private static final byte MESSAGE_REMOVE_ALL = 4;
+    private static final byte MESSAGE_SYNC_REQUEST = 5;
+    private static final byte MESSAGE_SYNC_OFFER = 6;
+    private static final byte MESSAGE_SYNC_ACCEPT = 7;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicatedSessionStore.class);
+
+    private final String channel;
+    private final SessionReplicationTransport transport;
+    private final SecretKeySpec key;
+    private final byte[] channelBytes;
+    private final AtomicBoolean isSyncAccepted;
+
+    /**
+     * Creates a new replicated session store and subscribes it to the specified channel.
+     *
+     * @param channel   replication channel, which should be unique to the app
+     * @param transport transport to exchange changes with the other nodes
+     * @param key       key shared by all the nodes to authenticate messages, at least {@link #MIN_KEY_LENGTH} bytes
+     * @param timeout   session timeout in milliseconds
+     */
+    public ReplicatedSessionStore(String channel, SessionReplicationTransport transport, byte[] key, long timeout) {
+        super(timeout);
+        if (key.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("Session replication key must be at least " + MIN_KEY_LENGTH +
+                                                       " bytes.");
+        }
+        this.channel = channel;
+        this.transport = transport;
+        this.key = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        this.isSyncAccepted = new AtomicBoolean(false);
+        transport.subscribe(channel, this::receive);
+        transport.send(channel, sign(new byte[]{MESSAGE_SYNC_REQUEST}));
+    }
+
+    @Override
+    protected void put(Session session, long lastAccessedTime) {
+        super.put(session, lastAccessedTime);
+        transport.send(channel, createPut(session, lastAccessedTime));
+    }
+
+    @Override
+    protected void touch(Set<String> sessionIds, long lastAccessedTime) {
+        super.touch(sessionIds, lastAccessedTime);
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+        transport.send(channel, createMessage(MESSAGE_TOUCH, out -> {
+            out.writeLong(lastAccessedTime);
+            out.writeInt(sessionIds.size());
+            for (String sessionId : sessionIds) {
+                out.writeUTF(sessionId);
+            }
+        }));
+    }
+
+    @Override
+    public boolean remove(String sessionId) {
+        boolean removed = super.remove(sessionId);
+        transport.send(channel, createMessage(MESSAGE_REMOVE, out -> out.writeUTF(sessionId)));
+        return removed;
+    }
+
+    @Override
+    public void removeAll() {
+        super.removeAll();
+        transport.send(channel, sign(new byte[]{MESSAGE_REMOVE_ALL}));
+    }
+
+    @Override
+    public void close() {
+        transport.unsubscribe(channel);
+        super.close();
+    }
+
+    private void receive(String senderNodeId, byte[] signedMessage) {
+        int length = signedMessage.length - MAC_LENGTH;
+        if ((length < 1) || !MessageDigest.isEqual(computeMac(signedMessage, length),
+                                                   Arrays.copyOfRange(signedMessage, length, signedMessage.length))) {
+            LOGGER.warn("Dropped a session replication message with an invalid MAC from node '{}' in channel '{}'.",
+                        senderNodeId, channel);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(signedMessage, 1, length - 1))) {
+            switch (signedMessage[0]) {
+                case MESSAGE_PUT:
+                    long lastAccessedTime = in.readLong();
+                    int sessionLength = in.readInt();
+                    Session session = SessionSerializer.deserialize(signedMessage, 1 + 8 + 4, sessionLength);
+                    super.put(session, lastAccessedTime);
+                    break;
+                case MESSAGE_TOUCH:
+                    long accessedTime = in.readLong();
+                    int count = in.readInt();
+                    Set<String> sessionIds = new HashSet<>(count);
+                    for (int i = 0; i < count; i++) {
+                        sessionIds.add(in.readUTF());
+                    }
+                    super.touch(sessionIds, accessedTime);
+                    break;
+                case MESSAGE_REMOVE:
+                    super.remove(in.readUTF());
+                    break;
+                case MESSAGE_REMOVE_ALL:
+                    super.removeAll();
+                    break;
+                case MESSAGE_SYNC_REQUEST:
+                    if (!getSessionIds().isEmpty()) {
+                        transport.send(channel, senderNodeId, sign(new byte[]{MESSAGE_SYNC_OFFER}));
+                    }
+                    break;
+                case MESSAGE_SYNC_OFFER:
+                    // Sessions are taken from the first peer only, as every peer has the same sessions.
+                    if (isSyncAccepted.compareAndSet(false, true)) {
+                        transport.send(channel, senderNodeId, sign(new byte[]{MESSAGE_SYNC_ACCEPT}));
+                    }
+                    break;
+                case MESSAGE_SYNC_ACCEPT:
+                    for (String sessionId : getSessionIds()) {
+                        Optional<Session> existingSession = get(sessionId);
+                        Optional<Long> existingLastAccessedTime = getLastAccessedTime(sessionId);
+                        if (existingSession.isPresent() && existingLastAccessedTime.isPresent()) {
+                            transport.send(channel, senderNodeId,
+                                           createPut(existingSession.get(), existingLastAccessedTime.get()));
+                        }
+                    }
+                    break;
+                default:
+                    LOGGER.warn("Ignored an unknown session replication message of type {} in channel '{}'.",
+                                signedMessage[0], channel);
+            }
+        } catch (IOException | UUFException e) {
+            LOGGER.warn("Cannot apply a session replication message received from channel '{}'.", channel, e);
+        }
+    }
+
+    private byte[] createPut(Session session, long lastAccessedTime) {
+        byte[] bytes = SessionSerializer.serialize(session);
+        return createMessage(MESSAGE_PUT, out -> {
+            out.writeLong(lastAccessedTime);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        });
+    }
+
+    private byte[] createMessage(byte type, MessageWriter writer) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(64);
+        outputStream.write(type);
+        try (DataOutputStream out = new DataOutputStream(outputStream)) {
+            writer.write(out);
+        } catch (IOException e) {
+            // Cannot happen as the data is written to a byte array.
+            throw new UUFException("Cannot create a session replication message.", e);
+        }
+        return sign(outputStream.toByteArray());
+    }
+
+    private byte[] sign(byte[] message) {
+        byte[] signedMessage = new byte[message.length + MAC_LENGTH];
+        System.arraycopy(message, 0, signedMessage, 0, message.length);
+        System.arraycopy(computeMac(message, message.length), 0, signedMessage, message.length, MAC_LENGTH);
+        return signedMessage;
+    }
+
+    private byte[] computeMac(byte[] message, int length) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            // Channel is authenticated too, so that a message of one app is not accepted by another app.
+            mac.update(channelBytes);
+            mac.update(message, 0, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new UUFException("Cannot compute MAC of a session replication message.", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MessageWriter {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+}
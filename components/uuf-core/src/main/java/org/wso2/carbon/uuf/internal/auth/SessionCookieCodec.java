@@ -0,0 +1,365 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import com.google.common.hash.Hashing;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encodes sessions into encrypted and authenticated cookie values, so that a session can be verified and restored
+ * without any server-side state.
+ * <p>
+ * A cookie value is the URL-safe Base64 encoding of {@code [key ID][IV][AES-GCM ciphertext and tag]}. The plaintext
+ * holds the issued and created times, the session ID and the theme name as plain fields, followed by the serialized
+ * user which is deflated when that makes it smaller. Hence a cookie carries neither the class descriptors of the
+ * session nor a verbatim copy of a large user; a user can shrink further by implementing
+ * {@link java.io.Externalizable}. The app name is used as additional authenticated data, so that a cookie issued for
+ * one app is not accepted by another.
+ * <p>
+ * Keys can be rotated: new cookies are always encrypted with the current key, while cookies encrypted with a previous
+ * key are accepted until they expire or the key is dropped.
+ *
+ * @since 1.0.0
+ */
+public class SessionCookieCodec {
+
+    /**
+     * Maximum number of keys, i.e. the current key and the previous keys, kept for verification.
+     */
+    public static final int MAX_KEYS = 4;
+    private static final int KEY_LENGTH = 16; // bytes, AES-128
+    private static final int IV_LENGTH = 12; // bytes
+    private static final int TAG_LENGTH = 128; // bits
+    private static final int MAX_COOKIE_VALUE_LENGTH = 4000;
+    private static final int MAX_USER_LENGTH = 64 * 1024; // bytes, bounds inflating a decrypted user
+    private static final byte FORMAT_VERSION = 2;
+    private static final byte USER_SERIALIZED = 0;
+    private static final byte USER_DEFLATED = 1;
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(CIPHER_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new UUFException("Cipher '" + CIPHER_ALGORITHM + "' is not available.", e);
+        }
+    });
+
+    private final byte[] associatedData;
+    private volatile List<Key> keys;
+
+    /**
+     * Creates a new session cookie codec.
+     *
+     * @param appName name of the app
+     * @param keys    AES keys of 16, 24 or 32 bytes, where the first one is the current key
+     */
+    public SessionCookieCodec(String appName, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is required to encode session cookies.");
+        }
+        this.associatedData = appName.getBytes(StandardCharsets.UTF_8);
+        List<Key> keyList = new ArrayList<>(keys.size());
+        for (byte[] key : keys.subList(0, Math.min(keys.size(), MAX_KEYS))) {
+            keyList.add(new Key(key));
+        }
+        this.keys = Collections.unmodifiableList(keyList);
+    }
+
+    /**
+     * Makes the specified key the current key. The oldest key is dropped if there are more than {@link #MAX_KEYS}
+     * keys.
+     *
+     * @param key new AES key of 16, 24 or 32 bytes
+     */
+    public synchronized void rotate(byte[] key) {
+        List<Key> keyList = new ArrayList<>(MAX_KEYS);
+        keyList.add(new Key(key));
+        keyList.addAll(keys.subList(0, Math.min(keys.size(), MAX_KEYS - 1)));
+        keys = Collections.unmodifiableList(keyList);
+    }
+
+    /**
+     * Encodes the specified new session, i.e. a session created at the time its first cookie is issued.
+     *
+     * @param session    session to encode
+     * @param issuedTime time the cookie is issued in milliseconds
+     * @return cookie value
+     * @exception UUFException if the session cannot be serialized or the encoded session is too large for a cookie
+     * @see #encode(Session, long, long)
+     */
+    public String encode(Session session, long issuedTime) {
+        return encode(session, issuedTime, issuedTime);
+    }
+
+    /**
+     * Encodes the specified session.
+     *
+     * @param session     session to encode
+     * @param createdTime time the session was created in milliseconds
+     * @param issuedTime  time the cookie is issued in milliseconds
+     * @return cookie value
+     * @exception UUFException if the session cannot be serialized or the encoded session is too large for a cookie
+     */
+    public String encode(Session session, long createdTime, long issuedTime) {
+        byte[] plaintext;
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+            DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+            dataOutputStream.writeByte(FORMAT_VERSION);
+            dataOutputStream.writeLong(issuedTime);
+            dataOutputStream.writeLong(createdTime);
+            dataOutputStream.writeUTF(session.getSessionId());
+            dataOutputStream.writeUTF((session.getThemeName() == null) ? "" : session.getThemeName());
+            byte[] user = SessionSerializer.serializeUser(session.getUser());
+            byte[] deflatedUser = deflate(user);
+            if (deflatedUser.length < user.length) {
+                dataOutputStream.writeByte(USER_DEFLATED);
+                dataOutputStream.write(deflatedUser);
+            } else {
+                dataOutputStream.writeByte(USER_SERIALIZED);
+                dataOutputStream.write(user);
+            }
+            plaintext = outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new UUFException("Cannot encode session '" + session.getSessionId() + "'.", e);
+        }
+
+        Key key = keys.get(0);
+        byte[] iv = new byte[IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        byte[] ciphertext;
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, key.secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(associatedData);
+            ciphertext = cipher.doFinal(plaintext);
+        } catch (GeneralSecurityException e) {
+            throw new UUFException("Cannot encrypt session '" + session.getSessionId() + "'.", e);
+        }
+
+        byte[] token = new byte[1 + IV_LENGTH + ciphertext.length];
+        token[0] = key.id;
+        System.arraycopy(iv, 0, token, 1, IV_LENGTH);
+        System.arraycopy(ciphertext, 0, token, 1 + IV_LENGTH, ciphertext.length);
+        String cookieValue = Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+        if (cookieValue.length() > MAX_COOKIE_VALUE_LENGTH) {
+            throw new UUFException("Session '" + session.getSessionId() + "' is too large to be stored in a cookie. " +
+                                           "Encoded session is " + cookieValue.length() + " characters.");
+        }
+        return cookieValue;
+    }
+
+    /**
+     * Decodes the specified cookie value.
+     *
+     * @param cookieValue cookie value created by {@link #encode(Session, long, long)}
+     * @return decoded session, or empty if the cookie value is malformed, tampered or encrypted with an unknown key
+     */
+    public Optional<DecodedSession> decode(String cookieValue) {
+        if (cookieValue.length() > MAX_COOKIE_VALUE_LENGTH) {
+            return Optional.empty();
+        }
+        byte[] token;
+        try {
+            token = Base64.getUrlDecoder().decode(cookieValue);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (token.length <= (1 + IV_LENGTH)) {
+            return Optional.empty();
+        }
+
+        for (Key key : keys) {
+            if (key.id != token[0]) {
+                continue;
+            }
+            byte[] plaintext;
+            try {
+                Cipher cipher = CIPHERS.get();
+                cipher.init(Cipher.DECRYPT_MODE, key.secretKey, new GCMParameterSpec(TAG_LENGTH, token, 1, IV_LENGTH));
+                cipher.updateAAD(associatedData);
+                plaintext = cipher.doFinal(token, 1 + IV_LENGTH, token.length - 1 - IV_LENGTH);
+            } catch (GeneralSecurityException e) {
+                continue; // Either tampered or a key ID collision, hence try the next key.
+            }
+            return decodePlaintext(plaintext);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<DecodedSession> decodePlaintext(byte[] plaintext) {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(plaintext);
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        try {
+            if (dataInputStream.readByte() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            long issuedTime = dataInputStream.readLong();
+            long createdTime = dataInputStream.readLong();
+            String sessionId = dataInputStream.readUTF();
+            String themeName = dataInputStream.readUTF();
+            byte userEncoding = dataInputStream.readByte();
+            int offset = plaintext.length - inputStream.available();
+            User user;
+            if (userEncoding == USER_SERIALIZED) {
+                user = SessionSerializer.deserializeUser(plaintext, offset, plaintext.length - offset);
+            } else if (userEncoding == USER_DEFLATED) {
+                Optional<byte[]> inflatedUser = inflate(plaintext, offset, plaintext.length - offset);
+                if (!inflatedUser.isPresent()) {
+                    return Optional.empty();
+                }
+                user = SessionSerializer.deserializeUser(inflatedUser.get(), 0, inflatedUser.get().length);
+            } else {
+                return Optional.empty();
+            }
+            Session session = new Session(sessionId, user);
+            if (!themeName.isEmpty()) {
+                session.setThemeName(themeName);
+                session.clearModified(); // Restored as encoded, hence not modified.
+            }
+            return Optional.of(new DecodedSession(session, createdTime, issuedTime));
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        } catch (UUFException e) {
+            // Classes of the user have changed incompatibly since the cookie was issued.
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                outputStream.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static Optional<byte[]> inflate(byte[] bytes, int offset, int length) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, offset, length);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int inflatedLength = inflater.inflate(buffer);
+                if ((inflatedLength == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return Optional.empty(); // truncated
+                }
+                if ((outputStream.size() + inflatedLength) > MAX_USER_LENGTH) {
+                    return Optional.empty();
+                }
+                outputStream.write(buffer, 0, inflatedLength);
+            }
+            return Optional.of(outputStream.toByteArray());
+        } catch (DataFormatException e) {
+            return Optional.empty();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @return a new random key for session cookies
+     */
+    public static byte[] newKey() {
+        byte[] key = new byte[KEY_LENGTH];
+        SECURE_RANDOM.nextBytes(key);
+        return key;
+    }
+
+    /**
+     * A session decoded from a cookie value.
+     */
+    public static class DecodedSession {
+
+        private final Session session;
+        private final long createdTime;
+        private final long issuedTime;
+
+        private DecodedSession(Session session, long createdTime, long issuedTime) {
+            this.session = session;
+            this.createdTime = createdTime;
+            this.issuedTime = issuedTime;
+        }
+
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * @return time the session was created in milliseconds, which is kept when the cookie is issued again
+         */
+        public long getCreatedTime() {
+            return createdTime;
+        }
+
+        /**
+         * @return time the cookie was issued in milliseconds
+         */
+        public long getIssuedTime() {
+            return issuedTime;
+        }
+    }
+
+    private static class Key {
+
+        private final byte id;
+        private final SecretKeySpec secretKey;
+
+        private Key(byte[] key) {
+            if ((key.length != 16) && (key.length != 24) && (key.length != 32)) {
+                throw new IllegalArgumentException(
+                        "Session cookie key must be 16, 24 or 32 bytes long. Instead found " + key.length + " bytes.");
+            }
+            this.id = Hashing.sha256().hashBytes(key).asBytes()[0];
+            this.secretKey = new SecretKeySpec(key, "AES");
+        }
+    }
+}
@@ -18,92 +18,176 @@
 
 package org.wso2.carbon.uuf.internal.auth;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.api.auth.PermissionCacheStatistics;
 import org.wso2.carbon.uuf.api.auth.Session;
-import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.auth.SessionStore;
 
 import java.io.Closeable;
-import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Optional;
-import javax.cache.Cache;
-import javax.cache.CacheException;
-import javax.cache.CacheManager;
-import javax.cache.Caching;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.AccessedExpiryPolicy;
-import javax.cache.expiry.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Manages the sessions of an app in a {@link SessionStore}.
+ * <p>
+ * Accessing a session does not write to the store. Instead accessed session IDs are collected and the store is
+ * touched in batches, so that a store which keeps sessions outside the heap is not written on every request.
+ */
 public class SessionRegistry implements Closeable {
 
     public static final String SESSION_COOKIE_NAME = "UUFSESSIONID";
-    private static final Object LOCK = new Object();
+    private static final long DEFAULT_SESSION_TIMEOUT = TimeUnit.MINUTES.toMillis(20);
+    private static final long TOUCH_INTERVAL = Long.getLong("uuf.session.touchInterval", 5000); // milliseconds
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionRegistry.class);
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uuf-session-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private final Cache<String, Session> cache;
+    private final String appName;
+    private final SessionStore sessionStore;
+    private final PermissionCacheStatistics permissionCacheStatistics;
+    private final Set<String> pendingTouches;
+    private final ScheduledFuture<?> touchTask;
+    private final ScheduledFuture<?> expiryTask;
+    private final AtomicBoolean closed;
 
-    private static Cache<String, Session> getCache(String cacheName,
-                                                   MutableConfiguration<String, Session> cacheConfig) {
-        CacheManager cacheManager = Caching.getCachingProvider().getCacheManager();
-        Cache<String, Session> cache;
-        try {
-            synchronized (LOCK) {
-                cache = cacheManager.getCache(cacheName, String.class, Session.class);
-                if (cache == null) {
-                    cache = cacheManager.createCache(cacheName, cacheConfig);
-                }
+    public SessionRegistry(String appName) {
+        this(appName, new InMemorySessionStore(DEFAULT_SESSION_TIMEOUT));
+    }
+
+    /**
+     * Creates a new session registry.
+     *
+     * @param appName      name of the app
+     * @param sessionStore store to keep sessions
+     */
+    public SessionRegistry(String appName, SessionStore sessionStore) {
+        this.appName = appName;
+        this.sessionStore = sessionStore;
+        this.permissionCacheStatistics = new PermissionCacheStatistics();
+        this.pendingTouches = ConcurrentHashMap.newKeySet();
+        this.closed = new AtomicBoolean(false);
+        // Tasks must not refer this registry, otherwise it will never be garbage collected.
+        Runnable touchTask = () -> flushTouches(sessionStore, pendingTouches);
+        this.touchTask = EXECUTOR.scheduleWithFixedDelay(touchTask, TOUCH_INTERVAL, TOUCH_INTERVAL,
+                                                         TimeUnit.MILLISECONDS);
+        Runnable expiryTask = () -> {
+            try {
+                sessionStore.removeExpired();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Cannot remove expired sessions of app '{}'.", appName, e);
             }
-            return cache;
-        } catch (IllegalStateException e) {
-            throw new UUFException("Cannot create cache '" + cacheName + "' for session management. Cache manager '" +
-                                           cacheManager.getURI() + "' is closed.", e);
-        } catch (CacheException e) {
-            throw new UUFException("Cannot create cache '" + cacheName + "' for session management.", e);
-        } catch (IllegalArgumentException e) {
-            throw new UUFException("Cannot create cache '" + cacheName +
-                                           "' for session management. Invalid cache configuration.", e);
-        } catch (UnsupportedOperationException e) {
-            throw new UUFException(
-                    "Cannot create cache '" + cacheName +
-                            "' for session management. Cache configuration specifies an unsupported feature.", e);
+        };
+        this.expiryTask = EXECUTOR.scheduleWithFixedDelay(expiryTask, 1, 1, TimeUnit.MINUTES);
+    }
+
+    public void addSession(Session session) {
+        session.clearModified();
+        sessionStore.put(session);
+    }
+
+    /**
+     * Stores the specified session again if it was modified after it was added or last updated, so that stores which
+     * keep copies of sessions (e.g. in a file or in other nodes) get the change.
+     *
+     * @param session     session which may have been modified while serving a request
+     * @param cookieValue current session cookie value of the session
+     * @return new session cookie value, or empty if the current value need not to be changed
+     */
+    public Optional<String> updateSession(Session session, String cookieValue) {
+        if (session.clearModified()) {
+            sessionStore.put(session);
         }
+        return Optional.empty();
     }
 
-    public SessionRegistry(String appName) {
-        MutableConfiguration<String, Session> cacheConfig = new MutableConfiguration<>();
-        cacheConfig.setTypes(String.class, Session.class);
-        cacheConfig.setStoreByValue(false);
-        // TODO: read session expire time from configurations
-        cacheConfig.setExpiryPolicyFactory(AccessedExpiryPolicy.factoryOf(Duration.TWENTY_MINUTES));
-        String cacheName = this.getClass().getName() + "-" + appName + "-sessions_cache";
-        cache = getCache(cacheName, cacheConfig);
+    /**
+     * Returns the value of the session cookie which identifies the specified session.
+     *
+     * @param session session
+     * @return session cookie value
+     */
+    public String getSessionCookieValue(Session session) {
+        return session.getSessionId();
     }
 
-    public void addSession(Session session) {
-        cache.put(session.getSessionId(), session);
+    /**
+     * Returns a new value for the specified session cookie if the cookie should be issued again to keep the session
+     * alive.
+     *
+     * @param cookieValue current session cookie value
+     * @return new session cookie value, or empty if the current value need not to be changed
+     */
+    public Optional<String> renewSessionCookieValue(String cookieValue) {
+        return Optional.empty();
     }
 
+    /**
+     * Returns the session identified by the specified session cookie value.
+     *
+     * @param sessionId session cookie value, i.e. the session ID
+     * @return session, or empty if there is no such session or the session has expired
+     */
     public Optional<Session> getSession(String sessionId) {
         if (!Session.isValidSessionId(sessionId)) {
             throw new IllegalArgumentException("Session ID '" + sessionId + "' is invalid.");
         }
-        return Optional.ofNullable(cache.get(sessionId));
+        Optional<Session> session = sessionStore.get(sessionId);
+        if (session.isPresent()) {
+            pendingTouches.add(sessionId);
+        }
+        return session;
     }
 
     public boolean removeSession(String sessionId) {
         if (!Session.isValidSessionId(sessionId)) {
             throw new IllegalArgumentException("Session ID '" + sessionId + "' is invalid.");
         }
-        return cache.remove(sessionId);
+        pendingTouches.remove(sessionId);
+        return sessionStore.remove(sessionId);
+    }
+
+    public boolean removeSession(Session session) {
+        return removeSession(session.getSessionId());
     }
 
     public void removeAllSessions() {
-        cache.clear();
+        pendingTouches.clear();
+        sessionStore.removeAll();
+    }
+
+    /**
+     * @return hit and miss counts of the permission decisions of the sessions of this registry
+     */
+    public PermissionCacheStatistics getPermissionCacheStatistics() {
+        return permissionCacheStatistics;
+    }
+
+    protected SessionStore getSessionStore() {
+        return sessionStore;
     }
 
     @Override
-    public void close() throws IOException {
-        if (!cache.isClosed()) {
-            cache.clear();
-            cache.close();
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
         }
+        touchTask.cancel(false);
+        expiryTask.cancel(false);
+        flushTouches(sessionStore, pendingTouches);
+        sessionStore.close();
+        LOGGER.debug("Session registry of app '{}' closed.", appName);
     }
 
     @Override
@@ -111,4 +195,20 @@ public class SessionRegistry implements Closeable {
         close();
         super.finalize();
     }
+
+    private static void flushTouches(SessionStore sessionStore, Set<String> pendingTouches) {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        Set<String> sessionIds = new HashSet<>();
+        for (Iterator<String> it = pendingTouches.iterator(); it.hasNext(); ) {
+            sessionIds.add(it.next());
+            it.remove();
+        }
+        try {
+            sessionStore.touch(sessionIds);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot update last accessed time of {} sessions.", sessionIds.size(), e);
+        }
+    }
 }
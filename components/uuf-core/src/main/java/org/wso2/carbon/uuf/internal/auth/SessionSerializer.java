@@ -0,0 +1,173 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Set;
+
+/**
+ * Serializes sessions for the stores which keep copies of sessions outside the heap, and users for session cookies.
+ * <p>
+ * Deserialization accepts only the classes of an allow-list, i.e. {@link Session}, implementations of {@link User},
+ * enums and common value and collection classes of the JDK which a user may hold. Other classes held by users can be
+ * allowed through the comma separated class names of the system property {@code uuf.session.allowedClasses}. Any
+ * other class in a serialized session is rejected before it is instantiated.
+ */
+class SessionSerializer {
+
+    private static final Set<String> ALLOWED_CLASS_NAMES = ImmutableSet.of(
+            Session.class.getName(), "java.lang.String", "java.lang.Boolean", "java.lang.Character",
+            "java.lang.Number", "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+            "java.lang.Float", "java.lang.Double", "java.lang.Enum", "java.util.Date", "java.util.Locale",
+            "java.util.UUID", "java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap",
+            "java.util.LinkedHashMap", "java.util.HashSet", "java.util.LinkedHashSet", "java.util.Arrays$ArrayList",
+            "java.util.Collections$EmptyList", "java.util.Collections$EmptySet", "java.util.Collections$EmptyMap",
+            "java.util.Collections$SingletonList", "java.util.Collections$SingletonSet",
+            "java.util.Collections$SingletonMap", "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableList", "java.util.Collections$UnmodifiableRandomAccessList",
+            "java.util.Collections$UnmodifiableSet", "java.util.Collections$UnmodifiableMap");
+    private static final Set<String> CONFIGURED_CLASS_NAMES = ImmutableSet.copyOf(
+            Splitter.on(',').trimResults().omitEmptyStrings()
+                    .split(System.getProperty("uuf.session.allowedClasses", "")));
+
+    private SessionSerializer() {
+    }
+
+    static byte[] serialize(Session session) {
+        try {
+            return serializeObject(session);
+        } catch (IOException e) {
+            throw new UUFException("Cannot serialize session '" + session.getSessionId() + "'.", e);
+        }
+    }
+
+    /**
+     * Deserializes a session. Classes of the session (e.g. the {@link org.wso2.carbon.uuf.spi.auth.User User}
+     * implementation) are loaded through the context class loader of the current thread when available.
+     *
+     * @param bytes  bytes which contain the serialized session
+     * @param offset offset of the serialized session in the bytes
+     * @param length length of the serialized session
+     * @return session
+     * @exception UUFException if the session cannot be deserialized
+     */
+    static Session deserialize(byte[] bytes, int offset, int length) {
+        try {
+            return (Session) deserializeObject(bytes, offset, length);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new UUFException("Cannot deserialize a session.", e);
+        }
+    }
+
+    static byte[] serializeUser(User user) {
+        try {
+            return serializeObject(user);
+        } catch (IOException e) {
+            throw new UUFException("Cannot serialize user '" + user.getUsername() + "'.", e);
+        }
+    }
+
+    /**
+     * Deserializes a user, with the same class restrictions as {@link #deserialize(byte[], int, int)}.
+     *
+     * @param bytes  bytes which contain the serialized user
+     * @param offset offset of the serialized user in the bytes
+     * @param length length of the serialized user
+     * @return user
+     * @exception UUFException if the user cannot be deserialized
+     */
+    static User deserializeUser(byte[] bytes, int offset, int length) {
+        try {
+            return (User) deserializeObject(bytes, offset, length);
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new UUFException("Cannot deserialize a user.", e);
+        }
+    }
+
+    private static byte[] serializeObject(Object obj) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(obj);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Object deserializeObject(byte[] bytes, int offset, int length)
+            throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new ContextObjectInputStream(
+                new ByteArrayInputStream(bytes, offset, length))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    private static class ContextObjectInputStream extends ObjectInputStream {
+
+        ContextObjectInputStream(InputStream inputStream) throws IOException {
+            super(inputStream);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            Class<?> clazz = null;
+            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            if (contextClassLoader != null) {
+                try {
+                    // Class is not initialized, hence no code of a rejected class runs.
+                    clazz = Class.forName(desc.getName(), false, contextClassLoader);
+                } catch (ClassNotFoundException e) {
+                    // Fall back to the default class resolution.
+                }
+            }
+            if (clazz == null) {
+                clazz = super.resolveClass(desc);
+            }
+            if (!isAllowed(clazz)) {
+                throw new InvalidClassException(desc.getName(), "Class is not allowed in a serialized session.");
+            }
+            return clazz;
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            throw new InvalidClassException("Proxy classes are not allowed in a serialized session.");
+        }
+
+        private static boolean isAllowed(Class<?> clazz) {
+            if (clazz.isArray()) {
+                return isAllowed(clazz.getComponentType());
+            }
+            return clazz.isPrimitive() || ALLOWED_CLASS_NAMES.contains(clazz.getName()) ||
+                    CONFIGURED_CLASS_NAMES.contains(clazz.getName()) || User.class.isAssignableFrom(clazz) ||
+                    Enum.class.isAssignableFrom(clazz);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.auth.SessionReplicationTransport;
+import org.wso2.carbon.uuf.spi.auth.SessionStore;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the session registry and the session store of an app according to the "{@code session}" section of the app
+ * configuration.
+ *
+ * @since 1.0.0
+ */
+public class SessionStoreFactory {
+
+    public static final String STORE_TYPE_MEMORY = "memory";
+    public static final String STORE_TYPE_FILE = "file";
+    public static final String STORE_TYPE_REPLICATED = "replicated";
+    public static final String STORE_TYPE_COOKIE = "cookie";
+    private static final String SESSIONS_DIR_NAME = "uuf-sessions";
+    private static final String SESSIONS_FILE_EXTENSION = ".sessions";
+    private static final String REPLICATION_CHANNEL_PREFIX = "uuf-sessions-";
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionStoreFactory.class);
+
+    private volatile SessionReplicationTransport replicationTransport;
+
+    public SessionStoreFactory() {
+        this(null);
+    }
+
+    /**
+     * Creates a new session store factory.
+     *
+     * @param replicationTransport transport for replicated session stores, may be {@code null}
+     */
+    public SessionStoreFactory(SessionReplicationTransport replicationTransport) {
+        this.replicationTransport = replicationTransport;
+    }
+
+    /**
+     * Sets the transport for the replicated session stores created from now on. Stores which are already created keep
+     * using their transport.
+     *
+     * @param replicationTransport transport for replicated session stores, may be {@code null}
+     */
+    public void setReplicationTransport(SessionReplicationTransport replicationTransport) {
+        this.replicationTransport = replicationTransport;
+    }
+
+    /**
+     * Creates a session registry for the specified app.
+     *
+     * @param appName       name of the app
+     * @param configuration configuration of the app
+     * @return session registry
+     * @exception UUFException if the configured store type is unknown or cannot be created
+     */
+    public SessionRegistry createSessionRegistry(String appName, Configuration configuration) {
+        if (!STORE_TYPE_COOKIE.equals(configuration.getSessionStoreType())) {
+            return new SessionRegistry(appName, createSessionStore(appName, configuration));
+        }
+
+        List<byte[]> keys = new ArrayList<>();
+        for (String key : configuration.getSessionCookieKeys()) {
+            try {
+                keys.add(Base64.getDecoder().decode(key));
+            } catch (IllegalArgumentException e) {
+                throw new UUFException("Session cookie keys configured for app '" + appName +
+                                               "' must be Base64 encoded.", e);
+            }
+        }
+        if (keys.isEmpty()) {
+            LOGGER.warn("No session cookie keys are configured for app '{}'. Hence a random key is used, and session " +
+                                "cookies will not be accepted by other nodes or after a restart.", appName);
+            keys.add(SessionCookieCodec.newKey());
+        }
+        SessionCookieCodec sessionCookieCodec;
+        try {
+            sessionCookieCodec = new SessionCookieCodec(appName, keys);
+        } catch (IllegalArgumentException e) {
+            throw new UUFException("Session cookie keys configured for app '" + appName + "' are invalid.", e);
+        }
+        return new SignedCookieSessionRegistry(appName, sessionCookieCodec,
+                                               TimeUnit.SECONDS.toMillis(configuration.getSessionTimeout()),
+                                               TimeUnit.SECONDS.toMillis(configuration.getSessionMaxLifetime()),
+                                               configuration.isSessionRevocationEnabled());
+    }
+
+    /**
+     * Creates a session store for the specified app.
+     *
+     * @param appName       name of the app
+     * @param configuration configuration of the app
+     * @return session store
+     * @exception UUFException if the configured store type is unknown or cannot be created
+     */
+    public SessionStore createSessionStore(String appName, Configuration configuration) {
+        long timeout = TimeUnit.SECONDS.toMillis(configuration.getSessionTimeout());
+        String storeType = configuration.getSessionStoreType();
+        switch (storeType) {
+            case STORE_TYPE_MEMORY:
+                return new InMemorySessionStore(timeout);
+            case STORE_TYPE_FILE:
+                return new FileSessionStore(getSessionsDirectory().resolve(appName + SESSIONS_FILE_EXTENSION),
+                                            timeout);
+            case STORE_TYPE_REPLICATED:
+                SessionReplicationTransport transport = replicationTransport;
+                if (transport == null) {
+                    throw new UUFException("Cannot create a replicated session store for app '" + appName +
+                                                   "' as there is no session replication transport available.");
+                }
+                return new ReplicatedSessionStore(REPLICATION_CHANNEL_PREFIX + appName, transport,
+                                                  getReplicationKey(appName, configuration), timeout);
+            default:
+                throw new UUFException("Session store type '" + storeType + "' configured for app '" + appName +
+                                               "' is unknown. Supported types are '" + STORE_TYPE_MEMORY + "', '" +
+                                               STORE_TYPE_FILE + "', '" + STORE_TYPE_REPLICATED + "' and '" +
+                                               STORE_TYPE_COOKIE + "'.");
+        }
+    }
+
+    private static byte[] getReplicationKey(String appName, Configuration configuration) {
+        String key = configuration.getSessionReplicationKey().orElseThrow(() -> new UUFException(
+                "A session replication key is not configured for app '" + appName + "'. A Base64 encoded key of at " +
+                        "least " + ReplicatedSessionStore.MIN_KEY_LENGTH + " bytes, shared by all the nodes, is " +
+                        "required to authenticate session replication messages."));
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(key);
+        } catch (IllegalArgumentException e) {
+            throw new UUFException("Session replication key configured for app '" + appName +
+                                           "' must be Base64 encoded.", e);
+        }
+        if (keyBytes.length < ReplicatedSessionStore.MIN_KEY_LENGTH) {
+            throw new UUFException("Session replication key configured for app '" + appName + "' must be at least " +
+                                           ReplicatedSessionStore.MIN_KEY_LENGTH + " bytes.");
+        }
+        return keyBytes;
+    }
+
+    private static Path getSessionsDirectory() {
+        // Sessions are kept in the server's own directory rather than in a shared temporary directory.
+        String parentDirectory = System.getProperty(
+                "uuf.sessions.dir", Paths.get(System.getProperty("carbon.home", "."), "data").toString());
+        return Paths.get(parentDirectory, SESSIONS_DIR_NAME);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.auth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.wso2.carbon.uuf.api.auth.Session;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A session registry which keeps sessions in encrypted and authenticated cookies instead of a server-side store, so
+ * that nodes need not share any state other than the cookie keys.
+ * <p>
+ * Decoded cookies are cached, hence a request with a known cookie is served without decrypting it. A cookie expires
+ * after the session timeout from the time it was issued, and is issued again once half of the timeout has elapsed.
+ * Regardless of renewals, a session expires once its maximum lifetime has elapsed since it was created, and its user
+ * has to log in again. A session which is modified while serving a request, e.g. by setting its theme, is encoded into
+ * a new cookie once the request is rendered.
+ * <p>
+ * Cached permission decisions of a session are not encoded into the cookie, as they would outgrow it and outlive
+ * changes of the permissions of the user. They are kept with the decoded session in the memory of each node instead.
+ * <p>
+ * Destroyed sessions are recorded in a revocation list until their cookies expire; without it a destroyed session is
+ * only removed from the client. The revocation list and the time before which sessions are removed by
+ * {@link #removeAllSessions()} are kept in the memory of this node only. Hence other nodes, or this node after a
+ * restart, accept a revoked cookie until it expires, and the maximum lifetime is the upper bound of that exposure.
+ *
+ * @since 1.0.0
+ */
+public class SignedCookieSessionRegistry extends SessionRegistry {
+
+    private static final long DECODED_SESSIONS_MAX_SIZE = 10000;
+
+    private final SessionCookieCodec sessionCookieCodec;
+    private final long timeout;
+    private final long maxLifetime;
+    private final boolean revocationEnabled;
+    private final Cache<String, SessionCookieCodec.DecodedSession> decodedSessions;
+    private final Cache<String, Boolean> revokedSessionIds;
+    private volatile long notCreatedBefore;
+
+    /**
+     * Creates a new signed cookie session registry.
+     *
+     * @param appName            name of the app
+     * @param sessionCookieCodec codec to encode sessions into cookies
+     * @param timeout            session timeout in milliseconds
+     * @param maxLifetime        maximum lifetime of a session in milliseconds, regardless of renewals
+     * @param revocationEnabled  whether destroyed sessions should be recorded until their cookies expire
+     */
+    public SignedCookieSessionRegistry(String appName, SessionCookieCodec sessionCookieCodec, long timeout,
+                                       long maxLifetime, boolean revocationEnabled) {
+        // Sessions are kept in cookies, hence the session store stays empty.
+        super(appName, new InMemorySessionStore(timeout));
+        this.sessionCookieCodec = sessionCookieCodec;
+        this.timeout = timeout;
+        this.maxLifetime = maxLifetime;
+        this.revocationEnabled = revocationEnabled;
+        this.decodedSessions = CacheBuilder.newBuilder()
+                .maximumSize(DECODED_SESSIONS_MAX_SIZE)
+                .expireAfterWrite(timeout, TimeUnit.MILLISECONDS)
+                .build();
+        // A revoked session is never issued again, hence its last cookie expires within the timeout.
+        this.revokedSessionIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeout, TimeUnit.MILLISECONDS)
+                .build();
+        this.notCreatedBefore = 0;
+    }
+
+    public SessionCookieCodec getSessionCookieCodec() {
+        return sessionCookieCodec;
+    }
+
+    @Override
+    public void addSession(Session session) {
+        // Session is stored in the cookie.
+    }
+
+    /**
+     * Encodes the specified session into a new cookie value if it was modified, as the session is stored in the cookie.
+     *
+     * @param session     session which may have been modified while serving a request
+     * @param cookieValue current session cookie value of the session
+     * @return new session cookie value, or empty if the session was not modified
+     */
+    @Override
+    public Optional<String> updateSession(Session session, String cookieValue) {
+        if (!session.clearModified()) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        // Created time is carried over, hence updates cannot extend the session beyond its maximum lifetime.
+        long createdTime = decode(cookieValue).map(SessionCookieCodec.DecodedSession::getCreatedTime).orElse(now);
+        return Optional.of(sessionCookieCodec.encode(session, createdTime, now));
+    }
+
+    @Override
+    public String getSessionCookieValue(Session session) {
+        return sessionCookieCodec.encode(session, System.currentTimeMillis());
+    }
+
+    @Override
+    public Optional<String> renewSessionCookieValue(String cookieValue) {
+        Optional<SessionCookieCodec.DecodedSession> decodedSession = decode(cookieValue);
+        if (!decodedSession.isPresent()) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if ((now - decodedSession.get().getIssuedTime()) < (timeout / 2)) {
+            return Optional.empty();
+        }
+        // Created time is carried over, hence renewals cannot extend the session beyond its maximum lifetime.
+        return Optional.of(sessionCookieCodec.encode(decodedSession.get().getSession(),
+                                                     decodedSession.get().getCreatedTime(), now));
+    }
+
+    @Override
+    public Optional<Session> getSession(String cookieValue) {
+        return decode(cookieValue).map(SessionCookieCodec.DecodedSession::getSession);
+    }
+
+    /**
+     * Revokes the session of the specified ID, so that its cookies are rejected by this node until they expire.
+     *
+     * @param sessionId ID of the session to revoke
+     * @return {@code true} if the session was revoked, {@code false} if revocation is disabled
+     * @exception IllegalArgumentException if the session ID is invalid
+     */
+    @Override
+    public boolean removeSession(String sessionId) {
+        if (!Session.isValidSessionId(sessionId)) {
+            throw new IllegalArgumentException("Session ID '" + sessionId + "' is invalid.");
+        }
+        if (!revocationEnabled) {
+            return false;
+        }
+        revokedSessionIds.put(sessionId, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void removeAllSessions() {
+        notCreatedBefore = System.currentTimeMillis();
+        decodedSessions.invalidateAll();
+        revokedSessionIds.invalidateAll();
+    }
+
+    @Override
+    public void close() {
+        decodedSessions.invalidateAll();
+        revokedSessionIds.invalidateAll();
+        super.close();
+    }
+
+    private Optional<SessionCookieCodec.DecodedSession> decode(String cookieValue) {
+        SessionCookieCodec.DecodedSession decodedSession = decodedSessions.getIfPresent(cookieValue);
+        if (decodedSession == null) {
+            Optional<SessionCookieCodec.DecodedSession> decoded = sessionCookieCodec.decode(cookieValue);
+            if (!decoded.isPresent()) {
+                return Optional.empty();
+            }
+            decodedSession = decoded.get();
+            decodedSessions.put(cookieValue, decodedSession);
+        }
+
+        long now = System.currentTimeMillis();
+        long createdTime = decodedSession.getCreatedTime();
+        if (((now - decodedSession.getIssuedTime()) > timeout) || ((now - createdTime) > maxLifetime) ||
+                (createdTime < notCreatedBefore)) {
+            decodedSessions.invalidate(cookieValue);
+            return Optional.empty();
+        }
+        if (revocationEnabled &&
+                (revokedSessionIds.getIfPresent(decodedSession.getSession().getSessionId()) != null)) {
+            return Optional.empty();
+        }
+        return Optional.of(decodedSession);
+    }
+}
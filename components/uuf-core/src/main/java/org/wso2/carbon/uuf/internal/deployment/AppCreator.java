@@ -22,6 +22,8 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.SetMultimap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.uuf.api.Placeholder;
 import org.wso2.carbon.uuf.api.config.ComponentManifest;
 import org.wso2.carbon.uuf.api.config.Configuration;
@@ -34,6 +36,7 @@ import org.wso2.carbon.uuf.api.reference.LayoutReference;
 import org.wso2.carbon.uuf.api.reference.PageReference;
 import org.wso2.carbon.uuf.api.reference.ThemeReference;
 import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.AssetManifest;
 import org.wso2.carbon.uuf.core.Component;
 import org.wso2.carbon.uuf.core.Fragment;
 import org.wso2.carbon.uuf.core.Layout;
@@ -44,34 +47,56 @@ import org.wso2.carbon.uuf.core.UriPatten;
 import org.wso2.carbon.uuf.exception.InvalidTypeException;
 import org.wso2.carbon.uuf.exception.MalformedConfigurationException;
 import org.wso2.carbon.uuf.exception.UUFException;
-import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.internal.UUFServer;
+import org.wso2.carbon.uuf.internal.auth.SessionStoreFactory;
 import org.wso2.carbon.uuf.internal.deployment.parser.ComponentManifestParser;
 import org.wso2.carbon.uuf.internal.deployment.parser.ConfigurationParser;
 import org.wso2.carbon.uuf.internal.deployment.parser.DependencyTreeParser;
+import org.wso2.carbon.uuf.internal.io.StaticResourceTable;
+import org.wso2.carbon.uuf.internal.io.util.AssetFingerprinter;
 import org.wso2.carbon.uuf.internal.util.NameUtils;
 import org.wso2.carbon.uuf.spi.RenderableCreator;
+import org.wso2.carbon.uuf.spi.RenderableCreator.RenderableReferences;
 import org.yaml.snakeyaml.Yaml;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.wso2.carbon.uuf.internal.util.NameUtils.getFullyQualifiedName;
 
 public class AppCreator {
 
+    private static final int CREATION_THREADS = Integer.getInteger("uuf.deployment.creatorThreads",
+                                                                   Runtime.getRuntime().availableProcessors());
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppCreator.class);
+
     private final Map<String, RenderableCreator> renderableCreators;
     private final Set<String> supportedExtensions;
     private final ClassLoaderProvider classLoaderProvider;
+    private final SessionStoreFactory sessionStoreFactory;
 
     public AppCreator(Set<RenderableCreator> renderableCreators, ClassLoaderProvider classLoaderProvider) {
+        this(renderableCreators, classLoaderProvider, new SessionStoreFactory());
+    }
+
+    public AppCreator(Set<RenderableCreator> renderableCreators, ClassLoaderProvider classLoaderProvider,
+                      SessionStoreFactory sessionStoreFactory) {
         this.renderableCreators = new HashMap<>();
         this.supportedExtensions = new HashSet<>();
         for (RenderableCreator renderableCreator : renderableCreators) {
@@ -81,6 +106,7 @@ public class AppCreator {
             supportedExtensions.addAll(renderableCreator.getSupportedFileExtensions());
         }
         this.classLoaderProvider = classLoaderProvider;
+        this.sessionStoreFactory = sessionStoreFactory;
     }
 
     public App createApp(AppReference appReference, String contextPath) {
@@ -91,31 +117,50 @@ public class AppCreator {
         // Create Lookup.
         final Lookup lookup = new Lookup(getFlattenedDependencies(rootNode), new Configuration(rawConfiguration));
 
-        // Created Components.
-        final Map<String, Component> createdComponents = new HashMap<>();
-        rootNode.traverse(dependencyNode -> {
-            if (createdComponents.containsKey(dependencyNode.getArtifactId())) {
-                return; // Component for this dependency node is already created.
+        // Components in dependency order, i.e. dependencies before dependents.
+        final Map<String, DependencyNode> componentNodes = new LinkedHashMap<>();
+        rootNode.traverse(dependencyNode -> componentNodes.putIfAbsent(dependencyNode.getArtifactId(), dependencyNode));
+        /* Renderables of a component do not depend on other components. Hence renderables of all the components are
+        created concurrently in a dedicated executor, and then added to the Lookup in dependency order. */
+        ExecutorService executor = createExecutor();
+        List<ComponentRenderables> componentsRenderables = new ArrayList<>(componentNodes.size());
+        List<Component> components = new ArrayList<>(componentNodes.size());
+        // References of the layouts and fragments added to the Lookup, keyed by their fully qualified names.
+        Map<String, RenderableReferences> references = new HashMap<>();
+        try {
+            for (DependencyNode dependencyNode : componentNodes.values()) {
+                componentsRenderables.add(createComponentRenderables(dependencyNode, (dependencyNode == rootNode),
+                                                                     appReference, executor));
             }
-
-            String componentName = dependencyNode.getArtifactId();
-            String componentVersion = dependencyNode.getVersion();
-            String componentContextPath = (dependencyNode == rootNode) ? Component.ROOT_COMPONENT_CONTEXT_PATH :
-                    dependencyNode.getContextPath();
-            ComponentReference componentReference = appReference.getComponentReference(componentContextPath);
-            ClassLoader classLoader = classLoaderProvider.getClassLoader(componentName, componentVersion,
-                                                                         componentReference);
-            Component component = createComponent(componentName, componentVersion, componentContextPath,
-                                                  componentReference, classLoader, lookup);
-            lookup.add(component);
-            createdComponents.put(componentName, component);
-        });
+            for (ComponentRenderables componentRenderables : componentsRenderables) {
+                Component component = createComponent(componentRenderables, lookup, references);
+                lookup.add(component);
+                components.add(component);
+            }
+        } catch (RuntimeException | Error e) {
+            // App cannot be created anymore, hence stop creating the remaining renderables.
+            componentsRenderables.forEach(ComponentRenderables::cancel);
+            executor.shutdownNow();
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
         // Create Themes.
         Set<Theme> themes = appReference.getThemeReferences().map(this::createTheme).collect(Collectors.toSet());
+        /* Map and fingerprint static resources. In dev mode resources can be modified after deploying, hence they are
+        resolved on every request and not fingerprinted. */
+        StaticResourceTable staticResourceTable = null;
+        AssetManifest assetManifest = AssetManifest.EMPTY;
+        if (!UUFServer.isDevModeEnabled()) {
+            staticResourceTable = new StaticResourceTable(components, themes);
+            assetManifest = AssetFingerprinter.createManifest(staticResourceTable);
+        }
         // Create App.
         String appName = rootNode.getArtifactId();
         String appContextPath = (contextPath == null) ? rootNode.getContextPath() : contextPath;
-        return new App(appName, appContextPath, lookup, themes, new SessionRegistry(appName));
+        return new App(appName, appContextPath, lookup, themes,
+                       sessionStoreFactory.createSessionRegistry(appName, lookup.getConfiguration()), assetManifest,
+                       staticResourceTable);
     }
 
     private SetMultimap<String, String> getFlattenedDependencies(DependencyNode rootNode) {
@@ -128,47 +173,130 @@ public class AppCreator {
         return flattenedDependencies;
     }
 
-    private Component createComponent(String componentName, String componentVersion, String componentContextPath,
-                                      ComponentReference componentReference, ClassLoader classLoader,
-                                      Lookup lookup) {
+    /**
+     * Creates the executor in which renderables of an app are created. Apps are deployed in their own threads (see
+     * {@link UUFServer}) which wait for these renderables, hence renderables are not created in the deployment threads.
+     *
+     * @return executor for creating renderables of an app
+     */
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, CREATION_THREADS), runnable -> {
+            Thread thread = new Thread(runnable, "UUFAppCreator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts creating renderables of the specified component in the specified executor.
+     *
+     * @return renderables of the component, which are being created
+     */
+    private ComponentRenderables createComponentRenderables(DependencyNode dependencyNode, boolean isRootComponent,
+                                                            AppReference appReference, Executor executor) {
+        String componentName = dependencyNode.getArtifactId();
+        String componentVersion = dependencyNode.getVersion();
+        String componentContextPath = isRootComponent ? Component.ROOT_COMPONENT_CONTEXT_PATH :
+                dependencyNode.getContextPath();
+        ComponentReference componentReference = appReference.getComponentReference(componentContextPath);
+        ComponentRenderables renderables = new ComponentRenderables(componentName, componentVersion,
+                                                                    componentContextPath, componentReference);
+
+        CompletableFuture<ClassLoader> classLoader = CompletableFuture.supplyAsync(
+                () -> classLoaderProvider.getClassLoader(componentName, componentVersion, componentReference),
+                executor);
+        renderables.classLoader = classLoader;
         componentReference.getLayouts(supportedExtensions)
-                .map(layoutReference -> createLayout(layoutReference, componentName))
-                .forEach(lookup::add);
+                .map(layoutReference -> CompletableFuture.supplyAsync(
+                        () -> createLayout(layoutReference, componentName, renderables.references), executor))
+                .forEach(renderables.layouts::add);
         componentReference.getFragments(supportedExtensions)
-                .map((fragmentReference) -> createFragment(fragmentReference, componentName, classLoader))
-                .forEach(lookup::add);
+                .map(fragmentReference -> classLoader.thenApplyAsync(
+                        cl -> createFragment(fragmentReference, componentName, cl, renderables.references),
+                        executor))
+                .forEach(renderables.fragments::add);
+        renderables.manifest = CompletableFuture.supplyAsync(
+                () -> componentReference.getManifest().map(ComponentManifestParser::parse), executor);
+        componentReference.getPages(supportedExtensions)
+                .forEach(pageReference -> renderables.pages.put(pageReference, classLoader.thenApplyAsync(
+                        cl -> getRenderableCreator(pageReference.getRenderingFile())
+                                .createPageRenderable(pageReference, cl), executor)));
+        return renderables;
+    }
 
-        componentReference.getManifest().ifPresent(componentManifestFile -> {
-            ComponentManifest componentManifest = ComponentManifestParser.parse(componentManifestFile);
+    private Component createComponent(ComponentRenderables renderables, Lookup lookup,
+                                      Map<String, RenderableReferences> references) {
+        String componentName = renderables.componentName;
+        List<Layout> layouts = renderables.layouts.stream().map(AppCreator::join).collect(Collectors.toList());
+        layouts.forEach(lookup::add);
+        List<Fragment> fragments = renderables.fragments.stream().map(AppCreator::join).collect(Collectors.toList());
+        fragments.forEach(lookup::add);
+        references.putAll(renderables.references);
+        // Fragments can refer to each other, hence references are validated once all of them are added.
+        for (Layout layout : layouts) {
+            validateReferences(references.get(layout.getName()), "layout '" + layout.getName() + "'", componentName,
+                               lookup);
+        }
+        for (Fragment fragment : fragments) {
+            validateReferences(references.get(fragment.getName()), "fragment '" + fragment.getName() + "'",
+                               componentName, lookup);
+        }
+
+        join(renderables.manifest).ifPresent(componentManifest -> {
             addBindings(componentManifest.getBindings(), lookup, componentName);
             // TODO: Register APIs
         });
 
+        ComponentReference componentReference = renderables.componentReference;
         if (!componentReference.getI18nFiles().isEmpty()) {
             lookup.add(componentReference.getI18nFiles());
         }
 
-        SortedSet<Page> pages = componentReference.getPages(supportedExtensions)
-                .map(pageReference -> createPage(pageReference, componentName, lookup, classLoader))
-                .collect(Collectors.toCollection(TreeSet::new));
+        SortedSet<Page> pages = new TreeSet<>();
+        renderables.pages.forEach((pageReference, prd) -> pages.add(
+                createPage(pageReference, join(prd), componentName, renderables.componentContextPath, lookup,
+                           references)));
 
-        return new Component(componentName, componentVersion, componentContextPath, pages,
+        return new Component(componentName, renderables.componentVersion, renderables.componentContextPath, pages,
                              componentReference.getPath());
     }
 
-    private Layout createLayout(LayoutReference layoutReference, String componentName) {
+    /**
+     * Waits for the specified future and rethrows the exception it completed with, if any.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private Layout createLayout(LayoutReference layoutReference, String componentName,
+                                Map<String, RenderableReferences> references) {
         RenderableCreator renderableCreator = getRenderableCreator(layoutReference.getRenderingFile());
         RenderableCreator.LayoutRenderableData lrd = renderableCreator.createLayoutRenderable(layoutReference);
-        return new Layout(getFullyQualifiedName(componentName, layoutReference.getName()), lrd.getRenderable());
+        String layoutName = getFullyQualifiedName(componentName, layoutReference.getName());
+        references.put(layoutName, lrd.getReferences());
+        return new Layout(layoutName, lrd.getRenderable());
     }
 
     private Fragment createFragment(FragmentReference fragmentReference, String componentName,
-                                    ClassLoader classLoader) {
+                                    ClassLoader classLoader, Map<String, RenderableReferences> references) {
         RenderableCreator renderableCreator = getRenderableCreator(fragmentReference.getRenderingFile());
         RenderableCreator.FragmentRenderableData frd = renderableCreator.createFragmentRenderable(fragmentReference,
                                                                                                   classLoader);
         String fragmentName = getFullyQualifiedName(componentName, fragmentReference.getName());
-        return new Fragment(fragmentName, frd.getRenderable(), frd.isSecured());
+        references.put(fragmentName, frd.getReferences());
+        return new Fragment(fragmentName, frd.getRenderable(), frd.isSecured(), frd.getCacheKeyParams().orElse(null),
+                            frd.isIndependent(), frd.getRenderTimeout());
     }
 
     private void addBindings(List<ComponentManifest.Binding> bindings, Lookup lookup, String componentName) {
@@ -192,28 +320,112 @@ public class AppCreator {
         }
     }
 
-    private Page createPage(PageReference pageReference, String componentName, Lookup lookup, ClassLoader classLoader) {
-        RenderableCreator renderableCreator = getRenderableCreator(pageReference.getRenderingFile());
-        RenderableCreator.PageRenderableData prd = renderableCreator.createPageRenderable(pageReference, classLoader);
+    private Page createPage(PageReference pageReference, RenderableCreator.PageRenderableData prd,
+                            String componentName, String componentContextPath, Lookup lookup,
+                            Map<String, RenderableReferences> references) {
+        String pagePath = pageReference.getRenderingFile().getRelativePath();
+        validateReferences(prd.getReferences(), "page '" + pagePath + "'", componentName, lookup);
         UriPatten uriPatten = new UriPatten(pageReference.getPathPattern());
+        Set<String> cacheKeyQueryParams = getCacheKeyQueryParams(pageReference, componentContextPath, prd,
+                                                                 lookup.getConfiguration());
+        Layout layout = null;
         if (prd.getLayoutName().isPresent()) {
             // This page has a layout.
             String layoutName = prd.getLayoutName().get();
-            Optional<Layout> layout = lookup.getLayoutIn(componentName, layoutName);
-            if (layout.isPresent()) {
-                return new Page(uriPatten, prd.getRenderable(), prd.isSecured(), layout.get());
-            } else {
-                throw new IllegalArgumentException("Layout '" + layoutName + "' mentioned in page '" +
-                                                           pageReference.getRenderingFile().getRelativePath() +
-                                                           "' does not exists in component '" + componentName +
+            layout = lookup.getLayoutIn(componentName, layoutName).orElseThrow(() -> new IllegalArgumentException(
+                    "Layout '" + layoutName + "' mentioned in page '" + pagePath + "' does not exists in component '" +
+                            componentName + "' or its dependencies."));
+        }
+
+        if ((cacheKeyQueryParams != null) && isSessionDependent(prd, componentName, layout, lookup, references)) {
+            // Outputs which depend on the session are never cached, hence do not spend on trying to cache them.
+            LOGGER.warn("Page '{}' is cacheable, but it is secured or always includes a secured fragment. Hence its " +
+                                "output depends on the user session and will not be cached.", pagePath);
+            cacheKeyQueryParams = null;
+        }
+        return new Page(uriPatten, prd.getRenderable(), prd.isSecured(), layout, cacheKeyQueryParams);
+    }
+
+    /**
+     * Validates that the fragments referred in a renderable exist.
+     *
+     * @param references    references of the renderable
+     * @param renderable    description of the renderable for error messages
+     * @param componentName name of the component of the renderable
+     * @param lookup        lookup
+     * @exception IllegalArgumentException if a referred fragment does not exist
+     */
+    private void validateReferences(RenderableReferences references, String renderable, String componentName,
+                                    Lookup lookup) {
+        for (String fragmentName : references.getFragments()) {
+            if (!lookup.getFragmentIn(componentName, fragmentName).isPresent()) {
+                throw new IllegalArgumentException("Fragment '" + fragmentName + "' mentioned in " + renderable +
+                                                           " does not exists in component '" + componentName +
                                                            "' or its dependencies.");
             }
-        } else {
-            // This page does not have a layout.
-            return new Page(uriPatten, prd.getRenderable(), prd.isSecured());
         }
     }
 
+    /**
+     * Checks whether every render of the specified page accesses the user session, i.e. the page is secured or it
+     * (or its layout) always includes a secured fragment directly or through other fragments.
+     */
+    private boolean isSessionDependent(RenderableCreator.PageRenderableData prd, String componentName, Layout layout,
+                                       Lookup lookup, Map<String, RenderableReferences> references) {
+        if (prd.isSecured()) {
+            return true;
+        }
+        Set<String> visitedFragments = new HashSet<>();
+        if (includesSecuredFragment(prd.getReferences(), componentName, lookup, references, visitedFragments)) {
+            return true;
+        }
+        return (layout != null) &&
+                includesSecuredFragment(references.getOrDefault(layout.getName(), RenderableReferences.EMPTY),
+                                        NameUtils.getComponentName(layout.getName()), lookup, references,
+                                        visitedFragments);
+    }
+
+    private boolean includesSecuredFragment(RenderableReferences renderableReferences, String componentName,
+                                            Lookup lookup, Map<String, RenderableReferences> references,
+                                            Set<String> visitedFragments) {
+        for (String fragmentName : renderableReferences.getUnconditionalFragments()) {
+            Optional<Fragment> fragment = lookup.getFragmentIn(componentName, fragmentName);
+            if (!fragment.isPresent() || !visitedFragments.add(fragment.get().getName())) {
+                continue;
+            }
+            if (fragment.get().isSecured() ||
+                    includesSecuredFragment(references.getOrDefault(fragment.get().getName(),
+                                                                    RenderableReferences.EMPTY),
+                                            NameUtils.getComponentName(fragment.get().getName()), lookup, references,
+                                            visitedFragments)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cache key query parameters of the page. Caching declared in the app configuration overrides caching
+     * declared in the page itself.
+     *
+     * @return names of the query parameters which vary the output of the page, or {@code null} if the page is not
+     * cacheable
+     */
+    private Set<String> getCacheKeyQueryParams(PageReference pageReference, String componentContextPath,
+                                               RenderableCreator.PageRenderableData prd,
+                                               Configuration configuration) {
+        String pageUri = pageReference.getPathPattern();
+        if (!Component.ROOT_COMPONENT_CONTEXT_PATH.equals(componentContextPath)) {
+            // Pages of other components are served under their component context paths.
+            pageUri = componentContextPath + pageUri;
+        }
+        List<String> configuredQueryParams = configuration.getCachedPages().get(pageUri);
+        if (configuredQueryParams != null) {
+            return new HashSet<>(configuredQueryParams);
+        }
+        return prd.getCacheKeyQueryParams().orElse(null);
+    }
+
     private RenderableCreator getRenderableCreator(FileReference fileReference) {
         RenderableCreator renderableCreator = renderableCreators.get(fileReference.getExtension());
         if (renderableCreator == null) {
@@ -272,4 +484,45 @@ public class AppCreator {
                          config.get(Placeholder.headJs.name()), config.get(Placeholder.js.name()),
                          themeReference.getPath());
     }
+
+    private static class ComponentRenderables {
+
+        private final String componentName;
+        private final String componentVersion;
+        private final String componentContextPath;
+        private final ComponentReference componentReference;
+        private final List<CompletableFuture<Layout>> layouts;
+        private final List<CompletableFuture<Fragment>> fragments;
+        private final Map<PageReference, CompletableFuture<RenderableCreator.PageRenderableData>> pages;
+        private final Map<String, RenderableReferences> references;
+        private CompletableFuture<ClassLoader> classLoader;
+        private CompletableFuture<Optional<ComponentManifest>> manifest;
+
+        public ComponentRenderables(String componentName, String componentVersion, String componentContextPath,
+                                    ComponentReference componentReference) {
+            this.componentName = componentName;
+            this.componentVersion = componentVersion;
+            this.componentContextPath = componentContextPath;
+            this.componentReference = componentReference;
+            this.layouts = new ArrayList<>();
+            this.fragments = new ArrayList<>();
+            this.pages = new LinkedHashMap<>();
+            this.references = new ConcurrentHashMap<>();
+        }
+
+        /**
+         * Cancels creating renderables of this component that are not created yet.
+         */
+        private void cancel() {
+            if (classLoader != null) {
+                classLoader.cancel(false);
+            }
+            layouts.forEach(layout -> layout.cancel(false));
+            fragments.forEach(fragment -> fragment.cancel(false));
+            if (manifest != null) {
+                manifest.cancel(false);
+            }
+            pages.values().forEach(page -> page.cancel(false));
+        }
+    }
 }
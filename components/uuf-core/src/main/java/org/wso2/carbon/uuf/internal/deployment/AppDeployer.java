@@ -20,7 +20,10 @@ package org.wso2.carbon.uuf.internal.deployment;
 
 import org.wso2.carbon.uuf.core.App;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * A deployer for UUF apps.
@@ -36,6 +39,14 @@ public interface AppDeployer {
      */
     Set<String> deploy();
 
+    /**
+     * Deploys all the available apps in parallel using the specified executor.
+     *
+     * @param executor executor to create apps
+     * @return deployments of the apps keyed by context path, each completes when the app is ready to serve requests
+     */
+    Map<String, CompletableFuture<App>> deploy(Executor executor);
+
     /**
      * Returns the deployed app corresponds for the specified context path.
      *
@@ -25,6 +25,7 @@ import org.wso2.carbon.uuf.core.App;
 import org.wso2.carbon.uuf.exception.FileOperationException;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.internal.UUFServer;
+import org.wso2.carbon.uuf.internal.auth.SessionStoreFactory;
 import org.wso2.carbon.uuf.internal.deployment.AppCreator;
 import org.wso2.carbon.uuf.internal.deployment.AppDeployer;
 import org.wso2.carbon.uuf.internal.deployment.ClassLoaderProvider;
@@ -37,9 +38,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 
 /**
@@ -53,7 +58,6 @@ public class ArtifactAppDeployer implements AppDeployer {
     private final AppCreator appCreator;
     private final ConcurrentMap<String, App> deployedApps;
     private final ConcurrentMap<String, AppArtifact> pendingToDeployArtifacts;
-    private final Object lock;
 
     public ArtifactAppDeployer(Set<RenderableCreator> renderableCreators) {
         this(Paths.get(System.getProperty("carbon.home", "."), "deployment", "uufapps").toString(), renderableCreators);
@@ -65,7 +69,23 @@ public class ArtifactAppDeployer implements AppDeployer {
 
     public ArtifactAppDeployer(String appsRepositoryPath, Set<RenderableCreator> renderableCreators,
                                ClassLoaderProvider classLoaderProvider) {
-        this(Paths.get(appsRepositoryPath), new AppCreator(renderableCreators, classLoaderProvider));
+        this(appsRepositoryPath, renderableCreators, classLoaderProvider, new SessionStoreFactory());
+    }
+
+    public ArtifactAppDeployer(Set<RenderableCreator> renderableCreators, SessionStoreFactory sessionStoreFactory) {
+        this(Paths.get(System.getProperty("carbon.home", "."), "deployment", "uufapps").toString(), renderableCreators,
+             new BundleClassLoaderProvider(), sessionStoreFactory);
+    }
+
+    public ArtifactAppDeployer(String appsRepositoryPath, Set<RenderableCreator> renderableCreators,
+                               SessionStoreFactory sessionStoreFactory) {
+        this(appsRepositoryPath, renderableCreators, new BundleClassLoaderProvider(), sessionStoreFactory);
+    }
+
+    public ArtifactAppDeployer(String appsRepositoryPath, Set<RenderableCreator> renderableCreators,
+                               ClassLoaderProvider classLoaderProvider, SessionStoreFactory sessionStoreFactory) {
+        this(Paths.get(appsRepositoryPath), new AppCreator(renderableCreators, classLoaderProvider,
+                                                           sessionStoreFactory));
     }
 
     public ArtifactAppDeployer(Path appsRepository, AppCreator appCreator) {
@@ -73,11 +93,25 @@ public class ArtifactAppDeployer implements AppDeployer {
         this.appCreator = appCreator;
         this.deployedApps = new ConcurrentHashMap<>();
         this.pendingToDeployArtifacts = new ConcurrentHashMap<>();
-        this.lock = new Object();
     }
 
     @Override
     public Set<String> deploy() {
+        addPendingToDeployArtifacts();
+        return Collections.unmodifiableSet(pendingToDeployArtifacts.keySet());
+    }
+
+    @Override
+    public Map<String, CompletableFuture<App>> deploy(Executor executor) {
+        addPendingToDeployArtifacts();
+        Map<String, CompletableFuture<App>> deployments = new HashMap<>();
+        for (String contextPath : pendingToDeployArtifacts.keySet()) {
+            deployments.put(contextPath, CompletableFuture.supplyAsync(() -> deployApp(contextPath), executor));
+        }
+        return Collections.unmodifiableMap(deployments);
+    }
+
+    private void addPendingToDeployArtifacts() {
         Stream<Path> contents;
         try {
             contents = Files.list(appsRepository);
@@ -92,7 +126,6 @@ public class ArtifactAppDeployer implements AppDeployer {
                                                  new AppArtifact(appNameContextPath.getLeft(), appPath));
                     LOGGER.debug("UUF app '{}' added to the pending deployments list.", appNameContextPath.getLeft());
                 });
-        return Collections.unmodifiableSet(pendingToDeployArtifacts.keySet());
     }
 
     @Override
@@ -123,15 +156,26 @@ public class ArtifactAppDeployer implements AppDeployer {
     }
 
     private App deployApp(String contextPath) {
+        AppArtifact appArtifact = pendingToDeployArtifacts.get(contextPath);
+        if (appArtifact == null) {
+            return deployedApps.get(contextPath);
+        }
         App createdApp;
-        synchronized (lock) {
-            AppArtifact appArtifact = pendingToDeployArtifacts.remove(contextPath);
-            if (appArtifact == null) {
+        // Each app has its own lock, so deploying one app does not block requests to other apps.
+        synchronized (appArtifact) {
+            App deployedApp = deployedApps.get(contextPath);
+            if (deployedApp != null) {
                 // App is deployed before acquiring the lock.
-                return deployedApps.get(contextPath);
+                pendingToDeployArtifacts.remove(contextPath, appArtifact);
+                return deployedApp;
+            }
+            if (!pendingToDeployArtifacts.containsKey(contextPath)) {
+                // App is failed to deploy before acquiring the lock.
+                return null;
             }
             if (!Files.exists(appArtifact.appPath)) {
                 // Somehow artifact has been removed/deleted. So we cannot create an app from it.
+                pendingToDeployArtifacts.remove(contextPath, appArtifact);
                 LOGGER.warn("Cannot deploy UUF app in '{}' as it does not exists anymore.", appArtifact.appPath);
                 return null;
             }
@@ -139,15 +183,17 @@ public class ArtifactAppDeployer implements AppDeployer {
                 createdApp = createApp(appArtifact.appName, contextPath, appArtifact.appPath);
             } catch (Exception e) {
                 // catching any/all exception/s
-                if (UUFServer.isDevModeEnabled()) {
-                    /* If the server is in the developer mode, add the artifact back to the 'pendingToDeployArtifacts'
-                    map so the developer can correct the error and attempt to re-deploy the artifact. */
-                    pendingToDeployArtifacts.put(contextPath, appArtifact);
+                if (!UUFServer.isDevModeEnabled()) {
+                    /* If the server is in the developer mode, keep the artifact in the 'pendingToDeployArtifacts' map
+                    so the developer can correct the error and attempt to re-deploy the artifact. */
+                    pendingToDeployArtifacts.remove(contextPath, appArtifact);
                 }
                 throw new UUFException("An error occurred while deploying UUF app in '" + appArtifact.appPath + "'.",
                                        e);
             }
+            // Add to the deployed apps before removing from the pending apps, so that the app is always findable.
             deployedApps.put(createdApp.getContextPath(), createdApp);
+            pendingToDeployArtifacts.remove(contextPath, appArtifact);
         }
         LOGGER.info("UUF app '{}' deployed for context path '{}'.", createdApp.getName(), createdApp.getContextPath());
         return createdApp;
@@ -69,11 +69,13 @@ public class BundleClassLoaderProvider implements ClassLoaderProvider {
 
     /**
      * If no bundle exists for provided component reference, It create and returns a new OSGi bundle. Or else it will
-     * return the existing bundle. Created bundle is reusable across multiple UUF Apps.
+     * return the existing bundle. Created bundle is reusable across multiple UUF Apps. This method is synchronized as
+     * apps can be deployed in parallel.
      *
      * @return created OSGi bundle
      */
-    private Bundle getBundle(String componentName, String componentVersion, ComponentReference componentReference) {
+    private synchronized Bundle getBundle(String componentName, String componentVersion,
+                                          ComponentReference componentReference) {
         BundleContext bundleContext = FrameworkUtil.getBundle(this.getClass()).getBundleContext();
         Bundle bundle = bundleContext.getBundle(componentName);
         if (bundle != null) {
@@ -27,78 +27,97 @@ import org.wso2.carbon.uuf.core.Theme;
 import org.wso2.carbon.uuf.exception.FileOperationException;
 import org.wso2.carbon.uuf.exception.ResourceNotFoundException;
 import org.wso2.carbon.uuf.internal.UUFServer;
+import org.wso2.carbon.uuf.internal.io.util.AssetFingerprinter;
 import org.wso2.carbon.uuf.internal.io.util.MimeMapper;
+import org.wso2.carbon.uuf.spi.ByteRange;
 import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.HttpResponse;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.time.Duration;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.AbstractMap;
-import java.util.Collections;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.wso2.carbon.uuf.api.reference.ComponentReference.DIR_NAME_FRAGMENTS;
+import static org.wso2.carbon.uuf.internal.util.UriUtils.BUNDLES_URI_PREFIX;
+import static org.wso2.carbon.uuf.internal.util.UriUtils.COMPONENT_STATIC_RESOURCES_URI_PREFIX;
+import static org.wso2.carbon.uuf.internal.util.UriUtils.THEMES_STATIC_RESOURCES_URI_PREFIX;
 import static org.wso2.carbon.uuf.spi.HttpResponse.CONTENT_TYPE_IMAGE_PNG;
 import static org.wso2.carbon.uuf.spi.HttpResponse.CONTENT_TYPE_WILDCARD;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_ACCEPT_RANGES;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_CACHE_CONTROL;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_CONTENT_ENCODING;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_CONTENT_RANGE;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_ETAG;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_LAST_MODIFIED;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_VARY;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_BAD_REQUEST;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_INTERNAL_SERVER_ERROR;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_NOT_FOUND;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_NOT_MODIFIED;
 import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_OK;
+import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_PARTIAL_CONTENT;
+import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_RANGE_NOT_SATISFIABLE;
 
 public class StaticResolver {
 
     public static final String DIR_NAME_COMPONENT_RESOURCES = "base";
     public static final String DIR_NAME_PUBLIC_RESOURCES = "public";
     private static final DateTimeFormatter HTTP_DATE_FORMATTER;
-    private static final ZoneId GMT_TIME_ZONE;
     private static final Logger LOGGER = LoggerFactory.getLogger(StaticResolver.class);
 
-    private final Map<Path, ZonedDateTime> resourcesLastModifiedDates;
+    private static final long CACHE_MAX_SIZE = Long.getLong("uuf.staticResources.cache.maxSize", 64L * 1024 * 1024);
+    private static final long CACHE_MAX_FILE_SIZE = Long.getLong("uuf.staticResources.cache.maxFileSize",
+                                                                 8L * 1024 * 1024);
+
+    // url(img/logo.png), url('img/logo.png') or url("img/logo.png"), but not absolute or data URLs.
+    private static final Pattern CSS_RELATIVE_URL_PATTERN = Pattern.compile(
+            "url\\(\\s*+(['\"]?)(?![a-zA-Z][a-zA-Z0-9+.-]*:|/|#)([^'\")]+?)\\1\\s*\\)");
+    private static final byte[] CSS_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JS_SEPARATOR = "\n;\n".getBytes(StandardCharsets.UTF_8);
+    // Content of a fingerprinted URI never changes, hence clients do not need to revalidate it.
+    private static final String CACHE_CONTROL_IMMUTABLE = "public,max-age=31536000,immutable";
+    private static final String CACHE_CONTROL_DEFAULT = "public,max-age=2592000";
+    private static final String CACHE_CONTROL_NO_CACHE = "no-cache";
+
+    private final StaticResourceCache resourceCache;
 
     static {
         // See https://tools.ietf.org/html/rfc7231#section-7.1.1.1
         HTTP_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss zzz");
-        GMT_TIME_ZONE = ZoneId.of("GMT");
     }
 
     /**
      * The constructor of StaticResolver class
      */
     public StaticResolver() {
-        if (UUFServer.isDevModeEnabled()) {
-            /*
-             * When the dev mode is enabled, we do not cache last modified dates of serving static resources. This is
-             * achieved by setting a dummy map to the 'resourcesLastModifiedDates' field. Dummy map does not store any
-             * values and it size is always zero.
-             */
-            this.resourcesLastModifiedDates = new AbstractMap<Path, ZonedDateTime>() {
-                @Override
-                public Set<Entry<Path, ZonedDateTime>> entrySet() {
-                    return Collections.emptySet(); // No entries in this dummy map.
-                }
+        // When the dev mode is enabled, we do not cache static resources so that modifications are served right away.
+        this(UUFServer.isDevModeEnabled() ? new StaticResourceCache(0, 0) :
+                     new StaticResourceCache(CACHE_MAX_SIZE, CACHE_MAX_FILE_SIZE));
+    }
 
-                @Override
-                public ZonedDateTime put(Path key, ZonedDateTime value) {
-                    return value; // Do not store in this is dummy Map.
-                }
-            };
-        } else {
-            this.resourcesLastModifiedDates = new ConcurrentHashMap<>();
-        }
+    public StaticResolver(StaticResourceCache resourceCache) {
+        this.resourceCache = resourceCache;
+    }
+
+    /**
+     * Stops watching the cached static resource files and clears the cache.
+     */
+    public void close() {
+        resourceCache.close();
     }
 
     public void serveDefaultFavicon(HttpRequest request, HttpResponse response) {
@@ -113,21 +132,66 @@ public class StaticResolver {
     }
 
     public void serve(App app, HttpRequest request, HttpResponse response) {
-        Path resourcePath;
-        ZonedDateTime lastModifiedDate;
+        StaticResourceCache.StaticResource resource;
+        String contentType;
+        String cacheControl;
+        boolean isCompressible;
         try {
-            if (request.isComponentStaticResourceRequest()) {
-                // /public/components/...
-                resourcePath = resolveResourceInComponent(app, request.getUriWithoutContextPath());
-            } else if (request.isThemeStaticResourceRequest()) {
-                // /public/themes/...
-                resourcePath = resolveResourceInTheme(app, request.getUriWithoutContextPath());
+            if (request.isBundleStaticResourceRequest()) {
+                // /public/bundles/...
+                String bundleName = request.getUriWithoutContextPath().substring(BUNDLES_URI_PREFIX.length());
+                List<String> resourceUris = app.getResourceBundles()
+                        .flatMap(resourceBundles -> resourceBundles.getResourceUris(bundleName))
+                        .orElseThrow(() -> new ResourceNotFoundException(
+                                "Bundle '" + bundleName + "' is not a valid bundle of app '" + app.getName() + "'."));
+                // Content of a bundle changes only if it is made of resources which are not fingerprinted.
+                cacheControl = resourceUris.stream()
+                        .allMatch(uri -> app.getAssetManifest().getOriginalUri(uri).isPresent()) ?
+                        CACHE_CONTROL_IMMUTABLE : CACHE_CONTROL_DEFAULT;
+                resource = getBundle(app, bundleName, resourceUris, request.getContextPath());
+            } else if (request.isComponentStaticResourceRequest() || request.isThemeStaticResourceRequest()) {
+                // Fingerprinted URIs are mapped back to the original URIs through the asset manifest of the app.
+                Optional<String> originalUri = app.getAssetManifest()
+                        .getOriginalUri(request.getUriWithoutContextPath());
+                Optional<StaticResourceCache.StaticResource> found = getResource(
+                        app, originalUri.orElse(request.getUriWithoutContextPath()));
+                if (!found.isPresent()) {
+                    // Static resource file does not exists.
+                    response.setContent(STATUS_NOT_FOUND,
+                                        "Requested resource '" + request.getUri() + "' does not exists.");
+                    return;
+                }
+                resource = found.get();
+                if (!originalUri.isPresent()) {
+                    cacheControl = CACHE_CONTROL_DEFAULT;
+                } else if (matchesFingerprint(request.getUriWithoutContextPath(), originalUri.get(), resource)) {
+                    cacheControl = CACHE_CONTROL_IMMUTABLE;
+                } else {
+                    /* The file is modified after the app was deployed, hence its content no longer matches the
+                    fingerprint. Clients must not cache it under the fingerprinted URI forever. */
+                    LOGGER.warn("Static resource '{}' of app '{}' is modified after it was fingerprinted. Redeploy " +
+                                        "the app to fingerprint the modified resource.", originalUri.get(),
+                                app.getName());
+                    cacheControl = CACHE_CONTROL_NO_CACHE;
+                }
             } else {
                 // /public/...
                 response.setContent(STATUS_BAD_REQUEST, "Invalid static resource URI '" + request.getUri() + "'.");
                 return;
             }
-            lastModifiedDate = resourcesLastModifiedDates.computeIfAbsent(resourcePath, this::getLastModifiedDate);
+            contentType = getContentType(request, resource);
+            isCompressible = StaticResourceCache.isCompressible(contentType);
+            if (isCompressible) {
+                String acceptEncodingHeader = request.getHeaders().get(HttpRequest.HEADER_ACCEPT_ENCODING);
+                for (StaticResourceCache.ContentEncoding encoding :
+                        StaticResourceCache.ContentEncoding.getAcceptedEncodings(acceptEncodingHeader)) {
+                    Optional<StaticResourceCache.StaticResource> variant = resourceCache.getVariant(resource, encoding);
+                    if (variant.isPresent()) {
+                        resource = variant.get();
+                        break;
+                    }
+                }
+            }
         } catch (IllegalArgumentException e) {
             // Invalid/incorrect static resource URI.
             response.setContent(STATUS_BAD_REQUEST, e.getMessage());
@@ -144,23 +208,153 @@ public class StaticResolver {
             return;
         }
 
-        if (lastModifiedDate == null) {
-            /* Since we failed to read last modified date of 'resourcePath' file, we cannot set cache headers.
-            Therefore just serve the file without any cache headers. */
-            response.setStatus(STATUS_OK);
-            response.setContent(resourcePath, getContentType(request, resourcePath));
-            return;
+        setCacheHeaders(resource, cacheControl, response);
+        if (isCompressible) {
+            // Response differs based on the 'Accept-Encoding' header, hence caches should store each variant.
+            response.setHeader(HEADER_VARY, HttpRequest.HEADER_ACCEPT_ENCODING);
         }
-        ZonedDateTime ifModifiedSinceDate = getIfModifiedSinceDate(request);
-        if ((ifModifiedSinceDate != null) && Duration.between(ifModifiedSinceDate, lastModifiedDate).isZero()) {
+        if (isNotModified(request, resource)) {
             // Resource is NOT modified since the last serve.
             response.setStatus(STATUS_NOT_MODIFIED);
             return;
         }
 
-        setCacheHeaders(lastModifiedDate, response);
-        response.setStatus(STATUS_OK);
-        response.setContent(resourcePath, getContentType(request, resourcePath));
+        response.setHeader(HEADER_ACCEPT_RANGES, "bytes");
+        resource.getContentEncoding().ifPresent(encoding -> response.setHeader(HEADER_CONTENT_ENCODING, encoding));
+        Optional<List<ByteRange>> ranges = getRanges(request, resource);
+        if (!ranges.isPresent()) {
+            response.setStatus(STATUS_OK);
+            setContent(resource, 0, resource.getLength(), contentType, response);
+        } else if (ranges.get().isEmpty()) {
+            // None of the requested ranges overlap the resource.
+            response.setStatus(STATUS_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HEADER_CONTENT_RANGE, "bytes */" + resource.getLength());
+        } else if (ranges.get().size() == 1) {
+            ByteRange range = ranges.get().get(0);
+            response.setStatus(STATUS_PARTIAL_CONTENT);
+            response.setHeader(HEADER_CONTENT_RANGE, range.getContentRange(resource.getLength()));
+            setContent(resource, range.getFirst(), range.getLength(), contentType, response);
+        } else {
+            String boundary = ByteRange.newBoundary();
+            Optional<ByteBuffer> content = resource.getContent();
+            InputStream multipartContent = content.isPresent() ?
+                    ByteRange.newMultipartInputStream(content.get(), ranges.get(), resource.getLength(), contentType,
+                                                      boundary) :
+                    ByteRange.newMultipartInputStream(resource.getPath(), ranges.get(), resource.getLength(),
+                                                      contentType, boundary);
+            response.setStatus(STATUS_PARTIAL_CONTENT);
+            response.setContent(multipartContent, "multipart/byteranges; boundary=" + boundary);
+        }
+    }
+
+    private void setContent(StaticResourceCache.StaticResource resource, long position, long count,
+                            String contentType, HttpResponse response) {
+        Optional<ByteBuffer> content = resource.getContent();
+        if (content.isPresent()) {
+            ByteBuffer buffer = content.get();
+            buffer.position(buffer.position() + (int) position);
+            buffer.limit(buffer.position() + (int) count);
+            response.setContent(buffer, contentType);
+        } else {
+            // Large files are transferred directly from the file system.
+            response.setContent(resource.getPath(), position, count, contentType);
+        }
+    }
+
+    private StaticResourceCache.StaticResource getBundle(App app, String bundleName, List<String> resourceUris,
+                                                         String contextPath) {
+        List<String> uris = new ArrayList<>(resourceUris.size());
+        List<StaticResourceCache.StaticResource> resources = new ArrayList<>(resourceUris.size());
+        for (String resourceUri : resourceUris) {
+            String uri = app.getAssetManifest().getOriginalUri(resourceUri).orElse(resourceUri);
+            uris.add(uri);
+            resources.add(getResource(app, uri).orElseThrow(() -> new ResourceNotFoundException(
+                    "Static resource '" + uri + "' of bundle '" + bundleName + "' does not exists.")));
+        }
+        String extension = FilenameUtils.getExtension(bundleName);
+        String contentType = MimeMapper.getMimeType(extension).orElse(CONTENT_TYPE_WILDCARD);
+        boolean isCss = "css".equals(extension);
+        // A bundle is cached against the ETags of its resources, hence a modified resource yields a new bundle.
+        String key = app.getName() + ":" + bundleName + ":" +
+                resources.stream().map(StaticResourceCache.StaticResource::getETag).collect(Collectors.joining(","));
+        return resourceCache.getBundle(key, contentType, () -> {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            for (int i = 0; i < resources.size(); i++) {
+                String uri = uris.get(i);
+                byte[] content = readContent(resources.get(i));
+                if (isCss) {
+                    // Relative URLs in a CSS file are relative to that file, hence they are made absolute.
+                    String baseUri = contextPath + uri.substring(0, uri.lastIndexOf('/') + 1);
+                    content = CSS_RELATIVE_URL_PATTERN.matcher(new String(content, StandardCharsets.UTF_8))
+                            .replaceAll("url($1" + Matcher.quoteReplacement(baseUri) + "$2$1)")
+                            .getBytes(StandardCharsets.UTF_8);
+                }
+                outputStream.write(content, 0, content.length);
+                // A JS file may not end with a semicolon or a new line.
+                byte[] separator = isCss ? CSS_SEPARATOR : JS_SEPARATOR;
+                outputStream.write(separator, 0, separator.length);
+            }
+            return ByteBuffer.wrap(outputStream.toByteArray());
+        });
+    }
+
+    private Optional<StaticResourceCache.StaticResource> getResource(App app, String uriWithoutContextPath) {
+        // When static resources are not cached (e.g. in dev mode), files are resolved on every request.
+        Optional<StaticResourceTable> staticResourceTable = resourceCache.isCachingEnabled() ?
+                app.getStaticResourceTable() : Optional.empty();
+        if (!staticResourceTable.isPresent()) {
+            try {
+                return Optional.of(resourceCache.get(resolveResource(app, uriWithoutContextPath)));
+            } catch (ResourceNotFoundException e) {
+                return Optional.empty();
+            }
+        }
+
+        StaticResourceTable resourceTable = staticResourceTable.get();
+        resourceCache.watch(resourceTable);
+        Optional<Path> resourcePath = resourceTable.getPath(uriWithoutContextPath);
+        if (!resourcePath.isPresent() && resourceTable.isMissing(uriWithoutContextPath)) {
+            return Optional.empty(); // Recently found to be missing, hence no need to look for it again.
+        }
+        try {
+            // Files which are not in the table are created after the table was populated.
+            Path path = resourcePath.isPresent() ? resourcePath.get() : resolveResource(app, uriWithoutContextPath);
+            StaticResourceCache.StaticResource resource = resourceCache.get(path);
+            if (!resourcePath.isPresent()) {
+                resourceTable.put(uriWithoutContextPath, path);
+            }
+            return Optional.of(resource);
+        } catch (ResourceNotFoundException e) {
+            // File does not exists or is deleted after the table was populated.
+            resourceTable.markMissing(uriWithoutContextPath);
+            return Optional.empty();
+        }
+    }
+
+    private byte[] readContent(StaticResourceCache.StaticResource resource) {
+        Optional<ByteBuffer> content = resource.getContent();
+        if (content.isPresent()) {
+            byte[] bytes = new byte[content.get().remaining()];
+            content.get().get(bytes);
+            return bytes;
+        }
+        try {
+            return Files.readAllBytes(resource.getPath());
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot read static resource file '" + resource.getPath() + "'.", e);
+        }
+    }
+
+    private Path resolveResource(App app, String uriWithoutContextPath) {
+        if (uriWithoutContextPath.startsWith(COMPONENT_STATIC_RESOURCES_URI_PREFIX)) {
+            // /public/components/...
+            return resolveResourceInComponent(app, uriWithoutContextPath);
+        } else if (uriWithoutContextPath.startsWith(THEMES_STATIC_RESOURCES_URI_PREFIX)) {
+            // /public/themes/...
+            return resolveResourceInTheme(app, uriWithoutContextPath);
+        } else {
+            throw new IllegalArgumentException("Invalid static resource URI '" + uriWithoutContextPath + "'.");
+        }
     }
 
     private Path resolveResourceInComponent(App app, String uriWithoutContextPath) {
@@ -249,40 +443,64 @@ public class StaticResolver {
         return Paths.get(theme.getPath(), DIR_NAME_PUBLIC_RESOURCES, relativePathString);
     }
 
-    private ZonedDateTime getLastModifiedDate(Path resourcePath) {
-        if (!Files.isReadable(resourcePath)) {
-            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' is not readable.");
+    private Optional<List<ByteRange>> getRanges(HttpRequest request, StaticResourceCache.StaticResource resource) {
+        // See https://tools.ietf.org/html/rfc7233#section-3.1
+        String rangeHeader = request.getHeaders().get(HttpRequest.HEADER_RANGE);
+        if ((rangeHeader == null) || !"GET".equalsIgnoreCase(request.getMethod())) {
+            return Optional.empty();
+        }
+        // If-Range: "xyzzy"   OR   If-Range: Sat, 29 Oct 1994 19:43:31 GMT
+        String ifRangeHeader = request.getHeaders().get(HttpRequest.HEADER_IF_RANGE);
+        if (ifRangeHeader != null) {
+            boolean isValidatorMatched;
+            if (ifRangeHeader.startsWith("\"") || ifRangeHeader.startsWith("W/")) {
+                // Strong comparison is used for 'If-Range', hence a weak ETag never matches.
+                isValidatorMatched = !resource.getETag().startsWith("W/") && ifRangeHeader.equals(resource.getETag());
+            } else {
+                try {
+                    isValidatorMatched = ZonedDateTime.parse(ifRangeHeader, HTTP_DATE_FORMATTER)
+                            .isEqual(resource.getLastModifiedDate());
+                } catch (DateTimeParseException e) {
+                    isValidatorMatched = false;
+                }
+            }
+            if (!isValidatorMatched) {
+                return Optional.empty(); // Resource is modified, hence the whole resource should be sent.
+            }
         }
+        return ByteRange.parse(rangeHeader.trim(), resource.getLength());
+    }
 
-        BasicFileAttributes fileAttributes;
-        try {
-            fileAttributes = Files.readAttributes(resourcePath, BasicFileAttributes.class);
-        } catch (NoSuchFileException | FileNotFoundException e) {
-            // This shouldn't be happening because we checked the file's readability before. But just in case.
-            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' does not exists.", e);
-        } catch (Exception e) {
-            // UnsupportedOperationException, IOException or any other Exception that might occur.
-            throw new FileOperationException(
-                    "Cannot read file attributes from static resource file '" + resourcePath + "'.", e);
+    private boolean isNotModified(HttpRequest request, StaticResourceCache.StaticResource resource) {
+        // See https://tools.ietf.org/html/rfc7232#section-6
+        String ifNoneMatchHeader = request.getHeaders().get(HttpRequest.HEADER_IF_NONE_MATCH);
+        if (ifNoneMatchHeader != null) {
+            // 'If-Modified-Since' is ignored when 'If-None-Match' exists.
+            return matchesETag(ifNoneMatchHeader, resource.getETag());
         }
-        if (fileAttributes.isRegularFile()) {
-            return ZonedDateTime.ofInstant(fileAttributes.lastModifiedTime().toInstant(), GMT_TIME_ZONE);
-        } else {
-            /*
-             * From book "OCP: Oracle Certified Professional Java SE 8 Programmer II Study Guide" page 478:
-             *      Java defines a regular file as one that contains content, as opposed to a symbolic link,
-             *      directory, resource (e.g. port, pipe), or other non-regular files that may be present in some
-             *      operating systems. [...] It is possible for isRegularFile() to return true for a symbolic link,
-             *      as long as the link resolves to a regular file.
-             * Hence, checking 'isRegularFile' of a file is enough to determine its existence and not being a directory.
-             */
-            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' is not a regular file.");
+        ZonedDateTime ifModifiedSinceDate = getIfModifiedSinceDate(request);
+        return (ifModifiedSinceDate != null) && !resource.getLastModifiedDate().isAfter(ifModifiedSinceDate);
+    }
+
+    private boolean matchesETag(String ifNoneMatchHeader, String eTag) {
+        // If-None-Match: "xyzzy", W/"r2d2xxxx"   OR   If-None-Match: *
+        String opaqueTag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String tag : ifNoneMatchHeader.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            // Weak comparison is used for 'If-None-Match'.
+            if ((tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+                return true;
+            }
         }
+        return false;
     }
 
     private ZonedDateTime getIfModifiedSinceDate(HttpRequest request) {
         // If-Modified-Since: Sat, 29 Oct 1994 19:43:31 GMT
-        String ifModifiedSinceHeader = request.getHeaders().get("If-Modified-Since");
+        String ifModifiedSinceHeader = request.getHeaders().get(HttpRequest.HEADER_IF_MODIFIED_SINCE);
         if (ifModifiedSinceHeader == null) {
             return null; // 'If-Modified-Since' does not exists in HTTP headres.
         }
@@ -294,19 +512,24 @@ public class StaticResolver {
         }
     }
 
-    private void setCacheHeaders(ZonedDateTime lastModifiedDate, HttpResponse response) {
-        response.setHeader("Last-Modified", HTTP_DATE_FORMATTER.format(lastModifiedDate));
-        response.setHeader("Cache-Control", "public,max-age=2592000");
+    private String getContentType(HttpRequest request, StaticResourceCache.StaticResource resource) {
+        String extensionFromUri = FilenameUtils.getExtension(request.getUriWithoutContextPath());
+        return MimeMapper.getMimeType(extensionFromUri).orElse(resource.getContentType());
+    }
+
+    private boolean matchesFingerprint(String fingerprintedUri, String originalUri,
+                                       StaticResourceCache.StaticResource resource) {
+        // Every file is fingerprinted, whether it is cached or not. Other resources cannot be verified.
+        return resource.getFingerprint()
+                .map(fingerprint -> AssetFingerprinter.getFingerprintedUri(originalUri, fingerprint))
+                .map(fingerprintedUri::equals)
+                .orElse(true);
     }
 
-    private String getContentType(HttpRequest request, Path resource) {
-        String extensionFromUri = FilenameUtils.getExtension(request.getUriWithoutContextPath());
-        Optional<String> contentType = MimeMapper.getMimeType(extensionFromUri);
-        if (contentType.isPresent()) {
-            return contentType.get();
-        }
-        // Here 'resource' never null, thus 'FilenameUtils.getExtension(...)' never return null.
-        String extensionFromPath = FilenameUtils.getExtension(resource.getFileName().toString());
-        return MimeMapper.getMimeType(extensionFromPath).orElse(CONTENT_TYPE_WILDCARD);
+    private void setCacheHeaders(StaticResourceCache.StaticResource resource, String cacheControl,
+                                 HttpResponse response) {
+        response.setHeader(HEADER_ETAG, resource.getETag());
+        response.setHeader(HEADER_LAST_MODIFIED, HTTP_DATE_FORMATTER.format(resource.getLastModifiedDate()));
+        response.setHeader(HEADER_CACHE_CONTROL, cacheControl);
     }
 }
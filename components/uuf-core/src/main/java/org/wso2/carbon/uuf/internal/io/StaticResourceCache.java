@@ -0,0 +1,717 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.io;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.exception.ResourceNotFoundException;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.internal.io.util.AssetFingerprinter;
+import org.wso2.carbon.uuf.internal.io.util.MimeMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static org.wso2.carbon.uuf.spi.HttpResponse.CONTENT_TYPE_WILDCARD;
+
+/**
+ * A bounded in-memory cache of static resource files.
+ * <p>
+ * Files are kept as heap byte buffers, together with their strong ETag, last modified date and content type which
+ * are computed once when a file is loaded. Files larger than the maximum cacheable file size are not kept in the cache
+ * and are served directly from the file system. Their strong ETags are computed by streaming the file once for each
+ * size and modified time of it. Files are not memory-mapped, because a mapped buffer cannot be
+ * released safely while it may still be written to a response, and stays mapped until it is garbage collected. Least
+ * recently used entries are evicted when the total size of the cached files, compressed variants and bundles exceeds
+ * the maximum size, and an entry is invalidated as soon as its file is modified or deleted.
+ * <p>
+ * Compressed variants of a resource are served from precompressed sibling files (e.g. {@code main.css.gz} or {@code
+ * main.css.br}) when they exist. Otherwise a cached resource is gzipped once on the first request and the compressed
+ * bytes are cached.
+ * <p>
+ * Bundles of several static resources are cached by their keys. A key should identify the content of the bundled
+ * resources, e.g. by their ETags, so that a bundle of a modified resource is created afresh while outdated bundles
+ * are evicted in due course.
+ * <p>
+ * The cache watches the directories of the cached files with a background thread until it is {@link #close()
+ * closed}. Directories of the {@link #watch(StaticResourceTable) watched} static resource tables are watched too, so
+ * that their entries are invalidated on the same events.
+ *
+ * @since 1.0.0
+ */
+public class StaticResourceCache {
+
+    private static final int MAX_FILE_HASHES = 10000;
+    private static final ZoneId GMT_TIME_ZONE = ZoneId.of("GMT");
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticResourceCache.class);
+    private static final Set<String> COMPRESSIBLE_CONTENT_TYPES = ImmutableSet.of(
+            "application/javascript", "application/json", "application/xml", "image/svg+xml", "image/x-icon",
+            "application/vnd.ms-fontobject", "application/x-font-otf", "application/x-font-ttf");
+
+    private final boolean isCachingEnabled;
+    private final long maxCacheableFileSize;
+    private final Cache<CacheKey, Optional<StaticResource>> cache;
+    private final Cache<String, byte[]> fileHashes;
+    private final Set<Path> watchingDirectories;
+    private final Cache<StaticResourceTable, Boolean> watchingTables;
+    private final WatchService watcher;
+
+    /**
+     * Creates a new static resource cache. When the maximum size is zero, nothing is cached and every file is read
+     * from the file system on each request, e.g. in dev mode.
+     *
+     * @param maxSize              maximum total size of the cached files in bytes
+     * @param maxCacheableFileSize files larger than this size in bytes are not cached
+     */
+    public StaticResourceCache(long maxSize, long maxCacheableFileSize) {
+        this.isCachingEnabled = (maxSize > 0);
+        this.maxCacheableFileSize = Math.min(maxCacheableFileSize, maxSize);
+        // Files, compressed variants and bundles share the same budget, which is spent on the bytes held in memory.
+        // An entry of a file which is served from the file system, or of a missing variant, weighs a single byte.
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(maxSize, 0))
+                .weigher((CacheKey key, Optional<StaticResource> entry) -> entry
+                        .filter(resource -> resource.content != null)
+                        .map(resource -> Math.max(resource.content.capacity(), 1))
+                        .orElse(1))
+                .build();
+        this.fileHashes = CacheBuilder.newBuilder().maximumSize(MAX_FILE_HASHES).build();
+        this.watchingDirectories = ConcurrentHashMap.newKeySet();
+        // Tables of undeployed apps are released together with their apps.
+        this.watchingTables = CacheBuilder.newBuilder().weakKeys().build();
+        if (isCachingEnabled) {
+            try {
+                this.watcher = FileSystems.getDefault().newWatchService();
+            } catch (IOException e) {
+                throw new FileOperationException("Cannot create file watch service.", e);
+            }
+            Thread watchService = new Thread(this::run, StaticResourceCache.class.getName() + "-WatchService");
+            watchService.setDaemon(true);
+            watchService.start();
+        } else {
+            this.watcher = null;
+        }
+    }
+
+    /**
+     * Returns the static resource of the specified file.
+     *
+     * @param resourcePath path to the static resource file
+     * @return static resource
+     * @exception ResourceNotFoundException if the file does not exist, is not readable or is not a regular file
+     * @exception FileOperationException    if the file cannot be read
+     */
+    public StaticResource get(Path resourcePath) {
+        if (!isCachingEnabled) {
+            return load(resourcePath, false);
+        }
+        CacheKey key = new CacheKey(CacheKey.Kind.RESOURCE, resourcePath);
+        Optional<StaticResource> resource = cache.getIfPresent(key);
+        if (resource != null) {
+            return resource.get();
+        }
+        try {
+            return cache.get(key, () -> {
+                // Watch the directory before reading the file, so that a modification during the read is not missed.
+                watch(resourcePath.getParent());
+                return Optional.of(load(resourcePath, true));
+            }).get();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UUFException) {
+                throw (UUFException) e.getCause();
+            }
+            throw new FileOperationException("Cannot load static resource file '" + resourcePath + "'.", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the variant of the specified static resource which is compressed with the specified encoding.
+     *
+     * @param resource static resource returned from {@link #get(Path)}
+     * @param encoding content encoding
+     * @return compressed variant, or empty if the resource is not available in the specified encoding
+     * @exception FileOperationException if the precompressed file cannot be read
+     */
+    public Optional<StaticResource> getVariant(StaticResource resource, ContentEncoding encoding) {
+        if (resource.path == null) {
+            return getBundleVariant(resource, encoding);
+        }
+        Path variantPath = resource.path.resolveSibling(resource.path.getFileName() + encoding.fileExtension);
+        if (!isCachingEnabled) {
+            return loadVariant(resource, variantPath, encoding, false);
+        }
+        try {
+            return cache.get(new CacheKey(CacheKey.Kind.VARIANT, variantPath),
+                             () -> loadVariant(resource, variantPath, encoding, true));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UUFException) {
+                throw (UUFException) e.getCause();
+            }
+            throw new FileOperationException("Cannot load static resource file '" + variantPath + "'.", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the bundle of the specified key. The content of the bundle is created through the specified supplier
+     * when the bundle is not cached.
+     *
+     * @param key             unique key of the bundle which changes whenever its content changes
+     * @param contentType     content type of the bundle
+     * @param contentSupplier supplier of the content of the bundle
+     * @return static resource of the bundle
+     */
+    public StaticResource getBundle(String key, String contentType, Supplier<ByteBuffer> contentSupplier) {
+        if (!isCachingEnabled) {
+            return loadBundle(contentType, contentSupplier);
+        }
+        try {
+            return cache.get(new CacheKey(CacheKey.Kind.BUNDLE, key),
+                             () -> Optional.of(loadBundle(contentType, contentSupplier))).get();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UUFException) {
+                throw (UUFException) e.getCause();
+            }
+            throw new FileOperationException("Cannot create static resource bundle '" + key + "'.", e.getCause());
+        }
+    }
+
+    /**
+     * Watches the directories of the specified static resource table, so that its entries of created, modified and
+     * deleted files are invalidated. Watching a table again has no effect.
+     *
+     * @param resourceTable static resource table to watch
+     */
+    public void watch(StaticResourceTable resourceTable) {
+        if (!isCachingEnabled || (watchingTables.getIfPresent(resourceTable) != null) ||
+                (watchingTables.asMap().putIfAbsent(resourceTable, Boolean.TRUE) != null)) {
+            return;
+        }
+        for (Path directory : resourceTable.getDirectories()) {
+            watchQuietly(directory);
+        }
+    }
+
+    /**
+     * @return {@code true} if static resources are cached, otherwise {@code false}
+     */
+    public boolean isCachingEnabled() {
+        return isCachingEnabled;
+    }
+
+    /**
+     * Invalidates all cached static resources.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        fileHashes.invalidateAll();
+    }
+
+    /**
+     * Stops watching the cached files for modifications and clears the cache.
+     */
+    public void close() {
+        IOUtils.closeQuietly(watcher);
+        invalidateAll();
+    }
+
+    private StaticResource load(Path resourcePath, boolean isCaching) {
+        if (!Files.isReadable(resourcePath)) {
+            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' is not readable.");
+        }
+
+        BasicFileAttributes fileAttributes;
+        try {
+            fileAttributes = Files.readAttributes(resourcePath, BasicFileAttributes.class);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            // This shouldn't be happening because we checked the file's readability before. But just in case.
+            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' does not exists.", e);
+        } catch (Exception e) {
+            // UnsupportedOperationException, IOException or any other Exception that might occur.
+            throw new FileOperationException(
+                    "Cannot read file attributes from static resource file '" + resourcePath + "'.", e);
+        }
+        if (!fileAttributes.isRegularFile()) {
+            /*
+             * From book "OCP: Oracle Certified Professional Java SE 8 Programmer II Study Guide" page 478:
+             *      Java defines a regular file as one that contains content, as opposed to a symbolic link,
+             *      directory, resource (e.g. port, pipe), or other non-regular files that may be present in some
+             *      operating systems. [...] It is possible for isRegularFile() to return true for a symbolic link,
+             *      as long as the link resolves to a regular file.
+             * Hence, checking 'isRegularFile' of a file is enough to determine its existence and not being a directory.
+             */
+            throw new ResourceNotFoundException("Static resource file '" + resourcePath + "' is not a regular file.");
+        }
+
+        // HTTP dates have a precision of a second.
+        ZonedDateTime lastModifiedDate = ZonedDateTime.ofInstant(fileAttributes.lastModifiedTime().toInstant(),
+                                                                 GMT_TIME_ZONE).truncatedTo(ChronoUnit.SECONDS);
+        long length = fileAttributes.size();
+        String contentType = getContentType(resourcePath);
+        if (!isCaching || (length > maxCacheableFileSize)) {
+            // Large files are served directly from the file system. Their hashes are streamed once per version.
+            byte[] hash = getFileHash(resourcePath, length, fileAttributes.lastModifiedTime().toMillis());
+            return new StaticResource(resourcePath, null, length, lastModifiedDate, toETag(hash),
+                                      AssetFingerprinter.getFingerprint(hash), contentType, null);
+        }
+
+        ByteBuffer content = ByteBuffer.allocate((int) length);
+        try (FileChannel fileChannel = FileChannel.open(resourcePath, StandardOpenOption.READ)) {
+            while (content.hasRemaining() && (fileChannel.read(content) >= 0)) {
+                // Read until the buffer is full or the end of the file is reached.
+            }
+            content.flip();
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot read static resource file '" + resourcePath + "'.", e);
+        }
+        byte[] hash = computeHash(content);
+        return new StaticResource(resourcePath, content.asReadOnlyBuffer(), content.remaining(), lastModifiedDate,
+                                  toETag(hash), AssetFingerprinter.getFingerprint(hash), contentType, null);
+    }
+
+    private Optional<StaticResource> loadVariant(StaticResource resource, Path variantPath, ContentEncoding encoding,
+                                                 boolean isCaching) {
+        if (Files.isRegularFile(variantPath)) {
+            StaticResource precompressed = load(variantPath, isCaching);
+            // A precompressed file older than its original file is outdated, hence ignored.
+            if (!precompressed.lastModifiedDate.isBefore(resource.lastModifiedDate)) {
+                return Optional.of(new StaticResource(variantPath, precompressed.content, precompressed.length,
+                                                      resource.lastModifiedDate, precompressed.eTag,
+                                                      resource.contentType, encoding.name));
+            }
+        }
+        if (!isCaching || (encoding != ContentEncoding.GZIP) || (resource.content == null)) {
+            // Only gzip can be compressed at runtime, and only cached resources are compressed.
+            return Optional.empty();
+        }
+
+        ByteBuffer compressed = gzip(resource.content.duplicate());
+        if (compressed.remaining() >= resource.length) {
+            return Optional.empty(); // Compression does not pay off.
+        }
+        String eTag = toETag(computeHash(compressed));
+        return Optional.of(new StaticResource(variantPath, compressed.asReadOnlyBuffer(), compressed.remaining(),
+                                              resource.lastModifiedDate, eTag, resource.contentType, encoding.name));
+    }
+
+    private StaticResource loadBundle(String contentType, Supplier<ByteBuffer> contentSupplier) {
+        ByteBuffer content = contentSupplier.get();
+        ZonedDateTime lastModifiedDate = ZonedDateTime.now(GMT_TIME_ZONE).truncatedTo(ChronoUnit.SECONDS);
+        String eTag = toETag(computeHash(content));
+        return new StaticResource(null, content.asReadOnlyBuffer(), content.remaining(), lastModifiedDate, eTag,
+                                  contentType, null);
+    }
+
+    private Optional<StaticResource> getBundleVariant(StaticResource bundle, ContentEncoding encoding) {
+        if (encoding != ContentEncoding.GZIP) {
+            return Optional.empty(); // Bundles are not precompressed, and only gzip can be compressed at runtime.
+        }
+        if (!isCachingEnabled) {
+            return Optional.empty();
+        }
+        try {
+            return cache.get(new CacheKey(CacheKey.Kind.BUNDLE_VARIANT, bundle.eTag + encoding.fileExtension), () -> {
+                ByteBuffer compressed = gzip(bundle.content.duplicate());
+                if (compressed.remaining() >= bundle.length) {
+                    return Optional.empty(); // Compression does not pay off.
+                }
+                String eTag = toETag(computeHash(compressed));
+                return Optional.of(new StaticResource(null, compressed.asReadOnlyBuffer(), compressed.remaining(),
+                                                      bundle.lastModifiedDate, eTag, bundle.contentType,
+                                                      encoding.name));
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new UUFException("Cannot compress static resource bundle.", e.getCause());
+        }
+    }
+
+    private void watch(Path directory) {
+        if (!watchingDirectories.add(directory)) {
+            return;
+        }
+        try {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                               StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (ClosedWatchServiceException e) {
+            throw new UUFException("File watch service is closed.", e);
+        } catch (IOException e) {
+            watchingDirectories.remove(directory);
+            throw new FileOperationException(
+                    "An IO error occurred when registering path '" + directory + "' to file watch service.'", e);
+        }
+    }
+
+    private void watchQuietly(Path directory) {
+        try {
+            watch(directory);
+        } catch (UUFException e) {
+            // Entries of this directory are still validated when they are requested.
+            LOGGER.warn("Cannot watch static resources directory '{}'.", directory, e);
+        }
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey watchKey;
+            try {
+                watchKey = watcher.take();
+            } catch (ClosedWatchServiceException e) {
+                LOGGER.debug("File watch service is closed.");
+                return;
+            } catch (InterruptedException e) {
+                LOGGER.debug("File watch service interrupted.");
+                return;
+            }
+
+            Path directory = (Path) watchKey.watchable();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Some events are lost, hence we cannot know which files are modified.
+                    invalidateAll();
+                    watchingTables.asMap().keySet().forEach(StaticResourceTable::invalidateMissing);
+                    continue;
+                }
+                Path modifiedFile = directory.resolve((Path) event.context());
+                for (StaticResourceTable resourceTable : watchingTables.asMap().keySet()) {
+                    if (!resourceTable.getDirectories().contains(directory)) {
+                        continue;
+                    }
+                    resourceTable.invalidate(modifiedFile);
+                    if ((event.kind() == StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(modifiedFile)) {
+                        resourceTable.addDirectory(modifiedFile);
+                        watchQuietly(modifiedFile);
+                    }
+                }
+                cache.invalidate(new CacheKey(CacheKey.Kind.RESOURCE, modifiedFile));
+                cache.invalidate(new CacheKey(CacheKey.Kind.VARIANT, modifiedFile));
+                for (ContentEncoding encoding : ContentEncoding.values()) {
+                    // Compressed variants generated from the modified file are outdated too.
+                    cache.invalidate(new CacheKey(CacheKey.Kind.VARIANT, modifiedFile.resolveSibling(
+                            modifiedFile.getFileName() + encoding.fileExtension)));
+                }
+                LOGGER.debug("Static resource '{}' is modified, hence removed from the cache.", modifiedFile);
+            }
+
+            if (!watchKey.reset()) {
+                // Watched directory is no longer accessible, e.g. deleted.
+                watchingDirectories.remove(directory);
+                watchingTables.asMap().keySet().forEach(resourceTable -> resourceTable.invalidate(directory));
+                cache.asMap().keySet().removeIf(key -> (key.id instanceof Path) &&
+                        directory.equals(((Path) key.id).getParent()));
+            }
+        }
+    }
+
+    private byte[] getFileHash(Path path, long length, long lastModifiedMillis) {
+        // A file is identified by its size and modified time too, hence a modified file is hashed again.
+        String key = path + ":" + length + ":" + lastModifiedMillis;
+        try {
+            return fileHashes.get(key, () -> computeHash(path));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new FileOperationException("Cannot read static resource file '" + path + "'.", e.getCause());
+        }
+    }
+
+    private static byte[] computeHash(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                messageDigest.update(buffer, 0, read);
+            }
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new UUFException("Cannot compute hash of static resource file '" + path + "'.", e);
+        }
+    }
+
+    private static byte[] computeHash(ByteBuffer content) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(content.duplicate());
+            return messageDigest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new UUFException("Cannot compute hash of static resource content.", e);
+        }
+    }
+
+    private static String toETag(byte[] hash) {
+        return "\"" + BaseEncoding.base64Url().omitPadding().encode(hash) + "\"";
+    }
+
+    /**
+     * Returns whether the content of the specified type shrinks when compressed. Already compressed content such as
+     * images and archives is not worth compressing again.
+     *
+     * @param contentType content type
+     * @return {@code true} if the content should be compressed, otherwise {@code false}
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || COMPRESSIBLE_CONTENT_TYPES.contains(contentType);
+    }
+
+    private static ByteBuffer gzip(ByteBuffer content) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.remaining() / 2);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            WritableByteChannel channel = Channels.newChannel(gzipOutputStream);
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        } catch (IOException e) {
+            // Writing to a byte array never fails.
+            throw new UUFException("Cannot compress static resource content.", e);
+        }
+        return ByteBuffer.wrap(outputStream.toByteArray());
+    }
+
+    private static String getContentType(Path resourcePath) {
+        // Here 'resourcePath' never null, thus 'FilenameUtils.getExtension(...)' never return null.
+        String extension = FilenameUtils.getExtension(resourcePath.getFileName().toString());
+        return MimeMapper.getMimeType(extension).orElse(CONTENT_TYPE_WILDCARD);
+    }
+
+    /**
+     * Key of a cached file, compressed variant or bundle.
+     */
+    private static class CacheKey {
+
+        private enum Kind {
+            RESOURCE, VARIANT, BUNDLE, BUNDLE_VARIANT
+        }
+
+        private final Kind kind;
+        private final Object id;
+
+        CacheKey(Kind kind, Object id) {
+            this.kind = kind;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return (kind == other.kind) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * kind.hashCode()) + id.hashCode();
+        }
+    }
+
+    /**
+     * Content encodings in which static resources can be served, in the order of preference.
+     */
+    public enum ContentEncoding {
+
+        BROTLI("br", ".br"),
+        GZIP("gzip", ".gz");
+
+        private final String name;
+        private final String fileExtension;
+
+        ContentEncoding(String name, String fileExtension) {
+            this.name = name;
+            this.fileExtension = fileExtension;
+        }
+
+        /**
+         * @return name of this encoding used in HTTP headers
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return file extension of the precompressed files in this encoding
+         */
+        public String getFileExtension() {
+            return fileExtension;
+        }
+
+        /**
+         * Returns the encodings accepted by the specified {@code Accept-Encoding} HTTP header, in the server's order of
+         * preference, as brotli compresses better than gzip.
+         *
+         * @param acceptEncodingHeader value of the {@code Accept-Encoding} header, e.g. {@code gzip;q=1.0, br;q=0.8,
+         *                             *;q=0}
+         * @return accepted encodings, or an empty list if the header is {@code null}
+         */
+        public static List<ContentEncoding> getAcceptedEncodings(String acceptEncodingHeader) {
+            if (acceptEncodingHeader == null) {
+                return Collections.emptyList();
+            }
+            Map<String, Float> qualityValues = new HashMap<>();
+            for (String coding : acceptEncodingHeader.split(",")) {
+                String[] parameters = coding.split(";");
+                float qualityValue = 1.0f;
+                for (int i = 1; i < parameters.length; i++) {
+                    String parameter = parameters[i].trim();
+                    // Parameter names are case-insensitive, hence 'Q=0.5' is valid too.
+                    if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                        try {
+                            qualityValue = Float.parseFloat(parameter.substring(2).trim());
+                        } catch (NumberFormatException e) {
+                            qualityValue = 0.0f; // Invalid quality value, hence ignore this coding.
+                        }
+                    }
+                }
+                qualityValues.put(parameters[0].trim().toLowerCase(Locale.ENGLISH), qualityValue);
+            }
+            float wildcardQualityValue = qualityValues.getOrDefault("*", 0.0f);
+            List<ContentEncoding> acceptedEncodings = new ArrayList<>();
+            for (ContentEncoding encoding : values()) {
+                if (qualityValues.getOrDefault(encoding.name, wildcardQualityValue) > 0) {
+                    acceptedEncodings.add(encoding);
+                }
+            }
+            return acceptedEncodings;
+        }
+    }
+
+    /**
+     * A static resource file.
+     */
+    public static class StaticResource {
+
+        private final Path path;
+        private final ByteBuffer content;
+        private final long length;
+        private final ZonedDateTime lastModifiedDate;
+        private final String eTag;
+        private final String fingerprint;
+        private final String contentType;
+        private final String contentEncoding;
+
+        private StaticResource(Path path, ByteBuffer content, long length, ZonedDateTime lastModifiedDate,
+                               String eTag, String contentType, String contentEncoding) {
+            this(path, content, length, lastModifiedDate, eTag, null, contentType, contentEncoding);
+        }
+
+        private StaticResource(Path path, ByteBuffer content, long length, ZonedDateTime lastModifiedDate,
+                               String eTag, String fingerprint, String contentType, String contentEncoding) {
+            this.path = path;
+            this.content = content;
+            this.length = length;
+            this.lastModifiedDate = lastModifiedDate;
+            this.eTag = eTag;
+            this.fingerprint = fingerprint;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+        }
+
+        /**
+         * @return path to the file of this resource, or {@code null} if this resource is a bundle
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * @return read-only content of this resource, or empty if this resource should be served from its file
+         */
+        public Optional<ByteBuffer> getContent() {
+            return (content == null) ? Optional.empty() : Optional.of(content.duplicate());
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public ZonedDateTime getLastModifiedDate() {
+            return lastModifiedDate;
+        }
+
+        /**
+         * @return quoted entity tag of this resource
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return fingerprint of the content as used in the URIs of the {@link AssetFingerprinter asset manifest}, or
+         * empty if this resource is not a file, e.g. a bundle
+         */
+        public Optional<String> getFingerprint() {
+            return Optional.ofNullable(fingerprint);
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return name of the encoding of the content, or empty if the content is not encoded
+         */
+        public Optional<String> getContentEncoding() {
+            return Optional.ofNullable(contentEncoding);
+        }
+    }
+}
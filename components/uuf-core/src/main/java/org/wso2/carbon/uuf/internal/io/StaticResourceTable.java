@@ -0,0 +1,228 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.io;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Theme;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.internal.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.wso2.carbon.uuf.api.reference.ComponentReference.DIR_NAME_FRAGMENTS;
+import static org.wso2.carbon.uuf.internal.io.StaticResolver.DIR_NAME_COMPONENT_RESOURCES;
+import static org.wso2.carbon.uuf.internal.io.StaticResolver.DIR_NAME_PUBLIC_RESOURCES;
+
+/**
+ * Maps static resource URIs of an app to their files, so that a static resource request can be resolved without
+ * parsing its URI or touching the file system.
+ * <p>
+ * The table is populated from the {@code public} directories of the components, fragments and themes of the app.
+ * Files created later are added when they are first requested, and URIs of missing files are remembered for a while
+ * in a bounded negative cache so that repeated requests for them are answered right away. When a {@link
+ * StaticResourceCache} {@link StaticResourceCache#watch(StaticResourceTable) watches} this table, files deleted from
+ * its directories are removed and the negative cache is cleared as soon as a file is created.
+ *
+ * @since 1.0.0
+ */
+public class StaticResourceTable {
+
+    private static final long MISSING_RESOURCES_MAX_SIZE = 10000;
+    private static final long MISSING_RESOURCES_TIME_TO_LIVE = 60; // seconds
+
+    private final Map<String, Path> resourcePaths;
+    private final Cache<String, Boolean> missingResources;
+    private final Set<Path> directories;
+
+    /**
+     * Creates the table of the static resources of the specified components and themes.
+     *
+     * @param components components of the app
+     * @param themes     themes of the app
+     * @exception FileOperationException if a {@code public} directory cannot be listed
+     */
+    public StaticResourceTable(Collection<Component> components, Collection<Theme> themes) {
+        this.resourcePaths = new ConcurrentHashMap<>();
+        this.directories = ConcurrentHashMap.newKeySet();
+        this.missingResources = CacheBuilder.newBuilder()
+                .maximumSize(MISSING_RESOURCES_MAX_SIZE)
+                .expireAfterWrite(MISSING_RESOURCES_TIME_TO_LIVE, TimeUnit.SECONDS)
+                .build();
+
+        for (Component component : components) {
+            if (component.getPath() == null) {
+                continue;
+            }
+            String uriPrefix = UriUtils.COMPONENT_STATIC_RESOURCES_URI_PREFIX + component.getContextPath() + "/";
+            addResources(Paths.get(component.getPath(), DIR_NAME_PUBLIC_RESOURCES),
+                         uriPrefix + DIR_NAME_COMPONENT_RESOURCES + "/");
+            Path fragmentsDirectory = Paths.get(component.getPath(), DIR_NAME_FRAGMENTS);
+            for (Path fragmentDirectory : listDirectories(fragmentsDirectory)) {
+                addResources(fragmentDirectory.resolve(DIR_NAME_PUBLIC_RESOURCES),
+                             uriPrefix + fragmentDirectory.getFileName() + "/");
+            }
+        }
+        for (Theme theme : themes) {
+            if (theme.getPath() != null) {
+                addResources(Paths.get(theme.getPath(), DIR_NAME_PUBLIC_RESOURCES), UriUtils.getPublicUri(theme) + "/");
+            }
+        }
+    }
+
+    /**
+     * Returns the file of the specified static resource URI.
+     *
+     * @param uri URI of a static resource without the context path
+     * @return file of the static resource, or empty if the URI is not in this table
+     */
+    public Optional<Path> getPath(String uri) {
+        return Optional.ofNullable(resourcePaths.get(uri));
+    }
+
+    /**
+     * @param uri URI of a static resource without the context path
+     * @return {@code true} if the file of the specified URI was recently found to be missing, otherwise {@code false}
+     */
+    public boolean isMissing(String uri) {
+        return missingResources.getIfPresent(uri) != null;
+    }
+
+    /**
+     * Adds the file of the specified static resource URI to this table.
+     *
+     * @param uri  URI of a static resource without the context path
+     * @param path file of the static resource
+     */
+    public void put(String uri, Path path) {
+        resourcePaths.put(uri, path);
+        missingResources.invalidate(uri);
+    }
+
+    /**
+     * Records that the file of the specified static resource URI does not exist.
+     *
+     * @param uri URI of a static resource without the context path
+     */
+    public void markMissing(String uri) {
+        resourcePaths.remove(uri);
+        missingResources.put(uri, Boolean.TRUE);
+    }
+
+    /**
+     * Performs the specified action for each static resource URI and its file in this table.
+     *
+     * @param action action to perform
+     */
+    public void forEach(BiConsumer<String, Path> action) {
+        resourcePaths.forEach(action);
+    }
+
+    public int size() {
+        return resourcePaths.size();
+    }
+
+    /**
+     * @return existing {@code public} directories of this table and their subdirectories
+     */
+    Set<Path> getDirectories() {
+        return Collections.unmodifiableSet(directories);
+    }
+
+    /**
+     * Adds the specified directory, which is created in a directory of this table, to the directories of this table.
+     *
+     * @param directory created directory
+     */
+    void addDirectory(Path directory) {
+        directories.add(directory);
+    }
+
+    /**
+     * Invalidates the entries of the specified file, which is created, modified or deleted in a directory of this
+     * table.
+     *
+     * @param path modified file or directory
+     */
+    void invalidate(Path path) {
+        // A deleted directory takes its files and subdirectories with it.
+        resourcePaths.values().removeIf(resourcePath -> resourcePath.startsWith(path));
+        if (!Files.isDirectory(path)) {
+            directories.removeIf(directory -> directory.startsWith(path));
+        }
+        // A created file can be the file of any missing URI, as URIs are mapped to files through the app.
+        invalidateMissing();
+    }
+
+    /**
+     * Clears the negative cache of this table, e.g. when some file events are lost. Entries of existing files stay
+     * valid, as a deleted file is found to be missing when it is next requested.
+     */
+    void invalidateMissing() {
+        missingResources.invalidateAll();
+    }
+
+    private void addResources(Path publicDirectory, String uriPrefix) {
+        if (!Files.isDirectory(publicDirectory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(publicDirectory)) {
+            Map<Boolean, List<Path>> isDirectory = paths.collect(Collectors.partitioningBy(Files::isDirectory));
+            directories.addAll(isDirectory.get(true));
+            files = isDirectory.get(false).stream().filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot list static resources in '" + publicDirectory + "'.", e);
+        }
+        for (Path file : files) {
+            StringBuilder uri = new StringBuilder(uriPrefix);
+            for (Path name : publicDirectory.relativize(file)) {
+                uri.append(name).append('/');
+            }
+            uri.setLength(uri.length() - 1); // Remove the trailing slash.
+            resourcePaths.put(uri.toString(), file);
+        }
+    }
+
+    private static List<Path> listDirectories(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(Files::isDirectory).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot list directories in '" + directory + "'.", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.internal.io.util;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.Files;
+import org.wso2.carbon.uuf.core.AssetManifest;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Theme;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.StaticResourceTable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the {@link AssetManifest} of an app by fingerprinting the static resources of its components and themes
+ * with the hash of their content.
+ */
+public class AssetFingerprinter {
+
+    private static final int FINGERPRINT_LENGTH = 16;
+
+    private AssetFingerprinter() {
+    }
+
+    /**
+     * Creates the asset manifest of the specified components and themes.
+     *
+     * @param components components of the app
+     * @param themes     themes of the app
+     * @return asset manifest
+     * @exception FileOperationException if a static resource cannot be read
+     */
+    public static AssetManifest createManifest(Collection<Component> components, Collection<Theme> themes) {
+        return createManifest(new StaticResourceTable(components, themes));
+    }
+
+    /**
+     * Creates the asset manifest of the static resources in the specified table.
+     *
+     * @param resourceTable static resources of the app
+     * @return asset manifest
+     * @exception FileOperationException if a static resource cannot be read
+     */
+    public static AssetManifest createManifest(StaticResourceTable resourceTable) {
+        Map<String, String> fingerprintedUris = new HashMap<>();
+        resourceTable.forEach((uri, file) -> {
+            if (isCompressedVariant(uri)) {
+                return; // Compressed variants are served in place of their original files.
+            }
+            byte[] hash;
+            try {
+                // Stream the file through the hash function, so that a large file is not read into memory at once.
+                hash = Files.asByteSource(file.toFile()).hash(Hashing.sha256()).asBytes();
+            } catch (IOException e) {
+                throw new FileOperationException("Cannot read static resource '" + file + "'.", e);
+            }
+            fingerprintedUris.put(uri, getFingerprintedUri(uri, getFingerprint(hash)));
+        });
+        return new AssetManifest(fingerprintedUris);
+    }
+
+    /**
+     * Returns the fingerprint of the content which has the specified SHA-256 hash.
+     *
+     * @param sha256Hash SHA-256 hash of the content
+     * @return fingerprint
+     */
+    public static String getFingerprint(byte[] sha256Hash) {
+        return BaseEncoding.base16().lowerCase().encode(sha256Hash, 0, FINGERPRINT_LENGTH / 2);
+    }
+
+    /**
+     * Returns the fingerprinted URI of the specified static resource URI, e.g. {@code /public/themes/default/css/
+     * main.3f2a9c1b7d4e6f80.css} for {@code /public/themes/default/css/main.css}.
+     *
+     * @param uri         URI of a static resource
+     * @param fingerprint fingerprint of the resource content
+     * @return fingerprinted URI
+     */
+    public static String getFingerprintedUri(String uri, String fingerprint) {
+        int lastSlashIndex = uri.lastIndexOf('/');
+        return uri.substring(0, lastSlashIndex + 1) + getFingerprintedName(uri.substring(lastSlashIndex + 1),
+                                                                           fingerprint);
+    }
+
+    /**
+     * Returns the fingerprinted name of the specified file name, e.g. {@code main.3f2a9c1b7d4e6f80.css} for {@code
+     * main.css}.
+     *
+     * @param fileName    file name
+     * @param fingerprint fingerprint of the file content
+     * @return fingerprinted file name
+     */
+    public static String getFingerprintedName(String fileName, String fingerprint) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex <= 0) {
+            return fileName + "." + fingerprint;
+        }
+        return fileName.substring(0, extensionIndex) + "." + fingerprint + fileName.substring(extensionIndex);
+    }
+
+    private static boolean isCompressedVariant(String uri) {
+        for (StaticResourceCache.ContentEncoding encoding : StaticResourceCache.ContentEncoding.values()) {
+            if (uri.endsWith(encoding.getFileExtension())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
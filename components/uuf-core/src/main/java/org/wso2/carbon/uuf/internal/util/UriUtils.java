@@ -30,6 +30,7 @@ public class UriUtils {
     public static final String COMPONENT_STATIC_RESOURCES_URI_PREFIX = "/public/components";
     public static final String THEMES_STATIC_RESOURCES_URI_PREFIX = "/public/themes/";
     public static final String FRAGMENTS_URI_PREFIX = "/fragments/";
+    public static final String BUNDLES_URI_PREFIX = "/public/bundles/";
 
     public static String getPublicUri(Component component, Page page) {
         return COMPONENT_STATIC_RESOURCES_URI_PREFIX + component.getContextPath() + "/" +
@@ -0,0 +1,267 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.spi;
+
+import com.google.common.io.ByteStreams;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A satisfiable byte range of a static resource requested through the HTTP {@code Range} header.
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc7233">RFC 7233</a>
+ */
+public class ByteRange {
+
+    /**
+     * Requests with more ranges than this are served in full, as many small ranges are more expensive to serve than
+     * the whole resource.
+     */
+    private static final int MAX_RANGES = 16;
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long first;
+    private final long last;
+
+    private ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * @return position of the first byte of this range
+     */
+    public long getFirst() {
+        return first;
+    }
+
+    /**
+     * @return position of the last byte of this range, inclusive
+     */
+    public long getLast() {
+        return last;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * @param resourceLength length of the whole resource
+     * @return value of the {@code Content-Range} header for this range, e.g. {@code bytes 0-499/1234}
+     */
+    public String getContentRange(long resourceLength) {
+        return "bytes " + first + "-" + last + "/" + resourceLength;
+    }
+
+    /**
+     * Parses the specified {@code Range} header value. Overlapping and adjacent ranges are merged.
+     *
+     * @param rangeHeader    value of the {@code Range} header, e.g. {@code bytes=0-499,-500}
+     * @param resourceLength length of the requested resource
+     * @return satisfiable ranges in ascending order, an empty list if none of the ranges is satisfiable, or empty if
+     * the header is invalid and hence should be ignored
+     */
+    public static Optional<List<ByteRange>> parse(String rangeHeader, long resourceLength) {
+        if (!rangeHeader.startsWith(BYTES_UNIT)) {
+            return Optional.empty(); // Other range units are not supported.
+        }
+        String[] rangeSpecs = rangeHeader.substring(BYTES_UNIT.length()).split(",");
+        if (rangeSpecs.length > MAX_RANGES) {
+            return Optional.empty();
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(rangeSpecs.length);
+        for (String rangeSpec : rangeSpecs) {
+            rangeSpec = rangeSpec.trim();
+            int dashIndex = rangeSpec.indexOf('-');
+            if (dashIndex < 0) {
+                return Optional.empty();
+            }
+            long first, last;
+            try {
+                if (dashIndex == 0) {
+                    // bytes=-500 i.e. the last 500 bytes
+                    long suffixLength = Long.parseLong(rangeSpec.substring(1));
+                    if (suffixLength == 0) {
+                        continue; // Unsatisfiable.
+                    }
+                    first = Math.max(resourceLength - suffixLength, 0);
+                    last = resourceLength - 1;
+                } else {
+                    // bytes=500-999 OR bytes=500-
+                    first = Long.parseLong(rangeSpec.substring(0, dashIndex));
+                    if (dashIndex == rangeSpec.length() - 1) {
+                        last = resourceLength - 1;
+                    } else {
+                        last = Long.parseLong(rangeSpec.substring(dashIndex + 1));
+                        if (last < first) {
+                            return Optional.empty(); // Invalid range, e.g. bytes=500-100
+                        }
+                        last = Math.min(last, resourceLength - 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+            if ((first < 0) || (first >= resourceLength)) {
+                continue; // Unsatisfiable.
+            }
+            ranges.add(new ByteRange(first, last));
+        }
+        return Optional.of(merge(ranges));
+    }
+
+    /**
+     * Returns an input stream which reads the specified ranges of the specified file as a {@code
+     * multipart/byteranges} body. Files are opened lazily, while the stream is read.
+     *
+     * @param path           path to the file
+     * @param ranges         ranges of the file
+     * @param resourceLength length of the file
+     * @param contentType    content type of the file
+     * @param boundary       boundary string of the multipart body
+     * @return multipart body
+     */
+    public static InputStream newMultipartInputStream(Path path, List<ByteRange> ranges, long resourceLength,
+                                                      String contentType, String boundary) {
+        return newMultipartInputStream(ranges, resourceLength, contentType, boundary,
+                                       range -> newInputStream(path, range.first, range.getLength()));
+    }
+
+    /**
+     * Returns an input stream which reads the specified ranges of the specified content as a {@code
+     * multipart/byteranges} body.
+     *
+     * @param content        content of the resource
+     * @param ranges         ranges of the content
+     * @param resourceLength length of the content
+     * @param contentType    content type of the content
+     * @param boundary       boundary string of the multipart body
+     * @return multipart body
+     */
+    public static InputStream newMultipartInputStream(ByteBuffer content, List<ByteRange> ranges,
+                                                      long resourceLength, String contentType, String boundary) {
+        return newMultipartInputStream(ranges, resourceLength, contentType, boundary, range -> {
+            byte[] bytes = new byte[(int) range.getLength()];
+            ByteBuffer slice = content.duplicate();
+            slice.position(slice.position() + (int) range.first);
+            slice.get(bytes);
+            return new ByteArrayInputStream(bytes);
+        });
+    }
+
+    /**
+     * @return a random boundary string for a {@code multipart/byteranges} body
+     */
+    public static String newBoundary() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * Returns an input stream which reads the specified region of the specified file.
+     *
+     * @param path     path to the file
+     * @param position position of the first byte to read
+     * @param count    number of bytes to read
+     * @return input stream of the region
+     * @exception FileOperationException if the file cannot be opened
+     */
+    public static InputStream newInputStream(Path path, long position, long count) {
+        try {
+            FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+            fileChannel.position(position);
+            return ByteStreams.limit(Channels.newInputStream(fileChannel), count);
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot read static resource file '" + path + "'.", e);
+        }
+    }
+
+    private static InputStream newMultipartInputStream(List<ByteRange> ranges, long resourceLength,
+                                                       String contentType, String boundary,
+                                                       Function<ByteRange, InputStream> parts) {
+        List<Supplier<InputStream>> streams = new ArrayList<>(ranges.size() * 2 + 1);
+        for (ByteRange range : ranges) {
+            String partHeaders = "\r\n--" + boundary + "\r\n" +
+                    "Content-Type: " + contentType + "\r\n" +
+                    "Content-Range: " + range.getContentRange(resourceLength) + "\r\n\r\n";
+            streams.add(() -> new ByteArrayInputStream(partHeaders.getBytes(StandardCharsets.US_ASCII)));
+            streams.add(() -> parts.apply(range));
+        }
+        byte[] closeDelimiter = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        streams.add(() -> new ByteArrayInputStream(closeDelimiter));
+
+        Iterator<Supplier<InputStream>> iterator = streams.iterator();
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return iterator.next().get();
+            }
+        });
+    }
+
+    private static List<ByteRange> merge(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        Collections.sort(ranges, (r1, r2) -> Long.compare(r1.first, r2.first));
+        List<ByteRange> merged = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            ByteRange next = ranges.get(i);
+            if (next.first <= current.last + 1) {
+                current = new ByteRange(current.first, Math.max(current.last, next.last));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    @Override
+    public String toString() {
+        return "{first: " + first + ", last: " + last + "}";
+    }
+}
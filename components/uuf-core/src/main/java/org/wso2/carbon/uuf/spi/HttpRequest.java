@@ -29,6 +29,12 @@ public interface HttpRequest {
 
     String HEADER_CONTENT_TYPE = "Content-Type";
     String HEADER_CONTENT_LENGTH = "Content-Length";
+    String HEADER_ACCEPT_LANGUAGE = "Accept-Language";
+    String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    String HEADER_IF_NONE_MATCH = "If-None-Match";
+    String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    String HEADER_RANGE = "Range";
+    String HEADER_IF_RANGE = "If-Range";
 
     /**
      * Returns the name of the HTTP method with which this request was made, for example, GET, POST.
@@ -230,6 +236,10 @@ public interface HttpRequest {
         return getUriWithoutContextPath().startsWith(UriUtils.THEMES_STATIC_RESOURCES_URI_PREFIX);
     }
 
+    default boolean isBundleStaticResourceRequest() {
+        return getUriWithoutContextPath().startsWith(UriUtils.BUNDLES_URI_PREFIX);
+    }
+
     default boolean isDebugRequest() {
         return getUriWithoutContextPath().startsWith("/debug/");
     }
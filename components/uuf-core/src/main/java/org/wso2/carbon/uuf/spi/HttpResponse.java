@@ -18,14 +18,17 @@
 
 package org.wso2.carbon.uuf.spi;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Map;
 
 public interface HttpResponse {
 
     int STATUS_OK = 200;
+    int STATUS_PARTIAL_CONTENT = 206;
     int STATUS_MOVED_PERMANENTLY = 301;
     int STATUS_FOUND = 302;
     int STATUS_NOT_MODIFIED = 304;
@@ -33,6 +36,7 @@ public interface HttpResponse {
     int STATUS_UNAUTHORIZED = 401;
     int STATUS_FORBIDDEN = 403;
     int STATUS_NOT_FOUND = 404;
+    int STATUS_RANGE_NOT_SATISFIABLE = 416;
     int STATUS_INTERNAL_SERVER_ERROR = 500;
 
     String CONTENT_TYPE_WILDCARD = "*/*";
@@ -42,6 +46,14 @@ public interface HttpResponse {
     String CONTENT_TYPE_APPLICATION_JSON = "application/json";
 
     String HEADER_LOCATION = "Location";
+    String HEADER_SET_COOKIE = "Set-Cookie";
+    String HEADER_ETAG = "ETag";
+    String HEADER_LAST_MODIFIED = "Last-Modified";
+    String HEADER_CACHE_CONTROL = "Cache-Control";
+    String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    String HEADER_VARY = "Vary";
+    String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+    String HEADER_CONTENT_RANGE = "Content-Range";
 
     void setStatus(int statusCode);
 
@@ -67,8 +79,46 @@ public interface HttpResponse {
         setContent(content.toFile(), contentType);
     }
 
+    /**
+     * Sets the specified region of a file as the content. The default implementation streams the region, hence
+     * connectors which can transfer a file region directly to the connection should override this method.
+     *
+     * @param content     file to be written
+     * @param position    position of the first byte of the region
+     * @param count       number of bytes in the region
+     * @param contentType content type
+     */
+    default void setContent(Path content, long position, long count, String contentType) {
+        setContent(ByteRange.newInputStream(content, position, count), contentType);
+    }
+
     void setContent(InputStream content, String contentType);
 
+    /**
+     * Sets the remaining bytes of the specified buffer as the content. The position of the buffer is not changed. The
+     * default implementation copies the bytes, hence connectors which can write a buffer directly to the response
+     * body should override this method.
+     *
+     * @param content     content to be written
+     * @param contentType content type
+     */
+    default void setContent(ByteBuffer content, String contentType) {
+        byte[] bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+        setContent(new ByteArrayInputStream(bytes), contentType);
+    }
+
+    /**
+     * Sets a content which is written when this response is sent. The default implementation writes the content into
+     * a string, hence connectors which can stream the response body should override this method.
+     *
+     * @param content     content to be streamed
+     * @param contentType content type
+     */
+    default void setContent(StreamingContent content, String contentType) {
+        setContent(content.asString(), contentType);
+    }
+
     default void setContent(int statusCode, String content) {
         setStatus(statusCode);
         setContent(content);
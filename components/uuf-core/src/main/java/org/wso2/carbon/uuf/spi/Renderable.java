@@ -27,6 +27,30 @@ public interface Renderable {
 
     String render(Model model, Lookup lookup, RequestLookup requestLookup, API api);
 
+    /**
+     * Renders this renderable into a content which is written when it is served. Renderables which can write their
+     * output without building it into a string should override this method.
+     *
+     * @param model         model
+     * @param lookup        lookup
+     * @param requestLookup request lookup
+     * @param api           API
+     * @return rendered content
+     */
+    default StreamingContent renderStreaming(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        return StreamingContent.of(render(model, lookup, requestLookup, api));
+    }
+
+    /**
+     * Registers a listener which is notified after this renderable is updated, e.g. when its template is reloaded in
+     * dev mode. Renderables which can change after they are created should override this method.
+     *
+     * @param listener listener to notify
+     */
+    default void addUpdateListener(Runnable listener) {
+        // Renderables do not change by default, hence listeners are never notified.
+    }
+
     int hashCode();
 
     boolean equals(Object obj);
@@ -22,6 +22,7 @@ import org.wso2.carbon.uuf.api.reference.FragmentReference;
 import org.wso2.carbon.uuf.api.reference.LayoutReference;
 import org.wso2.carbon.uuf.api.reference.PageReference;
 
+import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 
@@ -43,10 +44,41 @@ public interface RenderableCreator {
 
         private final Renderable renderable;
         private final boolean isSecured;
+        private final Set<String> cacheKeyParams;
+        private final RenderableReferences references;
+        private final boolean isIndependent;
+        private final long renderTimeout;
 
         public FragmentRenderableData(Renderable renderable, boolean isSecured) {
+            this(renderable, isSecured, null);
+        }
+
+        /**
+         * @param cacheKeyParams names of the parameters which vary the output of the fragment if the fragment is
+         *                       declared as cacheable, otherwise {@code null}
+         */
+        public FragmentRenderableData(Renderable renderable, boolean isSecured, Set<String> cacheKeyParams) {
+            this(renderable, isSecured, cacheKeyParams, RenderableReferences.EMPTY);
+        }
+
+        public FragmentRenderableData(Renderable renderable, boolean isSecured, Set<String> cacheKeyParams,
+                                      RenderableReferences references) {
+            this(renderable, isSecured, cacheKeyParams, references, false, 0);
+        }
+
+        /**
+         * @param isIndependent whether the fragment is declared as independent of the other fragments of a zone
+         * @param renderTimeout maximum time in milliseconds to wait for a concurrent render of the fragment, or zero
+         *                      to use the default timeout
+         */
+        public FragmentRenderableData(Renderable renderable, boolean isSecured, Set<String> cacheKeyParams,
+                                      RenderableReferences references, boolean isIndependent, long renderTimeout) {
             this.renderable = renderable;
             this.isSecured = isSecured;
+            this.cacheKeyParams = cacheKeyParams;
+            this.references = references;
+            this.isIndependent = isIndependent;
+            this.renderTimeout = renderTimeout;
         }
 
         public Renderable getRenderable() {
@@ -56,6 +88,22 @@ public interface RenderableCreator {
         public boolean isSecured() {
             return isSecured;
         }
+
+        public Optional<Set<String>> getCacheKeyParams() {
+            return Optional.ofNullable(cacheKeyParams);
+        }
+
+        public RenderableReferences getReferences() {
+            return references;
+        }
+
+        public boolean isIndependent() {
+            return isIndependent;
+        }
+
+        public long getRenderTimeout() {
+            return renderTimeout;
+        }
     }
 
     class PageRenderableData {
@@ -63,15 +111,33 @@ public interface RenderableCreator {
         private final Renderable renderable;
         private final boolean isSecured;
         private final String layoutName;
+        private final Set<String> cacheKeyQueryParams;
+        private final RenderableReferences references;
 
         public PageRenderableData(Renderable renderable, boolean isSecured) {
             this(renderable, isSecured, null);
         }
 
         public PageRenderableData(Renderable renderable, boolean isSecured, String layoutName) {
+            this(renderable, isSecured, layoutName, null);
+        }
+
+        /**
+         * @param cacheKeyQueryParams names of the query parameters which vary the output of the page if the output of
+         *                            the page can be cached, otherwise {@code null}
+         */
+        public PageRenderableData(Renderable renderable, boolean isSecured, String layoutName,
+                                  Set<String> cacheKeyQueryParams) {
+            this(renderable, isSecured, layoutName, cacheKeyQueryParams, RenderableReferences.EMPTY);
+        }
+
+        public PageRenderableData(Renderable renderable, boolean isSecured, String layoutName,
+                                  Set<String> cacheKeyQueryParams, RenderableReferences references) {
             this.renderable = renderable;
             this.isSecured = isSecured;
             this.layoutName = layoutName;
+            this.cacheKeyQueryParams = cacheKeyQueryParams;
+            this.references = references;
         }
 
         public Renderable getRenderable() {
@@ -85,18 +151,96 @@ public interface RenderableCreator {
         public Optional<String> getLayoutName() {
             return Optional.ofNullable(layoutName);
         }
+
+        public Optional<Set<String>> getCacheKeyQueryParams() {
+            return Optional.ofNullable(cacheKeyQueryParams);
+        }
+
+        public RenderableReferences getReferences() {
+            return references;
+        }
     }
 
     class LayoutRenderableData {
 
         private final Renderable renderable;
+        private final RenderableReferences references;
 
         public LayoutRenderableData(Renderable renderable) {
+            this(renderable, RenderableReferences.EMPTY);
+        }
+
+        public LayoutRenderableData(Renderable renderable, RenderableReferences references) {
             this.renderable = renderable;
+            this.references = references;
         }
 
         public Renderable getRenderable() {
             return renderable;
         }
+
+        public RenderableReferences getReferences() {
+            return references;
+        }
+    }
+
+    /**
+     * Names of the fragments, zones and placeholders which a renderable refers to. These are known at deployment, so
+     * they can be used to validate apps and to track dependencies between renderables.
+     */
+    class RenderableReferences {
+
+        public static final RenderableReferences EMPTY = new RenderableReferences(Collections.emptySet(),
+                                                                                  Collections.emptySet(),
+                                                                                  Collections.emptySet());
+
+        private final Set<String> fragments;
+        private final Set<String> unconditionalFragments;
+        private final Set<String> zones;
+        private final Set<String> placeholders;
+
+        /**
+         * @param fragments    names of the fragments included in the renderable
+         * @param zones        names of the zones defined or filled in the renderable
+         * @param placeholders names of the placeholders defined in the renderable
+         */
+        public RenderableReferences(Set<String> fragments, Set<String> zones, Set<String> placeholders) {
+            this(fragments, Collections.emptySet(), zones, placeholders);
+        }
+
+        /**
+         * @param fragments              names of the fragments included in the renderable
+         * @param unconditionalFragments names of the fragments included whenever the renderable is rendered, i.e. not
+         *                               within a block such as {@code #if}
+         * @param zones                  names of the zones defined or filled in the renderable
+         * @param placeholders           names of the placeholders defined in the renderable
+         */
+        public RenderableReferences(Set<String> fragments, Set<String> unconditionalFragments, Set<String> zones,
+                                    Set<String> placeholders) {
+            this.fragments = Collections.unmodifiableSet(fragments);
+            this.unconditionalFragments = Collections.unmodifiableSet(unconditionalFragments);
+            this.zones = Collections.unmodifiableSet(zones);
+            this.placeholders = Collections.unmodifiableSet(placeholders);
+        }
+
+        public Set<String> getFragments() {
+            return fragments;
+        }
+
+        /**
+         * @return names of the fragments which are included whenever the renderable is rendered, a subset of {@link
+         * #getFragments()}
+         */
+        public Set<String> getUnconditionalFragments() {
+            return unconditionalFragments;
+        }
+
+        public Set<String> getZones() {
+            return zones;
+        }
+
+        public Set<String> getPlaceholders() {
+            return placeholders;
+        }
     }
 }
@@ -0,0 +1,84 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.spi;
+
+import org.wso2.carbon.uuf.exception.UUFException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A rendered content which is written to a sink when it is served, instead of being built into a {@link String}. A
+ * streaming content should be written only once.
+ *
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface StreamingContent {
+
+    /**
+     * Writes this content to the specified writer.
+     *
+     * @param writer writer to write
+     * @throws IOException if an I/O error occurred when writing
+     */
+    void writeTo(Writer writer) throws IOException;
+
+    /**
+     * Writes this content to the specified stream encoded in UTF-8. Contents which hold pre-encoded bytes should
+     * override this method.
+     *
+     * @param outputStream stream to write
+     * @throws IOException if an I/O error occurred when writing
+     */
+    default void writeTo(OutputStream outputStream) throws IOException {
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes this content into a string.
+     *
+     * @return this content as a string
+     */
+    default String asString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            throw new UUFException("An error occurred when writing a content to an in-memory writer.", e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Creates a content which writes the specified string.
+     *
+     * @param content string content
+     * @return streaming content of the string
+     */
+    static StreamingContent of(String content) {
+        return writer -> writer.write(content);
+    }
+}
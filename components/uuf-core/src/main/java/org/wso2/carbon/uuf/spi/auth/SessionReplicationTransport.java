@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.spi.auth;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Carries session replication messages between the nodes of a cluster. Implementations should be registered as OSGi
+ * services, and are used by apps which configure the {@code replicated} session store.
+ * <p>
+ * Messages are opaque byte arrays sent on named channels, one channel per app. A message sent by a node should be
+ * delivered to the receivers of the same channel in all the other nodes, or in the addressed node only, in the order
+ * it was sent. Messages are authenticated by the session stores, hence a transport need not authenticate them.
+ *
+ * @since 1.0.0
+ */
+public interface SessionReplicationTransport {
+
+    /**
+     * Sends the specified message to all the other nodes.
+     *
+     * @param channel name of the channel
+     * @param message message to send
+     */
+    void send(String channel, byte[] message);
+
+    /**
+     * Sends the specified message to the specified node only.
+     *
+     * @param channel name of the channel
+     * @param nodeId  ID of the receiving node, as passed to the receivers of that node's messages
+     * @param message message to send
+     */
+    void send(String channel, String nodeId, byte[] message);
+
+    /**
+     * Registers the specified receiver for messages sent by other nodes on the specified channel. The receiver gets
+     * the ID of the sending node and the message. A channel has only one receiver in a node, hence this replaces the
+     * previous receiver of the channel.
+     *
+     * @param channel  name of the channel
+     * @param receiver receiver of the sender node IDs and messages
+     */
+    void subscribe(String channel, BiConsumer<String, byte[]> receiver);
+
+    /**
+     * Removes the receiver of the specified channel.
+     *
+     * @param channel name of the channel
+     */
+    void unsubscribe(String channel);
+}
@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.spi.auth;
+
+import org.wso2.carbon.uuf.api.auth.Session;
+
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores the sessions of an app.
+ * <p>
+ * A store expires a session when the session is not touched within the session timeout of the store. Reading a
+ * session through {@link #get(String)} does not touch it. Accessed sessions are touched in batches through {@link
+ * #touch(Set)}, so that serving a request does not write to the store. Stores which keep copies of sessions (e.g. in
+ * a file or in other nodes) persist a session only when it is put, hence a modified session should be put again.
+ *
+ * @since 1.0.0
+ */
+public interface SessionStore extends Closeable {
+
+    /**
+     * Adds the specified session to this store, or replaces the stored session with the same ID.
+     *
+     * @param session session to store
+     */
+    void put(Session session);
+
+    /**
+     * Returns the session of the specified ID.
+     *
+     * @param sessionId session ID
+     * @return session, or empty if there is no such session or the session is expired
+     */
+    Optional<Session> get(String sessionId);
+
+    /**
+     * Marks the specified sessions as accessed now, so that they do not expire until the session timeout elapses
+     * again.
+     *
+     * @param sessionIds IDs of the accessed sessions
+     */
+    void touch(Set<String> sessionIds);
+
+    /**
+     * Removes the session of the specified ID.
+     *
+     * @param sessionId session ID
+     * @return {@code true} if the session was removed, {@code false} if there was no such session
+     */
+    boolean remove(String sessionId);
+
+    /**
+     * Removes all sessions in this store.
+     */
+    void removeAll();
+
+    /**
+     * Removes all expired sessions in this store. This is called periodically.
+     */
+    void removeExpired();
+
+    /**
+     * Releases the resources held by this store. Sessions in a persistent store remain in its storage.
+     */
+    @Override
+    void close();
+}
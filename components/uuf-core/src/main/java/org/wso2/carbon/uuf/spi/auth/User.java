@@ -27,6 +27,16 @@ public interface User extends Serializable {
 
     boolean hasPermission(String resourceUri, String action);
 
+    /**
+     * Returns a value which changes whenever the roles or permissions of this user change. Sessions discard their
+     * cached permission decisions when this value changes.
+     *
+     * @return version of the permissions of this user
+     */
+    default long getPermissionsVersion() {
+        return 0;
+    }
+
     int hashCode();
 
     boolean equals(Object obj);
@@ -0,0 +1,275 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.reference.FileReference;
+import org.wso2.carbon.uuf.api.reference.FragmentReference;
+import org.wso2.carbon.uuf.api.reference.LayoutReference;
+import org.wso2.carbon.uuf.api.reference.PageReference;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.internal.auth.SessionStoreFactory;
+import org.wso2.carbon.uuf.internal.deployment.AppCreator;
+import org.wso2.carbon.uuf.internal.io.ArtifactAppReference;
+import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.RenderableCreator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AppCreatorTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String DEPENDENCY_TREE = "artifactId: org.example.app\n" +
+            "version: 1.0.0\n" +
+            "contextPath: /app\n" +
+            "dependencies:\n" +
+            "  - artifactId: org.example.component\n" +
+            "    version: 1.0.0\n" +
+            "    contextPath: /component\n";
+
+    @Test
+    public void testCreateApp() throws IOException {
+        Path appDirectory = createApp(ImmutableMap.of("root/pages/index.test", "include:org.example.component.working",
+                                                      "component/fragments/working/working.test", ""));
+        try {
+            TestRenderableCreator renderableCreator = new TestRenderableCreator(false);
+            App app = createAppCreator(renderableCreator).createApp(new ArtifactAppReference(appDirectory), "/app");
+
+            Assert.assertEquals(app.getComponents().keySet(), ImmutableSet.of("/root", "/component"));
+            Assert.assertTrue(app.getFragments().containsKey("org.example.component.working"));
+            Assert.assertEquals(app.getComponents().get("/root").getPages().size(), 1);
+            Assert.assertFalse(renderableCreator.threadNames.isEmpty());
+            for (String threadName : renderableCreator.threadNames) {
+                Assert.assertTrue(threadName.startsWith("UUFAppCreator-"),
+                                  "Renderables should be created in the app creator threads, instead created in '" +
+                                          threadName + "'.");
+            }
+        } finally {
+            FileUtils.deleteQuietly(appDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testCancelRemainingRenderablesOnFailure() throws Exception {
+        Path appDirectory = createApp(ImmutableMap.of("root/pages/index.test", "",
+                                                      "component/fragments/broken/broken.test", ""));
+        try {
+            TestRenderableCreator renderableCreator = new TestRenderableCreator(true);
+            AppCreator appCreator = createAppCreator(renderableCreator);
+            try {
+                appCreator.createApp(new ArtifactAppReference(appDirectory), "/app");
+                Assert.fail("App with a broken fragment should not be created.");
+            } catch (UUFException e) {
+                Assert.assertEquals(e.getMessage(), "Fragment 'broken' is broken.");
+            }
+
+            // Page of the root component waits forever, unless it is stopped once the app creation fails.
+            if (renderableCreator.pageCreationStarted.getCount() == 0) {
+                Assert.assertTrue(renderableCreator.pageCreationInterrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                                  "Page creation should be interrupted when the app creation fails.");
+            }
+        } finally {
+            FileUtils.deleteQuietly(appDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testValidateFragmentReferences() throws IOException {
+        Path appDirectory = createApp(ImmutableMap.of("root/pages/index.test", "",
+                                                      "component/fragments/menu/menu.test", "include:missing"));
+        try {
+            createAppCreator(new TestRenderableCreator(false)).createApp(new ArtifactAppReference(appDirectory),
+                                                                         "/app");
+            Assert.fail("App with a fragment which refers to a non-existing fragment should not be created.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Fragment 'missing' mentioned in fragment " +
+                    "'org.example.component.menu' does not exists in component 'org.example.component' or its " +
+                    "dependencies.");
+        } finally {
+            FileUtils.deleteQuietly(appDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testSessionDependentPagesAreNotCacheable() throws IOException {
+        Map<String, String> files = ImmutableMap.<String, String>builder()
+                .put("root/pages/secured.test", "cacheable secured")
+                .put("root/pages/menu.test", "cacheable include:org.example.component.menu")
+                .put("root/pages/profile.test", "cacheable include-if:org.example.component.profile")
+                .put("root/pages/index.test", "cacheable include:org.example.component.footer")
+                .put("component/fragments/menu/menu.test", "include:profile")
+                .put("component/fragments/profile/profile.test", "secured")
+                .put("component/fragments/footer/footer.test", "")
+                .build();
+        Path appDirectory = createApp(files);
+        try {
+            App app = createAppCreator(new TestRenderableCreator(false))
+                    .createApp(new ArtifactAppReference(appDirectory), "/app");
+
+            Set<Page> pages = app.getComponents().get("/root").getPages();
+            Assert.assertFalse(getPage(pages, "/secured").isCacheable(), "Secured page should not be cacheable.");
+            Assert.assertFalse(getPage(pages, "/menu").isCacheable(),
+                               "Page which always includes a secured fragment should not be cacheable.");
+            Assert.assertTrue(getPage(pages, "/profile").isCacheable(),
+                              "Page which includes a secured fragment on a condition should be cacheable.");
+            Assert.assertTrue(getPage(pages, "/index").isCacheable());
+        } finally {
+            FileUtils.deleteQuietly(appDirectory.toFile());
+        }
+    }
+
+    private static Page getPage(Set<Page> pages, String uri) {
+        return pages.stream()
+                .filter(page -> page.getUriPatten().matches(uri))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Page '" + uri + "' does not exist."));
+    }
+
+    private static AppCreator createAppCreator(RenderableCreator renderableCreator) {
+        return new AppCreator(ImmutableSet.of(renderableCreator),
+                              (componentName, componentVersion, componentReference) ->
+                                      AppCreatorTest.class.getClassLoader(),
+                              new SessionStoreFactory());
+    }
+
+    /**
+     * Creates an app which has the 'root' component and the 'component' component.
+     *
+     * @param files contents of the rendering files, keyed by their paths relative to the components directory
+     * @return app directory
+     */
+    private static Path createApp(Map<String, String> files) throws IOException {
+        Path appDirectory = Files.createTempDirectory("uuf-app");
+        Path components = Files.createDirectory(appDirectory.resolve("components"));
+        write(components.resolve("dependency-tree.yaml"), DEPENDENCY_TREE);
+        write(components.resolve("config.yaml"), "{}");
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            write(components.resolve(file.getKey()), file.getValue());
+        }
+        return appDirectory;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Renderable creator that records its threads. Declarations and references of a renderable are read from the
+     * words in its file: {@code secured}, {@code cacheable}, {@code include:<fragment>}, and {@code
+     * include-if:<fragment>} for a fragment which is included on a condition. When broken, creating a fragment fails
+     * and creating a page waits until it is interrupted.
+     */
+    private static class TestRenderableCreator implements RenderableCreator {
+
+        private static final Renderable RENDERABLE = (model, lookup, requestLookup, api) -> "";
+
+        private final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        private final CountDownLatch pageCreationStarted = new CountDownLatch(1);
+        private final CountDownLatch pageCreationInterrupted = new CountDownLatch(1);
+        private final boolean isBroken;
+
+        TestRenderableCreator(boolean isBroken) {
+            this.isBroken = isBroken;
+        }
+
+        @Override
+        public Set<String> getSupportedFileExtensions() {
+            return ImmutableSet.of("test");
+        }
+
+        @Override
+        public FragmentRenderableData createFragmentRenderable(FragmentReference fragmentReference,
+                                                               ClassLoader classLoader) {
+            threadNames.add(Thread.currentThread().getName());
+            if (isBroken) {
+                try {
+                    // Give the page a chance to start, so that it is running when the app creation fails.
+                    pageCreationStarted.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new UUFException("Fragment '" + fragmentReference.getName() + "' is broken.");
+            }
+            Set<String> words = getWords(fragmentReference.getRenderingFile());
+            return new FragmentRenderableData(RENDERABLE, words.contains("secured"),
+                                              words.contains("cacheable") ? Collections.emptySet() : null,
+                                              getReferences(words));
+        }
+
+        @Override
+        public PageRenderableData createPageRenderable(PageReference pageReference, ClassLoader classLoader) {
+            threadNames.add(Thread.currentThread().getName());
+            pageCreationStarted.countDown();
+            if (isBroken) {
+                try {
+                    new CountDownLatch(1).await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    pageCreationInterrupted.countDown();
+                }
+            }
+            Set<String> words = getWords(pageReference.getRenderingFile());
+            return new PageRenderableData(RENDERABLE, words.contains("secured"), null,
+                                          words.contains("cacheable") ? Collections.emptySet() : null,
+                                          getReferences(words));
+        }
+
+        @Override
+        public LayoutRenderableData createLayoutRenderable(LayoutReference layoutReference) {
+            threadNames.add(Thread.currentThread().getName());
+            return new LayoutRenderableData(RENDERABLE, getReferences(getWords(layoutReference.getRenderingFile())));
+        }
+
+        private static Set<String> getWords(FileReference file) {
+            return new HashSet<>(Arrays.asList(file.getContent().trim().split("\\s+")));
+        }
+
+        private static RenderableReferences getReferences(Set<String> words) {
+            Set<String> fragments = new HashSet<>();
+            Set<String> unconditionalFragments = new HashSet<>();
+            for (String word : words) {
+                if (word.startsWith("include:")) {
+                    fragments.add(word.substring("include:".length()));
+                    unconditionalFragments.add(word.substring("include:".length()));
+                } else if (word.startsWith("include-if:")) {
+                    fragments.add(word.substring("include-if:".length()));
+                }
+            }
+            return new RenderableReferences(fragments, unconditionalFragments, Collections.emptySet(),
+                                            Collections.emptySet());
+        }
+    }
+}
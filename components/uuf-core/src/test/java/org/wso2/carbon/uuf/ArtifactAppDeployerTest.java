@@ -0,0 +1,156 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.reference.AppReference;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.internal.deployment.AppCreator;
+import org.wso2.carbon.uuf.internal.io.ArtifactAppDeployer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ArtifactAppDeployerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void testPerAppLocking() throws Exception {
+        Path appsRepository = createAppsRepository("org.example.a", "org.example.b");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch appACreationStarted = new CountDownLatch(1);
+            CountDownLatch appACreationReleased = new CountDownLatch(1);
+            TestAppCreator appCreator = new TestAppCreator("/a", appACreationStarted, appACreationReleased);
+            ArtifactAppDeployer appDeployer = new ArtifactAppDeployer(appsRepository, appCreator);
+            appDeployer.deploy();
+
+            Future<App> appA1 = executor.submit(() -> appDeployer.getApp("/a"));
+            Assert.assertTrue(appACreationStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Future<App> appA2 = executor.submit(() -> appDeployer.getApp("/a"));
+
+            // While app 'a' is being deployed, app 'b' should be deployable without waiting for app 'a'.
+            App appB = appDeployer.getApp("/b");
+            Assert.assertNotNull(appB);
+            Assert.assertEquals(appB.getContextPath(), "/b");
+            Assert.assertFalse(appA1.isDone());
+
+            appACreationReleased.countDown();
+            App app = appA1.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.assertNotNull(app);
+            Assert.assertSame(appA2.get(TIMEOUT_SECONDS, TimeUnit.SECONDS), app);
+            Assert.assertSame(appDeployer.getApp("/a"), app);
+            Assert.assertEquals(appCreator.getCreationCount("/a"), 1);
+            Assert.assertEquals(appCreator.getCreationCount("/b"), 1);
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(appsRepository.toFile());
+        }
+    }
+
+    @Test
+    public void testEagerDeployment() throws Exception {
+        Path appsRepository = createAppsRepository("org.example.a", "org.example.b");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            TestAppCreator appCreator = new TestAppCreator(null, null, null);
+            ArtifactAppDeployer appDeployer = new ArtifactAppDeployer(appsRepository, appCreator);
+
+            Map<String, CompletableFuture<App>> deployments = appDeployer.deploy(executor);
+            Assert.assertEquals(deployments.keySet(), ImmutableSet.of("/a", "/b"));
+            for (Map.Entry<String, CompletableFuture<App>> entry : deployments.entrySet()) {
+                App app = entry.getValue().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                Assert.assertEquals(app.getContextPath(), entry.getKey());
+                Assert.assertSame(appDeployer.getApp(entry.getKey()), app);
+            }
+            Assert.assertEquals(appCreator.getCreationCount("/a"), 1);
+            Assert.assertEquals(appCreator.getCreationCount("/b"), 1);
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteQuietly(appsRepository.toFile());
+        }
+    }
+
+    private static Path createAppsRepository(String... appNames) throws IOException {
+        Path appsRepository = Files.createTempDirectory("uuf-apps");
+        for (String appName : appNames) {
+            Files.createDirectory(appsRepository.resolve(appName));
+        }
+        return appsRepository;
+    }
+
+    /**
+     * App creator that counts created apps and can hold the creation of one app until it is released.
+     */
+    private static class TestAppCreator extends AppCreator {
+
+        private final String blockedContextPath;
+        private final CountDownLatch creationStarted;
+        private final CountDownLatch creationReleased;
+        private final ConcurrentMap<String, AtomicInteger> creationCounts = new ConcurrentHashMap<>();
+
+        TestAppCreator(String blockedContextPath, CountDownLatch creationStarted, CountDownLatch creationReleased) {
+            super(Collections.emptySet(), null, null);
+            this.blockedContextPath = blockedContextPath;
+            this.creationStarted = creationStarted;
+            this.creationReleased = creationReleased;
+        }
+
+        @Override
+        public App createApp(AppReference appReference, String contextPath) {
+            creationCounts.computeIfAbsent(contextPath, key -> new AtomicInteger()).incrementAndGet();
+            if (contextPath.equals(blockedContextPath)) {
+                creationStarted.countDown();
+                try {
+                    creationReleased.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            App app = mock(App.class);
+            when(app.getName()).thenReturn(appReference.getName());
+            when(app.getContextPath()).thenReturn(contextPath);
+            return app;
+        }
+
+        int getCreationCount(String contextPath) {
+            AtomicInteger count = creationCounts.get(contextPath);
+            return (count == null) ? 0 : count.get();
+        }
+    }
+}
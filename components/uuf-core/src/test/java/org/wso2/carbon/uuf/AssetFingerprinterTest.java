@@ -0,0 +1,82 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.AssetManifest;
+import org.wso2.carbon.uuf.core.Theme;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.util.AssetFingerprinter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class AssetFingerprinterTest {
+
+    @Test
+    public void testFingerprintedUri() {
+        Assert.assertEquals(AssetFingerprinter.getFingerprintedUri("/public/themes/default/css/main.css",
+                                                                   "3f2a9c1b7d4e6f80"),
+                            "/public/themes/default/css/main.3f2a9c1b7d4e6f80.css");
+        Assert.assertEquals(AssetFingerprinter.getFingerprintedUri("/public/themes/default/LICENSE",
+                                                                   "3f2a9c1b7d4e6f80"),
+                            "/public/themes/default/LICENSE.3f2a9c1b7d4e6f80");
+    }
+
+    @Test
+    public void testManifestMatchesCachedResources() throws IOException {
+        Path themeDirectory = Files.createTempDirectory("uuf-theme");
+        StaticResourceCache resourceCache = new StaticResourceCache(1024, 1024);
+        try {
+            Path cssDirectory = Files.createDirectories(themeDirectory.resolve("public").resolve("css"));
+            Path cssFile = Files.write(cssDirectory.resolve("main.css"), "body {}".getBytes(StandardCharsets.UTF_8));
+            Files.write(cssDirectory.resolve("main.css.gz"), new byte[8]);
+            Theme theme = new Theme("default", ImmutableList.of(), ImmutableList.of(), ImmutableList.of(),
+                                    themeDirectory.toString());
+
+            AssetManifest manifest = AssetFingerprinter.createManifest(ImmutableSet.of(), ImmutableSet.of(theme));
+            Assert.assertEquals(manifest.size(), 1, "Compressed variants should not be fingerprinted.");
+            String uri = "/public/themes/default/css/main.css";
+            String fingerprintedUri = manifest.getFingerprintedUri(uri);
+            Assert.assertNotEquals(fingerprintedUri, uri);
+            Assert.assertEquals(manifest.getOriginalUri(fingerprintedUri), Optional.of(uri));
+
+            // Fingerprint computed at deployment should be the same as the fingerprint of the served content.
+            Optional<String> fingerprint = resourceCache.get(cssFile).getFingerprint();
+            Assert.assertTrue(fingerprint.isPresent());
+            Assert.assertEquals(AssetFingerprinter.getFingerprintedUri(uri, fingerprint.get()), fingerprintedUri);
+
+            Files.write(cssFile, "body { margin: 0; }".getBytes(StandardCharsets.UTF_8));
+            resourceCache.invalidateAll();
+            String modifiedFingerprint = resourceCache.get(cssFile).getFingerprint().get();
+            Assert.assertNotEquals(AssetFingerprinter.getFingerprintedUri(uri, modifiedFingerprint), fingerprintedUri,
+                                   "Fingerprint of a modified file should change.");
+        } finally {
+            resourceCache.close();
+            FileUtils.deleteQuietly(themeDirectory.toFile());
+        }
+    }
+}
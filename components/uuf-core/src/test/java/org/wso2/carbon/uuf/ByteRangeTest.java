@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.spi.ByteRange;
+
+import java.util.List;
+import java.util.Optional;
+
+public class ByteRangeTest {
+
+    @Test
+    public void testSingleRanges() {
+        ByteRange range = ByteRange.parse("bytes=0-4", 10).get().get(0);
+        Assert.assertEquals(range.getContentRange(10), "bytes 0-4/10");
+
+        range = ByteRange.parse("bytes=5-", 10).get().get(0);
+        Assert.assertEquals(range.getContentRange(10), "bytes 5-9/10");
+
+        range = ByteRange.parse("bytes=-3", 10).get().get(0);
+        Assert.assertEquals(range.getContentRange(10), "bytes 7-9/10");
+
+        range = ByteRange.parse("bytes=2-100", 10).get().get(0);
+        Assert.assertEquals(range.getLength(), 8);
+    }
+
+    @Test
+    public void testMultipleRanges() {
+        List<ByteRange> ranges = ByteRange.parse("bytes=8-9, 0-2, 1-4", 10).get();
+        Assert.assertEquals(ranges.size(), 2);
+        Assert.assertEquals(ranges.get(0).getContentRange(10), "bytes 0-4/10");
+        Assert.assertEquals(ranges.get(1).getContentRange(10), "bytes 8-9/10");
+    }
+
+    @Test
+    public void testUnsatisfiableRanges() {
+        Optional<List<ByteRange>> ranges = ByteRange.parse("bytes=10-20", 10);
+        Assert.assertTrue(ranges.isPresent());
+        Assert.assertTrue(ranges.get().isEmpty());
+    }
+
+    @Test
+    public void testInvalidRanges() {
+        Assert.assertFalse(ByteRange.parse("bytes=5-1", 10).isPresent());
+        Assert.assertFalse(ByteRange.parse("bytes=a-b", 10).isPresent());
+        Assert.assertFalse(ByteRange.parse("items=0-1", 10).isPresent());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.Placeholder;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.api.model.MapModel;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Fragment;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.exception.FragmentNotFoundException;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.Renderable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeferredFragmentsTest {
+
+    private static final String FRAGMENT_NAME = Component.ROOT_COMPONENT_NAME + ".deferred";
+    private static final Pattern FALLBACK_URI = Pattern.compile("uufDeferredFallback\\(1,\"([^\"]+)\"\\)");
+
+    @Test
+    public void testDeferredFragmentWrittenAfterPage() {
+        CountDownLatch rendered = new CountDownLatch(1);
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            requestLookup.addToPlaceholder(Placeholder.js, "<script src=\"deferred.js\"></script>");
+            rendered.countDown();
+            return "<p>deferred</p>";
+        };
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        try {
+            App app = createApp(new Fragment(FRAGMENT_NAME, renderable, false), rendered, sessionRegistry);
+            String output = app.renderPage(createPageRequest(), createResponse());
+
+            Assert.assertTrue(output.startsWith("<html><body><main><div id=\"uuf-deferred-1\">"), output);
+            String content = "<div hidden id=\"uuf-deferred-1-content\"><p>deferred</p></div>";
+            Assert.assertTrue(output.indexOf("</main>") < output.indexOf(content), output);
+            // Placeholder contents of a deferred fragment are written together with it, before the end of the body.
+            Assert.assertTrue(output.indexOf(content) < output.indexOf("deferred.js"), output);
+            Assert.assertTrue(output.indexOf("deferred.js") < output.indexOf("</body>"), output);
+            Assert.assertTrue(output.endsWith("</body></html>"), output);
+            Assert.assertFalse(output.contains("uufDeferredFallback(1,"), output);
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    @Test
+    public void testRenderingFragmentHandedOver() throws InterruptedException {
+        CountDownLatch pageWritten = new CountDownLatch(1);
+        AtomicInteger renderCount = new AtomicInteger();
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            renderCount.incrementAndGet();
+            try {
+                pageWritten.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "<p>" + model.toMap().get("name") + "</p>";
+        };
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        try {
+            App app = createApp(new Fragment(FRAGMENT_NAME, renderable, false), null, sessionRegistry);
+            String output = app.renderPage(createPageRequest(), createResponse());
+            pageWritten.countDown();
+
+            // Page is written without waiting for the fragment, which is then taken by the fragments endpoint.
+            Assert.assertFalse(output.contains("alice"), output);
+            Matcher matcher = FALLBACK_URI.matcher(output);
+            Assert.assertTrue(matcher.find(), output);
+            Assert.assertTrue(output.indexOf(matcher.group()) < output.indexOf("</body>"), output);
+            String fallbackId = matcher.group(1).substring(matcher.group(1).indexOf('=') + 1);
+            Assert.assertEquals(app.renderFragment(createFragmentRequest(fallbackId), createResponse()),
+                                "<p>alice</p>");
+            Assert.assertEquals(renderCount.get(), 1, "Fragment should not be rendered again.");
+        } finally {
+            pageWritten.countDown();
+            sessionRegistry.close();
+        }
+    }
+
+    @Test
+    public void testFallbackWithPageModel() {
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            requestLookup.getResponse().setHeader("X-Deferred", "true");
+            return "<p>" + model.toMap().get("name") + "</p>";
+        };
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        try {
+            App app = createApp(new Fragment(FRAGMENT_NAME, renderable, false), null, sessionRegistry);
+            HttpResponse pageResponse = createResponse();
+            String output = app.renderPage(createPageRequest(), pageResponse);
+
+            // Response is already sent when a deferred fragment is written, hence the fragment is loaded separately.
+            verify(pageResponse, never()).setHeader("X-Deferred", "true");
+            Assert.assertFalse(output.contains("alice"),
+                               "Parameters of a deferred fragment should not be written to the page.");
+            Matcher matcher = FALLBACK_URI.matcher(output);
+            Assert.assertTrue(matcher.find(), output);
+            String prefix = "/test/fragments/" + FRAGMENT_NAME + "?uuf-deferred=";
+            Assert.assertTrue(matcher.group(1).startsWith(prefix), matcher.group(1));
+            String fallbackId = matcher.group(1).substring(prefix.length());
+
+            HttpResponse fragmentResponse = createResponse();
+            Assert.assertEquals(app.renderFragment(createFragmentRequest(fallbackId), fragmentResponse),
+                                "<p>alice</p>");
+            verify(fragmentResponse).setHeader("X-Deferred", "true");
+            try {
+                app.renderFragment(createFragmentRequest(fallbackId), createResponse());
+                Assert.fail("Model of a deferred fragment should be usable only once.");
+            } catch (FragmentNotFoundException e) {
+                // Expected.
+            }
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    @Test
+    public void testTimedOutFragmentFallsBack() {
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "<p>slow</p>";
+        };
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        try {
+            App app = createApp(new Fragment(FRAGMENT_NAME, renderable, false, null, false, 100), null,
+                                sessionRegistry);
+            long startTime = System.currentTimeMillis();
+            String output = app.renderPage(createPageRequest(), createResponse());
+
+            Assert.assertTrue((System.currentTimeMillis() - startTime) < 5000, "Page should not wait for a slow fragment.");
+            Assert.assertFalse(output.contains("<p>slow</p>"), output);
+            Assert.assertTrue(FALLBACK_URI.matcher(output).find(), output);
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    private static App createApp(Fragment fragment, CountDownLatch rendered, SessionRegistry sessionRegistry) {
+        Page page = new Page(new UriPatten("/index"), (model, lookup, requestLookup, api) -> {
+            Map<String, Object> params = new HashMap<>();
+            params.put("name", "alice");
+            String placeholder = requestLookup.getDeferredFragments().get()
+                    .defer(fragment, new MapModel(params), lookup, api);
+            if (rendered != null) {
+                // Deferred fragment should complete while the page is rendered, in order to be written with it.
+                try {
+                    rendered.await(5, TimeUnit.SECONDS);
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "<html><body><main>" + placeholder + "</main></body></html>";
+        }, false);
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, ImmutableSortedSet.of(page), null);
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Test App")));
+        lookup.add(component);
+        lookup.add(fragment);
+        return new App("test-app", "/test", lookup, Collections.emptySet(), sessionRegistry);
+    }
+
+    private static HttpRequest createPageRequest() {
+        return createRequest("/index", Collections.emptyMap());
+    }
+
+    private static HttpRequest createFragmentRequest(String fallbackId) {
+        Map<String, Object> queryParams = ImmutableMap.of("uuf-deferred", fallbackId);
+        return createRequest("/fragments/" + FRAGMENT_NAME, queryParams);
+    }
+
+    private static HttpRequest createRequest(String uriWithoutContextPath, Map<String, Object> queryParams) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUriWithoutContextPath()).thenReturn(uriWithoutContextPath);
+        when(request.getQueryParams()).thenReturn(queryParams);
+        when(request.getHeaders()).thenReturn(Collections.emptyMap());
+        return request;
+    }
+
+    private static HttpResponse createResponse() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(new HashMap<>());
+        return response;
+    }
+}
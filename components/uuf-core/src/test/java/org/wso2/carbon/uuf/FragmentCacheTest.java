@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.Placeholder;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.api.model.MapModel;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Fragment;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.Renderable;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FragmentCacheTest {
+
+    private static final String FRAGMENT_NAME = Component.ROOT_COMPONENT_NAME + ".cached";
+
+    @Test
+    public void testCachedFragmentOutputs() {
+        AtomicInteger renderCount = new AtomicInteger();
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        Session alice = new Session(new TestUser("alice"));
+        Session bob = new Session(new TestUser("bob"));
+        sessionRegistry.addSession(alice);
+        sessionRegistry.addSession(bob);
+        try {
+            App app = createApp(renderCount, sessionRegistry);
+            Assert.assertEquals(app.renderPage(createRequest(alice, "1", null), createResponse()),
+                                "alice-1|zone-1|<script>1</script>");
+            // Same user and parameter, hence served from the fragment cache with its placeholder and zone contents.
+            Assert.assertEquals(app.renderPage(createRequest(alice, "1", null), createResponse()),
+                                "alice-1|zone-1|<script>1</script>");
+            Assert.assertEquals(renderCount.get(), 1);
+            // Different parameter, hence rendered again.
+            Assert.assertEquals(app.renderPage(createRequest(alice, "2", null), createResponse()),
+                                "alice-2|zone-2|<script>2</script>");
+            Assert.assertEquals(renderCount.get(), 2);
+            // Different user, hence rendered again.
+            Assert.assertEquals(app.renderPage(createRequest(bob, "1", null), createResponse()),
+                                "bob-1|zone-1|<script>1</script>");
+            Assert.assertEquals(renderCount.get(), 3);
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    @Test
+    public void testCachedFragmentOutputsOfSameLocale() {
+        AtomicInteger renderCount = new AtomicInteger();
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        Session alice = new Session(new TestUser("alice"));
+        sessionRegistry.addSession(alice);
+        try {
+            App app = createApp(renderCount, sessionRegistry);
+            app.renderPage(createRequest(alice, "1", "fr-CA,fr;q=0.8"), createResponse());
+            app.renderPage(createRequest(alice, "1", "de"), createResponse());
+            Assert.assertEquals(renderCount.get(), 1,
+                                "Accept-Language headers which resolve to the same locale should share the output.");
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    private static App createApp(AtomicInteger renderCount, SessionRegistry sessionRegistry) {
+        Renderable fragmentRenderable = (model, lookup, requestLookup, api) -> {
+            renderCount.incrementAndGet();
+            Object id = model.toMap().get("id");
+            requestLookup.addToPlaceholder(Placeholder.js, "<script>" + id + "</script>");
+            requestLookup.putToZone("sidebar", "zone-" + id);
+            return api.getSession().get().getUser().getUsername() + "-" + id;
+        };
+        Fragment fragment = new Fragment(FRAGMENT_NAME, fragmentRenderable, false, ImmutableSet.of("id"));
+        Renderable pageRenderable = (model, lookup, requestLookup, api) -> {
+            Object id = requestLookup.getRequest().getQueryParams().get("id");
+            String output = fragment.render(new MapModel(ImmutableMap.of("id", id)), lookup, requestLookup, api);
+            return output + "|" + requestLookup.getZoneContent("sidebar").orElse("") + "|" +
+                    requestLookup.getPlaceholderContent(Placeholder.js).orElse("");
+        };
+        Page page = new Page(new UriPatten("/devices"), pageRenderable, false);
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, ImmutableSortedSet.of(page), null);
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Test App")));
+        lookup.add(component);
+        lookup.add(fragment);
+        return new App("test-app", "/test", lookup, Collections.emptySet(), sessionRegistry);
+    }
+
+    private static HttpRequest createRequest(Session session, String id, String acceptLanguage) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUriWithoutContextPath()).thenReturn("/devices");
+        when(request.getQueryParams()).thenReturn(ImmutableMap.of("id", id));
+        when(request.getHeaders()).thenReturn((acceptLanguage == null) ? Collections.emptyMap() :
+                                                      ImmutableMap.of(HttpRequest.HEADER_ACCEPT_LANGUAGE,
+                                                                      acceptLanguage));
+        when(request.getCookieValue(SessionRegistry.SESSION_COOKIE_NAME)).thenReturn(session.getSessionId());
+        return request;
+    }
+
+    private static HttpResponse createResponse() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(Collections.emptyMap());
+        return response;
+    }
+}
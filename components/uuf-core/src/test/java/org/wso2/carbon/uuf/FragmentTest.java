@@ -19,6 +19,7 @@ package org.wso2.carbon.uuf;
 import com.google.common.collect.ImmutableSetMultimap;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.config.Configuration;
 import org.wso2.carbon.uuf.core.Component;
 import org.wso2.carbon.uuf.core.Fragment;
 import org.wso2.carbon.uuf.core.Lookup;
@@ -34,7 +35,7 @@ public class FragmentTest {
         final String content = "Hello world from a fragment!";
         Renderable renderable = (model, componentLookup, requestLookup, api) -> content;
         Component component = new Component("test.component-name", null, null, Collections.emptySortedSet(), null);
-        Lookup lookup = new Lookup(ImmutableSetMultimap.of(), null);
+        Lookup lookup = new Lookup(ImmutableSetMultimap.of(), new Configuration(Collections.emptyMap()));
         lookup.add(component);
         RequestLookup requestLookup = new RequestLookup("/context-path", null, null);
         Fragment fragment = new Fragment("test.component-name.fragmentName", renderable, false);
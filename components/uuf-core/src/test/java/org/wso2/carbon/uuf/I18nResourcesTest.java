@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.I18nResources;
+
+import java.util.Properties;
+
+public class I18nResourcesTest {
+
+    private static I18nResources createI18nResources() {
+        Properties enUs = new Properties();
+        enUs.setProperty("welcome", "Welcome");
+        enUs.setProperty("greeting", "Hello {0}, you have {1} messages");
+        enUs.setProperty("color", "Color");
+        Properties en = new Properties();
+        en.setProperty("color", "Colour");
+        Properties fr = new Properties();
+        fr.setProperty("welcome", "Bienvenue");
+        Properties frCa = new Properties();
+        frCa.setProperty("greeting", "Bonjour {0}");
+        return new I18nResources(ImmutableMap.of("en_US", enUs, "en", en, "fr", fr, "fr_CA", frCa));
+    }
+
+    @Test
+    public void testLocaleNegotiation() {
+        I18nResources i18nResources = createI18nResources();
+        Assert.assertEquals(i18nResources.negotiateLocale(null), "en_US");
+        Assert.assertEquals(i18nResources.negotiateLocale("fr-CA"), "fr_CA");
+        Assert.assertEquals(i18nResources.negotiateLocale("fr-BE"), "fr");
+        Assert.assertEquals(i18nResources.negotiateLocale("de, en;q=0.5, fr;q=0.8"), "fr");
+        Assert.assertEquals(i18nResources.negotiateLocale("fr;q=0, en-GB"), "en");
+        Assert.assertEquals(i18nResources.negotiateLocale("de"), "en_US");
+        Assert.assertEquals(i18nResources.negotiateLocale("*"), "en_US");
+    }
+
+    @Test
+    public void testFallbackChains() {
+        I18nResources i18nResources = createI18nResources();
+        Assert.assertEquals(i18nResources.getMessage("fr_CA", "greeting").format("Marie"), "Bonjour Marie");
+        Assert.assertEquals(i18nResources.getMessage("fr_CA", "welcome").format(), "Bienvenue");
+        Assert.assertEquals(i18nResources.getMessage("fr_CA", "color").format(), "Color");
+        Assert.assertEquals(i18nResources.getMessage("en", "color").format(), "Colour");
+        Assert.assertEquals(i18nResources.getMessage("en_US", "color").format(), "Color");
+        Assert.assertEquals(i18nResources.getMessage("de", "welcome").format(), "Welcome");
+        Assert.assertNull(i18nResources.getMessage("en_US", "missing"));
+    }
+
+    @Test
+    public void testParameterizedMessages() {
+        I18nResources.Message message = createI18nResources().getMessage("en_US", "greeting");
+        Assert.assertTrue(message.isParameterized());
+        Assert.assertEquals(message.format("Alice", 3), "Hello Alice, you have 3 messages");
+        Assert.assertEquals(message.format("Alice"), "Hello Alice, you have {1} messages");
+    }
+
+    @Test
+    public void testQuotedMessages() {
+        Properties properties = new Properties();
+        properties.setProperty("owner", "It''s {0}''s turn");
+        properties.setProperty("quoted", "'{0}' is replaced with {1}");
+        properties.setProperty("unparameterized", "It''s '{0}', don't panic");
+        I18nResources i18nResources = new I18nResources(ImmutableMap.of("en", properties));
+
+        Assert.assertEquals(i18nResources.getMessage("en", "owner").format("Bob"), "It's Bob's turn");
+        Assert.assertEquals(i18nResources.getMessage("en", "quoted").format("a", "b"), "{0} is replaced with b");
+        I18nResources.Message message = i18nResources.getMessage("en", "unparameterized");
+        Assert.assertFalse(message.isParameterized());
+        Assert.assertEquals(message.format("a"), "It''s '{0}', don't panic");
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import org.wso2.carbon.uuf.spi.auth.SessionReplicationTransport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * A session replication transport which delivers messages synchronously to connected transports in the same JVM, for
+ * testing replication.
+ */
+public class LoopbackSessionReplicationTransport implements SessionReplicationTransport {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<LoopbackSessionReplicationTransport> peers = new CopyOnWriteArrayList<>();
+    private final Map<String, BiConsumer<String, byte[]>> receivers = new ConcurrentHashMap<>();
+    private int sentMessagesCount;
+
+    /**
+     * Connects this transport and the specified transport to each other.
+     *
+     * @param other transport to connect
+     */
+    public void connect(LoopbackSessionReplicationTransport other) {
+        if ((other != this) && !peers.contains(other)) {
+            peers.add(other);
+            other.connect(this);
+        }
+    }
+
+    /**
+     * @return number of messages sent through this transport, counting a broadcast message once per receiving node
+     */
+    public int getSentMessagesCount() {
+        return sentMessagesCount;
+    }
+
+    @Override
+    public void send(String channel, byte[] message) {
+        for (LoopbackSessionReplicationTransport peer : peers) {
+            deliver(peer, channel, message);
+        }
+    }
+
+    @Override
+    public void send(String channel, String nodeId, byte[] message) {
+        for (LoopbackSessionReplicationTransport peer : peers) {
+            if (peer.nodeId.equals(nodeId)) {
+                deliver(peer, channel, message);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, BiConsumer<String, byte[]> receiver) {
+        receivers.put(channel, receiver);
+    }
+
+    @Override
+    public void unsubscribe(String channel) {
+        receivers.remove(channel);
+    }
+
+    private void deliver(LoopbackSessionReplicationTransport peer, String channel, byte[] message) {
+        BiConsumer<String, byte[]> receiver = peer.receivers.get(channel);
+        if (receiver != null) {
+            sentMessagesCount++;
+            receiver.accept(nodeId, message.clone());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.API;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PageCacheTest {
+
+    @Test
+    public void testCachedPageOutputs() {
+        CountingRenderable renderable = new CountingRenderable();
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        try {
+            App app = createApp("test-app", renderable, sessionRegistry);
+            Assert.assertEquals(app.renderPage(createRequest("1"), createResponse()), "1");
+            // Same query parameter, hence served from the page cache.
+            Assert.assertEquals(app.renderPage(createRequest("1"), createResponse()), "1");
+            Assert.assertEquals(renderable.renderCount.get(), 1);
+            // Different query parameter, hence rendered again.
+            Assert.assertEquals(app.renderPage(createRequest("2"), createResponse()), "2");
+            Assert.assertEquals(renderable.renderCount.get(), 2);
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    @Test
+    public void testUpdatedRenderableInvalidatesOnlyItsApp() {
+        CountingRenderable renderable = new CountingRenderable();
+        CountingRenderable otherRenderable = new CountingRenderable();
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        SessionRegistry otherSessionRegistry = new SessionRegistry("other-app");
+        try {
+            App app = createApp("test-app", renderable, sessionRegistry);
+            App otherApp = createApp("other-app", otherRenderable, otherSessionRegistry);
+            app.renderPage(createRequest("1"), createResponse());
+            otherApp.renderPage(createRequest("1"), createResponse());
+
+            renderable.update(); // e.g. template of the page is reloaded in dev mode
+            app.renderPage(createRequest("1"), createResponse());
+            otherApp.renderPage(createRequest("1"), createResponse());
+            Assert.assertEquals(renderable.renderCount.get(), 2,
+                                "Page cache of the updated app should be invalidated.");
+            Assert.assertEquals(otherRenderable.renderCount.get(), 1,
+                                "Page cache of the other app should not be invalidated.");
+        } finally {
+            sessionRegistry.close();
+            otherSessionRegistry.close();
+        }
+    }
+
+    private static App createApp(String appName, Renderable renderable, SessionRegistry sessionRegistry) {
+        Page page = new Page(new UriPatten("/devices"), renderable, false, null, ImmutableSet.of("id"));
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, ImmutableSortedSet.of(page), null);
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", appName)));
+        lookup.add(component);
+        return new App(appName, "/test", lookup, Collections.emptySet(), sessionRegistry);
+    }
+
+    private static HttpRequest createRequest(String id) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUriWithoutContextPath()).thenReturn("/devices");
+        when(request.getQueryParams()).thenReturn(ImmutableMap.of("id", id));
+        when(request.getHeaders()).thenReturn(Collections.emptyMap());
+        return request;
+    }
+
+    private static HttpResponse createResponse() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(Collections.emptyMap());
+        return response;
+    }
+
+    private static class CountingRenderable implements Renderable {
+
+        private final AtomicInteger renderCount = new AtomicInteger();
+        private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+            renderCount.incrementAndGet();
+            return String.valueOf(requestLookup.getRequest().getQueryParams().get("id"));
+        }
+
+        @Override
+        public void addUpdateListener(Runnable listener) {
+            updateListeners.add(listener);
+        }
+
+        private void update() {
+            updateListeners.forEach(Runnable::run);
+        }
+    }
+}
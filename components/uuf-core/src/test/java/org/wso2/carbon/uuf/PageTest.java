@@ -19,13 +19,19 @@ package org.wso2.carbon.uuf;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Layout;
 import org.wso2.carbon.uuf.core.Lookup;
 import org.wso2.carbon.uuf.core.Page;
 import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.spi.Renderable;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -46,4 +52,55 @@ public class PageTest {
         String output = page.render(null, lookup, requestLookup, null);
         Assert.assertEquals(output, content);
     }
+
+    @Test
+    public void testRenderPageStreaming() throws IOException {
+        final String content = "Hello world from a page!";
+        AtomicInteger renderCount = new AtomicInteger();
+        Renderable renderable = (model, componentLookup, requestLookup, api) -> {
+            renderCount.incrementAndGet();
+            return content;
+        };
+        Page page = new Page(null, renderable, false);
+
+        RequestLookup requestLookup = new RequestLookup("/context-path", null, null);
+        StreamingContent output = page.renderStreaming(null, createLookup(), requestLookup, null);
+        // The whole page is rendered before it is written, so that errors and redirects can still be sent.
+        Assert.assertEquals(renderCount.get(), 1);
+        StringWriter writer = new StringWriter();
+        output.writeTo(writer);
+        Assert.assertEquals(writer.toString(), content);
+    }
+
+    @Test
+    public void testRenderPageStreamingWithLayout() {
+        Renderable pageRenderable = (model, componentLookup, requestLookup, api) -> {
+            requestLookup.putToZone("content", "Hello world from a page!");
+            return "";
+        };
+        Renderable layoutRenderable = (model, componentLookup, requestLookup, api) ->
+                "<body>" + requestLookup.getZoneContent("content").orElse("") + "</body>";
+        Page page = new Page(null, pageRenderable, false, new Layout("test.component.main", layoutRenderable));
+
+        RequestLookup requestLookup = new RequestLookup("/context-path", null, null);
+        StreamingContent output = page.renderStreaming(null, createLookup(), requestLookup, null);
+        Assert.assertEquals(output.asString(), "<body>Hello world from a page!</body>");
+    }
+
+    @Test(expectedExceptions = UUFException.class)
+    public void testRenderPageStreamingFailsBeforeWriting() {
+        Renderable renderable = (model, componentLookup, requestLookup, api) -> {
+            throw new UUFException("Cannot render page.");
+        };
+        Page page = new Page(null, renderable, false);
+
+        page.renderStreaming(null, createLookup(), new RequestLookup("/context-path", null, null), null);
+    }
+
+    private static Lookup createLookup() {
+        Component component = new Component("test.component", null, null, Collections.emptySortedSet(), null);
+        Lookup lookup = mock(Lookup.class);
+        when(lookup.getComponent(any())).thenReturn(Optional.of(component));
+        return lookup;
+    }
 }
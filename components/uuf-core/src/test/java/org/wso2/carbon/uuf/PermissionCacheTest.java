@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.auth.PermissionCacheStatistics;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PermissionCacheTest {
+
+    @Test
+    public void testPermissionDecisionsOfRequests() {
+        AtomicInteger permissionChecks = new AtomicInteger();
+        User user = new TestUser("alice") {
+            @Override
+            public boolean hasPermission(String resourceUri, String action) {
+                permissionChecks.incrementAndGet();
+                return "view".equals(action);
+            }
+        };
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app");
+        Session session = new Session(user);
+        sessionRegistry.addSession(session);
+        App app = createApp(sessionRegistry);
+        PermissionCacheStatistics statistics = app.getPermissionCacheStatistics();
+        try {
+            Assert.assertEquals(app.renderPage(createRequest(session), createResponse()), "true,true,false");
+            Assert.assertEquals(permissionChecks.get(), 2, "Each permission should be evaluated once per request.");
+            Assert.assertEquals(statistics.getRequestHitCount(), 1);
+            Assert.assertEquals(statistics.getSessionHitCount(), 0);
+            Assert.assertEquals(statistics.getMissCount(), 2);
+
+            // Decisions of the previous request are served from the session.
+            Assert.assertEquals(app.renderPage(createRequest(session), createResponse()), "true,true,false");
+            Assert.assertEquals(permissionChecks.get(), 2);
+            Assert.assertEquals(statistics.getRequestHitCount(), 2);
+            Assert.assertEquals(statistics.getSessionHitCount(), 2);
+            Assert.assertEquals(statistics.getMissCount(), 2);
+
+            // Statistics are kept per app.
+            SessionRegistry otherSessionRegistry = new SessionRegistry("other-app");
+            Assert.assertEquals(createApp(otherSessionRegistry).getPermissionCacheStatistics().getMissCount(), 0);
+            otherSessionRegistry.close();
+        } finally {
+            sessionRegistry.close();
+        }
+    }
+
+    private static App createApp(SessionRegistry sessionRegistry) {
+        Page page = new Page(new UriPatten("/devices"), (model, lookup, requestLookup, api) ->
+                api.hasPermission("/devices", "view") + "," + api.hasPermission("/devices", "view") + "," +
+                        api.hasPermission("/devices", "edit"), false);
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, ImmutableSortedSet.of(page), null);
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Test App")));
+        lookup.add(component);
+        return new App("test-app", "/test", lookup, Collections.emptySet(), sessionRegistry);
+    }
+
+    private static HttpRequest createRequest(Session session) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUriWithoutContextPath()).thenReturn("/devices");
+        when(request.getQueryParams()).thenReturn(Collections.emptyMap());
+        when(request.getHeaders()).thenReturn(Collections.emptyMap());
+        when(request.getCookieValue(SessionRegistry.SESSION_COOKIE_NAME)).thenReturn(session.getSessionId());
+        return request;
+    }
+
+    private static HttpResponse createResponse() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(Collections.emptyMap());
+        return response;
+    }
+}
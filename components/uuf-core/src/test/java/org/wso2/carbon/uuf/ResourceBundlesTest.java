@@ -0,0 +1,121 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.ResourceBundles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+public class ResourceBundlesTest {
+
+    private static final String BUNDLES_URI_PREFIX = "/public/bundles/";
+
+    @Test
+    public void testBundleUri() {
+        List<String> resourceUris = ImmutableList.of("/public/themes/default/css/main.3f2a9c1b7d4e6f80.css",
+                                                     "/public/components/root/base/css/style.css");
+        Optional<String> bundleUri = new ResourceBundles().getBundleUri(resourceUris, "css");
+        Assert.assertTrue(bundleUri.isPresent());
+        Assert.assertTrue(bundleUri.get().startsWith(BUNDLES_URI_PREFIX));
+        Assert.assertTrue(bundleUri.get().endsWith(".css"));
+        Assert.assertEquals(new ResourceBundles().getBundleUri(resourceUris, "css"), bundleUri,
+                            "Same resources should always get the same bundle URI.");
+
+        // Resources are derived from the bundle URI alone, e.g. in another node or after a restart.
+        String bundleName = bundleUri.get().substring(BUNDLES_URI_PREFIX.length());
+        Assert.assertEquals(new ResourceBundles().getResourceUris(bundleName), Optional.of(resourceUris));
+    }
+
+    @Test
+    public void testInvalidBundleNames() {
+        ResourceBundles resourceBundles = new ResourceBundles();
+        Assert.assertFalse(resourceBundles.getResourceUris("abcdef").isPresent());
+        Assert.assertFalse(resourceBundles.getResourceUris("abc$def.css").isPresent());
+        Assert.assertFalse(resourceBundles.getResourceUris("0123456789abcdef.css").isPresent());
+
+        String bundleUri = resourceBundles.getBundleUri(ImmutableList.of("/public/themes/default/js/main.js"), "js")
+                .get();
+        String bundleName = bundleUri.substring(BUNDLES_URI_PREFIX.length());
+        Assert.assertFalse(resourceBundles.getResourceUris(bundleName.replace(".js", ".html")).isPresent());
+        Assert.assertFalse(resourceBundles.getResourceUris(bundleName.substring(0, 4) + ".js").isPresent());
+
+        // Only static resources of components and themes can be bundled.
+        String otherBundleUri = resourceBundles.getBundleUri(ImmutableList.of("/fragments/secret"), "js").get();
+        Assert.assertFalse(resourceBundles.getResourceUris(otherBundleUri.substring(BUNDLES_URI_PREFIX.length()))
+                                   .isPresent());
+    }
+
+    @Test
+    public void testLongBundleUri() {
+        List<String> resourceUris = new ArrayList<>();
+        Random random = new Random(7919);
+        for (int i = 0; i < ResourceBundles.MAX_BUNDLED_RESOURCES; i++) {
+            byte[] name = new byte[48];
+            random.nextBytes(name);
+            resourceUris.add("/public/components/root/base/js/" + Base64.getUrlEncoder().encodeToString(name) + ".js");
+        }
+        Assert.assertFalse(new ResourceBundles().getBundleUri(resourceUris, "js").isPresent(),
+                           "Resources which do not fit into a bundle URI should not be bundled.");
+    }
+
+    @Test
+    public void testTooManyOrRepeatedResources() {
+        ResourceBundles resourceBundles = new ResourceBundles();
+        List<String> resourceUris = new ArrayList<>();
+        for (int i = 0; i <= ResourceBundles.MAX_BUNDLED_RESOURCES; i++) {
+            resourceUris.add("/public/components/root/base/js/" + i + ".js");
+        }
+        Assert.assertFalse(resourceBundles.getBundleUri(resourceUris, "js").isPresent());
+        Assert.assertTrue(resourceBundles.getBundleUri(resourceUris.subList(1, resourceUris.size()), "js")
+                                  .isPresent());
+        Assert.assertFalse(resourceBundles.getBundleUri(ImmutableList.of("/public/themes/default/js/main.js",
+                                                                         "/public/themes/default/js/main.js"), "js")
+                                   .isPresent());
+
+        // A client-encoded name which repeats a resource to amplify a single request is rejected.
+        String bundleName = encode(String.join("\n", Collections.nCopies(100, "/public/themes/default/js/main.js")));
+        Assert.assertFalse(resourceBundles.getResourceUris(bundleName + ".js").isPresent());
+        bundleName = encode(String.join("\n", resourceUris));
+        Assert.assertFalse(resourceBundles.getResourceUris(bundleName + ".js").isPresent());
+        bundleName = encode(String.join("\n", resourceUris.subList(1, resourceUris.size())));
+        Assert.assertTrue(resourceBundles.getResourceUris(bundleName + ".js").isPresent());
+    }
+
+    private static String encode(String resourceUris) {
+        // Encodes without the dictionary used by ResourceBundles, as a client could.
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] buffer = new byte[8 * 1024];
+        deflater.setInput(resourceUris.getBytes(StandardCharsets.UTF_8));
+        deflater.finish();
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(buffer, length));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.internal.auth.SessionCookieCodec;
+import org.wso2.carbon.uuf.internal.auth.SignedCookieSessionRegistry;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SessionCookieTest {
+
+    private static final long TIMEOUT = 60000;
+    private static final long MAX_LIFETIME = 300000;
+
+    @Test
+    public void testEncodeAndDecode() {
+        byte[] key = SessionCookieCodec.newKey();
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(key));
+        Session session = new Session(new TestUser("alice"));
+        session.setThemeName("org.wso2.carbon.uuf.sample.theme");
+        String cookieValue = codec.encode(session, 21L, 42L);
+
+        Optional<SessionCookieCodec.DecodedSession> decodedSession = codec.decode(cookieValue);
+        Assert.assertTrue(decodedSession.isPresent());
+        Assert.assertEquals(decodedSession.get().getCreatedTime(), 21L);
+        Assert.assertEquals(decodedSession.get().getIssuedTime(), 42L);
+        Assert.assertEquals(decodedSession.get().getSession(), session);
+        Assert.assertEquals(decodedSession.get().getSession().getUser().getUsername(), "alice");
+        Assert.assertEquals(decodedSession.get().getSession().getThemeName(), "org.wso2.carbon.uuf.sample.theme");
+
+        char[] tampered = cookieValue.toCharArray();
+        tampered[tampered.length / 2] = (tampered[tampered.length / 2] == 'A') ? 'B' : 'A';
+        Assert.assertFalse(codec.decode(new String(tampered)).isPresent());
+        Assert.assertFalse(codec.decode("not a cookie").isPresent());
+
+        SessionCookieCodec otherAppCodec = new SessionCookieCodec("other-app", ImmutableList.of(key));
+        Assert.assertFalse(otherAppCodec.decode(cookieValue).isPresent(), "Cookies of another app should be rejected.");
+    }
+
+    @Test
+    public void testLargeUser() {
+        Set<String> permissions = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            permissions.add("/devices/" + i + ":view");
+        }
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        // Permissions alone are more than a cookie can hold verbatim.
+        String cookieValue = codec.encode(new Session(new TestUser("alice", permissions)), 42L);
+
+        Optional<SessionCookieCodec.DecodedSession> decodedSession = codec.decode(cookieValue);
+        Assert.assertTrue(decodedSession.isPresent());
+        Assert.assertTrue(decodedSession.get().getSession().getUser().hasPermission("/devices/299", "view"));
+    }
+
+    @Test
+    public void testKeyRotation() {
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        Session session = new Session(new TestUser("alice"));
+        String oldCookieValue = codec.encode(session, System.currentTimeMillis());
+        codec.rotate(SessionCookieCodec.newKey());
+        Assert.assertTrue(codec.decode(oldCookieValue).isPresent(), "Cookies of a previous key should be accepted.");
+
+        for (int i = 0; i < SessionCookieCodec.MAX_KEYS; i++) {
+            codec.rotate(SessionCookieCodec.newKey());
+        }
+        Assert.assertFalse(codec.decode(oldCookieValue).isPresent(), "Cookies of a dropped key should be rejected.");
+    }
+
+    @Test
+    public void testRevocation() {
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        SignedCookieSessionRegistry sessionRegistry = new SignedCookieSessionRegistry("test-app", codec, TIMEOUT,
+                                                                                      MAX_LIFETIME, true);
+        Session session = new Session(new TestUser("alice"));
+        sessionRegistry.addSession(session);
+        String cookieValue = sessionRegistry.getSessionCookieValue(session);
+        Assert.assertEquals(sessionRegistry.getSession(cookieValue), Optional.of(session));
+        Assert.assertFalse(sessionRegistry.renewSessionCookieValue(cookieValue).isPresent());
+
+        sessionRegistry.removeSession(session);
+        Assert.assertFalse(sessionRegistry.getSession(cookieValue).isPresent());
+
+        // Session can be revoked by its ID alone, e.g. by an administrator.
+        Session otherSession = new Session(new TestUser("bob"));
+        String otherCookieValue = sessionRegistry.getSessionCookieValue(otherSession);
+        Assert.assertTrue(sessionRegistry.getSession(otherCookieValue).isPresent());
+        Assert.assertTrue(sessionRegistry.removeSession(otherSession.getSessionId()));
+        Assert.assertFalse(sessionRegistry.getSession(otherCookieValue).isPresent());
+        sessionRegistry.close();
+    }
+
+    @Test
+    public void testMaxLifetime() {
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        SignedCookieSessionRegistry sessionRegistry = new SignedCookieSessionRegistry("test-app", codec, TIMEOUT,
+                                                                                      MAX_LIFETIME, true);
+        Session session = new Session(new TestUser("alice"));
+        long now = System.currentTimeMillis();
+        long createdTime = now - MAX_LIFETIME + 1000;
+        String cookieValue = codec.encode(session, createdTime, now - (TIMEOUT * 3 / 4));
+
+        Optional<String> renewedCookieValue = sessionRegistry.renewSessionCookieValue(cookieValue);
+        Assert.assertTrue(renewedCookieValue.isPresent());
+        Assert.assertEquals(codec.decode(renewedCookieValue.get()).get().getCreatedTime(), createdTime,
+                            "Renewal should not extend the lifetime of a session.");
+
+        String expiredCookieValue = codec.encode(session, now - MAX_LIFETIME - 1000, now);
+        Assert.assertFalse(sessionRegistry.getSession(expiredCookieValue).isPresent(),
+                           "A recently issued cookie of a session older than the maximum lifetime should be rejected.");
+        sessionRegistry.close();
+    }
+
+    @Test
+    public void testModifiedSession() {
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        SignedCookieSessionRegistry sessionRegistry = new SignedCookieSessionRegistry("test-app", codec, TIMEOUT,
+                                                                                      MAX_LIFETIME, true);
+        Session session = new Session(new TestUser("alice"));
+        long createdTime = System.currentTimeMillis() - 1000;
+        String cookieValue = codec.encode(session, createdTime, createdTime);
+        Assert.assertFalse(sessionRegistry.updateSession(session, cookieValue).isPresent(),
+                           "An unmodified session should not be issued again.");
+
+        session.setThemeName("org.wso2.carbon.uuf.sample.theme");
+        Optional<String> updatedCookieValue = sessionRegistry.updateSession(session, cookieValue);
+        Assert.assertTrue(updatedCookieValue.isPresent());
+        SessionCookieCodec.DecodedSession decodedSession = codec.decode(updatedCookieValue.get()).get();
+        Assert.assertEquals(decodedSession.getSession().getThemeName(), "org.wso2.carbon.uuf.sample.theme");
+        Assert.assertFalse(decodedSession.getSession().isModified());
+        Assert.assertEquals(decodedSession.getCreatedTime(), createdTime,
+                            "Updates should not extend the lifetime of a session.");
+        Assert.assertFalse(sessionRegistry.updateSession(session, updatedCookieValue.get()).isPresent());
+        sessionRegistry.close();
+    }
+
+    @Test
+    public void testSessionModifiedAfterCreation() {
+        SessionCookieCodec codec = new SessionCookieCodec("test-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        SignedCookieSessionRegistry sessionRegistry = new SignedCookieSessionRegistry("test-app", codec, TIMEOUT,
+                                                                                      MAX_LIFETIME, true);
+        // Like a login page, which creates a session and then sets its theme.
+        Page page = new Page(new UriPatten("/login"), (model, lookup, requestLookup, api) -> {
+            api.createSession(new TestUser("alice")).setThemeName("org.wso2.carbon.uuf.sample.theme");
+            return "";
+        }, false);
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, ImmutableSortedSet.of(page), null);
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "test-app")));
+        lookup.add(component);
+        App app = new App("test-app", "/test", lookup, Collections.emptySet(), sessionRegistry);
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUriWithoutContextPath()).thenReturn("/login");
+        when(request.getQueryParams()).thenReturn(Collections.emptyMap());
+        when(request.getHeaders()).thenReturn(Collections.emptyMap());
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(new HashMap<>());
+
+        app.renderPage(request, response);
+        // Cookie is issued when the session is created, and again with the theme once the page is rendered.
+        verify(response, times(2)).setHeader(eq(HttpResponse.HEADER_SET_COOKIE), anyString());
+        sessionRegistry.close();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.internal.auth.FileSessionStore;
+import org.wso2.carbon.uuf.internal.auth.InMemorySessionStore;
+import org.wso2.carbon.uuf.internal.auth.ReplicatedSessionStore;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionStoreTest {
+
+    private static final long TIMEOUT = 60000;
+    private static final byte[] KEY = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testInMemorySessionStore() {
+        AtomicLong clock = new AtomicLong(1000);
+        InMemorySessionStore sessionStore = new InMemorySessionStore(100, clock::get);
+        Session session = new Session(new TestUser("alice"));
+        sessionStore.put(session);
+        Assert.assertEquals(sessionStore.get(session.getSessionId()), Optional.of(session));
+
+        clock.addAndGet(60);
+        sessionStore.touch(ImmutableSet.of(session.getSessionId()));
+        clock.addAndGet(60);
+        Assert.assertTrue(sessionStore.get(session.getSessionId()).isPresent(), "Touched session should not expire.");
+
+        clock.addAndGet(101);
+        sessionStore.removeExpired();
+        Assert.assertFalse(sessionStore.get(session.getSessionId()).isPresent());
+        Assert.assertEquals(sessionStore.size(), 0);
+    }
+
+    @Test
+    public void testFileSessionStore() throws IOException {
+        Path directory = Files.createTempDirectory("uuf-sessions");
+        Path file = directory.resolve("sessions").resolve("test-app.sessions");
+        try {
+            Session session = new Session(new TestUser("alice"));
+            Session removedSession = new Session(new TestUser("bob"));
+            FileSessionStore sessionStore = new FileSessionStore(file, TIMEOUT, 1024, 4);
+            sessionStore.put(session);
+            sessionStore.put(removedSession);
+            sessionStore.remove(removedSession.getSessionId());
+            sessionStore.close();
+            if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Assert.assertEquals(Files.getPosixFilePermissions(file), PosixFilePermissions.fromString("rw-------"));
+                Assert.assertEquals(Files.getPosixFilePermissions(file.getParent()),
+                                    PosixFilePermissions.fromString("rwx------"));
+            }
+
+            FileSessionStore reopenedSessionStore = new FileSessionStore(file, TIMEOUT, 1024, 4);
+            Optional<Session> restoredSession = reopenedSessionStore.get(session.getSessionId());
+            Assert.assertTrue(restoredSession.isPresent());
+            Assert.assertEquals(restoredSession.get().getUser().getUsername(), "alice");
+            Assert.assertFalse(reopenedSessionStore.get(removedSession.getSessionId()).isPresent());
+            reopenedSessionStore.close();
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testModifiedSessionInFileSessionStore() throws IOException {
+        Path directory = Files.createTempDirectory("uuf-sessions");
+        Path file = directory.resolve("test-app.sessions");
+        try {
+            FileSessionStore sessionStore = new FileSessionStore(file, TIMEOUT, 1024, 4);
+            SessionRegistry sessionRegistry = new SessionRegistry("test-app", sessionStore);
+            Session session = new Session(new TestUser("alice"));
+            sessionRegistry.addSession(session);
+            for (int i = 0; i < 10; i++) {
+                // Each modification is written to a fresh slot, and the previous slot is freed.
+                session.setThemeName("theme-" + i);
+                sessionRegistry.updateSession(session, session.getSessionId());
+                Assert.assertFalse(session.isModified());
+            }
+            // When all the other slots are taken, the modified session is written to its own slot.
+            for (int i = 0; i < 3; i++) {
+                sessionStore.put(new Session(new TestUser("user-" + i)));
+            }
+            session.setThemeName("theme-last");
+            sessionRegistry.updateSession(session, session.getSessionId());
+            sessionRegistry.close();
+
+            FileSessionStore reopenedSessionStore = new FileSessionStore(file, TIMEOUT, 1024, 4);
+            Assert.assertEquals(reopenedSessionStore.size(), 4);
+            Optional<Session> restoredSession = reopenedSessionStore.get(session.getSessionId());
+            Assert.assertTrue(restoredSession.isPresent());
+            Assert.assertEquals(restoredSession.get().getThemeName(), "theme-last");
+            Assert.assertFalse(restoredSession.get().isModified());
+            reopenedSessionStore.close();
+        } finally {
+            FileUtils.deleteQuietly(directory.toFile());
+        }
+    }
+
+    @Test
+    public void testModifiedSessionInReplicatedSessionStore() {
+        LoopbackSessionReplicationTransport transport1 = new LoopbackSessionReplicationTransport();
+        LoopbackSessionReplicationTransport transport2 = new LoopbackSessionReplicationTransport();
+        transport1.connect(transport2);
+        ReplicatedSessionStore sessionStore1 = new ReplicatedSessionStore("test-app", transport1, KEY, TIMEOUT);
+        ReplicatedSessionStore sessionStore2 = new ReplicatedSessionStore("test-app", transport2, KEY, TIMEOUT);
+        SessionRegistry sessionRegistry = new SessionRegistry("test-app", sessionStore1);
+        Session session = new Session(new TestUser("alice"));
+        sessionRegistry.addSession(session);
+        session.setThemeName("org.wso2.carbon.uuf.sample.theme");
+        Assert.assertNull(sessionStore2.get(session.getSessionId()).get().getThemeName());
+
+        int sentMessagesCount = transport1.getSentMessagesCount();
+        sessionRegistry.updateSession(session, session.getSessionId());
+        Assert.assertEquals(sessionStore2.get(session.getSessionId()).get().getThemeName(),
+                            "org.wso2.carbon.uuf.sample.theme");
+        sessionRegistry.updateSession(session, session.getSessionId());
+        Assert.assertEquals(transport1.getSentMessagesCount(), sentMessagesCount + 1,
+                            "An unmodified session should not be replicated again.");
+        sessionRegistry.close();
+        sessionStore2.close();
+    }
+
+    @Test
+    public void testReplicatedSessionStore() {
+        LoopbackSessionReplicationTransport transport1 = new LoopbackSessionReplicationTransport();
+        LoopbackSessionReplicationTransport transport2 = new LoopbackSessionReplicationTransport();
+        LoopbackSessionReplicationTransport transport3 = new LoopbackSessionReplicationTransport();
+        transport1.connect(transport2);
+        ReplicatedSessionStore sessionStore1 = new ReplicatedSessionStore("test-app", transport1, KEY, TIMEOUT);
+        ReplicatedSessionStore sessionStore2 = new ReplicatedSessionStore("test-app", transport2, KEY, TIMEOUT);
+        Session session = new Session(new TestUser("alice"));
+        sessionStore1.put(session);
+        Assert.assertTrue(sessionStore2.get(session.getSessionId()).isPresent());
+
+        // A store started later should receive the existing sessions from a single peer.
+        transport3.connect(transport1);
+        transport3.connect(transport2);
+        int sentMessagesCount = transport1.getSentMessagesCount() + transport2.getSentMessagesCount();
+        ReplicatedSessionStore sessionStore3 = new ReplicatedSessionStore("test-app", transport3, KEY, TIMEOUT);
+        Assert.assertTrue(sessionStore3.get(session.getSessionId()).isPresent());
+        Assert.assertEquals(transport1.getSentMessagesCount() + transport2.getSentMessagesCount(),
+                            sentMessagesCount + 3, "Expected two sync offers and a single session.");
+
+        sessionStore2.remove(session.getSessionId());
+        Assert.assertFalse(sessionStore1.get(session.getSessionId()).isPresent());
+        Assert.assertFalse(sessionStore3.get(session.getSessionId()).isPresent());
+        sessionStore1.close();
+        sessionStore2.close();
+        sessionStore3.close();
+    }
+
+    @Test
+    public void testReplicatedSessionStoreWithDifferentKey() {
+        LoopbackSessionReplicationTransport transport1 = new LoopbackSessionReplicationTransport();
+        LoopbackSessionReplicationTransport transport2 = new LoopbackSessionReplicationTransport();
+        transport1.connect(transport2);
+        byte[] otherKey = KEY.clone();
+        otherKey[0]++;
+        ReplicatedSessionStore sessionStore1 = new ReplicatedSessionStore("test-app", transport1, KEY, TIMEOUT);
+        ReplicatedSessionStore sessionStore2 = new ReplicatedSessionStore("test-app", transport2, otherKey, TIMEOUT);
+        Session session = new Session(new TestUser("alice"));
+        sessionStore2.put(session);
+
+        Assert.assertFalse(sessionStore1.get(session.getSessionId()).isPresent(),
+                           "Messages with an invalid MAC should be dropped.");
+        sessionStore1.close();
+        sessionStore2.close();
+    }
+
+    @Test
+    public void testDisallowedClassInSession() {
+        LoopbackSessionReplicationTransport transport1 = new LoopbackSessionReplicationTransport();
+        LoopbackSessionReplicationTransport transport2 = new LoopbackSessionReplicationTransport();
+        transport1.connect(transport2);
+        ReplicatedSessionStore sessionStore1 = new ReplicatedSessionStore("test-app", transport1, KEY, TIMEOUT);
+        ReplicatedSessionStore sessionStore2 = new ReplicatedSessionStore("test-app", transport2, KEY, TIMEOUT);
+        Session session = new Session(new TestUser("alice"));
+        Session disallowedSession = new Session(new DisallowedFieldUser("bob"));
+        sessionStore1.put(session);
+        sessionStore1.put(disallowedSession);
+
+        Assert.assertTrue(sessionStore2.get(session.getSessionId()).isPresent());
+        Assert.assertFalse(sessionStore2.get(disallowedSession.getSessionId()).isPresent(),
+                           "A session with a class which is not allowed should not be deserialized.");
+        sessionStore1.close();
+        sessionStore2.close();
+    }
+
+    private static class DisallowedFieldUser extends TestUser {
+
+        private final AtomicLong loginCount = new AtomicLong();
+
+        private DisallowedFieldUser(String username) {
+            super(username);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableSet;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.auth.PermissionCacheStatistics;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SessionTest {
+
+    private static final Pattern SESSION_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    @Test
+    public void testConcurrentSessionIds() throws Exception {
+        Set<String> sessionIds = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = IntStream.range(0, 8)
+                .mapToObj(i -> executor.submit(() -> {
+                    for (int j = 0; j < 2500; j++) {
+                        sessionIds.add(new Session(null).getSessionId());
+                    }
+                }))
+                .collect(Collectors.toList());
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(sessionIds.size(), 20000, "Session IDs should be unique.");
+        for (String sessionId : sessionIds) {
+            Assert.assertTrue(Session.isValidSessionId(sessionId), "Session ID '" + sessionId + "' is invalid.");
+            Assert.assertEquals(sessionId.length(), Session.SESSION_ID_LENGTH * 2);
+            Assert.assertTrue(SESSION_ID_PATTERN.matcher(sessionId).matches(),
+                              "Session ID '" + sessionId + "' is not URL and cookie safe.");
+        }
+    }
+
+    @Test
+    public void testPermissionCache() {
+        AtomicInteger permissionChecks = new AtomicInteger();
+        AtomicInteger permissionsVersion = new AtomicInteger();
+        User user = new User() {
+            @Override
+            public String getUsername() {
+                return "alice";
+            }
+
+            @Override
+            public boolean hasPermission(String resourceUri, String action) {
+                permissionChecks.incrementAndGet();
+                return "view".equals(action);
+            }
+
+            @Override
+            public long getPermissionsVersion() {
+                return permissionsVersion.get();
+            }
+        };
+        Session session = new Session(user);
+
+        Assert.assertTrue(session.hasPermission("/devices", "view"));
+        Assert.assertTrue(session.hasPermission("/devices", "view"));
+        Assert.assertFalse(session.hasPermission("/devices", "edit"));
+        Assert.assertEquals(permissionChecks.get(), 2, "Permission decisions should be cached.");
+
+        permissionsVersion.incrementAndGet(); // e.g. roles of the user changed
+        Assert.assertTrue(session.hasPermission("/devices", "view"));
+        Assert.assertEquals(permissionChecks.get(), 3, "Cached decisions should be discarded when roles change.");
+
+        session.invalidatePermissions();
+        Assert.assertTrue(session.hasPermission("/devices", "view"));
+        Assert.assertEquals(permissionChecks.get(), 4);
+    }
+
+    @Test
+    public void testPermissionCacheStatistics() {
+        Session session = new Session(new TestUser("alice", ImmutableSet.of("/devices:view")));
+        PermissionCacheStatistics statistics = new PermissionCacheStatistics();
+        PermissionCacheStatistics otherAppStatistics = new PermissionCacheStatistics();
+        Assert.assertEquals(statistics.getHitRate(), 1.0);
+
+        Assert.assertTrue(session.hasPermission("/devices", "view", statistics));
+        Assert.assertTrue(session.hasPermission("/devices", "view", statistics));
+        Assert.assertFalse(session.hasPermission("/devices", "edit", statistics));
+        statistics.recordRequestHit();
+        Assert.assertEquals(statistics.getMissCount(), 2);
+        Assert.assertEquals(statistics.getSessionHitCount(), 1);
+        Assert.assertEquals(statistics.getRequestHitCount(), 1);
+        Assert.assertEquals(statistics.getHitRate(), 0.5);
+
+        // Statistics are scoped to an app, hence decisions of other apps are not counted.
+        Assert.assertTrue(session.hasPermission("/devices", "view", otherAppStatistics));
+        Assert.assertEquals(otherAppStatistics.getSessionHitCount(), 1);
+        Assert.assertEquals(otherAppStatistics.getMissCount(), 0);
+        Assert.assertEquals(statistics.getSessionHitCount(), 1);
+    }
+}
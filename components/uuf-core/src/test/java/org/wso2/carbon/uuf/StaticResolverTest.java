@@ -0,0 +1,200 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.AssetManifest;
+import org.wso2.carbon.uuf.core.ResourceBundles;
+import org.wso2.carbon.uuf.core.Theme;
+import org.wso2.carbon.uuf.internal.io.StaticResolver;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.StaticResourceTable;
+import org.wso2.carbon.uuf.internal.io.util.AssetFingerprinter;
+import org.wso2.carbon.uuf.internal.util.UriUtils;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.wso2.carbon.uuf.spi.HttpRequest.HEADER_ACCEPT_ENCODING;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_CACHE_CONTROL;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_CONTENT_ENCODING;
+import static org.wso2.carbon.uuf.spi.HttpResponse.HEADER_VARY;
+import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_NOT_FOUND;
+import static org.wso2.carbon.uuf.spi.HttpResponse.STATUS_OK;
+
+public class StaticResolverTest {
+
+    private static final String CSS_URI = "/public/themes/default/css/main.css";
+    private static final String PRINT_CSS_URI = "/public/themes/default/css/print.css";
+
+    private Path themeDirectory;
+    private StaticResourceCache resourceCache;
+    private StaticResolver staticResolver;
+    private Theme theme;
+    private StaticResourceTable resourceTable;
+    private App app;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        themeDirectory = Files.createTempDirectory("uuf-theme");
+        Files.createDirectories(themeDirectory.resolve("public/css"));
+        Files.createDirectories(themeDirectory.resolve("public/images"));
+        String css = new String(new char[60]).replace('\0', 'a');
+        Files.write(themeDirectory.resolve("public/css/main.css"), css.getBytes(StandardCharsets.UTF_8));
+        Files.write(themeDirectory.resolve("public/css/print.css"), css.getBytes(StandardCharsets.UTF_8));
+        Files.write(themeDirectory.resolve("public/images/logo.png"), new byte[32]);
+
+        resourceCache = new StaticResourceCache(1024, 64);
+        staticResolver = new StaticResolver(resourceCache);
+        theme = new Theme("default", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                          themeDirectory.toString());
+        resourceTable = new StaticResourceTable(Collections.emptySet(), Collections.singleton(theme));
+        app = createApp(AssetManifest.EMPTY);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        staticResolver.close();
+        FileUtils.deleteQuietly(themeDirectory.toFile());
+    }
+
+    @Test
+    public void testVaryForCompressibleResource() {
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(app, createRequest(CSS_URI, "gzip;q=1.0, br;q=0"), response);
+
+        verify(response).setStatus(STATUS_OK);
+        verify(response).setHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+        verify(response).setHeader(HEADER_CONTENT_ENCODING, "gzip");
+    }
+
+    @Test
+    public void testVaryWithoutAcceptedEncodings() {
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(app, createRequest(CSS_URI, "gzip;q=0"), response);
+
+        // Response still depends on the 'Accept-Encoding' header, even though it is not compressed.
+        verify(response).setHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+        verify(response, never()).setHeader(eq(HEADER_CONTENT_ENCODING), anyString());
+    }
+
+    @Test
+    public void testNoVaryForIncompressibleResource() {
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(app, createRequest("/public/themes/default/images/logo.png", "gzip"), response);
+
+        verify(response).setStatus(STATUS_OK);
+        verify(response, never()).setHeader(eq(HEADER_VARY), anyString());
+        verify(response, never()).setHeader(eq(HEADER_CONTENT_ENCODING), anyString());
+    }
+
+    @Test
+    public void testFingerprintedResource() {
+        String fingerprint = resourceCache.get(themeDirectory.resolve("public/css/main.css")).getFingerprint().get();
+        String fingerprintedUri = AssetFingerprinter.getFingerprintedUri(CSS_URI, fingerprint);
+        App fingerprintedApp = createApp(new AssetManifest(ImmutableMap.of(CSS_URI, fingerprintedUri)));
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(fingerprintedApp, createRequest(fingerprintedUri, null), response);
+
+        verify(response).setStatus(STATUS_OK);
+        verify(response).setHeader(HEADER_CACHE_CONTROL, "public,max-age=31536000,immutable");
+    }
+
+    @Test
+    public void testModifiedFingerprintedResource() {
+        // Fingerprint of the content when the app was deployed, which is different from the current content.
+        String fingerprintedUri = AssetFingerprinter.getFingerprintedUri(CSS_URI, "0123456789abcdef");
+        App fingerprintedApp = createApp(new AssetManifest(ImmutableMap.of(CSS_URI, fingerprintedUri)));
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(fingerprintedApp, createRequest(fingerprintedUri, null), response);
+
+        verify(response).setStatus(STATUS_OK);
+        verify(response).setHeader(HEADER_CACHE_CONTROL, "no-cache");
+        verify(response, never()).setHeader(HEADER_CACHE_CONTROL, "public,max-age=31536000,immutable");
+    }
+
+    @Test
+    public void testBundle() {
+        // Bundle URI is created in a page of one node and is requested from another node.
+        String bundleUri = new ResourceBundles().getBundleUri(ImmutableList.of(CSS_URI, PRINT_CSS_URI), "css").get();
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(app, createRequest(bundleUri, null), response);
+
+        verify(response).setStatus(STATUS_OK);
+        verify(response).setHeader(HEADER_CACHE_CONTROL, "public,max-age=2592000");
+    }
+
+    @Test
+    public void testInvalidBundle() {
+        HttpResponse response = mock(HttpResponse.class);
+        staticResolver.serve(app, createRequest("/public/bundles/0123456789abcdef.css", null), response);
+
+        verify(response).setContent(eq(STATUS_NOT_FOUND), anyString());
+    }
+
+    private App createApp(AssetManifest assetManifest) {
+        App app = mock(App.class);
+        when(app.getName()).thenReturn("test-app");
+        when(app.getAssetManifest()).thenReturn(assetManifest);
+        when(app.getComponents()).thenReturn(Collections.emptyMap());
+        when(app.getThemes()).thenReturn(ImmutableMap.of("default", theme));
+        when(app.getResourceBundles()).thenReturn(Optional.of(new ResourceBundles()));
+        when(app.getStaticResourceTable()).thenReturn(Optional.of(resourceTable));
+        return app;
+    }
+
+    private static HttpRequest createRequest(String uriWithoutContextPath, String acceptEncodingHeader) {
+        Map<String, String> headers = new HashMap<>();
+        if (acceptEncodingHeader != null) {
+            headers.put(HEADER_ACCEPT_ENCODING, acceptEncodingHeader);
+        }
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getContextPath()).thenReturn("/test");
+        when(request.getUri()).thenReturn("/test" + uriWithoutContextPath);
+        when(request.getUriWithoutContextPath()).thenReturn(uriWithoutContextPath);
+        when(request.getHeaders()).thenReturn(headers);
+        // Default methods of a mock are stubbed too, hence the type of the request is stubbed from its URI.
+        when(request.isThemeStaticResourceRequest())
+                .thenReturn(uriWithoutContextPath.startsWith(UriUtils.THEMES_STATIC_RESOURCES_URI_PREFIX));
+        when(request.isBundleStaticResourceRequest())
+                .thenReturn(uriWithoutContextPath.startsWith(UriUtils.BUNDLES_URI_PREFIX));
+        return request;
+    }
+}
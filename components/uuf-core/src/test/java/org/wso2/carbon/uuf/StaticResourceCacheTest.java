@@ -0,0 +1,208 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.exception.ResourceNotFoundException;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache.ContentEncoding;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache.StaticResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.wso2.carbon.uuf.internal.io.StaticResourceCache.ContentEncoding.BROTLI;
+import static org.wso2.carbon.uuf.internal.io.StaticResourceCache.ContentEncoding.GZIP;
+
+public class StaticResourceCacheTest {
+
+    private Path directory;
+    private StaticResourceCache resourceCache;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("uuf-static-resources");
+        resourceCache = new StaticResourceCache(1024, 64);
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        resourceCache.close();
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testCachedResource() throws IOException {
+        Path file = Files.write(directory.resolve("main.css"), "body { margin: 0; }".getBytes(StandardCharsets.UTF_8));
+        StaticResource resource = resourceCache.get(file);
+
+        Assert.assertTrue(resource.getContent().isPresent());
+        ByteBuffer content = resource.getContent().get();
+        Assert.assertEquals(StandardCharsets.UTF_8.decode(content).toString(), "body { margin: 0; }");
+        Assert.assertEquals(resource.getLength(), 19);
+        Assert.assertEquals(resource.getContentType(), "text/css");
+        Assert.assertTrue(resource.getETag().startsWith("\""), "A cached resource should have a strong ETag.");
+        Assert.assertSame(resourceCache.get(file), resource);
+    }
+
+    @Test
+    public void testLargeResource() throws IOException {
+        Path file = Files.write(directory.resolve("archive.zip"), new byte[128]);
+        StaticResource resource = resourceCache.get(file);
+
+        Assert.assertFalse(resource.getContent().isPresent());
+        Assert.assertEquals(resource.getPath(), file);
+        Assert.assertFalse(resource.getETag().startsWith("W/"), "An uncached resource should have a strong ETag.");
+        Assert.assertTrue(resource.getFingerprint().isPresent());
+        StaticResourceCache largeResourceCache = new StaticResourceCache(1024, 1024);
+        StaticResourceCache disabledCache = new StaticResourceCache(0, 0);
+        try {
+            Assert.assertEquals(largeResourceCache.get(file).getETag(), resource.getETag(),
+                                "ETag should not depend on whether the resource is cached.");
+            Assert.assertEquals(disabledCache.get(file).getETag(), resource.getETag());
+
+            Files.write(file, new byte[129]);
+            Assert.assertNotEquals(disabledCache.get(file).getETag(), resource.getETag(),
+                                   "ETag of a modified resource should change.");
+        } finally {
+            largeResourceCache.close();
+            disabledCache.close();
+        }
+    }
+
+    @Test
+    public void testLargeResourceWeighsOnlyItsEntry() throws IOException {
+        Path file = Files.write(directory.resolve("video.mp4"), new byte[128]);
+        StaticResourceCache smallCache = new StaticResourceCache(256, 64);
+        try {
+            // Content of a large resource is not held in memory, hence it does not use up the budget of the cache.
+            StaticResource resource = smallCache.get(file);
+            Assert.assertFalse(resource.getContent().isPresent());
+            Assert.assertSame(smallCache.get(file), resource);
+        } finally {
+            smallCache.close();
+        }
+    }
+
+    @Test(expectedExceptions = ResourceNotFoundException.class)
+    public void testMissingResource() {
+        resourceCache.get(directory.resolve("missing.js"));
+    }
+
+    @Test
+    public void testAcceptedEncodings() {
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings(null), Collections.emptyList());
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("identity"), Collections.emptyList());
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("gzip, deflate, br"), Arrays.asList(BROTLI, GZIP));
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("gzip;q=1.0, br;q=0"), Arrays.asList(GZIP));
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("GZIP;Q=0, br;Q=0.5"), Arrays.asList(BROTLI),
+                            "Codings and quality values are case-insensitive.");
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("*;q=0.1, gzip;q=0"), Arrays.asList(BROTLI));
+        Assert.assertEquals(ContentEncoding.getAcceptedEncodings("gzip;q=invalid"), Collections.emptyList());
+    }
+
+    @Test
+    public void testStaleVariant() throws IOException {
+        String content = new String(new char[60]).replace('\0', 'a');
+        Path file = Files.write(directory.resolve("stale.js"), content.getBytes(StandardCharsets.UTF_8));
+        Path variantFile = Files.write(directory.resolve("stale.js.gz"),
+                                       "precompressed".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(variantFile,
+                                  FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000));
+        StaticResource resource = resourceCache.get(file);
+
+        // Precompressed file is older than its original file, hence the original file is compressed at runtime.
+        Optional<StaticResource> variant = resourceCache.getVariant(resource, GZIP);
+        Assert.assertTrue(variant.isPresent());
+        Assert.assertEquals(variant.get().getContentEncoding(), Optional.of("gzip"));
+        Assert.assertEquals(variant.get().getContentType(), resource.getContentType());
+        Assert.assertEquals(gunzip(variant.get().getContent().get()), content);
+        Assert.assertFalse(resourceCache.getVariant(resource, BROTLI).isPresent(),
+                           "Brotli cannot be compressed at runtime.");
+    }
+
+    @Test
+    public void testModifiedVariant() throws Exception {
+        Path file = Files.write(directory.resolve("modified.js"), "modified();".getBytes(StandardCharsets.UTF_8));
+        Path variantFile = Files.write(directory.resolve("modified.js.br"), "old".getBytes(StandardCharsets.UTF_8));
+        StaticResource resource = resourceCache.get(file);
+        Assert.assertEquals(readContent(resourceCache.getVariant(resource, BROTLI).get()), "old");
+
+        // Cached variant is invalidated when its precompressed file is modified.
+        Files.write(variantFile, "new".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (readContent(resourceCache.getVariant(resource, BROTLI).get()).equals("old") &&
+                (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(readContent(resourceCache.getVariant(resource, BROTLI).get()), "new");
+    }
+
+    @Test
+    public void testCloseStopsWatchService() throws Exception {
+        long watchServicesCount = countWatchServices();
+        StaticResourceCache cache = new StaticResourceCache(1024, 64);
+        Path file = Files.write(directory.resolve("close.js"), "close();".getBytes(StandardCharsets.UTF_8));
+        cache.get(file);
+        Assert.assertEquals(countWatchServices(), watchServicesCount + 1);
+
+        cache.close();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((countWatchServices() > watchServicesCount) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(countWatchServices(), watchServicesCount,
+                            "File watch service thread should stop when the cache is closed.");
+    }
+
+    private static String readContent(StaticResource resource) {
+        return StandardCharsets.UTF_8.decode(resource.getContent().get()).toString();
+    }
+
+    private static String gunzip(ByteBuffer content) throws IOException {
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(IOUtils.toByteArray(inputStream), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long countWatchServices() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals(StaticResourceCache.class.getName() + "-WatchService"))
+                .filter(Thread::isAlive)
+                .count();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.Theme;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.StaticResourceTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public class StaticResourceTableTest {
+
+    @Test
+    public void testThemeResources() throws IOException {
+        Path themeDirectory = Files.createTempDirectory("uuf-theme");
+        try {
+            Path cssDirectory = Files.createDirectories(themeDirectory.resolve("public").resolve("css"));
+            Path cssFile = Files.write(cssDirectory.resolve("main.css"), "body {}".getBytes(StandardCharsets.UTF_8));
+            Theme theme = new Theme("theme-name", ImmutableList.of(), ImmutableList.of(), ImmutableList.of(),
+                                    themeDirectory.toString());
+
+            StaticResourceTable resourceTable = new StaticResourceTable(ImmutableSet.of(), ImmutableSet.of(theme));
+            Assert.assertEquals(resourceTable.size(), 1);
+            Optional<Path> path = resourceTable.getPath("/public/themes/theme-name/css/main.css");
+            Assert.assertTrue(path.isPresent());
+            Assert.assertEquals(path.get(), cssFile);
+
+            String missingUri = "/public/themes/theme-name/css/missing.css";
+            Assert.assertFalse(resourceTable.getPath(missingUri).isPresent());
+            Assert.assertFalse(resourceTable.isMissing(missingUri));
+            resourceTable.markMissing(missingUri);
+            Assert.assertTrue(resourceTable.isMissing(missingUri));
+            resourceTable.put(missingUri, cssFile);
+            Assert.assertFalse(resourceTable.isMissing(missingUri));
+        } finally {
+            FileUtils.deleteQuietly(themeDirectory.toFile());
+        }
+    }
+
+    @Test
+    public void testWatchedTable() throws Exception {
+        Path themeDirectory = Files.createTempDirectory("uuf-theme");
+        StaticResourceCache resourceCache = new StaticResourceCache(1024, 64);
+        try {
+            Path cssDirectory = Files.createDirectories(themeDirectory.resolve("public").resolve("css"));
+            Path cssFile = Files.write(cssDirectory.resolve("main.css"), "body {}".getBytes(StandardCharsets.UTF_8));
+            Theme theme = new Theme("theme-name", ImmutableList.of(), ImmutableList.of(), ImmutableList.of(),
+                                    themeDirectory.toString());
+            StaticResourceTable resourceTable = new StaticResourceTable(ImmutableSet.of(), ImmutableSet.of(theme));
+            resourceCache.watch(resourceTable);
+
+            // Negative cache is cleared when a file is created.
+            String createdUri = "/public/themes/theme-name/css/created.css";
+            resourceTable.markMissing(createdUri);
+            Files.write(cssDirectory.resolve("created.css"), "p {}".getBytes(StandardCharsets.UTF_8));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (resourceTable.isMissing(createdUri) && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10);
+            }
+            Assert.assertFalse(resourceTable.isMissing(createdUri));
+
+            // Entry of a deleted file is removed.
+            String cssUri = "/public/themes/theme-name/css/main.css";
+            Files.delete(cssFile);
+            deadline = System.currentTimeMillis() + 10_000;
+            while (resourceTable.getPath(cssUri).isPresent() && (System.currentTimeMillis() < deadline)) {
+                Thread.sleep(10);
+            }
+            Assert.assertFalse(resourceTable.getPath(cssUri).isPresent());
+        } finally {
+            resourceCache.close();
+            FileUtils.deleteQuietly(themeDirectory.toFile());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import org.wso2.carbon.uuf.spi.auth.User;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A serializable user for tests and benchmarks, which has the permissions given as {@code resourceUri:action}
+ * strings.
+ */
+public class TestUser implements User {
+
+    private final String username;
+    private final Set<String> permissions;
+
+    public TestUser(String username) {
+        this(username, Collections.emptySet());
+    }
+
+    public TestUser(String username, Set<String> permissions) {
+        this.username = username;
+        this.permissions = new HashSet<>(permissions);
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean hasPermission(String resourceUri, String action) {
+        return permissions.contains(resourceUri + ':' + action);
+    }
+}
@@ -17,10 +17,13 @@
 package org.wso2.carbon.uuf;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.uuf.api.Placeholder;
+import org.wso2.carbon.uuf.core.AssetManifest;
 import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.core.ResourceBundles;
 import org.wso2.carbon.uuf.core.Theme;
 
 import java.util.List;
@@ -52,4 +55,47 @@ public class ThemeTest {
         Assert.assertEquals(js.get(), "<script src=\"/context-path/public/themes/theme-name/" +
                 bodyJsRelativePaths.get(0) + "\" type=\"text/javascript\"></script>");
     }
+
+    @Test
+    public void testRenderThemeWithFingerprintedUris() {
+        List<String> cssRelativePaths = ImmutableList.of("css/main-styles.css");
+        Theme theme = new Theme("theme-name", cssRelativePaths, ImmutableList.of(), ImmutableList.of(), null);
+        AssetManifest assetManifest = new AssetManifest(ImmutableMap.of(
+                "/public/themes/theme-name/css/main-styles.css",
+                "/public/themes/theme-name/css/main-styles.0123456789abcdef.css"));
+        RequestLookup requestLookup = new RequestLookup("/context-path", null, null, assetManifest);
+        theme.addPlaceHolderValues(requestLookup);
+
+        Optional<String> css = requestLookup.getPlaceholderContent(Placeholder.css);
+        Assert.assertTrue(css.isPresent());
+        Assert.assertEquals(css.get(), "<link href=\"/context-path/public/themes/theme-name/css/" +
+                "main-styles.0123456789abcdef.css\" rel=\"stylesheet\" type=\"text/css\" />");
+    }
+
+    @Test
+    public void testRenderThemeWithResourceBundles() {
+        List<String> cssRelativePaths = ImmutableList.of("css/main-styles.css", "css/other-styles.css");
+        Theme theme = new Theme("theme-name", cssRelativePaths, ImmutableList.of(), ImmutableList.of(), null);
+        ResourceBundles resourceBundles = new ResourceBundles();
+        RequestLookup requestLookup = new RequestLookup("/context-path", null, null, AssetManifest.EMPTY,
+                                                        resourceBundles);
+        theme.addPlaceHolderValues(requestLookup);
+
+        Optional<String> css = requestLookup.getPlaceholderContent(Placeholder.css);
+        Assert.assertTrue(css.isPresent());
+        Assert.assertTrue(css.get().startsWith("<link href=\"/context-path/public/bundles/"));
+        String bundleUri = css.get().substring("<link href=\"/context-path".length(), css.get().indexOf("\" rel="));
+        Assert.assertTrue(bundleUri.endsWith(".css"));
+        Optional<List<String>> resourceUris = new ResourceBundles().getResourceUris(
+                bundleUri.substring("/public/bundles/".length()));
+        Assert.assertTrue(resourceUris.isPresent());
+        Assert.assertEquals(resourceUris.get(), ImmutableList.of("/public/themes/theme-name/css/main-styles.css",
+                                                                 "/public/themes/theme-name/css/other-styles.css"));
+
+        // A content which is not a static resource prevents bundling.
+        requestLookup.addToPlaceholder(Placeholder.css, "<style>body {}</style>");
+        css = requestLookup.getPlaceholderContent(Placeholder.css);
+        Assert.assertTrue(css.isPresent());
+        Assert.assertTrue(css.get().endsWith("<style>body {}</style>"));
+    }
 }
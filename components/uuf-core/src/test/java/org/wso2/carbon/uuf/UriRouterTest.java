@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.ImmutableMap;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.core.UriRouter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+public class UriRouterTest {
+
+    private static UriRouter<String> createRouter(String... uriPatterns) {
+        SortedSet<UriPatten> uriPattens = new TreeSet<>();
+        for (String uriPattern : uriPatterns) {
+            uriPattens.add(new UriPatten(uriPattern));
+        }
+        UriRouter<String> router = new UriRouter<>();
+        for (UriPatten uriPatten : uriPattens) {
+            router.add(uriPatten, uriPatten.toString());
+        }
+        return router;
+    }
+
+    @DataProvider
+    public Object[][] routes() {
+        String[] patterns = {"/", "/a", "/a/b", "/a/{x}", "/{x}/b", "/{x}/{y}", "/a{x}c/d{y}f", "/a/{x}/{+y}",
+                "/a/b/index", "/{+x}"};
+        return new Object[][]{
+                {patterns, "/", "/", Collections.emptyMap()},
+                {patterns, "/a", "/a", Collections.emptyMap()},
+                {patterns, "/a/b", "/a/b", Collections.emptyMap()},
+                {patterns, "/a/c", "/a/{x}", ImmutableMap.of("x", "c")},
+                {patterns, "/c/b", "/{x}/b", ImmutableMap.of("x", "c")},
+                {patterns, "/c/d", "/{x}/{y}", ImmutableMap.of("x", "c", "y", "d")},
+                {patterns, "/abc/def", "/a{x}c/d{y}f", ImmutableMap.of("x", "b", "y", "e")},
+                {patterns, "/a/b/c/d", "/a/{x}/{+y}", ImmutableMap.of("x", "b", "y", "c/d")},
+                {patterns, "/a/b/", "/a/b/index", Collections.emptyMap()},
+                {patterns, "/a/b/index", "/a/b/index", Collections.emptyMap()},
+                {patterns, "/c/d/e", "/{+x}", ImmutableMap.of("x", "c/d/e")},
+        };
+    }
+
+    @Test(dataProvider = "routes")
+    public void testMatch(String[] uriPatterns, String uri, String expectedPattern, Map<String, String> pathParams) {
+        UriRouter<String> router = createRouter(uriPatterns);
+        Optional<UriRouter.Match<String>> match = router.match(uri);
+
+        Assert.assertTrue(match.isPresent(), "URI '" + uri + "' should be matched.");
+        Assert.assertEquals(match.get().getValue(), new UriPatten(expectedPattern).toString());
+        Assert.assertEquals(match.get().getPathParams(), pathParams);
+        Assert.assertTrue(router.matches(uri));
+    }
+
+    @Test
+    public void testPrecedenceIsSameAsUriPattenOrder() {
+        String[] uriPatterns = {"/{x}/{y}", "/a/{y}", "/{x}/b", "/a/b", "/{+x}"};
+        SortedSet<UriPatten> uriPattens = new TreeSet<>();
+        for (String uriPattern : uriPatterns) {
+            uriPattens.add(new UriPatten(uriPattern));
+        }
+        UriRouter<String> router = createRouter(uriPatterns);
+
+        for (String uri : new String[]{"/a/b", "/a/c", "/c/b", "/c/d", "/c/d/e"}) {
+            UriPatten expected = uriPattens.stream().filter(uriPatten -> uriPatten.matches(uri)).findFirst().get();
+            Assert.assertEquals(router.match(uri).get().getValue(), expected.toString());
+        }
+    }
+
+    @Test
+    public void testPrefixedRoutes() {
+        UriRouter<String> router = new UriRouter<>();
+        router.add("/cmp", new UriPatten("/{x}"), "cmp");
+
+        Assert.assertEquals(router.match("/cmp/a").get().getPathParams(), ImmutableMap.of("x", "a"));
+        Assert.assertFalse(router.matches("/a"));
+        Assert.assertFalse(router.matches("/other/a"));
+    }
+
+    @Test
+    public void testNonMatchingUris() {
+        UriRouter<String> router = createRouter("/a", "/a/{x}", "/b/index");
+
+        Assert.assertFalse(router.match("").isPresent());
+        Assert.assertFalse(router.matches("/"));
+        Assert.assertFalse(router.matches("/a/"));
+        Assert.assertFalse(router.matches("/a/b/c"));
+        Assert.assertFalse(router.matches("/b"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.Placeholder;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.API;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Fragment;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.core.ZoneRenderer;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.Renderable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ZoneRendererTest {
+
+    static {
+        // Concurrent rendering is read once when ZoneRenderer is loaded, hence set before using it.
+        System.setProperty("uuf.zone.concurrentRendering", "true");
+    }
+
+    @Test
+    public void testOutputAndPlaceholderOrder() {
+        // First fragment completes last, but its output and placeholder contents should still come first.
+        List<Fragment> fragments = ImmutableList.of(createFragment("first", 200, true, 0),
+                                                    createFragment("second", 0, true, 0),
+                                                    createFragment("third", 0, false, 0));
+        RequestLookup requestLookup = new RequestLookup("/test", null, createResponse());
+
+        String output = ZoneRenderer.render(fragments, fragment -> null, createLookup(), requestLookup,
+                                            mock(API.class));
+        Assert.assertEquals(output, "<first/><second/><third/>");
+        Assert.assertEquals(requestLookup.getPlaceholderContent(Placeholder.js).get(), "first.js;second.js;third.js;");
+    }
+
+    @Test
+    public void testTimeout() {
+        List<Fragment> fragments = ImmutableList.of(createFragment("slow", 5000, true, 100),
+                                                    createFragment("fast", 0, true, 0));
+        RequestLookup requestLookup = new RequestLookup("/test", null, createResponse());
+
+        long startTime = System.currentTimeMillis();
+        String output = ZoneRenderer.render(fragments, fragment -> null, createLookup(), requestLookup,
+                                            mock(API.class));
+        Assert.assertTrue((System.currentTimeMillis() - startTime) < 5000, "Slow fragment should be cancelled.");
+        Assert.assertEquals(output, "<fast/>", "A fragment which did not finish in time should render nothing.");
+        Assert.assertEquals(requestLookup.getPlaceholderContent(Placeholder.js).get(), "fast.js;");
+    }
+
+    @Test
+    public void testNestedZoneRenderedInline() {
+        Map<String, String> threadNames = new HashMap<>();
+        List<Fragment> nestedFragments = ImmutableList.of(createThreadRecordingFragment("nested1", threadNames),
+                                                          createThreadRecordingFragment("nested2", threadNames));
+        Renderable outerRenderable = (model, lookup, requestLookup, api) -> {
+            synchronized (threadNames) {
+                threadNames.put("outer", Thread.currentThread().getName());
+            }
+            return ZoneRenderer.render(nestedFragments, fragment -> null, lookup, requestLookup, api);
+        };
+        Fragment outerFragment = new Fragment("test.component.outer", outerRenderable, false, null, true, 0);
+        List<Fragment> fragments = ImmutableList.of(outerFragment, createFragment("sibling", 0, true, 0));
+
+        String output = ZoneRenderer.render(fragments, fragment -> null, createLookup(),
+                                            new RequestLookup("/test", null, createResponse()), mock(API.class));
+        Assert.assertEquals(output, "<nested1/><nested2/><sibling/>");
+        // Fragments of a zone in a pooled render are rendered in the same thread instead of waiting for the pool.
+        Assert.assertNotEquals(threadNames.get("outer"), Thread.currentThread().getName());
+        Assert.assertEquals(threadNames.get("nested1"), threadNames.get("outer"));
+        Assert.assertEquals(threadNames.get("nested2"), threadNames.get("outer"));
+    }
+
+    @Test
+    public void testForkedRenderCannotSetHeaders() {
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            requestLookup.getResponse().setHeader(HttpResponse.HEADER_CACHE_CONTROL, "no-store");
+            return "<headers/>";
+        };
+        Fragment headersFragment = new Fragment("test.component.headers", renderable, false, null, true, 0);
+        List<Fragment> fragments = ImmutableList.of(headersFragment, createFragment("other", 0, true, 0));
+        HttpResponse response = createResponse();
+
+        try {
+            ZoneRenderer.render(fragments, fragment -> null, createLookup(), new RequestLookup("/test", null, response),
+                                mock(API.class));
+            Assert.fail("A fragment rendered in another thread should not be able to set a header.");
+        } catch (UUFException e) {
+            verify(response, never()).setHeader(HttpResponse.HEADER_CACHE_CONTROL, "no-store");
+        }
+    }
+
+    private static Fragment createFragment(String name, long renderTime, boolean isIndependent, long renderTimeout) {
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            if (renderTime > 0) {
+                try {
+                    Thread.sleep(renderTime);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return "<interrupted/>";
+                }
+            }
+            requestLookup.addToPlaceholder(Placeholder.js, name + ".js;");
+            return "<" + name + "/>";
+        };
+        return new Fragment("test.component." + name, renderable, false, null, isIndependent, renderTimeout);
+    }
+
+    private static Fragment createThreadRecordingFragment(String name, Map<String, String> threadNames) {
+        Renderable renderable = (model, lookup, requestLookup, api) -> {
+            synchronized (threadNames) {
+                threadNames.put(name, Thread.currentThread().getName());
+            }
+            return "<" + name + "/>";
+        };
+        return new Fragment("test.component." + name, renderable, false, null, true, 0);
+    }
+
+    private static Lookup createLookup() {
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Test App")));
+        lookup.add(new Component("test.component", null, null, Collections.emptySortedSet(), null));
+        return lookup;
+    }
+
+    private static HttpResponse createResponse() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(new HashMap<>());
+        return response;
+    }
+}
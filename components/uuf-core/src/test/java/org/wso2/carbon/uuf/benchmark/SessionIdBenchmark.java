@@ -0,0 +1,83 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.api.auth.Session;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures session ID generation throughput with an increasing number of threads, comparing the striped generator of
+ * {@link Session} against a single synchronized {@link SecureRandom} which renders hex digits one by one.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.benchmark.SessionIdBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SessionIdBenchmark {
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Benchmark
+    public String stripedGenerator() {
+        return new Session(null).getSessionId();
+    }
+
+    @Benchmark
+    public String synchronizedGenerator() {
+        synchronized (secureRandom) {
+            byte[] randomBytes = new byte[Session.SESSION_ID_LENGTH];
+            secureRandom.nextBytes(randomBytes);
+            StringBuilder buffer = new StringBuilder();
+            for (byte randomByte : randomBytes) {
+                int b1 = (randomByte & 0xf0) >> 4;
+                int b2 = randomByte & 0x0f;
+                buffer.append((char) ((b1 < 10) ? ('0' + b1) : ('A' + (b1 - 10))));
+                buffer.append((char) ((b2 < 10) ? ('0' + b2) : ('A' + (b2 - 10))));
+            }
+            return buffer.toString();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= processors; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                               .include(SessionIdBenchmark.class.getSimpleName())
+                               .threads(threads)
+                               .build()).run();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.TestUser;
+import org.wso2.carbon.uuf.api.auth.Session;
+import org.wso2.carbon.uuf.internal.auth.SessionCookieCodec;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.internal.auth.SignedCookieSessionRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of looking up the session of a request in a store backed {@link SessionRegistry} against a
+ * {@link SignedCookieSessionRegistry}, with and without the decoded cookie cache.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.benchmark.SessionLookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SessionLookupBenchmark {
+
+    private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(20);
+
+    private SessionRegistry storeSessionRegistry;
+    private SignedCookieSessionRegistry cookieSessionRegistry;
+    private SessionCookieCodec sessionCookieCodec;
+    private String sessionId;
+    private String cookieValue;
+
+    @Setup
+    public void setup() {
+        Session session = new Session(new TestUser("admin"));
+        storeSessionRegistry = new SessionRegistry("benchmark-app");
+        storeSessionRegistry.addSession(session);
+        sessionId = session.getSessionId();
+
+        sessionCookieCodec = new SessionCookieCodec("benchmark-app", ImmutableList.of(SessionCookieCodec.newKey()));
+        cookieSessionRegistry = new SignedCookieSessionRegistry("benchmark-app", sessionCookieCodec, TIMEOUT,
+                                                                TimeUnit.HOURS.toMillis(8), true);
+        cookieValue = cookieSessionRegistry.getSessionCookieValue(session);
+    }
+
+    @TearDown
+    public void tearDown() {
+        storeSessionRegistry.close();
+        cookieSessionRegistry.close();
+    }
+
+    @Benchmark
+    public Optional<Session> storeLookup() {
+        return storeSessionRegistry.getSession(sessionId);
+    }
+
+    @Benchmark
+    public Optional<Session> cookieLookup() {
+        return cookieSessionRegistry.getSession(cookieValue);
+    }
+
+    @Benchmark
+    public Optional<SessionCookieCodec.DecodedSession> cookieDecode() {
+        return sessionCookieCodec.decode(cookieValue);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionLookupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.core.UriRouter;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares page resolution through a {@link UriRouter} against the linear {@link UriPatten} scan over a sorted set
+ * of pages.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.benchmark.UriRouterBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UriRouterBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int pagesCount;
+
+    private SortedSet<UriPatten> uriPattens;
+    private UriRouter<UriPatten> router;
+    private String pageUri;
+    private String nestedPageUri;
+    private String missingPageUri;
+
+    @Setup
+    public void setup() {
+        uriPattens = new TreeSet<>();
+        for (int i = 0; i < pagesCount; i++) {
+            switch (i % 4) {
+                case 0:
+                    uriPattens.add(new UriPatten("/section" + i + "/index"));
+                    break;
+                case 1:
+                    uriPattens.add(new UriPatten("/section" + i + "/{id}"));
+                    break;
+                case 2:
+                    uriPattens.add(new UriPatten("/section" + i + "/{id}/edit"));
+                    break;
+                default:
+                    uriPattens.add(new UriPatten("/section" + i + "/items/{+path}"));
+            }
+        }
+        router = new UriRouter<>();
+        uriPattens.forEach(uriPatten -> router.add(uriPatten, uriPatten));
+
+        pageUri = "/section1/42";
+        nestedPageUri = "/section" + (pagesCount - 2) + "/42/edit";
+        missingPageUri = "/no/such/page";
+    }
+
+    @Benchmark
+    public Optional<Map<String, String>> linearScanPage() {
+        return linearScan(pageUri);
+    }
+
+    @Benchmark
+    public Optional<Map<String, String>> linearScanNestedPage() {
+        return linearScan(nestedPageUri);
+    }
+
+    @Benchmark
+    public Optional<Map<String, String>> linearScanMissingPage() {
+        return linearScan(missingPageUri);
+    }
+
+    @Benchmark
+    public Optional<UriRouter.Match<UriPatten>> routerPage() {
+        return router.match(pageUri);
+    }
+
+    @Benchmark
+    public Optional<UriRouter.Match<UriPatten>> routerNestedPage() {
+        return router.match(nestedPageUri);
+    }
+
+    @Benchmark
+    public Optional<UriRouter.Match<UriPatten>> routerMissingPage() {
+        return router.match(missingPageUri);
+    }
+
+    private Optional<Map<String, String>> linearScan(String uri) {
+        for (UriPatten uriPatten : uriPattens) {
+            Optional<Map<String, String>> pathParams = uriPatten.match(uri);
+            if (pathParams.isPresent()) {
+                return pathParams;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UriRouterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
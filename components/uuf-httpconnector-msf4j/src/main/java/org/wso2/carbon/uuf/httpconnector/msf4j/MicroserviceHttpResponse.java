@@ -18,10 +18,16 @@ package org.wso2.carbon.uuf.httpconnector.msf4j;
 
 import org.apache.commons.io.FilenameUtils;
 import org.wso2.carbon.uuf.spi.HttpResponse;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,6 +36,8 @@ import java.util.Map;
  */
 public class MicroserviceHttpResponse implements HttpResponse {
 
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
     private int status;
     private Object content;
     private String contentType;
@@ -68,12 +76,67 @@ public class MicroserviceHttpResponse implements HttpResponse {
         this.contentType = contentType;
     }
 
+    /**
+     * Sets the content as a {@link StreamingOutput} which reads the file region in chunks of {@link
+     * #TRANSFER_BUFFER_SIZE} bytes, so that the file is not read into the heap at once. JAX-RS exposes only an {@link
+     * java.io.OutputStream} of the connection, hence each chunk is still copied through the heap.
+     */
+    @Override
+    public void setContent(Path content, long position, long count, String contentType) {
+        this.content = (StreamingOutput) outputStream -> {
+            try (FileChannel fileChannel = FileChannel.open(content, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, TRANSFER_BUFFER_SIZE));
+                long transferred = 0;
+                while (transferred < count) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), count - transferred));
+                    int bytes = fileChannel.read(buffer, position + transferred);
+                    if (bytes <= 0) {
+                        break; // File is truncated after it was resolved.
+                    }
+                    outputStream.write(buffer.array(), 0, bytes);
+                    transferred += bytes;
+                }
+            }
+        };
+        this.contentType = contentType;
+    }
+
     @Override
     public void setContent(InputStream content, String contentType) {
         this.content = content;
         this.contentType = contentType;
     }
 
+    /**
+     * Sets the content as a {@link StreamingOutput}, so that the buffer is not copied when the content is set. As
+     * JAX-RS exposes only an {@link java.io.OutputStream} of the connection, the buffer is written through the heap in
+     * chunks of {@link #TRANSFER_BUFFER_SIZE} bytes.
+     */
+    @Override
+    public void setContent(ByteBuffer content, String contentType) {
+        ByteBuffer buffer = content.duplicate();
+        this.content = (StreamingOutput) outputStream -> {
+            ByteBuffer remaining = buffer.duplicate();
+            byte[] chunk = new byte[Math.min(remaining.remaining(), TRANSFER_BUFFER_SIZE)];
+            while (remaining.hasRemaining()) {
+                int length = Math.min(remaining.remaining(), chunk.length);
+                remaining.get(chunk, 0, length);
+                outputStream.write(chunk, 0, length);
+            }
+        };
+        this.contentType = contentType;
+    }
+
+    /**
+     * Sets the content as a {@link StreamingOutput}, so that it is written directly to the connection as a chunked
+     * response when this response is sent.
+     */
+    @Override
+    public void setContent(StreamingContent content, String contentType) {
+        this.content = (StreamingOutput) outputStream -> content.writeTo(outputStream);
+        this.contentType = contentType;
+    }
+
     @Override
     public void setContent(Object content, String contentType) {
         this.content = content;
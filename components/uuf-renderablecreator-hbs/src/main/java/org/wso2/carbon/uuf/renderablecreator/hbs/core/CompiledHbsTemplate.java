@@ -0,0 +1,569 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.core;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.EscapingStrategy;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.HandlebarsException;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.TagType;
+import com.github.jknack.handlebars.Template;
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.PlaceholderWriter;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.TemplateLiteral;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A Handlebars template compiled ahead of time into a sequence of Java segments.
+ * <p>
+ * Literal text becomes {@link TemplateLiteral}s, which {@link PlaceholderWriter} keeps by reference and writes as
+ * pre-encoded bytes. Variables with simple property paths (e.g. {@code {{user.name}}}) become accessors which read the
+ * maps of the model directly. Helper calls whose parameters are property paths, strings or booleans (e.g. {@code
+ * {{fragment "menu" defer=true}}}) invoke the helper directly. Other helper calls, subexpressions and blocks are
+ * applied by the Handlebars interpreter, each compiled as a template of its own. A template which uses a construct
+ * that cannot be split this way (partials, decorators, whitespace control, raw blocks, escaped mustaches and
+ * delimiter changes) is interpreted as a whole.
+ *
+ * @since 1.0.0
+ */
+public class CompiledHbsTemplate {
+
+    private static final Set<String> UNSPLITTABLE_CONSTRUCTS = ImmutableSet.of("\\{{", "{{{{", "{{>", "{{#>", "{{#*",
+                                                                               "{{=", "{{~", "~}}");
+    private static final Pattern SIMPLE_PATH = Pattern.compile("@?[A-Za-z_$][\\w$-]*(\\.[A-Za-z_$][\\w$-]*)*");
+    private static final Set<String> LITERALS = ImmutableSet.of("true", "false", "null", "undefined", "this");
+    private static final Pattern HASH_KEY = Pattern.compile("[A-Za-z_$][\\w$-]*");
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledHbsTemplate.class);
+
+    private final Template template;
+    private final Segment[] segments;
+
+    private CompiledHbsTemplate(Template template, Segment[] segments) {
+        this.template = template;
+        this.segments = segments;
+    }
+
+    /**
+     * Creates a compiled template which applies the specified template through the Handlebars interpreter.
+     *
+     * @param template template compiled by Handlebars
+     * @return interpreted template
+     */
+    public static CompiledHbsTemplate interpreted(Template template) {
+        return new CompiledHbsTemplate(template, null);
+    }
+
+    /**
+     * Compiles the specified template into Java segments. If the template cannot be compiled or would not benefit from
+     * it, it is interpreted.
+     *
+     * @param templateSource source of the template
+     * @param template       template compiled by Handlebars from the source
+     * @param handlebars     Handlebars instance which compiled the template
+     * @return compiled template
+     */
+    public static CompiledHbsTemplate compile(TemplateSource templateSource, Template template,
+                                              Handlebars handlebars) {
+        String source;
+        try {
+            source = templateSource.content(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UUFException("Cannot load Handlebars template '" + templateSource.filename() + "'.", e);
+        }
+        List<Segment> segments = new Compiler(source, templateSource.filename(), handlebars).compile();
+        if ((segments == null) || segments.stream().allMatch(segment -> (segment instanceof LiteralSegment) ||
+                (segment instanceof InterpretedSegment))) {
+            LOGGER.debug("Handlebars template '{}' is interpreted.", templateSource.filename());
+            return interpreted(template);
+        }
+        return new CompiledHbsTemplate(template, segments.toArray(new Segment[segments.size()]));
+    }
+
+    /**
+     * @return template compiled by Handlebars, which is used for pre-processing and for the interpreted segments
+     */
+    public Template getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return {@code true} if this template is compiled into Java segments, {@code false} if it is interpreted
+     */
+    public boolean isCompiled() {
+        return segments != null;
+    }
+
+    public void apply(Context context, Writer writer) throws IOException {
+        if (segments == null) {
+            template.apply(context, writer);
+            return;
+        }
+        for (Segment segment : segments) {
+            segment.apply(context, writer);
+        }
+    }
+
+    public String apply(Context context) throws IOException {
+        if (segments == null) {
+            return template.apply(context);
+        }
+        StringWriter writer = new StringWriter();
+        apply(context, writer);
+        return writer.toString();
+    }
+
+    /**
+     * A part of a compiled template.
+     */
+    private interface Segment {
+
+        void apply(Context context, Writer writer) throws IOException;
+    }
+
+    private static class LiteralSegment implements Segment {
+
+        private final TemplateLiteral literal;
+
+        private LiteralSegment(String text) {
+            this.literal = new TemplateLiteral(text);
+        }
+
+        @Override
+        public void apply(Context context, Writer writer) throws IOException {
+            if (writer instanceof PlaceholderWriter) {
+                ((PlaceholderWriter) writer).writeLiteral(literal);
+            } else {
+                writer.write(literal.getText());
+            }
+        }
+    }
+
+    /**
+     * A variable with a simple property path. Values which are not in the maps of the model (e.g. values in a parent
+     * context or properties of beans) and values which are not strings, numbers or booleans are left to the
+     * interpreter, so that they are resolved and formatted exactly as Handlebars does.
+     */
+    private static class VariableSegment implements Segment {
+
+        private final String[] keys;
+        private final EscapingStrategy escapingStrategy;
+        private final Template interpretedVariable;
+
+        private VariableSegment(String path, EscapingStrategy escapingStrategy, Template interpretedVariable) {
+            this.keys = path.split("\\.");
+            this.escapingStrategy = escapingStrategy;
+            this.interpretedVariable = interpretedVariable;
+        }
+
+        @Override
+        public void apply(Context context, Writer writer) throws IOException {
+            Object value = context.model();
+            for (String key : keys) {
+                if (!(value instanceof Map)) {
+                    value = null;
+                    break;
+                }
+                value = ((Map<?, ?>) value).get(key);
+            }
+
+            if ((value instanceof CharSequence) && (escapingStrategy != null) &&
+                    !(value instanceof Handlebars.SafeString)) {
+                writer.append(escapingStrategy.escape((CharSequence) value));
+            } else if ((value instanceof CharSequence) || (value instanceof Number) || (value instanceof Boolean)) {
+                writer.write(value.toString());
+            } else {
+                interpretedVariable.apply(context, writer);
+            }
+        }
+    }
+
+    /**
+     * A helper call which is invoked directly instead of through the interpreter. The helper is resolved when the
+     * template is compiled, and its parameters are resolved the same way the interpreter resolves them.
+     */
+    private static class HelperSegment implements Segment {
+
+        private final String helperName;
+        private final Helper<Object> helper;
+        private final TagType tagType;
+        private final Param[] params;
+        private final String[] hashKeys;
+        private final Param[] hashValues;
+        private final EscapingStrategy escapingStrategy;
+        private final Handlebars handlebars;
+        private final Template emptyTemplate;
+
+        private HelperSegment(String helperName, Helper<Object> helper, TagType tagType, List<Param> params,
+                              Map<String, Param> hash, EscapingStrategy escapingStrategy, Handlebars handlebars,
+                              Template emptyTemplate) {
+            this.helperName = helperName;
+            this.helper = helper;
+            this.tagType = tagType;
+            this.params = params.toArray(new Param[params.size()]);
+            this.hashKeys = hash.keySet().toArray(new String[hash.size()]);
+            this.hashValues = hash.values().toArray(new Param[hash.size()]);
+            this.escapingStrategy = escapingStrategy;
+            this.handlebars = handlebars;
+            this.emptyTemplate = emptyTemplate;
+        }
+
+        @Override
+        public void apply(Context context, Writer writer) throws IOException {
+            // As in the interpreter, the first parameter is the context of the helper and the rest are its parameters.
+            Object helperContext = (params.length == 0) ? context.model() : params[0].resolve(context);
+            Object[] helperParams = new Object[Math.max(params.length - 1, 0)];
+            for (int i = 0; i < helperParams.length; i++) {
+                helperParams[i] = params[i + 1].resolve(context);
+            }
+            Map<String, Object> hash;
+            if (hashKeys.length == 0) {
+                hash = Collections.emptyMap();
+            } else {
+                hash = new LinkedHashMap<>();
+                for (int i = 0; i < hashKeys.length; i++) {
+                    hash.put(hashKeys[i], hashValues[i].resolve(context));
+                }
+            }
+            Options options = new Options(handlebars, helperName, tagType, context, emptyTemplate, emptyTemplate,
+                                          helperParams, hash, Collections.emptyList());
+
+            Object value = helper.apply(helperContext, options);
+            if (value == null) {
+                return;
+            }
+            if ((escapingStrategy != null) && !(value instanceof Handlebars.SafeString)) {
+                writer.append(escapingStrategy.escape(value.toString()));
+            } else {
+                writer.write(value.toString());
+            }
+        }
+    }
+
+    /**
+     * A parameter or a hash value of a directly invoked helper call.
+     */
+    private interface Param {
+
+        Object resolve(Context context);
+    }
+
+    private static class InterpretedSegment implements Segment {
+
+        private final Template template;
+
+        private InterpretedSegment(Template template) {
+            this.template = template;
+        }
+
+        @Override
+        public void apply(Context context, Writer writer) throws IOException {
+            template.apply(context, writer);
+        }
+    }
+
+    /**
+     * Splits a template source into segments at its top level tags.
+     */
+    private static class Compiler {
+
+        private final String source;
+        private final String filename;
+        private final Handlebars handlebars;
+        private final List<Segment> segments;
+        private final StringBuilder literal;
+        private Template emptyTemplate;
+
+        private Compiler(String source, String filename, Handlebars handlebars) {
+            this.source = source;
+            this.filename = filename;
+            this.handlebars = handlebars;
+            this.segments = new ArrayList<>();
+            this.literal = new StringBuilder();
+        }
+
+        /**
+         * @return segments of the template, or {@code null} if the template cannot be split
+         */
+        private List<Segment> compile() {
+            for (String construct : UNSPLITTABLE_CONSTRUCTS) {
+                if (source.contains(construct)) {
+                    return null;
+                }
+            }
+
+            int position = 0;
+            while (position < source.length()) {
+                int start = source.indexOf("{{", position);
+                if (start < 0) {
+                    literal.append(source, position, source.length());
+                    break;
+                }
+                literal.append(source, position, start);
+                int end = findTagEnd(start);
+                if (end < 0) {
+                    return null;
+                }
+                position = end;
+                if (source.startsWith("{{!", start)) {
+                    continue; // Comments are not rendered.
+                }
+
+                boolean isTriple = source.startsWith("{{{", start);
+                String tag = getTag(start, end);
+                if (tag.isEmpty()) {
+                    return null;
+                }
+                char type = tag.charAt(0);
+                if ((type == '#') || ((type == '^') && (tag.length() > 1))) {
+                    position = findBlockEnd(end);
+                    if (position < 0) {
+                        return null;
+                    }
+                    addSegment(new InterpretedSegment(compileChunk(start, position)));
+                } else if ((type == '/') || (type == '^') || tag.equals("else") || tag.startsWith("else ")) {
+                    return null; // Unbalanced block.
+                } else {
+                    String path = (type == '&') ? tag.substring(1).trim() : tag;
+                    boolean isEscaped = !isTriple && (type != '&');
+                    EscapingStrategy escapingStrategy = isEscaped ? handlebars.getEscapingStrategy() : null;
+                    if (isSimplePath(path)) {
+                        addSegment(new VariableSegment(path, escapingStrategy, compileChunk(start, end)));
+                        continue;
+                    }
+                    TagType tagType = isTriple ? TagType.TRIPLE_VAR :
+                            ((type == '&') ? TagType.AMP_VAR : TagType.VAR);
+                    Segment helperSegment = compileHelperCall(path, tagType, escapingStrategy);
+                    addSegment((helperSegment == null) ? new InterpretedSegment(compileChunk(start, end)) :
+                                       helperSegment);
+                }
+            }
+            addSegment(null);
+            return segments;
+        }
+
+        private void addSegment(Segment segment) {
+            if (literal.length() > 0) {
+                segments.add(new LiteralSegment(literal.toString()));
+                literal.setLength(0);
+            }
+            if (segment != null) {
+                segments.add(segment);
+            }
+        }
+
+        /**
+         * @param start index of the opening delimiter of a tag
+         * @return index after the closing delimiter of the tag, or -1 if the tag is not closed
+         */
+        private int findTagEnd(int start) {
+            if (source.startsWith("{{!--", start)) {
+                int end = source.indexOf("--}}", start + 5);
+                return (end < 0) ? -1 : (end + 4);
+            }
+            if (source.startsWith("{{!", start)) {
+                int end = source.indexOf("}}", start + 3);
+                return (end < 0) ? -1 : (end + 2);
+            }
+            boolean isTriple = source.startsWith("{{{", start);
+            String closingDelimiter = isTriple ? "}}}" : "}}";
+            char quote = 0;
+            for (int i = start + (isTriple ? 3 : 2); i < source.length(); i++) {
+                char c = source.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if ((c == '"') || (c == '\'')) {
+                    quote = c;
+                } else if (source.startsWith(closingDelimiter, i)) {
+                    return i + closingDelimiter.length();
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param position index after the opening tag of a block
+         * @return index after the closing tag of the block, or -1 if the block is not closed
+         */
+        private int findBlockEnd(int position) {
+            int depth = 1;
+            while (true) {
+                int start = source.indexOf("{{", position);
+                if (start < 0) {
+                    return -1;
+                }
+                int end = findTagEnd(start);
+                if (end < 0) {
+                    return -1;
+                }
+                position = end;
+                if (source.startsWith("{{!", start)) {
+                    continue;
+                }
+                String tag = getTag(start, end);
+                if (tag.startsWith("#") || (tag.startsWith("^") && (tag.length() > 1))) {
+                    depth++;
+                } else if (tag.startsWith("/") && (--depth == 0)) {
+                    return end;
+                }
+            }
+        }
+
+        private String getTag(int start, int end) {
+            int delimiterLength = source.startsWith("{{{", start) ? 3 : 2;
+            return source.substring(start + delimiterLength, end - delimiterLength).trim();
+        }
+
+        private boolean isSimplePath(String path) {
+            return SIMPLE_PATH.matcher(path).matches() && !LITERALS.contains(path) && !path.startsWith("this.") &&
+                    (handlebars.helper(path) == null);
+        }
+
+        /**
+         * @param tag              content of a non-block tag, e.g. {@code i18n "greeting" user.name}
+         * @param tagType          type of the tag
+         * @param escapingStrategy escaping strategy for the output, or {@code null} if the output is not escaped
+         * @return segment which invokes the helper directly, or {@code null} if the tag has to be interpreted
+         */
+        private Segment compileHelperCall(String tag, TagType tagType, EscapingStrategy escapingStrategy) {
+            List<String> tokens = tokenize(tag);
+            if ((tokens == null) || tokens.isEmpty()) {
+                return null;
+            }
+            String helperName = tokens.get(0);
+            Helper<Object> helper = handlebars.helper(helperName);
+            if (helper == null) {
+                return null;
+            }
+            List<Param> params = new ArrayList<>();
+            Map<String, Param> hash = new LinkedHashMap<>();
+            for (String token : tokens.subList(1, tokens.size())) {
+                int equals = token.indexOf('=');
+                boolean isHashEntry = (equals > 0) && HASH_KEY.matcher(token.substring(0, equals)).matches();
+                Param param = compileParam(isHashEntry ? token.substring(equals + 1) : token);
+                if (param == null) {
+                    return null;
+                }
+                if (isHashEntry) {
+                    hash.put(token.substring(0, equals), param);
+                } else if (hash.isEmpty()) {
+                    params.add(param);
+                } else {
+                    return null; // Parameters after hash entries are left to the interpreter to report.
+                }
+            }
+            if (emptyTemplate == null) {
+                emptyTemplate = compileChunk(0, 0);
+            }
+            return new HelperSegment(helperName, helper, tagType, params, hash, escapingStrategy, handlebars,
+                                     emptyTemplate);
+        }
+
+        /**
+         * @param tag content of a tag
+         * @return tokens of the tag separated by whitespace, or {@code null} if the tag has a subexpression, block
+         * parameters, a literal segment or an escaped quote
+         */
+        private List<String> tokenize(String tag) {
+            List<String> tokens = new ArrayList<>();
+            StringBuilder token = new StringBuilder();
+            char quote = 0;
+            for (int i = 0; i < tag.length(); i++) {
+                char c = tag.charAt(i);
+                if (quote != 0) {
+                    if (c == '\\') {
+                        return null;
+                    }
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                    token.append(c);
+                } else if (Character.isWhitespace(c)) {
+                    if (token.length() > 0) {
+                        tokens.add(token.toString());
+                        token.setLength(0);
+                    }
+                } else if ((c == '(') || (c == ')') || (c == '[') || (c == '|')) {
+                    return null;
+                } else {
+                    if ((c == '"') || (c == '\'')) {
+                        quote = c;
+                    }
+                    token.append(c);
+                }
+            }
+            if (quote != 0) {
+                return null;
+            }
+            if (token.length() > 0) {
+                tokens.add(token.toString());
+            }
+            return tokens;
+        }
+
+        /**
+         * @param token parameter or hash value of a helper call
+         * @return compiled parameter, or {@code null} if it has to be interpreted (e.g. numbers, {@code this} and data
+         * variables)
+         */
+        private Param compileParam(String token) {
+            char first = token.charAt(0);
+            if ((token.length() >= 2) && ((first == '"') || (first == '\'')) &&
+                    (token.charAt(token.length() - 1) == first) && (token.indexOf(first, 1) == token.length() - 1)) {
+                String value = token.substring(1, token.length() - 1);
+                return context -> value;
+            }
+            if (token.equals("true") || token.equals("false")) {
+                Boolean value = Boolean.valueOf(token);
+                return context -> value;
+            }
+            if (SIMPLE_PATH.matcher(token).matches() && (first != '@') && !LITERALS.contains(token) &&
+                    !token.startsWith("this.")) {
+                return context -> context.get(token);
+            }
+            return null;
+        }
+
+        private Template compileChunk(int start, int end) {
+            String chunk = source.substring(start, end);
+            try {
+                return handlebars.compile(new StringTemplateSource(filename, chunk));
+            } catch (IOException | HandlebarsException e) {
+                throw new UUFException("Cannot compile '" + chunk + "' of Handlebars template '" + filename + "'.", e);
+            }
+        }
+    }
+}
@@ -29,9 +29,10 @@ import org.wso2.carbon.uuf.spi.Renderable;
 import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public abstract class HbsRenderable implements Renderable {
 
@@ -39,23 +40,34 @@ public abstract class HbsRenderable implements Renderable {
     public static final String DATA_KEY_REQUEST_LOOKUP = HbsRenderable.class.getName() + "#request-lookup";
     public static final String DATA_KEY_API = HbsRenderable.class.getName() + "#api";
     public static final String DATA_KEY_CURRENT_WRITER = HbsRenderable.class.getName() + "#writer";
-    public static final String DATA_KEY_RESOLVED_RESOURCES = HbsRenderable.class.getName() + "#resolved-resources";
     private static final Handlebars HANDLEBARS = new Handlebars().with(new HbsHelperRegistry());
+    private static final String PROPERTY_COMPILE_TEMPLATES = "uuf.hbs.compileTemplates";
 
     private final Template template;
+    private final CompiledHbsTemplate compiledTemplate;
     private final String absolutePath;
     private final String relativePath;
+    private final List<Runnable> updateListeners;
 
     public HbsRenderable(TemplateSource templateSource, String absolutePath, String relativePath) {
         this.template = (templateSource != null) ? compile(templateSource) : null;
+        this.compiledTemplate = (templateSource != null) ? precompile(templateSource, template) : null;
         this.absolutePath = absolutePath;
         this.relativePath = relativePath;
+        this.updateListeners = new CopyOnWriteArrayList<>();
     }
 
     public Template getTemplate() {
         return template;
     }
 
+    /**
+     * @return template which is applied when rendering, compiled into Java segments if template compilation is enabled
+     */
+    public CompiledHbsTemplate getCompiledTemplate() {
+        return compiledTemplate;
+    }
+
     protected String getAbsolutePath() {
         return absolutePath;
     }
@@ -64,6 +76,18 @@ public abstract class HbsRenderable implements Renderable {
         return relativePath;
     }
 
+    @Override
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
+    }
+
+    /**
+     * Notifies the listeners registered through {@link #addUpdateListener(Runnable)} that this renderable is updated.
+     */
+    public void notifyUpdated() {
+        updateListeners.forEach(Runnable::run);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(absolutePath, getTemplate());
@@ -74,7 +98,7 @@ public abstract class HbsRenderable implements Renderable {
         return "{\"path\": {\"absolute\": \"" + absolutePath + "\", \"relative\": \"" + relativePath + "\"}}";
     }
 
-    protected static Template compile(TemplateSource templateSource) {
+    public static Template compile(TemplateSource templateSource) {
         try {
             return HANDLEBARS.compile(templateSource);
         } catch (IOException e) {
@@ -84,15 +108,37 @@ public abstract class HbsRenderable implements Renderable {
         }
     }
 
-    protected static Map<String, Object> getTemplateModel(Model model, Lookup lookup, RequestLookup requestLookup,
-                                                          API api) {
-        Map<String, Object> context = new HashMap<>();
-        context.put("@contextPath", requestLookup.getContextPath());
-        context.put("@config", lookup.getConfiguration().asMap());
-        context.put("@user", api.getSession().map(session -> (Object) session.getUser()).orElse(false));
-        context.put("@pathParams", requestLookup.getPathParams());
-        context.put("@queryParams", requestLookup.getRequest().getQueryParams());
-        context.put("@params", ((model == null) ? false : model.toMap()));
-        return context;
+    /**
+     * Compiles the specified template ahead of time into Java segments if enabled through the {@code
+     * uuf.hbs.compileTemplates} system property. Otherwise the template is interpreted.
+     *
+     * @param templateSource source of the template
+     * @param template       template compiled from the source through {@link #compile(TemplateSource)}
+     * @return template to apply when rendering
+     */
+    public static CompiledHbsTemplate precompile(TemplateSource templateSource, Template template) {
+        return Boolean.getBoolean(PROPERTY_COMPILE_TEMPLATES) ?
+                CompiledHbsTemplate.compile(templateSource, template, HANDLEBARS) :
+                CompiledHbsTemplate.interpreted(template);
+    }
+
+    protected Map<String, Object> getTemplateModel(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        return getTemplateModel(model, null, lookup, requestLookup, api);
+    }
+
+    /**
+     * Returns the model of a render of this template. Request scoped variables such as {@code @config} and
+     * {@code @user} are shared across the renders of a request and evaluated only if the template accesses them.
+     *
+     * @param model         model of the render, available through {@code @params}
+     * @param executeOutput output of the executable, or {@code null} if there is none
+     * @param lookup        lookup of the app
+     * @param requestLookup lookup of the request
+     * @param api           API of the request
+     * @return model of the render
+     */
+    protected Map<String, Object> getTemplateModel(Model model, Map<?, ?> executeOutput, Lookup lookup,
+                                                   RequestLookup requestLookup, API api) {
+        return RequestTemplateModel.of(lookup, requestLookup, api).newTemplateModel(model, executeOutput);
     }
 }
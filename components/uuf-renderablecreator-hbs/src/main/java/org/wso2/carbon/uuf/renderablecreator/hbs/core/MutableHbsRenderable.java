@@ -31,4 +31,9 @@ public interface MutableHbsRenderable {
     void reload(TemplateSource templateSource);
 
     Optional<MutableExecutable> getMutableExecutable();
+
+    /**
+     * Notifies the update listeners of this renderable after its template or executable is reloaded.
+     */
+    void notifyUpdated();
 }
@@ -0,0 +1,293 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.core;
+
+import org.wso2.carbon.uuf.core.API;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.spi.model.Model;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Request scoped variables of Handlebars templates, i.e. {@code @contextPath}, {@code @config}, {@code @user},
+ * {@code @pathParams} and {@code @queryParams}.
+ * <p>
+ * One instance is shared by all the pages, layouts and fragments rendered in a request. A variable is evaluated only
+ * when it is accessed, hence rendering a template does not allocate a model map nor touch the session unless the
+ * template actually uses them. Only {@code @params} differs from one render to another.
+ *
+ * @since 1.0.0
+ */
+public class RequestTemplateModel {
+
+    public static final String VARIABLE_CONTEXT_PATH = "@contextPath";
+    public static final String VARIABLE_CONFIG = "@config";
+    public static final String VARIABLE_USER = "@user";
+    public static final String VARIABLE_PATH_PARAMS = "@pathParams";
+    public static final String VARIABLE_QUERY_PARAMS = "@queryParams";
+    public static final String VARIABLE_PARAMS = "@params";
+    private static final String ATTRIBUTE_NAME = RequestTemplateModel.class.getName();
+
+    private final Lookup lookup;
+    private final RequestLookup requestLookup;
+    private final API api;
+    private Map<String, Object> config;
+
+    private RequestTemplateModel(Lookup lookup, RequestLookup requestLookup, API api) {
+        this.lookup = lookup;
+        this.requestLookup = requestLookup;
+        this.api = api;
+    }
+
+    /**
+     * Returns the template model of the specified request, creating it in the first call.
+     *
+     * @param lookup        lookup of the app
+     * @param requestLookup lookup of the request
+     * @param api           API of the request
+     * @return template model of the request
+     */
+    public static RequestTemplateModel of(Lookup lookup, RequestLookup requestLookup, API api) {
+        return requestLookup.getAttribute(ATTRIBUTE_NAME, name -> new RequestTemplateModel(lookup, requestLookup, api));
+    }
+
+    /**
+     * Returns the value of the specified request scoped variable.
+     *
+     * @param name name of the variable including the {@code @} prefix, e.g. {@code @contextPath}
+     * @return value of the variable, or {@code null} if there is no such variable
+     */
+    public Object getVariable(String name) {
+        switch (name) {
+            case VARIABLE_CONTEXT_PATH:
+                return requestLookup.getContextPath();
+            case VARIABLE_CONFIG:
+                return getConfig();
+            case VARIABLE_USER:
+                // Session is looked up in every access so that each render which uses it marks the session as
+                // accessed. Hence outputs which do not use it can still be cached.
+                return api.getSession().map(session -> (Object) session.getUser()).orElse(false);
+            case VARIABLE_PATH_PARAMS:
+                return requestLookup.getPathParams();
+            case VARIABLE_QUERY_PARAMS:
+                return requestLookup.getRequest().getQueryParams();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the model of a Handlebars template render.
+     *
+     * @param model         model of the render, values of which are available through {@code @params}
+     * @param executeOutput output of the executable of the renderable, or {@code null} if there is none
+     * @return template model which resolves the request scoped variables of this model on demand
+     */
+    public Map<String, Object> newTemplateModel(Model model, Map<?, ?> executeOutput) {
+        return new TemplateModel(this, model, executeOutput);
+    }
+
+    /**
+     * Returns the context passed to the {@code onRequest} function of an executable.
+     *
+     * @param model model of the render
+     * @return executable context which resolves its values on demand and keeps the values set by the executable
+     */
+    public Map<String, Object> newExecutableContext(Model model) {
+        return new ExecutableContext(this, model);
+    }
+
+    private Map<String, Object> getConfig() {
+        if (config == null) {
+            config = lookup.getConfiguration().asMap();
+        }
+        return config;
+    }
+
+    /**
+     * A read-only view of the request scoped variables, the {@code @params} of a render and the output of its
+     * executable. Listing the entries of this map does not include {@code @user}, so that logging the model does not
+     * touch the session.
+     */
+    private static class TemplateModel extends AbstractMap<String, Object> {
+
+        private final RequestTemplateModel requestModel;
+        private final Model model;
+        private final Map<?, ?> executeOutput;
+
+        private TemplateModel(RequestTemplateModel requestModel, Model model, Map<?, ?> executeOutput) {
+            this.requestModel = requestModel;
+            this.model = model;
+            this.executeOutput = executeOutput;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            String name = (String) key;
+            if (!name.startsWith("@")) {
+                return (executeOutput == null) ? null : executeOutput.get(name);
+            }
+            if (name.equals(VARIABLE_PARAMS)) {
+                return (model == null) ? false : model.toMap();
+            }
+            return requestModel.getVariable(name);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            if (executeOutput != null) {
+                executeOutput.forEach((key, value) -> entries.put(String.valueOf(key), value));
+            }
+            entries.put(VARIABLE_CONTEXT_PATH, get(VARIABLE_CONTEXT_PATH));
+            entries.put(VARIABLE_CONFIG, get(VARIABLE_CONFIG));
+            entries.put(VARIABLE_PATH_PARAMS, get(VARIABLE_PATH_PARAMS));
+            entries.put(VARIABLE_QUERY_PARAMS, get(VARIABLE_QUERY_PARAMS));
+            entries.put(VARIABLE_PARAMS, get(VARIABLE_PARAMS));
+            return entries.entrySet();
+        }
+    }
+
+    /**
+     * The values passed to the {@code onRequest} function of an executable. Request values are evaluated when they
+     * are accessed, while the values which the executable puts or removes are kept in an overlay, hence the executable
+     * can use this map like a mutable map without copying the request values.
+     */
+    private static class ExecutableContext extends AbstractMap<String, Object> {
+
+        private static final String[] REQUEST_KEYS = {"contextPath", "config", "request", "response", "pathParams",
+                "params"};
+        private static final Object REMOVED = new Object();
+
+        private final RequestTemplateModel requestModel;
+        private final Model model;
+        private Map<String, Object> overlay; // values set by the executable, where REMOVED hides a request value
+
+        private ExecutableContext(RequestTemplateModel requestModel, Model model) {
+            this.requestModel = requestModel;
+            this.model = model;
+        }
+
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            if ((overlay != null) && overlay.containsKey(key)) {
+                Object value = overlay.get(key);
+                return (value == REMOVED) ? null : value;
+            }
+            return getRequestValue((String) key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if ((overlay != null) && overlay.containsKey(key)) {
+                return overlay.get(key) != REMOVED;
+            }
+            return get(key) != null;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            Object previousValue = get(key);
+            getOverlay().put(key, value);
+            return previousValue;
+        }
+
+        @Override
+        public Object remove(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Object previousValue = get(key);
+            getOverlay().put((String) key, REMOVED);
+            return previousValue;
+        }
+
+        @Override
+        public void clear() {
+            Map<String, Object> overlay = getOverlay();
+            overlay.replaceAll((key, value) -> REMOVED);
+            for (String key : REQUEST_KEYS) {
+                overlay.put(key, REMOVED);
+            }
+        }
+
+        /**
+         * Returns a snapshot of the entries of this map. Changes to the returned set are not written back to this map.
+         *
+         * @return entries of this map
+         */
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            for (String key : REQUEST_KEYS) {
+                if (containsKey(key)) {
+                    entries.put(key, get(key));
+                }
+            }
+            if (overlay != null) {
+                overlay.forEach((key, value) -> {
+                    if (value != REMOVED) {
+                        entries.put(key, value);
+                    }
+                });
+            }
+            return entries.entrySet();
+        }
+
+        private Map<String, Object> getOverlay() {
+            if (overlay == null) {
+                overlay = new HashMap<>();
+            }
+            return overlay;
+        }
+
+        private Object getRequestValue(String key) {
+            switch (key) {
+                case "contextPath":
+                    return requestModel.requestLookup.getContextPath();
+                case "config":
+                    return requestModel.getConfig();
+                case "request":
+                    return requestModel.requestLookup.getRequest();
+                case "response":
+                    return requestModel.requestLookup.getResponse();
+                case "pathParams":
+                    return requestModel.requestLookup.getPathParams();
+                case "params":
+                    return (model == null) ? null : model.toMap();
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -22,9 +22,7 @@ import org.wso2.carbon.uuf.api.Placeholder;
 import org.wso2.carbon.uuf.core.RequestLookup;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.Set;
 
 public abstract class FillPlaceholderHelper<T> implements Helper<T> {
 
@@ -43,6 +41,25 @@ public abstract class FillPlaceholderHelper<T> implements Helper<T> {
         requestLookup.addToPlaceholder(placeholder, value);
     }
 
+    /**
+     * Adds the specified value of a resource to the placeholder, unless the resource is already added in the current
+     * request.
+     */
+    protected void addToPlaceholder(String value, String resourceIdentifier, Options handlebarsOptions) {
+        RequestLookup requestLookup = handlebarsOptions.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
+        requestLookup.addToPlaceholder(placeholder, value, resourceIdentifier);
+    }
+
+    /**
+     * Adds the specified value of a static resource to the placeholder, unless the resource is already added in the
+     * current request. The resource URI allows the placeholder to be served as a single bundle.
+     */
+    protected void addToPlaceholder(String value, String resourceIdentifier, String resourceUri,
+                                    Options handlebarsOptions) {
+        RequestLookup requestLookup = handlebarsOptions.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
+        requestLookup.addToPlaceholder(placeholder, value, resourceIdentifier, resourceUri);
+    }
+
     protected Optional<String> getPlaceholderValue(Options handlebarsOptions) {
         RequestLookup requestLookup = handlebarsOptions.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
         return requestLookup.getPlaceholderContent(placeholder);
@@ -55,12 +72,4 @@ public abstract class FillPlaceholderHelper<T> implements Helper<T> {
                 : tracker.getCurrentComponentName();
         return resourceIdentifier + relativePath;
     }
-
-    protected boolean isResourceAlreadyResolved(String resourceIdentifier, Options handlebarsOptions) {
-        if (handlebarsOptions.data(HbsRenderable.DATA_KEY_RESOLVED_RESOURCES) == null) {
-            handlebarsOptions.data(HbsRenderable.DATA_KEY_RESOLVED_RESOURCES, new HashSet<>());
-            return false;
-        }
-        return ((Set) handlebarsOptions.data(HbsRenderable.DATA_KEY_RESOLVED_RESOURCES)).contains(resourceIdentifier);
-    }
 }
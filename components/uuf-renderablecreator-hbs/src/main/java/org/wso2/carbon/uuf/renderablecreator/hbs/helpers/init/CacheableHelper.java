@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init;
+
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.HbsPreprocessor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Marks a page or a fragment as cacheable, e.g. {@code {{cacheable}}} or {@code {{cacheable queryParams="sort,page"}}}
+ * where {@code queryParams} lists the query parameters which vary the output of the page. For fragments, {@code
+ * params} lists the fragment parameters which vary the output, e.g. {@code {{cacheable params="title,active"}}}.
+ */
+public class CacheableHelper implements Helper<Object> {
+
+    public static final String HELPER_NAME = "cacheable";
+    private static final String HASH_KEY_QUERY_PARAMS = "queryParams";
+    private static final String HASH_KEY_PARAMS = "params";
+
+    @Override
+    public CharSequence apply(Object context, Options options) throws IOException {
+        if (options.data(HbsPreprocessor.DATA_KEY_CACHE_KEY_QUERY_PARAMS) != null) {
+            throw new IllegalArgumentException("Cannot declare a page or a fragment as cacheable more than once.");
+        }
+
+        Set<String> queryParams = toSet(options.hash.get(HASH_KEY_QUERY_PARAMS));
+        options.data(HbsPreprocessor.DATA_KEY_CACHE_KEY_QUERY_PARAMS, queryParams);
+        options.data(HbsPreprocessor.DATA_KEY_CACHE_KEY_PARAMS, toSet(options.hash.get(HASH_KEY_PARAMS)));
+        return "";
+    }
+
+    private static Set<String> toSet(Object namesObj) {
+        if (namesObj == null) {
+            return Collections.emptySet();
+        }
+        return Arrays.stream(namesObj.toString().split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init;
+
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.HbsPreprocessor;
+
+import java.io.IOException;
+
+/**
+ * Marks a fragment as independent of the other fragments bound to the same zone, so that it can be rendered
+ * concurrently with them, e.g. {@code {{independent}}} or {@code {{independent timeout=2000}}} where {@code timeout}
+ * is the maximum time in milliseconds to wait for the fragment.
+ */
+public class IndependentHelper implements Helper<Object> {
+
+    public static final String HELPER_NAME = "independent";
+    private static final String HASH_KEY_TIMEOUT = "timeout";
+
+    @Override
+    public CharSequence apply(Object context, Options options) throws IOException {
+        Object timeoutObj = options.hash.get(HASH_KEY_TIMEOUT);
+        long timeout;
+        try {
+            timeout = (timeoutObj == null) ? 0 : Long.parseLong(timeoutObj.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Timeout of an independent fragment must be a number of milliseconds. " +
+                                                       "Instead found '" + timeoutObj + "'.", e);
+        }
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Timeout of an independent fragment cannot be negative.");
+        }
+        options.data(HbsPreprocessor.DATA_KEY_RENDER_TIMEOUT, timeout);
+        return "";
+    }
+}
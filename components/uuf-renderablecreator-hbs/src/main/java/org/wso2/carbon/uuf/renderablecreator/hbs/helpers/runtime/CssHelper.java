@@ -23,7 +23,6 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.FillPlaceholderHelper;
 
 import java.io.IOException;
-import java.util.Set;
 
 public class CssHelper extends FillPlaceholderHelper<String> {
 
@@ -34,7 +33,6 @@ public class CssHelper extends FillPlaceholderHelper<String> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public CharSequence apply(String relativePath, Options options) throws IOException {
         if (relativePath == null) {
             throw new IllegalArgumentException("Relative path of a CSS file cannot be null.");
@@ -49,17 +47,10 @@ public class CssHelper extends FillPlaceholderHelper<String> {
         RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
 
         String resourceIdentifier = getResourceIdentifier(requestLookup, completeRelativePath.toString());
-        if (isResourceAlreadyResolved(resourceIdentifier, options)) {
-            return "";
-        }
-
-        StringBuilder buffer = new StringBuilder("<link href=\"")
-                .append(requestLookup.getPublicUri())
-                .append('/')
-                .append(completeRelativePath);
+        String publicUri = requestLookup.getPublicUri(completeRelativePath.toString());
+        StringBuilder buffer = new StringBuilder("<link href=\"").append(publicUri);
         buffer.append("\" rel=\"stylesheet\" type=\"text/css\" />\n");
-        addToPlaceholder(buffer.toString(), options);
-        ((Set) options.data(HbsRenderable.DATA_KEY_RESOLVED_RESOURCES)).add(resourceIdentifier);
+        addToPlaceholder(buffer.toString(), resourceIdentifier, publicUri, options);
         return "";
     }
 }
@@ -16,6 +16,7 @@
 
 package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime;
 
+import com.github.jknack.handlebars.Context;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
@@ -23,8 +24,10 @@ import org.wso2.carbon.uuf.core.API;
 import org.wso2.carbon.uuf.core.Fragment;
 import org.wso2.carbon.uuf.core.Lookup;
 import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.core.ZoneRenderer;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.model.ContextModel;
+import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.io.IOException;
 import java.util.List;
@@ -46,12 +49,20 @@ public class DefineZoneHelper implements Helper<String> {
         List<Fragment> bindings = lookup.getBindings(requestLookup.tracker().getCurrentComponentName(), zoneName);
         if (!bindings.isEmpty()) {
             API api = options.data(HbsRenderable.DATA_KEY_API);
-            for (Fragment fragment : bindings) {
-                buffer.append(fragment.render(new ContextModel(options.context), lookup, requestLookup, api));
-            }
+            buffer.append(ZoneRenderer.render(bindings, fragment -> createModel(fragment, options), lookup,
+                                              requestLookup, api));
         }
 
         requestLookup.getZoneContent(zoneName).ifPresent(buffer::append);
         return new Handlebars.SafeString(buffer.toString());
     }
+
+    private static Model createModel(Fragment fragment, Options options) {
+        if (fragment.isIndependent()) {
+            // An independent fragment may be rendered in another thread, hence it gets a context of its own instead
+            // of a child context which shares the data of the current context.
+            return new ContextModel(Context.newContext(options.context.model()));
+        }
+        return new ContextModel(options.context);
+    }
 }
@@ -40,13 +40,12 @@ public class FaviconHelper extends FillPlaceholderHelper<String> {
         }
 
         RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
-        StringBuilder buffer = new StringBuilder("<link rel=\"shortcut icon\" href=\"")
-                .append(requestLookup.getPublicUri())
-                .append('/')
-                .append(relativePath);
+        StringBuilder completeRelativePath = new StringBuilder(relativePath);
         for (Object param : options.params) {
-            buffer.append(param);
+            completeRelativePath.append(param);
         }
+        StringBuilder buffer = new StringBuilder("<link rel=\"shortcut icon\" href=\"")
+                .append(requestLookup.getPublicUri(completeRelativePath.toString()));
         String type = options.hash("type");
         if (type != null) {
             buffer.append("\" type=\"").append(type);
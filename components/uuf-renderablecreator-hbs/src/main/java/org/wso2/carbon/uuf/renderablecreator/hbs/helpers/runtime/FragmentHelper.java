@@ -16,12 +16,14 @@
 
 package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime;
 
+import com.github.jknack.handlebars.Context;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.uuf.core.API;
+import org.wso2.carbon.uuf.core.DeferredFragments;
 import org.wso2.carbon.uuf.core.Fragment;
 import org.wso2.carbon.uuf.core.Lookup;
 import org.wso2.carbon.uuf.core.RequestLookup;
@@ -30,11 +32,14 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.model.ContextModel;
 import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class FragmentHelper implements Helper<String> {
 
     public static final String HELPER_NAME = "fragment";
+    private static final String HASH_KEY_DEFER = "defer";
     private static final Logger log = LoggerFactory.getLogger(FragmentHelper.class);
 
     @Override
@@ -57,8 +62,21 @@ public class FragmentHelper implements Helper<String> {
             log.debug("Fragment \"" + fragment.get() + "\" is called from '" + options.fn.text() + "'.");
         }
 
-        Model model = new ContextModel(options.context, options.hash);
+        Map<String, Object> params = options.hash;
+        Object defer = params.get(HASH_KEY_DEFER);
+        if (defer != null) {
+            params = new HashMap<>(params);
+            params.remove(HASH_KEY_DEFER);
+        }
         API api = options.data(HbsRenderable.DATA_KEY_API);
+        Optional<DeferredFragments> deferredFragments = requestLookup.getDeferredFragments();
+        if (Boolean.TRUE.equals(defer) && deferredFragments.isPresent()) {
+            // Deferred fragment is rendered in another thread, hence gets a context detached from the current one.
+            Model model = new ContextModel(Context.newContext(options.context.model()), params);
+            return new Handlebars.SafeString(deferredFragments.get().defer(fragment.get(), model, lookup, api));
+        }
+
+        Model model = new ContextModel(options.context, params);
         String content = fragment.get().render(model, lookup, requestLookup, api);
         return new Handlebars.SafeString(content);
     }
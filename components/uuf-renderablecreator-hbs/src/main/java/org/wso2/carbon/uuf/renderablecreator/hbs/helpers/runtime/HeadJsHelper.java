@@ -23,8 +23,6 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.FillPlaceholderHelper;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
 public class HeadJsHelper extends FillPlaceholderHelper<String> {
 
@@ -53,28 +51,25 @@ public class HeadJsHelper extends FillPlaceholderHelper<String> {
         RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
 
         String resourceIdentifier = getResourceIdentifier(requestLookup, completeRelativePath.toString());
-        if (isResourceAlreadyResolved(resourceIdentifier, options)) {
-            return "";
-        }
-
-        StringBuilder buffer = new StringBuilder("<script src=\"")
-                .append(requestLookup.getPublicUri())
-                .append('/')
-                .append(completeRelativePath);
+        String publicUri = requestLookup.getPublicUri(completeRelativePath.toString());
+        StringBuilder buffer = new StringBuilder("<script src=\"").append(publicUri);
         buffer.append("\"");
+        boolean isBundleable = true;
         // See http://www.w3schools.com/tags/att_script_async.asp
         Object async = options.hash.get("async");
         if ((async != null) && ((Boolean) async)) {
             buffer.append(" async");
+            isBundleable = false;
         }
         // See http://www.w3schools.com/tags/att_script_defer.asp
         Object defer = options.hash.get("defer");
         if ((defer != null) && ((Boolean) defer)) {
             buffer.append(" defer");
+            isBundleable = false;
         }
         buffer.append(" type=\"text/javascript\"></script>\n");
-        addToPlaceholder(buffer.toString(), options);
-        ((Set) options.data(HbsRenderable.DATA_KEY_RESOLVED_RESOURCES)).add(resourceIdentifier);
+        // Async and deferred scripts are executed out of order, hence they cannot be bundled with other scripts.
+        addToPlaceholder(buffer.toString(), resourceIdentifier, (isBundleable ? publicUri : null), options);
         return "";
     }
 }
@@ -18,19 +18,21 @@ package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime;
 
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
+import org.wso2.carbon.uuf.core.I18nResources;
 import org.wso2.carbon.uuf.core.Lookup;
 import org.wso2.carbon.uuf.core.RequestLookup;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.Properties;
 
+/**
+ * Translates a message, e.g. <code>{{t "welcome"}}</code> or <code>{{t "greeting" user.name}}</code> where the
+ * parameters replace the <code>{0}</code>, <code>{1}</code>... placeholders of the message. The locale is negotiated
+ * once per request, unless it is given with the {@code locale} hash parameter.
+ */
 public class I18nHelper implements Helper<String> {
 
     public static final String HELPER_NAME = "t";
-    private static final String DEFAULT_LOCALE = "en_US";
-    private static final String LOCALE_HEADER = "Accept-Language";
     private static final String LOCALE = "locale";
 
     @Override
@@ -39,33 +41,21 @@ public class I18nHelper implements Helper<String> {
             throw new IllegalArgumentException("Key of a translating string cannot be null.");
         }
 
-        RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
         Lookup lookup = options.data(HbsRenderable.DATA_KEY_LOOKUP);
-        Object localParam = options.hash.get(LOCALE);
-        Object localeRequest;
-        String currentLocale;
-
-        if (localParam != null) {
-            currentLocale = localParam.toString();
-        } else if ((localeRequest = requestLookup.getRequest().getHeaders().get(LOCALE_HEADER)) != null) {
-            // example: en,en-US;q=0.7,en-AU;q=0.3
-            // https://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.4
-            String locale = localeRequest.toString().split(",")[0].replace("-", "_");
-            if (locale.contains("_")) {
-                currentLocale = locale;
-            } else {
-                currentLocale = lookup.getAllI18nResources().entrySet().stream()
-                        .filter(e -> e.getKey().startsWith(locale))
-                        .map(Map.Entry::getKey)
-                        .findFirst()
-                        .orElse(DEFAULT_LOCALE);
-            }
+        I18nResources i18nResources = lookup.getI18nResources();
+        Object localeParam = options.hash.get(LOCALE);
+        String locale;
+        if (localeParam != null) {
+            locale = localeParam.toString();
         } else {
-            currentLocale = DEFAULT_LOCALE;
+            RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
+            locale = requestLookup.getLocale(i18nResources);
         }
 
-        Properties props = lookup.getAllI18nResources().get(currentLocale);
-        return props != null ? props.getProperty(key, key) : key;
+        I18nResources.Message message = i18nResources.getMessage(locale, key);
+        if (message == null) {
+            return key;
+        }
+        return message.isParameterized() ? message.format(options.params) : message.format();
     }
-
 }
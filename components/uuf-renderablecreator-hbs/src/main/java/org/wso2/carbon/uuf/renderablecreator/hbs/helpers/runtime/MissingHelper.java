@@ -19,6 +19,8 @@ package org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
 import com.google.common.collect.ImmutableSet;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.CacheableHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.IndependentHelper;
 import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.LayoutHelper;
 
 import java.io.IOException;
@@ -26,7 +28,9 @@ import java.util.Set;
 
 public class MissingHelper implements Helper<Object> {
 
-    private static final Set<String> INIT_HELPERS_NAMES = ImmutableSet.of(LayoutHelper.HELPER_NAME);
+    private static final Set<String> INIT_HELPERS_NAMES = ImmutableSet.of(LayoutHelper.HELPER_NAME,
+                                                                             CacheableHelper.HELPER_NAME,
+                                                                             IndependentHelper.HELPER_NAME);
 
     @Override
     public CharSequence apply(Object arg, Options options) throws IOException {
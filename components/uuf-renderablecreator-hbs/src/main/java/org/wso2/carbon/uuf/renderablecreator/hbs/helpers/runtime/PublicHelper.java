@@ -35,10 +35,10 @@ public class PublicHelper implements Helper<String> {
         }
 
         RequestLookup requestLookup = options.data(HbsRenderable.DATA_KEY_REQUEST_LOOKUP);
-        StringBuilder buffer = new StringBuilder(requestLookup.getPublicUri()).append('/').append(relativeUri);
+        StringBuilder completeRelativeUri = new StringBuilder(relativeUri);
         for (Object param : options.params) {
-            buffer.append(param);
+            completeRelativeUri.append(param);
         }
-        return buffer.toString();
+        return requestLookup.getPublicUri(completeRelativeUri.toString());
     }
 }
@@ -36,8 +36,7 @@ public class SecuredHelper implements Helper<Object> {
         if (context instanceof String) {
             // {{#secured permissionUri permissionAction}} ... {{/secured}} || {{secured permissionUri permissionAction}}
             API api = options.data(HbsRenderable.DATA_KEY_API);
-            boolean hasPermission = api.getSession().map(Session::getUser).get().
-                    hasPermission(context.toString(),options.param(0));
+            boolean hasPermission = api.hasPermission(context.toString(), options.param(0));
 
             if (options.tagType.inline()) {
                 if (hasPermission) {
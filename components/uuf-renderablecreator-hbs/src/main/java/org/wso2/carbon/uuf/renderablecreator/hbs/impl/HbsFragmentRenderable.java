@@ -57,24 +57,20 @@ public class HbsFragmentRenderable extends HbsPageRenderable {
     public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         Context context;
         Executable executable = getExecutable();
+        Map<String, Object> templateModel;
         if (executable == null) {
-            Map<String, Object> templateModel = getTemplateModel(model, lookup, requestLookup, api);
-            if (model instanceof ContextModel) {
-                context = Context.newContext(((ContextModel) model).getParentContext(), templateModel);
-            } else {
-                context = Context.newContext(templateModel);
-            }
+            templateModel = getTemplateModel(model, lookup, requestLookup, api);
         } else {
-            Map executeOutput = execute(executable, getExecutableContext(model, lookup, requestLookup), api);
+            Map executeOutput = execute(executable, getExecutableContext(model, lookup, requestLookup, api), api);
             if (log.isDebugEnabled()) {
                 log.debug("Executable output \"" + DebugUtil.safeJsonString(executeOutput) + "\".");
             }
-            if (model instanceof ContextModel) {
-                context = Context.newContext(((ContextModel) model).getParentContext(), executeOutput);
-            } else {
-                context = Context.newContext(executeOutput);
-            }
-            context.combine(getTemplateModel(model, lookup, requestLookup, api));
+            templateModel = getTemplateModel(model, executeOutput, lookup, requestLookup, api);
+        }
+        if (model instanceof ContextModel) {
+            context = Context.newContext(((ContextModel) model).getParentContext(), templateModel);
+        } else {
+            context = Context.newContext(templateModel);
         }
 
         context.data(DATA_KEY_LOOKUP, lookup);
@@ -85,7 +81,7 @@ public class HbsFragmentRenderable extends HbsPageRenderable {
                               "\".");
         }
         try {
-            return getTemplate().apply(context);
+            return getCompiledTemplate().apply(context);
         } catch (IOException e) {
             throw new UUFException("An error occurred when writing to the in-memory PlaceholderWriter.", e);
         }
@@ -24,6 +24,7 @@ import org.wso2.carbon.uuf.core.RequestLookup;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.PlaceholderWriter;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.io.IOException;
@@ -44,6 +45,18 @@ public class HbsLayoutRenderable extends HbsRenderable {
 
     @Override
     public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        PlaceholderWriter writer = renderTemplate(model, lookup, requestLookup, api);
+        String out = writer.toString(requestLookup.getPlaceholderContents());
+        writer.close();
+        return out;
+    }
+
+    @Override
+    public StreamingContent renderStreaming(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        return renderTemplate(model, lookup, requestLookup, api).toStreamingContent(requestLookup);
+    }
+
+    private PlaceholderWriter renderTemplate(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         Context context = Context.newContext(getTemplateModel(model, lookup, requestLookup, api));
         context.data(DATA_KEY_LOOKUP, lookup);
         context.data(DATA_KEY_REQUEST_LOOKUP, requestLookup);
@@ -51,13 +64,11 @@ public class HbsLayoutRenderable extends HbsRenderable {
         PlaceholderWriter writer = new PlaceholderWriter();
         context.data(DATA_KEY_CURRENT_WRITER, writer);
         try {
-            getTemplate().apply(context, writer);
+            getCompiledTemplate().apply(context, writer);
         } catch (IOException e) {
             throw new UUFException("An error occurred when rendering the compiled Handlebars template of layout '" +
                                            getAbsolutePath() + "'.", e);
         }
-        String out = writer.toString(requestLookup.getPlaceholderContents());
-        writer.close();
-        return out;
+        return writer;
     }
 }
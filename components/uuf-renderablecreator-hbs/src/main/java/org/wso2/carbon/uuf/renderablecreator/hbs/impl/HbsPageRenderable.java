@@ -27,13 +27,14 @@ import org.wso2.carbon.uuf.exception.InvalidTypeException;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.Executable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.RequestTemplateModel;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.DebugUtil;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.PlaceholderWriter;
+import org.wso2.carbon.uuf.spi.StreamingContent;
 import org.wso2.carbon.uuf.spi.model.Model;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -67,16 +68,28 @@ public class HbsPageRenderable extends HbsRenderable {
 
     @Override
     public String render(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        PlaceholderWriter writer = renderTemplate(model, lookup, requestLookup, api);
+        String out = writer.toString(requestLookup.getPlaceholderContents());
+        writer.close();
+        return out;
+    }
+
+    @Override
+    public StreamingContent renderStreaming(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
+        return renderTemplate(model, lookup, requestLookup, api).toStreamingContent(requestLookup);
+    }
+
+    private PlaceholderWriter renderTemplate(Model model, Lookup lookup, RequestLookup requestLookup, API api) {
         Context context;
         Executable executable = getExecutable();
         if (executable == null) {
             context = Context.newContext(getTemplateModel(model, lookup, requestLookup, api));
         } else {
-            Map executeOutput = execute(executable, getExecutableContext(model, lookup, requestLookup), api);
+            Map executeOutput = execute(executable, getExecutableContext(model, lookup, requestLookup, api), api);
             if (log.isDebugEnabled()) {
                 log.debug("Executable output \"" + DebugUtil.safeJsonString(executeOutput) + "\".");
             }
-            context = Context.newContext(executeOutput).combine(getTemplateModel(model, lookup, requestLookup, api));
+            context = Context.newContext(getTemplateModel(model, executeOutput, lookup, requestLookup, api));
         }
 
         context.data(DATA_KEY_LOOKUP, lookup);
@@ -89,13 +102,11 @@ public class HbsPageRenderable extends HbsRenderable {
         PlaceholderWriter writer = new PlaceholderWriter();
         context.data(DATA_KEY_CURRENT_WRITER, writer);
         try {
-            getTemplate().apply(context, writer);
+            getCompiledTemplate().apply(context, writer);
         } catch (IOException e) {
             throw new UUFException("An error occurred when writing to the in-memory PlaceholderWriter.", e);
         }
-        String out = writer.toString(requestLookup.getPlaceholderContents());
-        writer.close();
-        return out;
+        return writer;
     }
 
     @Override
@@ -109,15 +120,9 @@ public class HbsPageRenderable extends HbsRenderable {
                 "\"}, \"js\": " + getExecutable() + "}";
     }
 
-    protected static Map<String, Object> getExecutableContext(Model model, Lookup lookup, RequestLookup requestLookup) {
-        Map<String, Object> context = new HashMap<>();
-        context.put("contextPath", requestLookup.getContextPath());
-        context.put("config", lookup.getConfiguration().asMap());
-        context.put("request", requestLookup.getRequest());
-        context.put("response", requestLookup.getResponse());
-        context.put("pathParams", requestLookup.getPathParams());
-        context.put("params", ((model == null) ? null : model.toMap()));
-        return context;
+    protected static Map<String, Object> getExecutableContext(Model model, Lookup lookup, RequestLookup requestLookup,
+                                                              API api) {
+        return RequestTemplateModel.of(lookup, requestLookup, api).newExecutableContext(model);
     }
 
     protected static Map execute(Executable executable, Object context, API api) {
@@ -16,8 +16,10 @@
 
 package org.wso2.carbon.uuf.renderablecreator.hbs.impl;
 
-import jdk.nashorn.api.scripting.NashornScriptEngine;
-import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
+import jdk.nashorn.api.scripting.NashornException;
+import jdk.nashorn.api.scripting.ScriptObjectMirror;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wso2.carbon.uuf.core.API;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.Executable;
@@ -31,12 +33,18 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.ModuleFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendErrorFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendRedirectFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendToClientFunction;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.js.CompiledScriptCache;
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.js.JsFunctionsImpl;
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.js.LoggerObject;
 
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import javax.script.ScriptContext;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
@@ -45,14 +53,22 @@ import javax.script.SimpleBindings;
 @SuppressWarnings("PackageAccessibility")
 public class JsExecutable implements Executable {
 
-    private static final NashornScriptEngineFactory SCRIPT_ENGINE_FACTORY = new NashornScriptEngineFactory();
-    private static final String[] SCRIPT_ENGINE_ARGS = new String[]{"-strict", "--optimistic-types"};
+    private static final String NASHORN_GLOBAL = "nashorn.global";
+    private static final String FUNCTION_ON_REQUEST = "onRequest";
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsExecutable.class);
 
-    private final NashornScriptEngine engine;
-    private final UUFBindings engineBindings;
+    private final ClassLoader componentClassLoader;
     private final String absolutePath;
     private final String relativePath;
     private final String componentPath;
+    private final ExecutionMode executionMode;
+    private final int poolSize;
+    /**
+     * Compiled script cache of the component class loader. Referenced here so that the cache, which is held weakly,
+     * lives as long as this executable.
+     */
+    private volatile CompiledScriptCache scriptCache;
+    private volatile EngineProvider engineProvider;
 
     public JsExecutable(String scriptSource, ClassLoader componentClassLoader) {
         this(scriptSource, componentClassLoader, null, null, null);
@@ -60,26 +76,56 @@ public class JsExecutable implements Executable {
 
     public JsExecutable(String scriptSource, ClassLoader componentClassLoader, String absolutePath, String relativePath,
                         String componentPath) {
+        this(scriptSource, componentClassLoader, absolutePath, relativePath, componentPath, ExecutionMode.SHARED, 1);
+    }
+
+    /**
+     * @param executionMode how script engines are shared among request threads
+     * @param poolSize      number of script engines when the execution mode is {@link ExecutionMode#POOLED} or {@link
+     *                      ExecutionMode#THREAD_CONFINED}
+     */
+    public JsExecutable(String scriptSource, ClassLoader componentClassLoader, String absolutePath, String relativePath,
+                        String componentPath, ExecutionMode executionMode, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Script engine pool size must be a positive integer.");
+        }
+        this.componentClassLoader = componentClassLoader;
         this.absolutePath = absolutePath;
         this.relativePath = relativePath;
         this.componentPath = componentPath;
-        // Even though 'NashornScriptEngineFactory.getParameter("THREADING")' returns null, NashornScriptEngine is
-        // thread-safe. See http://stackoverflow.com/a/30159424
-        this.engine = (NashornScriptEngine) SCRIPT_ENGINE_FACTORY.getScriptEngine(SCRIPT_ENGINE_ARGS,
-                                                                                  componentClassLoader);
-        this.engineBindings = new UUFBindings();
-        this.engine.setBindings(engineBindings, ScriptContext.ENGINE_SCOPE);
+        this.executionMode = executionMode;
+        this.poolSize = poolSize;
         compile(scriptSource);
     }
 
     protected void compile(String scriptSource) {
-        engineBindings.unlock();
-        engineBindings.clear();
+        long startTime = System.nanoTime();
+        CompiledScriptCache scriptCache = CompiledScriptCache.of(componentClassLoader);
+        this.scriptCache = scriptCache;
+        CompiledScript compiledScript = scriptCache.compile(scriptSource, absolutePath);
+        // Engines are created here, so that errors are reported and the pool is warmed up when compiling.
+        if (executionMode == ExecutionMode.SHARED) {
+            engineProvider = new SharedEngineProvider(createEngine(scriptCache, compiledScript));
+        } else {
+            Engine[] engines = new Engine[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                engines[i] = createEngine(scriptCache, compiledScript);
+            }
+            engineProvider = new PooledEngineProvider(engines, (executionMode == ExecutionMode.THREAD_CONFINED),
+                                                      absolutePath);
+        }
+        LOGGER.debug("JavaScript file '{}' compiled in {} ms.", absolutePath,
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
 
+    private Engine createEngine(CompiledScriptCache scriptCache, CompiledScript compiledScript) {
+        // Each evaluation of the compiled script gets a new global object, which is kept in the bindings.
+        UUFBindings engineBindings = new UUFBindings();
         engineBindings.put(ScriptEngine.FILENAME, absolutePath);
-        engineBindings.put(ModuleFunction.NAME, JsFunctionsImpl.getModuleFunction(componentPath, engine));
+        engineBindings.put(ModuleFunction.NAME,
+                           JsFunctionsImpl.getModuleFunction(componentPath, scriptCache, engineBindings));
         try {
-            engine.eval(scriptSource);
+            compiledScript.eval(engineBindings);
         } catch (ScriptException e) {
             throw new UUFException("An error occurred while evaluating the JavaScript file '" + absolutePath + "'.", e);
         }
@@ -92,6 +138,7 @@ public class JsExecutable implements Executable {
         engineBindings.put(LoggerObject.NAME, JsFunctionsImpl.getLoggerObject(relativePath));
 
         engineBindings.lock();
+        return new Engine((ScriptObjectMirror) engineBindings.get(NASHORN_GLOBAL), engineBindings);
     }
 
     protected String getAbsolutePath() {
@@ -102,31 +149,163 @@ public class JsExecutable implements Executable {
         return relativePath;
     }
 
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
     @Override
     public Object execute(Object context, API api) {
+        EngineProvider engineProvider = this.engineProvider;
+        Engine engine = engineProvider.checkout();
         try {
-            engineBindings.setJSFunctionProvider(new JsFunctionsImpl(api));
-            return engine.invokeFunction("onRequest", context);
-        } catch (ScriptException e) {
+            Object onRequestFunction = engine.global.getMember(FUNCTION_ON_REQUEST);
+            if (!(onRequestFunction instanceof ScriptObjectMirror) ||
+                    !((ScriptObjectMirror) onRequestFunction).isFunction()) {
+                throw new UUFException(
+                        "Cannot find the 'onRequest' function in the JavaScript file '" + absolutePath + "'.");
+            }
+            engine.bindings.setJSFunctionProvider(new JsFunctionsImpl(api));
+            Object result = engine.global.callMember(FUNCTION_ON_REQUEST, context);
+            return ScriptObjectMirror.isUndefined(result) ? null : result;
+        } catch (NashornException e) {
+            ScriptException scriptException = new ScriptException(e.getMessage(), e.getFileName(), e.getLineNumber(),
+                                                                   e.getColumnNumber());
+            scriptException.initCause(e);
             throw new UUFException("An error occurred when executing the 'onRequest' function in JavaScript file '" +
-                                           absolutePath + "' with context '" + context + "'.", e);
-        } catch (NoSuchMethodException e) {
-            throw new UUFException(
-                    "Cannot find the 'onRequest' function in the JavaScript file '" + absolutePath + "'.",
-                    e);
+                                           absolutePath + "' with context '" + context + "'.", scriptException);
         } finally {
-            engineBindings.removeJSFunctionProvider();
+            engine.bindings.removeJSFunctionProvider();
+            engineProvider.release(engine);
         }
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(absolutePath, engine);
+        return Objects.hash(absolutePath, componentPath);
     }
 
     @Override
     public String toString() {
-        return "{\"path\": {\"absolute\": \"" + absolutePath + "\", \"relative\": \"" + relativePath + "\"}}";
+        return "{\"path\": {\"absolute\": \"" + absolutePath + "\", \"relative\": \"" + relativePath +
+                "\"}, \"executionMode\": \"" + executionMode + "\"}";
+    }
+
+    /**
+     * Execution modes of JavaScript executables.
+     */
+    public enum ExecutionMode {
+
+        /**
+         * A single script engine is shared by all request threads.
+         */
+        SHARED,
+        /**
+         * Request threads check out script engines from a bounded pool, and wait for a free engine when all of them
+         * are in use. All engines of the pool are created when the script is compiled.
+         */
+        POOLED,
+        /**
+         * Like {@link #POOLED}, but each request thread keeps using the same engine of the pool unless another thread
+         * is using it.
+         */
+        THREAD_CONFINED;
+
+        /**
+         * @param name name of the execution mode, e.g. "shared", "pooled" or "thread-confined"
+         * @return execution mode
+         * @exception IllegalArgumentException if there is no execution mode with the specified name
+         */
+        public static ExecutionMode fromString(String name) {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    private static class Engine {
+
+        private final ScriptObjectMirror global;
+        private final UUFBindings bindings;
+
+        private Engine(ScriptObjectMirror global, UUFBindings bindings) {
+            this.global = global;
+            this.bindings = bindings;
+        }
+    }
+
+    private interface EngineProvider {
+
+        Engine checkout();
+
+        void release(Engine engine);
+    }
+
+    private static class SharedEngineProvider implements EngineProvider {
+
+        private final Engine engine;
+
+        private SharedEngineProvider(Engine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public Engine checkout() {
+            return engine;
+        }
+
+        @Override
+        public void release(Engine engine) {
+        }
+    }
+
+    private static class PooledEngineProvider implements EngineProvider {
+
+        /**
+         * All engines of the pool, indexed by their slots.
+         */
+        private final Engine[] engines;
+        /**
+         * Engines which are not checked out. A thread which finds no idle engine waits for one to be released.
+         */
+        private final BlockingQueue<Engine> idleEngines;
+        private final boolean isThreadAffine;
+        private final String scriptPath;
+
+        private PooledEngineProvider(Engine[] engines, boolean isThreadAffine, String scriptPath) {
+            this.engines = engines;
+            this.idleEngines = new ArrayBlockingQueue<>(engines.length, false, Arrays.asList(engines));
+            this.isThreadAffine = isThreadAffine;
+            this.scriptPath = scriptPath;
+        }
+
+        @Override
+        public Engine checkout() {
+            if (isThreadAffine) {
+                // Prefer the engine in the slot of the current thread, if it is idle.
+                Engine engine = engines[(int) (Thread.currentThread().getId() % engines.length)];
+                if (idleEngines.remove(engine)) {
+                    return engine;
+                }
+            }
+            Engine engine = idleEngines.poll();
+            if (engine != null) {
+                return engine;
+            }
+            // All engines are checked out, hence wait for one to be released.
+            long startTime = System.nanoTime();
+            try {
+                engine = idleEngines.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UUFException("Interrupted while waiting for a free JavaScript engine.", e);
+            }
+            LOGGER.debug("Waited {} ms for a free script engine of JavaScript file '{}'.",
+                         TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), scriptPath);
+            return engine;
+        }
+
+        @Override
+        public void release(Engine engine) {
+            idleEngines.offer(engine);
+        }
     }
 
     public static class UUFBindings extends SimpleBindings {
@@ -20,6 +20,7 @@ package org.wso2.carbon.uuf.renderablecreator.hbs.impl;
 
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.TemplateSource;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.CompiledHbsTemplate;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.Executable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableHbsRenderable;
@@ -28,13 +29,13 @@ import java.util.Optional;
 
 public class MutableHbsFragmentRenderable extends HbsFragmentRenderable implements MutableHbsRenderable {
 
-    private volatile Template template;
+    private volatile CompiledHbsTemplate template;
     private final MutableExecutable mutableExecutable;
 
     public MutableHbsFragmentRenderable(TemplateSource templateSource, String absolutePath, String relativePath,
                                         MutableExecutable mutableExecutable) {
         super(null, absolutePath, relativePath, null);
-        this.template = compile(templateSource);
+        this.template = precompile(templateSource, compile(templateSource));
         this.mutableExecutable = mutableExecutable;
     }
 
@@ -50,6 +51,11 @@ public class MutableHbsFragmentRenderable extends HbsFragmentRenderable implemen
 
     @Override
     public Template getTemplate() {
+        return template.getTemplate();
+    }
+
+    @Override
+    public CompiledHbsTemplate getCompiledTemplate() {
         return template;
     }
 
@@ -60,7 +66,7 @@ public class MutableHbsFragmentRenderable extends HbsFragmentRenderable implemen
 
     @Override
     public void reload(TemplateSource templateSource) {
-        template = compile(templateSource);
+        template = precompile(templateSource, compile(templateSource));
     }
 
     @Override
@@ -18,6 +18,7 @@ package org.wso2.carbon.uuf.renderablecreator.hbs.impl;
 
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.TemplateSource;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.CompiledHbsTemplate;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableHbsRenderable;
 
@@ -25,11 +26,11 @@ import java.util.Optional;
 
 public class MutableHbsLayoutRenderable extends HbsLayoutRenderable implements MutableHbsRenderable {
 
-    private volatile Template template;
+    private volatile CompiledHbsTemplate template;
 
     public MutableHbsLayoutRenderable(TemplateSource templateSource, String absolutePath, String relativePath) {
         super(null, absolutePath, relativePath);
-        this.template = compile(templateSource);
+        this.template = precompile(templateSource, compile(templateSource));
     }
 
     @Override
@@ -44,12 +45,17 @@ public class MutableHbsLayoutRenderable extends HbsLayoutRenderable implements M
 
     @Override
     public Template getTemplate() {
+        return template.getTemplate();
+    }
+
+    @Override
+    public CompiledHbsTemplate getCompiledTemplate() {
         return template;
     }
 
     @Override
     public void reload(TemplateSource templateSource) {
-        template = compile(templateSource);
+        template = precompile(templateSource, compile(templateSource));
     }
 
     @Override
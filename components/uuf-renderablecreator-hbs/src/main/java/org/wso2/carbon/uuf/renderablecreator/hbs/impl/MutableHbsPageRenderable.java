@@ -18,6 +18,7 @@ package org.wso2.carbon.uuf.renderablecreator.hbs.impl;
 
 import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.TemplateSource;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.CompiledHbsTemplate;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.Executable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableHbsRenderable;
@@ -26,13 +27,13 @@ import java.util.Optional;
 
 public class MutableHbsPageRenderable extends HbsPageRenderable implements MutableHbsRenderable {
 
-    private volatile Template template;
+    private volatile CompiledHbsTemplate template;
     private final MutableExecutable mutableExecutable;
 
     public MutableHbsPageRenderable(TemplateSource templateSource, String absolutePath, String relativePath,
                                     MutableExecutable mutableExecutable) {
         super(null, absolutePath, relativePath, null);
-        this.template = compile(templateSource);
+        this.template = precompile(templateSource, compile(templateSource));
         this.mutableExecutable = mutableExecutable;
     }
 
@@ -48,6 +49,11 @@ public class MutableHbsPageRenderable extends HbsPageRenderable implements Mutab
 
     @Override
     public Template getTemplate() {
+        return template.getTemplate();
+    }
+
+    @Override
+    public CompiledHbsTemplate getCompiledTemplate() {
         return template;
     }
 
@@ -58,7 +64,7 @@ public class MutableHbsPageRenderable extends HbsPageRenderable implements Mutab
 
     @Override
     public void reload(TemplateSource templateSource) {
-        template = compile(templateSource);
+        template = precompile(templateSource, compile(templateSource));
     }
 
     @Override
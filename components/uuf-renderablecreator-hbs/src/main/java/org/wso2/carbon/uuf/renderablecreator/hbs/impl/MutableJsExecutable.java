@@ -30,7 +30,12 @@ public class MutableJsExecutable extends JsExecutable implements MutableExecutab
 
     public MutableJsExecutable(String scriptSource, ClassLoader componentClassLoader, String absolutePath,
                                String relativePath, String componentPath) {
-        super(scriptSource, componentClassLoader, absolutePath, relativePath, componentPath);
+        this(scriptSource, componentClassLoader, absolutePath, relativePath, componentPath, ExecutionMode.SHARED, 1);
+    }
+
+    public MutableJsExecutable(String scriptSource, ClassLoader componentClassLoader, String absolutePath,
+                               String relativePath, String componentPath, ExecutionMode executionMode, int poolSize) {
+        super(scriptSource, componentClassLoader, absolutePath, relativePath, componentPath, executionMode, poolSize);
         ReadWriteLock lock = new ReentrantReadWriteLock();
         this.readLock = lock.readLock();
         this.writeLock = lock.writeLock();
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.impl.js;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import jdk.nashorn.api.scripting.NashornScriptEngine;
+import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.exception.UUFException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * Compiles JavaScript files once and shares the compiled scripts among all executables of a class loader.
+ * <p>
+ * A compiled script is bound to the Nashorn engine which compiled it, hence there is one engine per class loader. Each
+ * execution of a compiled script gets its own global object through the bindings it is evaluated with.
+ * <p>
+ * The engine of a cache references its class loader, hence caches are held weakly and executables have to keep a
+ * reference to the cache they use. A cache, and with it its class loader, is collected once all its executables are
+ * gone, e.g. when their app is undeployed.
+ *
+ * @since 1.0.0
+ */
+// TODO remove this SuppressWarnings
+@SuppressWarnings("PackageAccessibility")
+public class CompiledScriptCache {
+
+    private static final NashornScriptEngineFactory SCRIPT_ENGINE_FACTORY = new NashornScriptEngineFactory();
+    private static final String PROPERTY_PERSISTENT_CODE_CACHE = "uuf.js.persistentCodeCache";
+    private static final Cache<ClassLoader, CompiledScriptCache> CACHES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .weakValues()
+            .build();
+
+    private final NashornScriptEngine engine;
+    private final ConcurrentMap<String, CompiledSource> scripts;
+    private final ConcurrentMap<Path, CompiledSource> modules;
+
+    private CompiledScriptCache(ClassLoader classLoader) {
+        // Nashorn keeps compiled classes on disk when the persistent code cache is enabled. The cache directory can be
+        // set with the 'nashorn.persistent.code.cache' system property.
+        boolean isPersistentCodeCacheEnabled = Boolean.parseBoolean(
+                System.getProperties().getProperty(PROPERTY_PERSISTENT_CODE_CACHE, "false"));
+        String[] args = isPersistentCodeCacheEnabled ?
+                new String[]{"-strict", "--optimistic-types", "--persistent-code-cache"} :
+                new String[]{"-strict", "--optimistic-types"};
+        // Even though 'NashornScriptEngineFactory.getParameter("THREADING")' returns null, NashornScriptEngine is
+        // thread-safe. See http://stackoverflow.com/a/30159424
+        this.engine = (NashornScriptEngine) SCRIPT_ENGINE_FACTORY.getScriptEngine(args, classLoader);
+        this.scripts = new ConcurrentHashMap<>();
+        this.modules = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the compiled script cache of the specified class loader.
+     *
+     * @param classLoader class loader to load Java classes used in scripts
+     * @return compiled script cache
+     */
+    public static CompiledScriptCache of(ClassLoader classLoader) {
+        try {
+            return CACHES.get(classLoader, () -> new CompiledScriptCache(classLoader));
+        } catch (ExecutionException e) {
+            throw new UUFException("Cannot create a JavaScript engine.", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the compiled script of the specified source. The script is compiled again only if the source of the
+     * specified file has changed since it was last compiled. Scripts without a file name are not cached.
+     *
+     * @param scriptSource JavaScript source
+     * @param fileName     name of the file shown in stack traces, can be {@code null}
+     * @return compiled script
+     * @exception UUFException if the script cannot be compiled
+     */
+    public CompiledScript compile(String scriptSource, String fileName) {
+        HashCode hash = null;
+        if (fileName != null) {
+            hash = Hashing.sha256().hashString(scriptSource, StandardCharsets.UTF_8);
+            CompiledSource compiledSource = scripts.get(fileName);
+            if ((compiledSource != null) && compiledSource.version.equals(hash)) {
+                return compiledSource.script;
+            }
+        }
+        try {
+            CompiledScript script = compileScript(scriptSource, fileName);
+            if (fileName != null) {
+                scripts.put(fileName, new CompiledSource(hash, script));
+            }
+            return script;
+        } catch (ScriptException e) {
+            throw new UUFException("An error occurred while evaluating the JavaScript file '" + fileName + "'.", e);
+        }
+    }
+
+    /**
+     * Returns the compiled script of the specified module file. The module is compiled again only if the file has
+     * been modified since it was last compiled.
+     *
+     * @param modulePath path to the JavaScript module file
+     * @return compiled script
+     * @exception FileOperationException if the module file cannot be read
+     * @exception UUFException           if the module cannot be compiled
+     */
+    public CompiledScript compileModule(Path modulePath) {
+        try {
+            FileTime lastModifiedTime = Files.getLastModifiedTime(modulePath);
+            CompiledSource compiledSource = modules.get(modulePath);
+            if ((compiledSource != null) && compiledSource.version.equals(lastModifiedTime)) {
+                return compiledSource.script;
+            }
+            String content = new String(Files.readAllBytes(modulePath), StandardCharsets.UTF_8);
+            CompiledScript script = compileScript(content, modulePath.toString());
+            modules.put(modulePath, new CompiledSource(lastModifiedTime, script));
+            return script;
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot read content of JavaScript module '" + modulePath + "'.", e);
+        } catch (ScriptException e) {
+            throw new UUFException("An error occurred while evaluating the JavaScript module '" + modulePath + "'.",
+                                   e);
+        }
+    }
+
+    private CompiledScript compileScript(String scriptSource, String fileName) throws ScriptException {
+        // File name is read from the engine context while compiling, hence compilations cannot run concurrently.
+        synchronized (engine) {
+            engine.getContext().setAttribute(ScriptEngine.FILENAME, fileName, ScriptContext.ENGINE_SCOPE);
+            return engine.compile(scriptSource);
+        }
+    }
+
+    private static class CompiledSource {
+
+        private final Object version;
+        private final CompiledScript script;
+
+        private CompiledSource(Object version, CompiledScript script) {
+            this.version = version;
+            this.script = script;
+        }
+    }
+}
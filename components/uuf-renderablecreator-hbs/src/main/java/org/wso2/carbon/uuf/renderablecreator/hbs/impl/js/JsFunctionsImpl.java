@@ -27,7 +27,6 @@ import com.google.gson.JsonSerializer;
 import jdk.nashorn.api.scripting.ScriptObjectMirror;
 import org.wso2.carbon.uuf.api.Placeholder;
 import org.wso2.carbon.uuf.core.API;
-import org.wso2.carbon.uuf.exception.FileOperationException;
 import org.wso2.carbon.uuf.exception.UUFException;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.CallMicroServiceFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.CallOSGiServiceFunction;
@@ -40,11 +39,9 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendErrorFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendRedirectFunction;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.js.SendToClientFunction;
 
-import javax.script.ScriptEngine;
+import javax.script.Bindings;
 import javax.script.ScriptException;
-import java.io.IOException;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -98,7 +95,8 @@ public class JsFunctionsImpl {
         return SEND_REDIRECT_FUNCTION;
     }
 
-    public static ModuleFunction getModuleFunction(String componentPath, ScriptEngine engine) {
+    public static ModuleFunction getModuleFunction(String componentPath, CompiledScriptCache scriptCache,
+                                                   Bindings bindings) {
         return moduleName -> {
             Path modulesDirPath = Paths.get(componentPath, "modules");
             Path jsFilePath = modulesDirPath.resolve(moduleName + ".js");
@@ -109,11 +107,7 @@ public class JsFunctionsImpl {
             }
 
             try {
-                String content = new String(Files.readAllBytes(jsFilePath), StandardCharsets.UTF_8);
-                engine.eval(content);
-            } catch (IOException e) {
-                throw new FileOperationException("Cannot read content of JavaScript module '" + moduleName +
-                                                         "' in component module directory '" + modulesDirPath + ".", e);
+                scriptCache.compileModule(jsFilePath).eval(bindings);
             } catch (ScriptException e) {
                 throw new UUFException("An error occurred while evaluating the JavaScript module '" + moduleName +
                                                "' in component module directory '" + modulesDirPath + ".", e);
@@ -17,49 +17,283 @@
 package org.wso2.carbon.uuf.renderablecreator.hbs.internal;
 
 import com.github.jknack.handlebars.Context;
-import com.github.jknack.handlebars.Handlebars;
-import com.github.jknack.handlebars.io.TemplateSource;
+import com.github.jknack.handlebars.HandlebarsError;
+import com.github.jknack.handlebars.HandlebarsException;
+import com.github.jknack.handlebars.Helper;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.TagType;
+import com.github.jknack.handlebars.Template;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.wso2.carbon.uuf.exception.UUFException;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.CacheableHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.IndependentHelper;
 import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.LayoutHelper;
 import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.init.SecuredHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime.DefinePlaceholderHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime.DefineZoneHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime.FillZoneHelper;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.runtime.FragmentHelper;
+import org.wso2.carbon.uuf.spi.RenderableCreator.RenderableReferences;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Extracts the declarations (layout, secured, cacheable, independent) and the references (fragments, zones,
+ * placeholders) of a Handlebars template.
+ * <p>
+ * The template compiled for rendering is walked node by node, so a template is compiled only once. Helper calls and
+ * blocks are recognized by their name, and only their literal parameters (strings, numbers and booleans) are read;
+ * nothing is rendered. The node classes of Handlebars are internal to the library, hence their fields are read
+ * reflectively. Runtime helpers are not involved, so rendering does not pay for pre-processing.
+ */
 public class HbsPreprocessor {
 
     public static final String DATA_KEY_CURRENT_LAYOUT = HbsPreprocessor.class.getName() + "#layout";
     public static final String DATA_KEY_IS_SECURED = HbsPreprocessor.class.getName() + "#secured";
-    private static final Handlebars HANDLEBARS = new Handlebars();
+    public static final String DATA_KEY_CACHE_KEY_QUERY_PARAMS = HbsPreprocessor.class.getName() + "#cacheable";
+    public static final String DATA_KEY_CACHE_KEY_PARAMS = HbsPreprocessor.class.getName() + "#cacheable-params";
+    public static final String DATA_KEY_RENDER_TIMEOUT = HbsPreprocessor.class.getName() + "#independent";
+    /**
+     * Helpers which declare properties of a page or a fragment. These are honoured only at the top level of a
+     * template.
+     */
+    private static final Map<String, Helper<Object>> INIT_HELPERS;
+    /**
+     * Names of the helpers which refer to fragments, zones and placeholders.
+     */
+    private static final Set<String> REFERENCE_HELPERS = ImmutableSet.of(FragmentHelper.HELPER_NAME,
+                                                                         DefineZoneHelper.HELPER_NAME,
+                                                                         FillZoneHelper.HELPER_NAME,
+                                                                         DefinePlaceholderHelper.HELPER_NAME);
+    /**
+     * Classes of the Handlebars parameter nodes whose values do not depend on the model.
+     */
+    private static final Set<String> LITERAL_PARAMS = ImmutableSet.of("StrParam", "DefParam");
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_PARAMS = "params";
+    private static final String FIELD_HASH = "hash";
+    private static final String FIELD_BODY = "body";
+    private static final String FIELD_INVERSE = "inverse";
 
     static {
-        HANDLEBARS.registerHelper(LayoutHelper.HELPER_NAME, new LayoutHelper());
-        HANDLEBARS.registerHelper(SecuredHelper.HELPER_NAME, new SecuredHelper());
-        HANDLEBARS.registerHelperMissing((context, options) -> "");
+        LayoutHelper layoutHelper = new LayoutHelper();
+        INIT_HELPERS = ImmutableMap.of(
+                LayoutHelper.HELPER_NAME,
+                (context, options) -> layoutHelper.apply((context instanceof String) ? (String) context : null,
+                                                         options),
+                SecuredHelper.HELPER_NAME, new SecuredHelper(),
+                CacheableHelper.HELPER_NAME, new CacheableHelper(),
+                IndependentHelper.HELPER_NAME, new IndependentHelper());
     }
 
-    private final Optional<String> layout;
-    private final boolean isSecured;
+    private final Context context;
+    private final Set<String> fragments;
+    private final Set<String> unconditionalFragments;
+    private final Set<String> zones;
+    private final Set<String> placeholders;
 
-    public HbsPreprocessor(TemplateSource template) {
-        String templatePath = template.filename();
-        Context context = Context.newContext(Collections.emptyMap());
-        try {
-            HANDLEBARS.compile(template).apply(context);
-        } catch (IOException e) {
-            throw new UUFException(
-                    "An error occurred when pre-processing the Handlebars template '" + templatePath + "'.", e);
-        }
-        layout = Optional.ofNullable(context.data(DATA_KEY_CURRENT_LAYOUT));
-        isSecured = Boolean.TRUE.equals(context.data(DATA_KEY_IS_SECURED));
+    /**
+     * Pre-processes the specified template.
+     *
+     * @param template template compiled for rendering
+     * @exception HandlebarsException if a declaration of the template is invalid
+     * @exception UUFException        if the template cannot be walked
+     */
+    public HbsPreprocessor(Template template) {
+        this.context = Context.newContext(Collections.emptyMap());
+        this.fragments = new HashSet<>();
+        this.unconditionalFragments = new HashSet<>();
+        this.zones = new HashSet<>();
+        this.placeholders = new HashSet<>();
+        visit(template, 0, false);
     }
 
     public Optional<String> getLayoutName() {
-        return layout;
+        return Optional.ofNullable(context.data(DATA_KEY_CURRENT_LAYOUT));
     }
 
     public boolean isSecured() {
-        return isSecured;
+        return Boolean.TRUE.equals(context.data(DATA_KEY_IS_SECURED));
+    }
+
+    /**
+     * @return names of the query parameters which vary the output if the template is declared as cacheable, otherwise
+     * empty
+     */
+    public Optional<Set<String>> getCacheKeyQueryParams() {
+        return Optional.ofNullable(context.data(DATA_KEY_CACHE_KEY_QUERY_PARAMS));
+    }
+
+    /**
+     * @return names of the fragment parameters which vary the output if the template is declared as cacheable,
+     * otherwise empty
+     */
+    public Optional<Set<String>> getCacheKeyParams() {
+        return Optional.ofNullable(context.data(DATA_KEY_CACHE_KEY_PARAMS));
+    }
+
+    /**
+     * @return {@code true} if the template is declared as independent of the other fragments of a zone
+     */
+    public boolean isIndependent() {
+        return context.data(DATA_KEY_RENDER_TIMEOUT) != null;
+    }
+
+    /**
+     * @return maximum time in milliseconds to wait for a concurrent render, or zero if the default timeout applies
+     */
+    public long getRenderTimeout() {
+        Long renderTimeout = context.data(DATA_KEY_RENDER_TIMEOUT);
+        return (renderTimeout == null) ? 0 : renderTimeout;
+    }
+
+    /**
+     * @return fragments, zones and placeholders referred in the template with literal names
+     */
+    public RenderableReferences getReferences() {
+        return new RenderableReferences(fragments, unconditionalFragments, zones, placeholders);
+    }
+
+    /**
+     * @param node          node of the compiled template
+     * @param blockDepth    number of blocks enclosing the node
+     * @param isConditional whether the node might not be rendered, i.e. is inside a block other than '#fillZone'
+     */
+    private void visit(Template node, int blockDepth, boolean isConditional) {
+        if (node instanceof Iterable) {
+            // A list of nodes, e.g. the whole template or the content of a block.
+            for (Object child : (Iterable<?>) node) {
+                visit((Template) child, blockDepth, isConditional);
+            }
+            return;
+        }
+        Field paramsField = findField(node, FIELD_PARAMS);
+        Field nameField = findField(node, FIELD_NAME);
+        if ((paramsField == null) || (nameField == null)) {
+            return; // Neither a variable nor a block, e.g. text or a partial.
+        }
+        String name = (String) readField(node, nameField);
+        List<?> params = (List<?>) readField(node, paramsField);
+        Field bodyField = findField(node, FIELD_BODY);
+
+        Helper<Object> initHelper = INIT_HELPERS.get(name);
+        if (initHelper != null) {
+            if (blockDepth == 0) {
+                applyInitHelper(node, name, initHelper, params, (bodyField != null));
+            }
+            return;
+        }
+        if (REFERENCE_HELPERS.contains(name) && !params.isEmpty()) {
+            Object firstParam = getLiteralValue(params.get(0));
+            if (firstParam instanceof String) {
+                addReference(name, (String) firstParam, isConditional);
+            }
+        }
+        if (bodyField != null) {
+            // Content of a block might not be rendered (e.g. '#if'), except the content of a '#fillZone' block.
+            boolean isContentConditional = isConditional || !FillZoneHelper.HELPER_NAME.equals(name);
+            Object body = readField(node, bodyField);
+            if (body instanceof Template) {
+                visit((Template) body, blockDepth + 1, isContentConditional);
+            }
+            Field inverseField = findField(node, FIELD_INVERSE);
+            Object inverse = (inverseField == null) ? null : readField(node, inverseField);
+            if (inverse instanceof Template) {
+                visit((Template) inverse, blockDepth + 1, isContentConditional);
+            }
+        }
+    }
+
+    private void addReference(String helperName, String name, boolean isConditional) {
+        if (FragmentHelper.HELPER_NAME.equals(helperName)) {
+            fragments.add(name);
+            if (!isConditional) {
+                unconditionalFragments.add(name);
+            }
+        } else if (DefinePlaceholderHelper.HELPER_NAME.equals(helperName)) {
+            placeholders.add(name);
+        } else {
+            zones.add(name);
+        }
+    }
+
+    private void applyInitHelper(Template node, String name, Helper<Object> initHelper, List<?> params,
+                                 boolean isBlock) {
+        Object helperContext = params.isEmpty() ? null : getLiteralValue(params.get(0));
+        Object[] helperParams = new Object[Math.max(params.size() - 1, 0)];
+        for (int i = 0; i < helperParams.length; i++) {
+            helperParams[i] = getLiteralValue(params.get(i + 1));
+        }
+        Map<String, Object> hash = new LinkedHashMap<>();
+        Field hashField = findField(node, FIELD_HASH);
+        if (hashField != null) {
+            ((Map<?, ?>) readField(node, hashField)).forEach((key, value) -> hash.put((String) key,
+                                                                                       getLiteralValue(value)));
+        }
+        Field typeField = findField(node, FIELD_TYPE);
+        Object type = (typeField == null) ? null : readField(node, typeField);
+        TagType tagType = isBlock ? TagType.SECTION : ((type instanceof TagType) ? (TagType) type : TagType.VAR);
+        Options options = new Options(null, name, tagType, context, Template.EMPTY, Template.EMPTY, helperParams,
+                                      hash, Collections.emptyList());
+        try {
+            initHelper.apply(helperContext, options);
+        } catch (IOException | RuntimeException e) {
+            int[] position = node.position();
+            String reason = e.getMessage();
+            String message = node.filename() + ":" + position[0] + ":" + position[1] + ": " + reason;
+            throw new HandlebarsException(new HandlebarsError(node.filename(), position[0], position[1], reason,
+                                                              node.text(), message), e);
+        }
+    }
+
+    /**
+     * @param param parameter node of a helper call
+     * @return value of the parameter if it is a literal, otherwise {@code null}
+     */
+    private Object getLiteralValue(Object param) {
+        if ((param == null) || !LITERAL_PARAMS.contains(param.getClass().getSimpleName())) {
+            return null;
+        }
+        try {
+            Method apply = param.getClass().getMethod("apply", Context.class);
+            apply.setAccessible(true);
+            return apply.invoke(param, context);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new UUFException("Cannot read parameter '" + param + "' of a Handlebars template.", e);
+        }
+    }
+
+    private static Field findField(Object node, String name) {
+        for (Class<?> type = node.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // Field might be declared in a super class.
+            }
+        }
+        return null;
+    }
+
+    private static Object readField(Object node, Field field) {
+        try {
+            return field.get(node);
+        } catch (IllegalAccessException e) {
+            throw new UUFException("Cannot read '" + field.getName() + "' of Handlebars template node '" + node + "'.",
+                                   e);
+        }
     }
 }
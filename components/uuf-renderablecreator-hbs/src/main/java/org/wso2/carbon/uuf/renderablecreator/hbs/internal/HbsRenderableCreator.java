@@ -31,6 +31,7 @@ import org.wso2.carbon.uuf.api.reference.FragmentReference;
 import org.wso2.carbon.uuf.api.reference.LayoutReference;
 import org.wso2.carbon.uuf.api.reference.PageReference;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.Executable;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsFragmentRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsLayoutRenderable;
@@ -41,7 +42,6 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.impl.MutableHbsLayoutRenderable
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.MutableHbsPageRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.impl.MutableJsExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.HbsRenderableUpdater;
-import org.wso2.carbon.uuf.spi.Renderable;
 import org.wso2.carbon.uuf.spi.RenderableCreator;
 
 import java.util.Objects;
@@ -58,11 +58,33 @@ public class HbsRenderableCreator implements RenderableCreator {
     private static final String EXTENSION_JAVASCRIPT = ".js";
     private static final Logger LOGGER = LoggerFactory.getLogger(HbsRenderableCreator.class);
 
+    private static final String PROPERTY_JS_EXECUTION_MODE = "uuf.js.executionMode";
+    private static final String PROPERTY_JS_POOL_SIZE = "uuf.js.poolSize";
+
     private final boolean isDevmodeEnabled;
+    private final JsExecutable.ExecutionMode jsExecutionMode;
+    private final int jsPoolSize;
     private final HbsRenderableUpdater updater;
 
     public HbsRenderableCreator() {
         this.isDevmodeEnabled = Boolean.parseBoolean(System.getProperties().getProperty("devmode", "false"));
+        String executionMode = System.getProperties().getProperty(PROPERTY_JS_EXECUTION_MODE, "shared");
+        try {
+            this.jsExecutionMode = JsExecutable.ExecutionMode.fromString(executionMode);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Value of system property '" + PROPERTY_JS_EXECUTION_MODE + "' must be one of 'shared', " +
+                            "'pooled' or 'thread-confined'. Instead found '" + executionMode + "'.", e);
+        }
+        String poolSize = System.getProperties().getProperty(PROPERTY_JS_POOL_SIZE);
+        try {
+            this.jsPoolSize = (poolSize == null) ? Runtime.getRuntime().availableProcessors() :
+                    Integer.parseInt(poolSize.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "Value of system property '" + PROPERTY_JS_POOL_SIZE + "' must be an integer. Instead found '" +
+                            poolSize + "'.", e);
+        }
         if (this.isDevmodeEnabled) {
             updater = new HbsRenderableUpdater();
         } else {
@@ -97,7 +119,7 @@ public class HbsRenderableCreator implements RenderableCreator {
         FileReference file = fragmentReference.getRenderingFile();
         TemplateSource templateSource = createTemplateSource(file);
         Executable executable = createExecutable(fragmentReference, classLoader);
-        Renderable fragmentRenderable;
+        HbsRenderable fragmentRenderable;
         if (isDevmodeEnabled) {
             MutableHbsFragmentRenderable mfr = new MutableHbsFragmentRenderable(templateSource,
                                                                                 file.getAbsolutePath(),
@@ -109,8 +131,12 @@ public class HbsRenderableCreator implements RenderableCreator {
             fragmentRenderable = new HbsFragmentRenderable(templateSource, file.getAbsolutePath(),
                                                            file.getRelativePath(), executable);
         }
-        boolean isSecured = new HbsPreprocessor(templateSource).isSecured();
-        return new RenderableCreator.FragmentRenderableData(fragmentRenderable, isSecured);
+        HbsPreprocessor preprocessor = new HbsPreprocessor(fragmentRenderable.getTemplate());
+        return new RenderableCreator.FragmentRenderableData(fragmentRenderable, preprocessor.isSecured(),
+                                                            preprocessor.getCacheKeyParams().orElse(null),
+                                                            preprocessor.getReferences(),
+                                                            preprocessor.isIndependent(),
+                                                            preprocessor.getRenderTimeout());
     }
 
     @Override
@@ -118,7 +144,7 @@ public class HbsRenderableCreator implements RenderableCreator {
         FileReference file = pageReference.getRenderingFile();
         TemplateSource templateSource = createTemplateSource(file);
         Executable executable = createExecutable(pageReference, classLoader);
-        Renderable pageRenderable;
+        HbsRenderable pageRenderable;
         if (isDevmodeEnabled) {
             MutableHbsPageRenderable mpr = new MutableHbsPageRenderable(templateSource, file.getAbsolutePath(),
                                                                         file.getRelativePath(),
@@ -129,16 +155,18 @@ public class HbsRenderableCreator implements RenderableCreator {
             pageRenderable = new HbsPageRenderable(templateSource, file.getAbsolutePath(), file.getRelativePath(),
                                                    executable);
         }
-        HbsPreprocessor preprocessor = new HbsPreprocessor(templateSource);
+        HbsPreprocessor preprocessor = new HbsPreprocessor(pageRenderable.getTemplate());
         String layoutName = preprocessor.getLayoutName().orElse(null);
-        return new RenderableCreator.PageRenderableData(pageRenderable, preprocessor.isSecured(), layoutName);
+        return new RenderableCreator.PageRenderableData(pageRenderable, preprocessor.isSecured(), layoutName,
+                                                        preprocessor.getCacheKeyQueryParams().orElse(null),
+                                                        preprocessor.getReferences());
     }
 
     @Override
     public LayoutRenderableData createLayoutRenderable(LayoutReference layoutReference) {
         FileReference file = layoutReference.getRenderingFile();
         TemplateSource templateSource = createTemplateSource(file);
-        Renderable layoutRenderable;
+        HbsRenderable layoutRenderable;
         if (isDevmodeEnabled) {
             MutableHbsLayoutRenderable mlr = new MutableHbsLayoutRenderable(templateSource, file.getAbsolutePath(),
                                                                             file.getRelativePath());
@@ -147,7 +175,8 @@ public class HbsRenderableCreator implements RenderableCreator {
         } else {
             layoutRenderable = new HbsLayoutRenderable(templateSource, file.getAbsolutePath(), file.getRelativePath());
         }
-        return new RenderableCreator.LayoutRenderableData(layoutRenderable);
+        HbsPreprocessor preprocessor = new HbsPreprocessor(layoutRenderable.getTemplate());
+        return new RenderableCreator.LayoutRenderableData(layoutRenderable, preprocessor.getReferences());
     }
 
     private TemplateSource createTemplateSource(FileReference fileReference) {
@@ -176,11 +205,13 @@ public class HbsRenderableCreator implements RenderableCreator {
         if (isDevmodeEnabled) {
             return new MutableJsExecutable(executableFileReference.getContent(), classLoader,
                                            executableFileReference.getAbsolutePath(),
-                                           executableFileReference.getRelativePath(), componentReference.getPath());
+                                           executableFileReference.getRelativePath(), componentReference.getPath(),
+                                           jsExecutionMode, jsPoolSize);
         } else {
             return new JsExecutable(executableFileReference.getContent(), classLoader,
                                     executableFileReference.getAbsolutePath(),
-                                    executableFileReference.getRelativePath(), componentReference.getPath());
+                                    executableFileReference.getRelativePath(), componentReference.getPath(),
+                                    jsExecutionMode, jsPoolSize);
         }
     }
 
@@ -28,7 +28,6 @@ import org.wso2.carbon.uuf.api.reference.LayoutReference;
 import org.wso2.carbon.uuf.api.reference.PageReference;
 import org.wso2.carbon.uuf.exception.FileOperationException;
 import org.wso2.carbon.uuf.exception.UUFException;
-import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableExecutable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.core.MutableHbsRenderable;
 
 import java.io.IOException;
@@ -44,7 +43,6 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -55,13 +53,16 @@ public class HbsRenderableUpdater {
 
     private final Set<Path> watchingDirectories;
     private final ConcurrentMap<Path, MutableHbsRenderable> watchingRenderables;
-    private final ConcurrentMap<Path, MutableExecutable> watchingExecutables;
+    /**
+     * Renderables of the watching executables. key = path of the executable, value = renderable of the executable
+     */
+    private final ConcurrentMap<Path, MutableHbsRenderable> watchingExecutables;
     private final WatchService watcher;
     private final Thread watchService;
     private boolean isWatchServiceStopped;
 
     public HbsRenderableUpdater() {
-        this.watchingDirectories = new HashSet<>();
+        this.watchingDirectories = ConcurrentHashMap.newKeySet();
         this.watchingRenderables = new ConcurrentHashMap<>();
         this.watchingExecutables = new ConcurrentHashMap<>();
         try {
@@ -103,7 +104,7 @@ public class HbsRenderableUpdater {
         }
         watchingRenderables.put(renderablePath, mutableRenderable);
         mutableRenderable.getMutableExecutable()
-                .ifPresent(me -> watchingExecutables.put(Paths.get(me.getPath()), me));
+                .ifPresent(me -> watchingExecutables.put(Paths.get(me.getPath()), mutableRenderable));
     }
 
     public void start() {
@@ -153,6 +154,7 @@ public class HbsRenderableUpdater {
                             try {
                                 mutableRenderable.reload(new StringTemplateSource(mutableRenderable.getComponentPath(),
                                                                                   readFileContent(entry)));
+                                mutableRenderable.notifyUpdated();
                                 LOGGER.info("Handlebars template '{}' reloaded successfully.", entry);
                             } catch (IOException e) {
                                 LOGGER.error("An error occurred while reloading Handlebars template '{}'.", entry, e);
@@ -165,11 +167,12 @@ public class HbsRenderableUpdater {
                             continue;
                         }
 
-                        MutableExecutable mutableExecutable = watchingExecutables.get(entry);
-                        if (mutableExecutable != null) {
+                        MutableHbsRenderable executableRenderable = watchingExecutables.get(entry);
+                        if (executableRenderable != null) {
                             // Updated file is a MutableExecutable
                             try {
-                                mutableExecutable.reload(readFileContent(entry));
+                                executableRenderable.getMutableExecutable().get().reload(readFileContent(entry));
+                                executableRenderable.notifyUpdated();
                                 LOGGER.info("JavaScript file '{}' reloaded successfully.", entry);
                             } catch (IOException e) {
                                 LOGGER.error("An error occurred while reloading JavaScript file '{}'.", entry, e);
@@ -16,65 +16,127 @@
 
 package org.wso2.carbon.uuf.renderablecreator.hbs.internal.io;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.spi.StreamingContent;
+
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * A writer which buffers rendered content around placeholders, so that placeholders can be filled after the whole
+ * template is rendered.
+ * <p>
+ * Literal text segments of compiled templates are written through {@link #writeLiteral(TemplateLiteral)}. Such
+ * segments are immutable, hence they are kept by reference instead of being copied, and their pre-encoded bytes are
+ * reused when writing to an {@link OutputStream}. Interpreted templates write each of their text nodes as the same
+ * character array on every render, hence arrays written through {@link #write(char[])} are also kept as shared
+ * literals as long as their content is unchanged. Everything else written through the {@link Writer} methods is
+ * copied.
+ */
 public class PlaceholderWriter extends Writer {
 
+    private static final int WRITE_CHUNK_SIZE = 8192;
+    /**
+     * Minimum length of a literal to be kept by reference. Shorter ones are cheaper to copy.
+     */
+    private static final int MIN_LITERAL_LENGTH = 32;
+    /**
+     * Literals of the character arrays written through {@link #write(char[])}, compared by identity. An entry is
+     * removed when its array is garbage collected, e.g. when the template is reloaded.
+     */
+    private static final Cache<char[], TemplateLiteral> ARRAY_LITERALS = CacheBuilder.newBuilder().weakKeys().build();
+
     private List<Object> buffers;
     private StringBuilder currentBuffer;
 
     public PlaceholderWriter() {
         buffers = new ArrayList<>();
-        currentBuffer = new StringBuilder();
-        buffers.add(currentBuffer);
+        currentBuffer = null;
+    }
+
+    private StringBuilder currentBuffer() {
+        if (currentBuffer == null) {
+            currentBuffer = new StringBuilder();
+            buffers.add(currentBuffer);
+        }
+        return currentBuffer;
     }
 
     @Override
     public Writer append(final char c) throws IOException {
-        currentBuffer.append(c);
+        currentBuffer().append(c);
         return this;
     }
 
     @Override
     public Writer append(final CharSequence csq) throws IOException {
-        currentBuffer.append(csq);
+        currentBuffer().append(csq);
         return this;
     }
 
     @Override
     public Writer append(final CharSequence csq, final int start, final int end) throws IOException {
-        currentBuffer.append(csq, start, end);
+        currentBuffer().append(csq, start, end);
         return this;
     }
 
     @Override
     public void write(final char[] buffer) throws IOException {
-        currentBuffer.append(buffer);
+        if (buffer.length < MIN_LITERAL_LENGTH) {
+            currentBuffer().append(buffer);
+            return;
+        }
+        TemplateLiteral literal = ARRAY_LITERALS.getIfPresent(buffer);
+        if ((literal == null) || !literal.contentEquals(buffer)) {
+            // First write of this array, or the array is reused by its writer with a different content.
+            literal = new TemplateLiteral(new String(buffer));
+            ARRAY_LITERALS.put(buffer, literal);
+        }
+        writeLiteral(literal);
     }
 
     @Override
     public void write(final int c) throws IOException {
-        currentBuffer.append((char) c);
+        currentBuffer().append((char) c);
     }
 
     @Override
     public void write(final String str) throws IOException {
-        currentBuffer.append(str);
+        currentBuffer().append(str);
     }
 
     @Override
     public void write(final String str, final int off, final int len) throws IOException {
-        currentBuffer.append(str, off, len);
+        currentBuffer().append(str, off, len);
     }
 
     @Override
     public void write(final char[] buffer, final int off, final int len) throws IOException {
-        currentBuffer.append(buffer, off, len);
+        currentBuffer().append(buffer, off, len);
+    }
+
+    /**
+     * Writes the specified literal segment of a template. The literal is kept by reference rather than copied.
+     *
+     * @param literal literal to write
+     */
+    public void writeLiteral(TemplateLiteral literal) {
+        if (literal.length() < MIN_LITERAL_LENGTH) {
+            currentBuffer().append(literal.getText());
+        } else {
+            buffers.add(literal);
+            currentBuffer = null;
+        }
     }
 
     @Override
@@ -93,26 +155,118 @@ public class PlaceholderWriter extends Writer {
 
     public void addPlaceholder(String placeholderName, String defaultContent) {
         buffers.add(new PlaceholderMarker(placeholderName, defaultContent));
-        currentBuffer = new StringBuilder();
-        buffers.add(currentBuffer);
+        currentBuffer = null;
     }
 
     public String toString(Map<String, String> placeholderValues) {
-        StringBuilder output = new StringBuilder();
+        int length = 0;
+        for (Object item : buffers) {
+            if (item instanceof PlaceholderMarker) {
+                length += ((PlaceholderMarker) item).getContent(placeholderValues).length();
+            } else if (item instanceof TemplateLiteral) {
+                length += ((TemplateLiteral) item).length();
+            } else {
+                length += ((StringBuilder) item).length();
+            }
+        }
+
+        StringBuilder output = new StringBuilder(length);
         for (Object item : buffers) {
             if (item instanceof PlaceholderMarker) {
                 // This is a marked placeholder.
-                PlaceholderMarker marker = (PlaceholderMarker) item;
-                String placeholderValue = placeholderValues.get(marker.getName());
-                output.append((placeholderValue == null) ? marker.getDefaultContent().orElse("") : placeholderValue);
+                output.append(((PlaceholderMarker) item).getContent(placeholderValues));
+            } else if (item instanceof TemplateLiteral) {
+                // This is a literal segment.
+                output.append(((TemplateLiteral) item).getText());
             } else {
                 // This is a normal string buffer.
-                output.append(item);
+                output.append((StringBuilder) item);
             }
         }
         return output.toString();
     }
 
+    /**
+     * Writes the buffered content to the specified writer, filling placeholders with the specified values. Buffers are
+     * written one after another, hence the whole content is never copied into a single string.
+     *
+     * @param writer            writer to write
+     * @param placeholderValues placeholder values
+     * @throws IOException if an I/O error occurred when writing
+     */
+    public void writeTo(Writer writer, Map<String, String> placeholderValues) throws IOException {
+        char[] chunk = null;
+        for (Object item : buffers) {
+            if (item instanceof PlaceholderMarker) {
+                // This is a marked placeholder.
+                writer.write(((PlaceholderMarker) item).getContent(placeholderValues));
+            } else if (item instanceof TemplateLiteral) {
+                // This is a literal segment.
+                writer.write(((TemplateLiteral) item).getText());
+            } else {
+                // This is a normal string buffer. Copy it through a reusable chunk instead of 'toString()'.
+                if (chunk == null) {
+                    chunk = new char[WRITE_CHUNK_SIZE];
+                }
+                writeChunked((StringBuilder) item, writer, chunk);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered content to the specified stream encoded in UTF-8, filling placeholders with the specified
+     * values. Literal segments are written as pre-encoded bytes.
+     *
+     * @param outputStream      stream to write
+     * @param placeholderValues placeholder values
+     * @throws IOException if an I/O error occurred when writing
+     */
+    public void writeTo(OutputStream outputStream, Map<String, String> placeholderValues) throws IOException {
+        // Flushing this writer should only move the encoded bytes to the stream, not flush the stream.
+        Writer writer = new OutputStreamWriter(new NonFlushingOutputStream(outputStream), StandardCharsets.UTF_8);
+        char[] chunk = null;
+        for (Object item : buffers) {
+            if (item instanceof PlaceholderMarker) {
+                // This is a marked placeholder.
+                writer.write(((PlaceholderMarker) item).getContent(placeholderValues));
+            } else if (item instanceof TemplateLiteral) {
+                // This is a literal segment.
+                writer.flush();
+                outputStream.write(((TemplateLiteral) item).getEncodedText());
+            } else {
+                // This is a normal string buffer.
+                if (chunk == null) {
+                    chunk = new char[WRITE_CHUNK_SIZE];
+                }
+                writeChunked((StringBuilder) item, writer, chunk);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Creates a streaming content which writes the buffered content of this writer and closes it. Placeholders are
+     * filled with the values in the specified request lookup at the time of writing.
+     *
+     * @param requestLookup request lookup
+     * @return streaming content of this writer
+     */
+    public StreamingContent toStreamingContent(RequestLookup requestLookup) {
+        return new StreamingContent() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                PlaceholderWriter.this.writeTo(writer, requestLookup.getPlaceholderContents());
+                close();
+            }
+
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                PlaceholderWriter.this.writeTo(outputStream, requestLookup.getPlaceholderContents());
+                close();
+            }
+        };
+    }
+
     @Override
     public String toString() {
         StringBuilder output = new StringBuilder();
@@ -121,6 +275,9 @@ public class PlaceholderWriter extends Writer {
                 // This is a marked placeholder.
                 PlaceholderMarker marker = (PlaceholderMarker) item;
                 output.append(marker.getDefaultContent().orElse(null));
+            } else if (item instanceof TemplateLiteral) {
+                // This is a literal segment.
+                output.append(((TemplateLiteral) item).getText());
             } else {
                 // This is a normal string buffer.
                 output.append(item);
@@ -129,6 +286,14 @@ public class PlaceholderWriter extends Writer {
         return output.toString();
     }
 
+    private static void writeChunked(StringBuilder buffer, Writer writer, char[] chunk) throws IOException {
+        for (int start = 0; start < buffer.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, buffer.length());
+            buffer.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+        }
+    }
+
     private static class PlaceholderMarker {
 
         private final String name;
@@ -150,5 +315,26 @@ public class PlaceholderWriter extends Writer {
         public Optional<String> getDefaultContent() {
             return Optional.ofNullable(defaultContent);
         }
+
+        public String getContent(Map<String, String> placeholderValues) {
+            String placeholderValue = placeholderValues.get(name);
+            return (placeholderValue == null) ? getDefaultContent().orElse("") : placeholderValue;
+        }
+    }
+
+    private static class NonFlushingOutputStream extends FilterOutputStream {
+
+        private NonFlushingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
     }
 }
@@ -0,0 +1,73 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.renderablecreator.hbs.internal.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An immutable literal text segment of a template, e.g. the markup between two tags. Its UTF-8 encoded bytes are
+ * computed once, so that {@link PlaceholderWriter} can write it to a stream without encoding it on every render.
+ *
+ * @see PlaceholderWriter#writeLiteral(TemplateLiteral)
+ * @since 1.0.0
+ */
+public final class TemplateLiteral {
+
+    private final String text;
+    private final byte[] encodedText;
+
+    public TemplateLiteral(String text) {
+        this.text = text;
+        this.encodedText = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * @param chars characters to compare
+     * @return {@code true} if this literal consists of the specified characters
+     */
+    boolean contentEquals(char[] chars) {
+        if (chars.length != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return UTF-8 encoded bytes of this literal, which must not be modified
+     */
+    byte[] getEncodedText() {
+        return encodedText;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
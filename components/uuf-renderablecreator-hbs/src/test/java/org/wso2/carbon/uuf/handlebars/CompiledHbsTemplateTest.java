@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars;
+
+import com.github.jknack.handlebars.Context;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Options;
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.github.jknack.handlebars.io.TemplateSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.CompiledHbsTemplate;
+import org.wso2.carbon.uuf.renderablecreator.hbs.helpers.registry.HbsHelperRegistry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CompiledHbsTemplateTest {
+
+    private static final Handlebars HANDLEBARS = new Handlebars().with(new HbsHelperRegistry());
+
+    private static CompiledHbsTemplate compile(String sourceStr) throws IOException {
+        TemplateSource templateSource = new StringTemplateSource("<test-source>", sourceStr);
+        return CompiledHbsTemplate.compile(templateSource, HANDLEBARS.compile(templateSource), HANDLEBARS);
+    }
+
+    @Test
+    public void testCompiledTemplate() throws IOException {
+        CompiledHbsTemplate template = compile("<h1>{{heading}}</h1>{{{html}}}{{& html}}{{! comment }}" +
+                                                       "<p>{{user.name}} {{count}} {{flag}}</p>" +
+                                                       "{{#each items}}<li>{{this}}</li>{{/each}}" +
+                                                       "{{#if flag}}yes{{else}}no{{/if}}{{user}}");
+        Assert.assertTrue(template.isCompiled());
+
+        Map<String, Object> model = new HashMap<>();
+        model.put("heading", "<Home>");
+        model.put("html", "<b>bold</b>");
+        model.put("user", ImmutableMap.of("name", "Alice"));
+        model.put("count", 3);
+        model.put("flag", true);
+        model.put("items", ImmutableList.of("a", "b"));
+        String output = template.apply(Context.newContext(model));
+        Assert.assertEquals(output, template.getTemplate().apply(Context.newContext(model)));
+        Assert.assertTrue(output.startsWith("<h1>&lt;Home&gt;</h1><b>bold</b><b>bold</b><p>Alice 3 true</p>" +
+                                                    "<li>a</li><li>b</li>yes"));
+    }
+
+    @Test
+    public void testParentContextValues() throws IOException {
+        CompiledHbsTemplate template = compile("{{name}} of {{parentName}}");
+        Assert.assertTrue(template.isCompiled());
+
+        Context parentContext = Context.newContext(ImmutableMap.of("parentName", "parent"));
+        Context context = Context.newContext(parentContext, ImmutableMap.of("name", "child"));
+        Assert.assertEquals(template.apply(context), "child of parent");
+    }
+
+    @Test
+    public void testHelperCalls() throws IOException {
+        List<Boolean> directCalls = new ArrayList<>();
+        HbsHelperRegistry helperRegistry = new HbsHelperRegistry();
+        helperRegistry.registerHelper("greet", (Object context, Options options) -> {
+            directCalls.add(Arrays.stream(Thread.currentThread().getStackTrace())
+                                    .noneMatch(element -> element.getClassName().startsWith(
+                                            "com.github.jknack.handlebars.internal.")));
+            return context + ", " + options.params[0] + options.hash.getOrDefault("punctuation", "");
+        });
+        Handlebars handlebars = new Handlebars().with(helperRegistry);
+        TemplateSource templateSource = new StringTemplateSource(
+                "<test-source>", "<p>{{greet \"<Hi>\" user.name punctuation=\"!\"}}</p>" +
+                "{{{greet \"<Hi>\" user.name punctuation=mark}}}{{greet (greet \"a\" \"b\") \"c\"}}");
+        CompiledHbsTemplate template = CompiledHbsTemplate.compile(templateSource,
+                                                                   handlebars.compile(templateSource), handlebars);
+        Assert.assertTrue(template.isCompiled());
+
+        Map<String, Object> model = ImmutableMap.of("user", ImmutableMap.of("name", "Alice"), "mark", "?");
+        String output = template.apply(Context.newContext(model));
+        Assert.assertEquals(output, "<p>&lt;Hi&gt;, Alice!</p><Hi>, Alice?a, b, c");
+        // Helper calls with subexpressions are interpreted.
+        Assert.assertEquals(directCalls, ImmutableList.of(true, true, false, false));
+        Assert.assertEquals(output, template.getTemplate().apply(Context.newContext(model)));
+    }
+
+    @Test
+    public void testInterpretedTemplates() throws IOException {
+        Assert.assertFalse(compile("A plain template without variables.").isCompiled());
+        Assert.assertFalse(compile("{{~name}} is trimmed").isCompiled());
+        Assert.assertFalse(compile("\\{{name}} is escaped").isCompiled());
+    }
+}
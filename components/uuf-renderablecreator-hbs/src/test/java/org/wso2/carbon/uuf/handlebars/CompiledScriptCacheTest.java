@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.js.CompiledScriptCache;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import javax.script.CompiledScript;
+
+public class CompiledScriptCacheTest {
+
+    private static CompiledScriptCache createCache() {
+        // A fresh class loader gets a fresh cache, hence tests do not see scripts compiled by other tests.
+        return CompiledScriptCache.of(new URLClassLoader(new URL[0], CompiledScriptCacheTest.class.getClassLoader()));
+    }
+
+    @Test
+    public void testCacheIsSharedPerClassLoader() {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], CompiledScriptCacheTest.class.getClassLoader());
+        CompiledScriptCache cache = CompiledScriptCache.of(classLoader);
+        Assert.assertSame(CompiledScriptCache.of(classLoader), cache);
+        Assert.assertNotSame(createCache(), cache);
+    }
+
+    @Test
+    public void testScriptIsKeyedByContent() {
+        CompiledScriptCache cache = createCache();
+        CompiledScript script = cache.compile("var x = 1;", "a.js");
+
+        Assert.assertSame(cache.compile("var x = 1;", "a.js"), script);
+        CompiledScript changedScript = cache.compile("var x = 2;", "a.js");
+        Assert.assertNotSame(changedScript, script);
+        Assert.assertSame(cache.compile("var x = 2;", "a.js"), changedScript);
+        Assert.assertNotSame(cache.compile("var x = 2;", "b.js"), changedScript);
+    }
+
+    @Test
+    public void testScriptWithoutFileNameIsNotCached() {
+        CompiledScriptCache cache = createCache();
+        Assert.assertNotSame(cache.compile("var x = 1;", null), cache.compile("var x = 1;", null));
+    }
+
+    @Test
+    public void testModuleIsInvalidatedByModifiedTime() throws IOException {
+        CompiledScriptCache cache = createCache();
+        Path modulePath = Files.createTempFile("module", ".js");
+        try {
+            Files.write(modulePath, "var x = 1;".getBytes(StandardCharsets.UTF_8));
+            FileTime lastModifiedTime = Files.getLastModifiedTime(modulePath);
+            CompiledScript script = cache.compileModule(modulePath);
+            Assert.assertSame(cache.compileModule(modulePath), script);
+
+            Files.setLastModifiedTime(modulePath, FileTime.fromMillis(lastModifiedTime.toMillis() + 1000));
+            CompiledScript modifiedScript = cache.compileModule(modulePath);
+            Assert.assertNotSame(modifiedScript, script);
+            Assert.assertSame(cache.compileModule(modulePath), modifiedScript);
+        } finally {
+            Files.delete(modulePath);
+        }
+    }
+}
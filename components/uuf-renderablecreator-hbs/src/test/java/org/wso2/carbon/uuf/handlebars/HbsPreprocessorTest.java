@@ -18,17 +18,23 @@ package org.wso2.carbon.uuf.handlebars;
 
 import com.github.jknack.handlebars.HandlebarsError;
 import com.github.jknack.handlebars.HandlebarsException;
+import com.github.jknack.handlebars.Template;
 import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.google.common.collect.ImmutableSet;
 import org.testng.Assert;
 import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.HbsRenderable;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.HbsPreprocessor;
+import org.wso2.carbon.uuf.spi.RenderableCreator.RenderableReferences;
 
 import java.util.Optional;
+import java.util.Set;
 
 public class HbsPreprocessorTest {
 
     private static HbsPreprocessor createHbsPagePreprocessor(String pageTemplateContent) {
-        return new HbsPreprocessor(new StringTemplateSource("<test-source>", pageTemplateContent));
+        Template template = HbsRenderable.compile(new StringTemplateSource("<test-source>", pageTemplateContent));
+        return new HbsPreprocessor(template);
     }
 
     @Test
@@ -58,4 +64,65 @@ public class HbsPreprocessorTest {
         boolean isSecured = createHbsPagePreprocessor(templateContent).isSecured();
         Assert.assertTrue(isSecured, "This page/fragment is secured");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCacheable() {
+        String templateContent = "foo\n{{cacheable queryParams=\"sort, page\"}}bla bla\nfoobar";
+        Optional<Set<String>> queryParams = createHbsPagePreprocessor(templateContent).getCacheKeyQueryParams();
+        Assert.assertTrue(queryParams.isPresent(), "This page is cacheable");
+        Assert.assertEquals(queryParams.get(), ImmutableSet.of("sort", "page"));
+
+        Assert.assertFalse(createHbsPagePreprocessor("foo\nbar").getCacheKeyQueryParams().isPresent());
+    }
+
+    @Test
+    public void testCacheableFragment() {
+        String templateContent = "{{cacheable params=\"title,active\"}}<li>{{title}}</li>";
+        Optional<Set<String>> params = createHbsPagePreprocessor(templateContent).getCacheKeyParams();
+        Assert.assertTrue(params.isPresent(), "This fragment is cacheable");
+        Assert.assertEquals(params.get(), ImmutableSet.of("title", "active"));
+
+        Assert.assertFalse(createHbsPagePreprocessor("<li>{{title}}</li>").getCacheKeyParams().isPresent());
+    }
+
+    @Test
+    public void testIndependentFragment() {
+        HbsPreprocessor preprocessor = createHbsPagePreprocessor("{{independent timeout=2000}}<li>{{title}}</li>");
+        Assert.assertTrue(preprocessor.isIndependent(), "This fragment is independent");
+        Assert.assertEquals(preprocessor.getRenderTimeout(), 2000L);
+
+        Assert.assertFalse(createHbsPagePreprocessor("<li>{{title}}</li>").isIndependent());
+    }
+
+    @Test
+    public void testReferences() {
+        String templateContent = "{{fragment \"menu\"}}\n{{defineZone \"content\"}}\n{{placeholder \"title\"}}\n" +
+                "{{#fillZone \"footer\"}}{{fragment \"org.example.footer\"}}{{/fillZone}}";
+        RenderableReferences references = createHbsPagePreprocessor(templateContent).getReferences();
+        Assert.assertEquals(references.getFragments(), ImmutableSet.of("menu", "org.example.footer"));
+        Assert.assertEquals(references.getZones(), ImmutableSet.of("content", "footer"));
+        Assert.assertEquals(references.getPlaceholders(), ImmutableSet.of("title"));
+    }
+
+    @Test
+    public void testUnconditionalFragments() {
+        String templateContent = "{{fragment \"menu\"}}\n" +
+                "{{#fillZone \"footer\"}}{{fragment \"footer\"}}{{/fillZone}}\n" +
+                "{{#if @user}}{{fragment \"profile\"}}{{else}}{{fragment \"login\"}}{{/if}}\n" +
+                "{{#fillZone \"sidebar\"}}{{#each items}}{{fragment \"item\"}}{{/each}}{{/fillZone}}";
+        RenderableReferences references = createHbsPagePreprocessor(templateContent).getReferences();
+        Assert.assertEquals(references.getFragments(), ImmutableSet.of("menu", "footer", "profile", "login", "item"));
+        Assert.assertEquals(references.getUnconditionalFragments(), ImmutableSet.of("menu", "footer"));
+    }
+
+    @Test
+    public void testInitHelpersInsideBlocks() {
+        String templateContent = "{{#if @user}}{{secured}}{{layout \"user-layout\"}}{{/if}}\n" +
+                "{{#fillZone \"content\"}}{{cacheable}}{{/fillZone}}";
+        HbsPreprocessor preprocessor = createHbsPagePreprocessor(templateContent);
+        Assert.assertFalse(preprocessor.isSecured(), "'secured' inside a block should be ignored");
+        Assert.assertFalse(preprocessor.getLayoutName().isPresent(), "'layout' inside a block should be ignored");
+        Assert.assertFalse(preprocessor.getCacheKeyQueryParams().isPresent(),
+                           "'cacheable' inside a block should be ignored");
+    }
+}
@@ -35,15 +35,23 @@ import org.wso2.carbon.uuf.renderablecreator.hbs.model.ContextModel;
 import org.wso2.carbon.uuf.spi.HttpRequest;
 import org.wso2.carbon.uuf.spi.model.Model;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class HbsRenderableTest {
@@ -114,6 +122,22 @@ public class HbsRenderableTest {
         Assert.assertEquals(output, "Hello Alice! Have a good day.");
     }
 
+    @Test
+    public void testRequestVariables() {
+        Lookup lookup = createLookup();
+        RequestLookup requestLookup = createRequestLookup();
+        API api = createAPI();
+        HbsPageRenderable pageRenderable = createPageRenderable("{{@contextPath}} {{@params.name}}");
+        HbsFragmentRenderable fragmentRenderable = createFragmentRenderable("{{#if @user}}user{{else}}guest{{/if}}");
+
+        String output = pageRenderable.render(new MapModel(ImmutableMap.of("name", "Bob")), lookup, requestLookup, api);
+        Assert.assertEquals(output, "/contextPath Bob");
+        verify(api, never()).getSession();
+        output = fragmentRenderable.render(createModel(), lookup, requestLookup, api);
+        Assert.assertEquals(output, "guest");
+        verify(api, times(1)).getSession();
+    }
+
     @Test
     public void testFragmentTemplate() {
         final String templateContent = "A Plain Handlebars template of a fragment.";
@@ -180,4 +204,43 @@ public class HbsRenderableTest {
         String output = pageRenderable.render(createModel(), lookup, requestLookup, createAPI());
         Assert.assertEquals(output, "X zone content Y");
     }
+
+    @Test
+    public void testSharedLiteralsOfInterpretedTemplate() throws IOException {
+        final String literal = "<div class=\"header\"><h1>A literal which is long enough to be shared</h1></div>";
+        HbsPageRenderable pageRenderable = createPageRenderable(literal + "{{@params.name}}");
+        Model model = new MapModel(ImmutableMap.of("name", "Bob"));
+        List<byte[]> firstWrites = new ArrayList<>();
+        List<byte[]> secondWrites = new ArrayList<>();
+
+        RecordingOutputStream firstOutput = new RecordingOutputStream(firstWrites);
+        pageRenderable.renderStreaming(model, createLookup(), createRequestLookup(), createAPI()).writeTo(firstOutput);
+        RecordingOutputStream secondOutput = new RecordingOutputStream(secondWrites);
+        pageRenderable.renderStreaming(model, createLookup(), createRequestLookup(), createAPI()).writeTo(secondOutput);
+        Assert.assertEquals(new String(secondOutput.toByteArray(), StandardCharsets.UTF_8), literal + "Bob");
+        // The literal is written as the same pre-encoded bytes in both renders, i.e. it was not copied.
+        byte[] encodedLiteral = firstWrites.stream()
+                .filter(bytes -> new String(bytes, StandardCharsets.UTF_8).equals(literal))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Literal should be written as pre-encoded bytes."));
+        Assert.assertTrue(secondWrites.stream().anyMatch(bytes -> bytes == encodedLiteral));
+    }
+
+    /**
+     * An output stream which records the arrays written to it.
+     */
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+
+        private final List<byte[]> writes;
+
+        private RecordingOutputStream(List<byte[]> writes) {
+            this.writes = writes;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) {
+            writes.add(bytes);
+            super.write(bytes, offset, length);
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.JsExecutable;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.JsExecutable.ExecutionMode;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class JsExecutableTest {
+
+    private static final String SCRIPT = "var executions = 0;\n" +
+            "function onRequest(context) {\n" +
+            "    executions++;\n" +
+            "    if (context) {\n" +
+            "        context.run();\n" +
+            "    }\n" +
+            "    return executions;\n" +
+            "}";
+
+    private static JsExecutable createExecutable(ExecutionMode executionMode, int poolSize) {
+        return new JsExecutable(SCRIPT, JsExecutableTest.class.getClassLoader(), "/test/pool.js", "pool.js",
+                                "/test", executionMode, poolSize);
+    }
+
+    private static int execute(JsExecutable executable, Runnable context) {
+        return ((Number) executable.execute(context, null)).intValue();
+    }
+
+    @DataProvider
+    public Object[][] pooledExecutionModes() {
+        return new Object[][]{{ExecutionMode.POOLED}, {ExecutionMode.THREAD_CONFINED}};
+    }
+
+    @Test
+    public void testPooledEnginesAreCheckedOutInTurn() {
+        JsExecutable executable = createExecutable(ExecutionMode.POOLED, 2);
+        // Each engine has its own global scope, hence its own execution count.
+        Assert.assertEquals(execute(executable, null), 1);
+        Assert.assertEquals(execute(executable, null), 1);
+        Assert.assertEquals(execute(executable, null), 2);
+        Assert.assertEquals(execute(executable, null), 2);
+    }
+
+    @Test
+    public void testThreadConfinedEngineIsReused() {
+        JsExecutable executable = createExecutable(ExecutionMode.THREAD_CONFINED, 2);
+        Assert.assertEquals(execute(executable, null), 1);
+        Assert.assertEquals(execute(executable, null), 2);
+        Assert.assertEquals(execute(executable, null), 3);
+    }
+
+    @Test(dataProvider = "pooledExecutionModes")
+    public void testWaitForReleasedEngine(ExecutionMode executionMode) throws Exception {
+        JsExecutable executable = createExecutable(executionMode, 1);
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> execute(executable, () -> {
+                executing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            Assert.assertTrue(executing.await(5, TimeUnit.SECONDS));
+            Future<Integer> second = executor.submit(() -> execute(executable, null));
+            Thread.sleep(200);
+            Assert.assertFalse(second.isDone(), "Execution should wait while the only engine is checked out.");
+
+            release.countDown();
+            Assert.assertEquals((int) first.get(5, TimeUnit.SECONDS), 1);
+            Assert.assertEquals((int) second.get(5, TimeUnit.SECONDS), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(dataProvider = "pooledExecutionModes")
+    public void testEngineIsReleasedAfterError(ExecutionMode executionMode) throws Exception {
+        JsExecutable executable = createExecutable(executionMode, 1);
+        try {
+            execute(executable, () -> {
+                throw new IllegalStateException("Cannot execute.");
+            });
+            Assert.fail("Execution should fail.");
+        } catch (RuntimeException e) {
+            // Expected.
+        }
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> next = executor.submit(() -> execute(executable, null));
+            Assert.assertEquals((int) next.get(5, TimeUnit.SECONDS), 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
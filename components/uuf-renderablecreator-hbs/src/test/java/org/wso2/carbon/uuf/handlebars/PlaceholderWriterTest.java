@@ -19,9 +19,16 @@ package org.wso2.carbon.uuf.handlebars;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.PlaceholderWriter;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.io.TemplateLiteral;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PlaceholderWriterTest {
@@ -60,4 +67,79 @@ public class PlaceholderWriterTest {
         Assert.assertEquals(output, expectedOutput);
         placeholderWriter.close();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWriteTo() throws IOException {
+        PlaceholderWriter placeholderWriter = new PlaceholderWriter();
+        placeholderWriter.write("<head>");
+        placeholderWriter.addPlaceholder("css");
+        placeholderWriter.addPlaceholder("headJs", "<script></script>");
+        placeholderWriter.write("</head>");
+        Map<String, String> placeholderValues = new HashMap<>(1);
+        placeholderValues.put("css", "<link/>");
+        StringWriter writer = new StringWriter();
+        placeholderWriter.writeTo(writer, placeholderValues);
+        Assert.assertEquals(writer.toString(), "<head><link/><script></script></head>");
+        Assert.assertEquals(writer.toString(), placeholderWriter.toString(placeholderValues));
+        placeholderWriter.close();
+    }
+
+    @Test
+    public void testWriteToStream() throws IOException {
+        TemplateLiteral literal = new TemplateLiteral(
+                "<html><head><meta charset=\"utf-8\"><title>\u00dcnicode</title>");
+        PlaceholderWriter placeholderWriter = new PlaceholderWriter();
+        placeholderWriter.writeLiteral(literal);
+        placeholderWriter.addPlaceholder("css");
+        placeholderWriter.write("</head><body>\u00e9</body>");
+        placeholderWriter.writeLiteral(literal);
+        Map<String, String> placeholderValues = new HashMap<>(1);
+        placeholderValues.put("css", "<link/>");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        placeholderWriter.writeTo(outputStream, placeholderValues);
+        Assert.assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8),
+                            placeholderWriter.toString(placeholderValues));
+        placeholderWriter.close();
+    }
+
+    @Test
+    public void testReusedCharArray() throws IOException {
+        char[] buffer = "0123456789012345678901234567890123456789".toCharArray();
+        PlaceholderWriter placeholderWriter = new PlaceholderWriter();
+        placeholderWriter.write(buffer);
+        Arrays.fill(buffer, 'x');
+        placeholderWriter.write(buffer);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        placeholderWriter.writeTo(outputStream, new HashMap<>());
+        String expectedOutput = "0123456789012345678901234567890123456789" + new String(buffer);
+        Assert.assertEquals(new String(outputStream.toByteArray(), StandardCharsets.UTF_8), expectedOutput);
+        Assert.assertEquals(placeholderWriter.toString(), expectedOutput);
+        placeholderWriter.close();
+    }
+
+    @Test
+    public void testSharedCharArray() throws IOException {
+        // Interpreted templates write a text node as the same array on every render.
+        char[] textNode = "<div class=\"header\"><h1>Shared text node</h1></div>".toCharArray();
+        List<byte[]> firstWrites = writeToStream(textNode);
+        List<byte[]> secondWrites = writeToStream(textNode);
+        Assert.assertEquals(firstWrites.size(), 1);
+        Assert.assertEquals(new String(firstWrites.get(0), StandardCharsets.UTF_8), new String(textNode));
+        Assert.assertSame(secondWrites.get(0), firstWrites.get(0), "Text node should be written as a shared literal.");
+    }
+
+    private static List<byte[]> writeToStream(char[] buffer) throws IOException {
+        List<byte[]> writes = new ArrayList<>();
+        PlaceholderWriter placeholderWriter = new PlaceholderWriter();
+        placeholderWriter.write(buffer);
+        placeholderWriter.writeTo(new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                writes.add(bytes);
+                super.write(bytes, offset, length);
+            }
+        }, new HashMap<>());
+        placeholderWriter.close();
+        return writes;
+    }
+}
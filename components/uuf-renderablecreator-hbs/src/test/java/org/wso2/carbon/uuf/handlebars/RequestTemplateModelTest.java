@@ -0,0 +1,56 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.renderablecreator.hbs.core.RequestTemplateModel;
+
+import java.util.Map;
+
+public class RequestTemplateModelTest {
+
+    @Test
+    public void testExecutableContext() {
+        Lookup lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Test App")));
+        RequestLookup requestLookup = new RequestLookup("/test", null, null);
+        Map<String, Object> context = RequestTemplateModel.of(lookup, requestLookup, null).newExecutableContext(null);
+        Assert.assertEquals(context.get("contextPath"), "/test");
+        Assert.assertFalse(context.containsKey("title"));
+
+        // Executables can use the context as a scratch map.
+        Assert.assertNull(context.put("title", "Devices"));
+        Assert.assertEquals(context.get("title"), "Devices");
+        Assert.assertEquals(context.put("contextPath", "/other"), "/test");
+        Assert.assertEquals(context.get("contextPath"), "/other");
+        Assert.assertEquals(context.remove("contextPath"), "/other");
+        Assert.assertFalse(context.containsKey("contextPath"));
+        Assert.assertEquals(context.get("title"), "Devices");
+        Assert.assertTrue(context.entrySet().stream().anyMatch(entry -> entry.getKey().equals("title")));
+        Assert.assertFalse(context.keySet().contains("contextPath"));
+
+        context.clear();
+        Assert.assertTrue(context.isEmpty());
+        context.put("contextPath", "/again");
+        Assert.assertEquals(context.get("contextPath"), "/again");
+    }
+}
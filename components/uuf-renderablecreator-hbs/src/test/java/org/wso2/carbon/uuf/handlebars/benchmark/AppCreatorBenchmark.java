@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars.benchmark;
+
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.internal.deployment.AppCreator;
+import org.wso2.carbon.uuf.internal.io.ArtifactAppReference;
+import org.wso2.carbon.uuf.renderablecreator.hbs.internal.HbsRenderableCreator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time taken to create the sample apps.
+ * <p>
+ * Extract the built sample apps into a directory (e.g. {@code deployment/uufapps} of the product) and run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.handlebars.benchmark.AppCreatorBenchmark
+ * -Duuf.benchmark.appsRepository=<directory>}. The first iteration of each fork is a cold start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 10)
+@Fork(3)
+public class AppCreatorBenchmark {
+
+    private static final String PROPERTY_APPS_REPOSITORY = "uuf.benchmark.appsRepository";
+
+    @Param({"org.wso2.carbon.uuf.sample.pets-store", "org.wso2.carbon.uuf.sample.devices-store",
+            "org.wso2.carbon.uuf.sample.features-app"})
+    private String appName;
+
+    private Path appPath;
+    private AppCreator appCreator;
+
+    @Setup
+    public void setup() {
+        Path appsRepository = Paths.get(System.getProperty(PROPERTY_APPS_REPOSITORY, "."));
+        appPath = appsRepository.resolve(appName).toAbsolutePath();
+        if (!Files.isDirectory(appPath)) {
+            throw new IllegalStateException("Cannot find extracted app '" + appName + "' in '" + appsRepository +
+                                                    "'. Set '" + PROPERTY_APPS_REPOSITORY + "' system property.");
+        }
+        ClassLoader classLoader = AppCreatorBenchmark.class.getClassLoader();
+        appCreator = new AppCreator(ImmutableSet.of(new HbsRenderableCreator()),
+                                    (componentName, componentVersion, componentReference) -> classLoader);
+    }
+
+    @Benchmark
+    public App createApp() {
+        return appCreator.createApp(new ArtifactAppReference(appPath), null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AppCreatorBenchmark.class.getSimpleName())
+                           .jvmArgsAppend("-D" + PROPERTY_APPS_REPOSITORY + "=" +
+                                                  System.getProperty(PROPERTY_APPS_REPOSITORY, "."))
+                           .build()).run();
+    }
+}
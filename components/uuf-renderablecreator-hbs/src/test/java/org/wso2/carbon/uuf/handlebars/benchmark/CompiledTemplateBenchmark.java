@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars.benchmark;
+
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.API;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Layout;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.RequestLookup;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsLayoutRenderable;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsPageRenderable;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares rendering the echo page of the perf-benchmark with interpreted Handlebars templates against rendering it
+ * with templates compiled into Java segments.
+ * <p>
+ * Run from this module with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.handlebars.benchmark.CompiledTemplateBenchmark}. Set {@code
+ * uuf.benchmark.projectRoot} system property if the project root is not {@code ../..}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompiledTemplateBenchmark {
+
+    private static final String PROPERTY_PROJECT_ROOT = "uuf.benchmark.projectRoot";
+    private static final String PAGE_PATH = "perf-benchmark/tests/handlebars-n-msf4j/" +
+            "org.wso2.carbon.uuf.sample.perf-bnchmrk/pages/test/{name}.hbs";
+    private static final String LAYOUT_PATH = "samples/components/org.wso2.carbon.uuf.sample.foundation/src/main/" +
+            "layouts/main.hbs";
+
+    @Param({"false", "true"})
+    private boolean compileTemplates;
+
+    private Component component;
+    private Lookup lookup;
+    private HttpRequest request;
+    private API api;
+
+    @Setup
+    public void setup() throws IOException {
+        Path projectRoot = Paths.get(System.getProperty(PROPERTY_PROJECT_ROOT, "../.."));
+        System.setProperty("uuf.hbs.compileTemplates", Boolean.toString(compileTemplates));
+        HbsPageRenderable pageRenderable = new HbsPageRenderable(
+                readTemplate(projectRoot, PAGE_PATH), (context, api) -> ImmutableMap.of("name", "benchmark"));
+        HbsLayoutRenderable layoutRenderable = new HbsLayoutRenderable(readTemplate(projectRoot, LAYOUT_PATH));
+        if (compileTemplates != layoutRenderable.getCompiledTemplate().isCompiled()) {
+            throw new IllegalStateException("Layout is not compiled as expected.");
+        }
+        Layout layout = new Layout("root.main", layoutRenderable);
+        Page page = new Page(new UriPatten("/test/{name}"), pageRenderable, false, layout);
+        component = new Component("root", "1.0.0", "", new TreeSet<>(Collections.singleton(page)), null);
+
+        lookup = new Lookup(HashMultimap.create(), new Configuration(ImmutableMap.of("appName", "Perf Benchmark")));
+        lookup.add(component);
+        request = mock(HttpRequest.class);
+        when(request.getQueryParams()).thenReturn(Collections.emptyMap());
+        api = mock(API.class);
+        when(api.getSession()).thenReturn(Optional.empty());
+    }
+
+    @Benchmark
+    public String renderPage() {
+        RequestLookup requestLookup = new RequestLookup("/perf", request, null);
+        return component.renderPage("/test/benchmark", null, lookup, requestLookup, api).get();
+    }
+
+    private static StringTemplateSource readTemplate(Path projectRoot, String path) throws IOException {
+        Path templatePath = projectRoot.resolve(path);
+        if (!Files.isRegularFile(templatePath)) {
+            throw new IllegalStateException("Cannot find template '" + templatePath + "'. Set '" +
+                                                    PROPERTY_PROJECT_ROOT + "' system property.");
+        }
+        return new StringTemplateSource(path, new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CompiledTemplateBenchmark.class.getSimpleName())
+                           .addProfiler("gc").build()).run();
+    }
+}
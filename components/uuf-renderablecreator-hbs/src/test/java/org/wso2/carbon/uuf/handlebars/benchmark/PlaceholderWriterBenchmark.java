@@ -0,0 +1,158 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.uuf.handlebars.benchmark;
+
+import com.github.jknack.handlebars.io.StringTemplateSource;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.uuf.api.config.Configuration;
+import org.wso2.carbon.uuf.core.App;
+import org.wso2.carbon.uuf.core.Component;
+import org.wso2.carbon.uuf.core.Layout;
+import org.wso2.carbon.uuf.core.Lookup;
+import org.wso2.carbon.uuf.core.Page;
+import org.wso2.carbon.uuf.core.UriPatten;
+import org.wso2.carbon.uuf.internal.auth.SessionRegistry;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsLayoutRenderable;
+import org.wso2.carbon.uuf.renderablecreator.hbs.impl.HbsPageRenderable;
+import org.wso2.carbon.uuf.spi.HttpRequest;
+import org.wso2.carbon.uuf.spi.HttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares serving pages of the sample apps as strings against writing them directly to a stream with pre-encoded
+ * literal segments. Pages are rendered with the main layout of the foundation sample component.
+ * <p>
+ * Run from this module with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.wso2.carbon.uuf.handlebars.benchmark.PlaceholderWriterBenchmark}. Set {@code
+ * uuf.benchmark.projectRoot} system property if the project root is not {@code ../..}. Allocations per render are
+ * reported by the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PlaceholderWriterBenchmark {
+
+    private static final String PROPERTY_PROJECT_ROOT = "uuf.benchmark.projectRoot";
+    private static final String LAYOUT_PATH = "samples/components/org.wso2.carbon.uuf.sample.foundation/src/main/" +
+            "layouts/main.hbs";
+    private static final ImmutableMap<String, String> PAGE_PATHS = ImmutableMap.of(
+            "/features", "samples/apps/org.wso2.carbon.uuf.sample.features-app/src/main/pages/index.hbs",
+            "/login", "samples/components/org.wso2.carbon.uuf.sample.simple-auth/src/main/pages/login.hbs",
+            "/test/{name}", "perf-benchmark/tests/handlebars-n-msf4j/org.wso2.carbon.uuf.sample.perf-bnchmrk/pages/" +
+                    "test/{name}.hbs");
+    private static final ImmutableMap<String, Object> PAGE_MODEL = ImmutableMap.of("name", "benchmark");
+
+    @Param({"/features", "/login", "/test/benchmark"})
+    private String pageUri;
+
+    private App app;
+    private HttpRequest request;
+    private HttpResponse response;
+    private OutputStream sink;
+
+    @Setup
+    public void setup() throws IOException {
+        Path projectRoot = Paths.get(System.getProperty(PROPERTY_PROJECT_ROOT, "../.."));
+        Layout layout = new Layout("root.main", new HbsLayoutRenderable(readTemplate(projectRoot, LAYOUT_PATH)));
+        SortedSet<Page> pages = new TreeSet<>();
+        for (Map.Entry<String, String> entry : PAGE_PATHS.entrySet()) {
+            HbsPageRenderable pageRenderable = new HbsPageRenderable(readTemplate(projectRoot, entry.getValue()),
+                                                                     (context, api) -> PAGE_MODEL);
+            pages.add(new Page(new UriPatten(entry.getKey()), pageRenderable, false, layout));
+        }
+        Component component = new Component(Component.ROOT_COMPONENT_NAME, "1.0.0",
+                                            Component.ROOT_COMPONENT_CONTEXT_PATH, pages, null);
+        Lookup lookup = new Lookup(HashMultimap.create(),
+                                   new Configuration(ImmutableMap.of("appName", "Placeholder Writer Benchmark")));
+        lookup.add(component);
+        lookup.add(layout);
+        app = new App("benchmark", "/benchmark", lookup, Collections.emptySet(), new SessionRegistry("benchmark"));
+
+        request = mock(HttpRequest.class);
+        when(request.getContextPath()).thenReturn("/benchmark");
+        when(request.getUriWithoutContextPath()).thenReturn(pageUri);
+        when(request.getQueryParams()).thenReturn(Collections.emptyMap());
+        when(request.getHeaders()).thenReturn(Collections.emptyMap());
+        response = mock(HttpResponse.class);
+        when(response.getHeaders()).thenReturn(Collections.emptyMap());
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+
+    @Benchmark
+    public void renderToString() throws IOException {
+        sink.write(app.renderPageStreaming(request, response).asString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void renderToStream() throws IOException {
+        app.renderPageStreaming(request, response).writeTo(sink);
+    }
+
+    private static StringTemplateSource readTemplate(Path projectRoot, String path) throws IOException {
+        Path templatePath = projectRoot.resolve(path);
+        if (!Files.isRegularFile(templatePath)) {
+            throw new IllegalStateException("Cannot find template '" + templatePath + "'. Set '" +
+                                                    PROPERTY_PROJECT_ROOT + "' system property.");
+        }
+        return new StringTemplateSource(path, new String(Files.readAllBytes(templatePath), StandardCharsets.UTF_8));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PlaceholderWriterBenchmark.class.getSimpleName())
+                           .addProfiler("gc").build()).run();
+    }
+}
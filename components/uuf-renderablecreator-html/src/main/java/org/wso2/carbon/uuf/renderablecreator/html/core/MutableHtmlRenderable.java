@@ -21,17 +21,28 @@ import org.wso2.carbon.uuf.core.Lookup;
 import org.wso2.carbon.uuf.core.RequestLookup;
 import org.wso2.carbon.uuf.spi.model.Model;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 public class MutableHtmlRenderable extends HtmlRenderable {
 
     private volatile String html;
+    private final List<Runnable> updateListeners;
 
     public MutableHtmlRenderable(String html, String absoluteFilePath, String relativeFilePath) {
         super(html, absoluteFilePath, relativeFilePath);
         this.html = html;
+        this.updateListeners = new CopyOnWriteArrayList<>();
     }
 
     public void setHtml(String content) {
         this.html = content;
+        updateListeners.forEach(Runnable::run);
+    }
+
+    @Override
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
     }
 
     @Override
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.uuf.tools;
+
+import org.apache.commons.io.FilenameUtils;
+import org.wso2.carbon.uuf.exception.FileOperationException;
+import org.wso2.carbon.uuf.internal.io.StaticResolver;
+import org.wso2.carbon.uuf.internal.io.StaticResourceCache;
+import org.wso2.carbon.uuf.internal.io.util.MimeMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.wso2.carbon.uuf.spi.HttpResponse.CONTENT_TYPE_WILDCARD;
+
+/**
+ * Creates precompressed gzip variants of the static resources in the {@code public} directories of an app, a
+ * component or a theme, so that {@link StaticResolver} does not need to compress them at runtime.
+ * <p>
+ * This is meant to be run when packaging an artifact, e.g. {@code java -jar
+ * target/org.wso2.carbon.uuf.tools-<version>.jar <artifact-directory>}. Packaging this module copies the runtime
+ * dependencies into the {@code lib} directory next to the jar, which the manifest of the jar refers to.
+ */
+public class StaticResourceCompressor {
+
+    private static final String EXTENSION_GZIP = StaticResourceCache.ContentEncoding.GZIP.getFileExtension();
+
+    private StaticResourceCompressor() {
+    }
+
+    /**
+     * Creates a gzip variant for each compressible static resource in the specified directory which does not have an
+     * up-to-date variant yet. Variants which are not smaller than their original files are not created.
+     *
+     * @param directory directory of an app, a component or a theme
+     * @return number of created variants
+     * @exception FileOperationException if a file cannot be read or written
+     */
+    public static int compress(Path directory) {
+        List<Path> resources;
+        try (Stream<Path> files = Files.walk(directory)) {
+            resources = files.filter(Files::isRegularFile)
+                    .filter(StaticResourceCompressor::isCompressibleResource)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new FileOperationException("Cannot list files in directory '" + directory + "'.", e);
+        }
+
+        int count = 0;
+        for (Path resource : resources) {
+            Path variant = resource.resolveSibling(resource.getFileName() + EXTENSION_GZIP);
+            try {
+                if (Files.exists(variant) &&
+                        !Files.getLastModifiedTime(variant).toInstant()
+                                .isBefore(Files.getLastModifiedTime(resource).toInstant())) {
+                    continue; // Variant is up-to-date.
+                }
+                byte[] content = Files.readAllBytes(resource);
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 2);
+                try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+                    gzipOutputStream.write(content);
+                }
+                if (outputStream.size() < content.length) {
+                    Files.write(variant, outputStream.toByteArray());
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new FileOperationException("Cannot create gzip variant of static resource '" + resource + "'.",
+                                                 e);
+            }
+        }
+        return count;
+    }
+
+    private static boolean isCompressibleResource(Path file) {
+        // Static resources are served only from 'public' directories.
+        boolean isPublicResource = false;
+        for (Path name : file.getParent()) {
+            if (StaticResolver.DIR_NAME_PUBLIC_RESOURCES.equals(name.toString())) {
+                isPublicResource = true;
+                break;
+            }
+        }
+        String extension = FilenameUtils.getExtension(file.getFileName().toString());
+        return isPublicResource &&
+                StaticResourceCache.isCompressible(MimeMapper.getMimeType(extension).orElse(CONTENT_TYPE_WILDCARD));
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: StaticResourceCompressor <directory>...");
+            System.exit(1);
+        }
+        for (String directory : args) {
+            int count = compress(Paths.get(directory));
+            System.out.println("Created " + count + " gzip variants in '" + directory + "'.");
+        }
+    }
+}